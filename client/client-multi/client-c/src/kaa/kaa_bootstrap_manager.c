@@ -165,11 +165,10 @@ static kaa_error_t add_operations_access_point(kaa_bootstrap_manager_t *self
 
     if (channel_it) {
         kaa_operations_access_points_t *operations_access_points = kaa_list_get_data(channel_it);
-        kaa_list_node_t *access_point_it = kaa_list_push_front(operations_access_points->access_points
-                                                             , access_point);
+        /* Keep the order of the server list: the Bootstrap server puts the least loaded servers first */
+        kaa_list_node_t *access_point_it = kaa_list_push_back(operations_access_points->access_points
+                                                            , access_point);
         KAA_RETURN_IF_NIL(access_point_it, KAA_ERR_NOMEM);
-
-        operations_access_points->current_access_points = access_point_it;
     } else {
         kaa_operations_access_points_t *operations_access_points =
                 (kaa_operations_access_points_t *)KAA_CALLOC(1, sizeof(kaa_operations_access_points_t));
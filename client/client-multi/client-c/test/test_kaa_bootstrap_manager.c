@@ -328,7 +328,7 @@ void test_handle_server_sync(void)
     ASSERT_EQUAL(error_code, KAA_ERR_NONE);
 
     ASSERT_NOT_NULL(protocol1_channel_context.access_point);
-    ASSERT_EQUAL(protocol1_channel_context.access_point->id, access_point2_protocol1->id);
+    ASSERT_EQUAL(protocol1_channel_context.access_point->id, access_point1_protocol1->id);
 
     ASSERT_NULL(protocol3_channel_context.access_point);
 
@@ -347,7 +347,7 @@ void test_handle_server_sync(void)
                                                             , KAA_SERVER_OPERATIONS);
     ASSERT_EQUAL(error_code, KAA_ERR_NONE);
     ASSERT_NOT_NULL(protocol1_channel_context.access_point);
-    ASSERT_EQUAL(protocol1_channel_context.access_point->id, access_point1_protocol1->id);
+    ASSERT_EQUAL(protocol1_channel_context.access_point->id, access_point2_protocol1->id);
 
     error_code = kaa_bootstrap_manager_on_access_point_failed(protocol1_channel_context.transport_context.kaa_context->bootstrap_manager
                                                             , &protocol1_channel_context.protocol_info
@@ -20,7 +20,6 @@
 #include <cstdlib>
 #include <cstdint>
 #include <algorithm>
-#include <random>
 
 #include "kaa/KaaDefaults.hpp"
 #include "kaa/logging/Log.hpp"
@@ -183,11 +182,8 @@ void BootstrapManager::onServerListUpdated(const std::vector<ProtocolMetaData>&
         servers.push_back(connectionInfo);
     }
 
+    /* Keep the order of the server list: the Bootstrap server puts the least loaded servers first */
     for (auto& transportSpecificServers : operationServers_) {
-        std::shuffle (transportSpecificServers.second.begin()
-                      , transportSpecificServers.second.end()
-                      , std::default_random_engine(std::chrono::high_resolution_clock::now().time_since_epoch().count()));
-
         lastOperationsServers_[transportSpecificServers.first] =
                 transportSpecificServers.second.begin();
     }
@@ -17,7 +17,6 @@
 package org.kaaproject.kaa.client.bootstrap;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -167,8 +166,8 @@ public class DefaultBootstrapManager implements BootstrapManager {
             }
             servers.add(server);
         }
+        // Keep the order of the server list: the Bootstrap server puts the least loaded servers first
         for (Map.Entry<TransportProtocolId, List<ProtocolMetaData>> entry : mappedOperationServerList.entrySet()) {
-            Collections.shuffle(entry.getValue());
             mappedIterators.put(entry.getKey(), entry.getValue().iterator());
         }
         if (serverToApply != null) {
@@ -44,6 +44,10 @@ import org.slf4j.LoggerFactory;
 public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDataDemultiplexer {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultOperationDataProcessor.class);
+
+    /** By default every 10th request and response is dumped when TRACE logging is enabled. */
+    public static final int DEFAULT_TRACE_SAMPLE_RATE = 10;
+
     private final AtomicInteger   requestsCounter = new AtomicInteger(0);
     private final AvroByteArrayConverter<SyncRequest> requestConverter = new AvroByteArrayConverter<>(SyncRequest.class);
     private final AvroByteArrayConverter<SyncResponse> responseConverter = new AvroByteArrayConverter<>(SyncResponse.class);
@@ -58,10 +62,34 @@ public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDat
     private LogTransport logTransport;
     
     private final KaaClientState state;
-    
+    private final OperationDataMetrics metrics;
+    private volatile int traceSampleRate = DEFAULT_TRACE_SAMPLE_RATE;
+
     public DefaultOperationDataProcessor(KaaClientState state) {
+        this(state, new OperationDataMetrics());
+    }
+
+    public DefaultOperationDataProcessor(KaaClientState state, OperationDataMetrics metrics) {
         super();
         this.state = state;
+        this.metrics = metrics;
+    }
+
+    public OperationDataMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets how often full requests and responses are rendered to the log
+     * when TRACE level is enabled: 1 dumps every message, N dumps every N-th one.
+     *
+     * @param traceSampleRate the sample rate, must be positive
+     */
+    public void setTraceSampleRate(int traceSampleRate) {
+        if (traceSampleRate <= 0) {
+            throw new IllegalArgumentException("Trace sample rate must be positive: " + traceSampleRate);
+        }
+        this.traceSampleRate = traceSampleRate;
     }
 
     public synchronized void setRedirectionTransport(RedirectionTransport redirectionTransport) {
@@ -101,8 +129,12 @@ public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDat
         if (response != null) {
             try {
                 SyncResponse syncResponse = responseConverter.fromByteArray(response);
-    
-                LOG.info("Received Sync response: {}", syncResponse);
+                metrics.onResponse(syncResponse, response.length);
+
+                LOG.debug("Received Sync response [requestId: {}, size: {}]", syncResponse.getRequestId(), response.length);
+                if (LOG.isTraceEnabled() && isSampled(metrics.getResponseCount())) {
+                    LOG.trace("Received Sync response: {}", syncResponse);
+                }
                 if (syncResponse.getConfigurationSyncResponse() != null && configurationTransport != null) {
                     configurationTransport.onConfigurationResponse(syncResponse.getConfigurationSyncResponse());
                 }
@@ -190,12 +222,22 @@ public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDat
                         return null; //NOSONAR
                 }
             }
-            LOG.info("Created Sync request: {}", request);
-            return requestConverter.toByteArray(request);
+            byte[] data = requestConverter.toByteArray(request);
+            metrics.onRequest(request, data.length);
+
+            LOG.debug("Created Sync request [requestId: {}, size: {}]", request.getRequestId(), data.length);
+            if (LOG.isTraceEnabled() && isSampled(metrics.getRequestCount())) {
+                LOG.trace("Created Sync request: {}", request);
+            }
+            return data;
         }
         return null; //NOSONAR
     }
 
+    private boolean isSampled(long messageNumber) {
+        return messageNumber % traceSampleRate == 0;
+    }
+
     @Override
     public void preProcess() {
         if (eventTransport != null) {
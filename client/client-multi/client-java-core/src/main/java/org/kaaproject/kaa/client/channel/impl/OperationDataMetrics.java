@@ -0,0 +1,297 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.Event;
+import org.kaaproject.kaa.common.endpoint.gen.LogEntry;
+import org.kaaproject.kaa.common.endpoint.gen.Notification;
+import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponse;
+
+/**
+ * Lightweight counters collected by {@link DefaultOperationDataProcessor}:
+ * bytes sent and received, per-transport section counts and payload sizes,
+ * and a histogram of the time between a sync request and its response.
+ *
+ * <p>Payload sizes are the sizes of the opaque application bodies (log
+ * records, events, notifications, configuration and profile bodies) and are
+ * read directly from the decoded buffers, so collecting them never re-encodes
+ * or renders a message. All getters are thread safe.</p>
+ */
+public class OperationDataMetrics {
+
+    /** Upper bounds (inclusive, in milliseconds) of the sync latency histogram buckets. */
+    private static final long[] LATENCY_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    /** Maximum number of requests awaiting a response that are tracked for latency. */
+    private static final int MAX_PENDING_REQUESTS = 64;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong responseCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private final Map<TransportType, AtomicLong> requestSections = createCounters();
+    private final Map<TransportType, AtomicLong> responseSections = createCounters();
+    private final Map<TransportType, AtomicLong> payloadBytesSent = createCounters();
+    private final Map<TransportType, AtomicLong> payloadBytesReceived = createCounters();
+
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BOUNDS.length + 1);
+    private final AtomicLong latencyTotal = new AtomicLong();
+
+    private final Map<Integer, Long> pendingRequests = new LinkedHashMap<Integer, Long>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > MAX_PENDING_REQUESTS;
+        }
+    };
+
+    /**
+     * Records a compiled sync request.
+     *
+     * @param request the request
+     * @param size    the encoded size of the request in bytes
+     */
+    public void onRequest(SyncRequest request, int size) {
+        requestCount.incrementAndGet();
+        bytesSent.addAndGet(size);
+        if (request.getProfileSyncRequest() != null) {
+            onSection(TransportType.PROFILE, requestSections, payloadBytesSent,
+                    sizeOf(request.getProfileSyncRequest().getProfileBody()));
+        }
+        if (request.getConfigurationSyncRequest() != null) {
+            onSection(TransportType.CONFIGURATION, requestSections, payloadBytesSent, 0);
+        }
+        if (request.getNotificationSyncRequest() != null) {
+            onSection(TransportType.NOTIFICATION, requestSections, payloadBytesSent, 0);
+        }
+        if (request.getUserSyncRequest() != null) {
+            onSection(TransportType.USER, requestSections, payloadBytesSent, 0);
+        }
+        if (request.getEventSyncRequest() != null) {
+            onSection(TransportType.EVENT, requestSections, payloadBytesSent,
+                    eventsSize(request.getEventSyncRequest().getEvents()));
+        }
+        if (request.getLogSyncRequest() != null) {
+            onSection(TransportType.LOGGING, requestSections, payloadBytesSent,
+                    logEntriesSize(request.getLogSyncRequest().getLogEntries()));
+        }
+        if (request.getRequestId() != null) {
+            synchronized (pendingRequests) {
+                pendingRequests.put(request.getRequestId(), System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Records a received sync response.
+     *
+     * @param response the decoded response
+     * @param size     the encoded size of the response in bytes
+     */
+    public void onResponse(SyncResponse response, int size) {
+        responseCount.incrementAndGet();
+        bytesReceived.addAndGet(size);
+        if (response.getProfileSyncResponse() != null) {
+            onSection(TransportType.PROFILE, responseSections, payloadBytesReceived, 0);
+        }
+        if (response.getConfigurationSyncResponse() != null) {
+            ConfigurationSyncResponse configuration = response.getConfigurationSyncResponse();
+            onSection(TransportType.CONFIGURATION, responseSections, payloadBytesReceived,
+                    sizeOf(configuration.getConfSchemaBody()) + sizeOf(configuration.getConfDeltaBody()));
+        }
+        if (response.getNotificationSyncResponse() != null) {
+            onSection(TransportType.NOTIFICATION, responseSections, payloadBytesReceived,
+                    notificationsSize(response.getNotificationSyncResponse().getNotifications()));
+        }
+        if (response.getUserSyncResponse() != null) {
+            onSection(TransportType.USER, responseSections, payloadBytesReceived, 0);
+        }
+        if (response.getEventSyncResponse() != null) {
+            onSection(TransportType.EVENT, responseSections, payloadBytesReceived,
+                    eventsSize(response.getEventSyncResponse().getEvents()));
+        }
+        if (response.getLogSyncResponse() != null) {
+            onSection(TransportType.LOGGING, responseSections, payloadBytesReceived, 0);
+        }
+        if (response.getRequestId() != null) {
+            Long sentAt;
+            synchronized (pendingRequests) {
+                sentAt = pendingRequests.remove(response.getRequestId());
+            }
+            if (sentAt != null) {
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt));
+            }
+        }
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getResponseCount() {
+        return responseCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * @param type the transport type
+     * @return the number of sent requests which contained a section of the given transport
+     */
+    public long getRequestCount(TransportType type) {
+        return requestSections.get(type).get();
+    }
+
+    /**
+     * @param type the transport type
+     * @return the number of received responses which contained a section of the given transport
+     */
+    public long getResponseCount(TransportType type) {
+        return responseSections.get(type).get();
+    }
+
+    /**
+     * @param type the transport type
+     * @return the total size of application payloads sent by the given transport
+     */
+    public long getPayloadBytesSent(TransportType type) {
+        return payloadBytesSent.get(type).get();
+    }
+
+    /**
+     * @param type the transport type
+     * @return the total size of application payloads received by the given transport
+     */
+    public long getPayloadBytesReceived(TransportType type) {
+        return payloadBytesReceived.get(type).get();
+    }
+
+    /**
+     * @return the inclusive upper bounds of the latency histogram buckets in milliseconds;
+     *         the histogram has one more (overflow) bucket than there are bounds
+     */
+    public long[] getSyncLatencyBounds() {
+        return LATENCY_BOUNDS.clone();
+    }
+
+    /**
+     * @return a snapshot of the sync latency histogram
+     */
+    public long[] getSyncLatencyHistogram() {
+        long[] snapshot = new long[latencyHistogram.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = latencyHistogram.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the average sync latency in milliseconds, or 0 if no response has been matched yet
+     */
+    public double getAverageSyncLatency() {
+        long count = 0;
+        for (int i = 0; i < latencyHistogram.length(); i++) {
+            count += latencyHistogram.get(i);
+        }
+        return count == 0 ? 0 : (double) latencyTotal.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationDataMetrics [requests=" + requestCount + ", responses=" + responseCount + ", bytesSent="
+                + bytesSent + ", bytesReceived=" + bytesReceived + ", averageSyncLatency=" + getAverageSyncLatency() + "]";
+    }
+
+    private void recordLatency(long latency) {
+        int bucket = 0;
+        while (bucket < LATENCY_BOUNDS.length && latency > LATENCY_BOUNDS[bucket]) {
+            bucket++;
+        }
+        latencyHistogram.incrementAndGet(bucket);
+        latencyTotal.addAndGet(latency);
+    }
+
+    private static void onSection(TransportType type, Map<TransportType, AtomicLong> sections,
+                                  Map<TransportType, AtomicLong> payloadBytes, long payloadSize) {
+        sections.get(type).incrementAndGet();
+        if (payloadSize > 0) {
+            payloadBytes.get(type).addAndGet(payloadSize);
+        }
+    }
+
+    private static Map<TransportType, AtomicLong> createCounters() {
+        Map<TransportType, AtomicLong> counters = new EnumMap<>(TransportType.class);
+        for (TransportType type : TransportType.values()) {
+            counters.put(type, new AtomicLong());
+        }
+        return counters;
+    }
+
+    private static long sizeOf(ByteBuffer buffer) {
+        return buffer != null ? buffer.remaining() : 0;
+    }
+
+    private static long logEntriesSize(List<LogEntry> entries) {
+        long size = 0;
+        if (entries != null) {
+            for (LogEntry entry : entries) {
+                size += sizeOf(entry.getData());
+            }
+        }
+        return size;
+    }
+
+    private static long eventsSize(List<Event> events) {
+        long size = 0;
+        if (events != null) {
+            for (Event event : events) {
+                size += sizeOf(event.getEventData());
+            }
+        }
+        return size;
+    }
+
+    private static long notificationsSize(List<Notification> notifications) {
+        long size = 0;
+        if (notifications != null) {
+            for (Notification notification : notifications) {
+                size += sizeOf(notification.getBody());
+            }
+        }
+        return size;
+    }
+}
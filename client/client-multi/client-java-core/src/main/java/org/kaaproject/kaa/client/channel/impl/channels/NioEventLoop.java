@@ -0,0 +1,399 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl.channels;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Selector based event loop which is shared by {@link NioOperationTcpChannel} instances.</p>
+ *
+ * <p>Socket I/O of all channels is multiplexed over a fixed number of selector threads, while
+ * received frames as well as ping/reconnect tasks are processed on a shared scheduler, so the number of threads does not depend on
+ * the number of channels (e.g. many clients running in a single JVM).</p>
+ */
+public class NioEventLoop {
+
+    public static final Logger LOG = LoggerFactory // NOSONAR
+            .getLogger(NioEventLoop.class);
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final Worker[] workers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new event loop.
+     *
+     * @param selectorThreadCount  The number of threads which perform socket I/O.
+     * @param schedulerThreadCount The number of threads which process received frames and run ping and reconnect tasks.
+     */
+    public NioEventLoop(int selectorThreadCount, int schedulerThreadCount) {
+        if (selectorThreadCount < 1 || schedulerThreadCount < 1) {
+            throw new IllegalArgumentException("Thread count should be positive");
+        }
+        ScheduledThreadPoolExecutor schedulerExecutor = new ScheduledThreadPoolExecutor(schedulerThreadCount,
+                new NamedThreadFactory("kaa-tcp-scheduler"));
+        schedulerExecutor.prestartAllCoreThreads();
+        scheduler = schedulerExecutor;
+        workers = new Worker[selectorThreadCount];
+        ThreadFactory selectorThreadFactory = new NamedThreadFactory("kaa-tcp-selector");
+        for (int i = 0; i < workers.length; i++) {
+            try {
+                workers[i] = new Worker(Selector.open());
+            } catch (IOException e) {
+                LOG.error("Failed to open selector", e);
+                shutdown();
+                throw new RuntimeException(e);
+            }
+            selectorThreadFactory.newThread(workers[i]).start();
+        }
+    }
+
+    /**
+     * Returns the event loop which is used by channels created without an explicit event loop.
+     * It uses a single selector thread and a single scheduler thread.
+     *
+     * @return The shared event loop.
+     */
+    public static NioEventLoop getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Starts a non-blocking connection to the given address. The handler is notified from a selector thread.
+     *
+     * @param address The server address.
+     * @param handler The session event handler.
+     * @return The new session.
+     * @throws IOException if the socket can't be opened.
+     */
+    Session connect(InetSocketAddress address, SessionHandler handler) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        boolean connected;
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            connected = channel.connect(address);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        Worker worker = workers[(nextWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+        final Session session = new Session(worker, channel, handler, connected);
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                session.register();
+            }
+        });
+        return session;
+    }
+
+    /**
+     * Closes all sessions and stops all threads of the event loop.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Worker worker : workers) {
+            if (worker != null) {
+                worker.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Receives events of a single session. All methods are invoked from a selector thread.
+     */
+    interface SessionHandler {
+        void onConnected(Session session);
+
+        void onData(Session session, byte[] data);
+
+        /**
+         * Invoked when the session is closed by the remote side or because of an I/O error,
+         * but not when it is closed via {@link Session#close()}.
+         */
+        void onClosed(Session session, Exception cause);
+    }
+
+    /**
+     * A single non-blocking connection. Writes are queued and performed by the selector thread.
+     */
+    static final class Session {
+        private final Worker worker;
+        private final SocketChannel channel;
+        private final SessionHandler handler;
+        private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /*
+         * Accessed from the selector thread only.
+         */
+        private SelectionKey key;
+        private boolean connected;
+
+        private final Runnable flushTask = new Runnable() {
+            @Override
+            public void run() {
+                flushScheduled.set(false);
+                try {
+                    flush();
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+            }
+        };
+
+        private Session(Worker worker, SocketChannel channel, SessionHandler handler, boolean connected) {
+            this.worker = worker;
+            this.channel = channel;
+            this.handler = handler;
+            this.connected = connected;
+        }
+
+        /**
+         * Queues the buffer for writing.
+         *
+         * @param buffer The data to write.
+         * @return false if the session is already closed.
+         */
+        boolean write(ByteBuffer buffer) {
+            if (closed.get()) {
+                return false;
+            }
+            writeQueue.add(buffer);
+            if (flushScheduled.compareAndSet(false, true)) {
+                worker.execute(flushTask);
+            }
+            return true;
+        }
+
+        /**
+         * Makes a best effort to flush queued data and closes the session.
+         */
+        void close() {
+            worker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (IOException | RuntimeException e) {
+                        LOG.debug("Failed to flush session data before close", e);
+                    }
+                    closeChannel();
+                }
+            });
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        private void register() {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                key = channel.register(worker.selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+                if (connected) {
+                    handler.onConnected(this);
+                    flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        private void onConnectable() throws IOException {
+            if (channel.finishConnect()) {
+                connected = true;
+                key.interestOps(SelectionKey.OP_READ);
+                handler.onConnected(this);
+                flush();
+            }
+        }
+
+        private void onReadable(ByteBuffer readBuffer) throws IOException {
+            readBuffer.clear();
+            int size = channel.read(readBuffer);
+            if (size > 0) {
+                byte[] data = new byte[size];
+                readBuffer.flip();
+                readBuffer.get(data);
+                handler.onData(this, data);
+            } else if (size == -1) {
+                LOG.info("Session received end of stream");
+                fail(null);
+            }
+        }
+
+        private void flush() throws IOException {
+            if (key == null || !connected || !key.isValid()) {
+                return;
+            }
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                writeQueue.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+
+        private void fail(Exception cause) {
+            if (closeChannel()) {
+                handler.onClosed(this, cause);
+            }
+        }
+
+        private boolean closeChannel() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close socket channel", e);
+            }
+            writeQueue.clear();
+            return true;
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private volatile boolean running = true;
+
+        private Worker(Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    runTasks();
+                    processSelectedKeys();
+                } catch (IOException | RuntimeException e) {
+                    LOG.error("Unexpected error in selector loop", e);
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((Session) key.attachment()).closeChannel();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close selector", e);
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to run selector task", e);
+                }
+            }
+        }
+
+        private void processSelectedKeys() {
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Session session = (Session) key.attachment();
+                try {
+                    if (key.isValid() && key.isConnectable()) {
+                        session.onConnectable();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        session.onReadable(readBuffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        session.flush();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    session.fail(e);
+                }
+            }
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final NioEventLoop INSTANCE = new NioEventLoop(1, 1);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.logging;
+
+/**
+ * <p>Extended {@link LogStorageStatus} exposed by storages which persist added records
+ * in batches.</p>
+ *
+ * <p>Latencies are measured per flush, i.e. per batch of records written to
+ * the underlying storage in a single transaction.</p>
+ */
+public interface LogStorageWriteStatus extends LogStorageStatus {
+    /**
+     * Retrieves the number of flushes performed since the storage was opened.
+     *
+     * @return Number of flushes
+     */
+    long getFlushCount();
+
+    /**
+     * Retrieves the number of records persisted since the storage was opened.
+     *
+     * @return Number of flushed records
+     */
+    long getFlushedRecordCount();
+
+    /**
+     * Retrieves the average flush latency.
+     *
+     * @return Average flush latency in microseconds
+     */
+    long getAverageFlushLatency();
+
+    /**
+     * Retrieves the maximum flush latency.
+     *
+     * @return Maximum flush latency in microseconds
+     */
+    long getMaxFlushLatency();
+}
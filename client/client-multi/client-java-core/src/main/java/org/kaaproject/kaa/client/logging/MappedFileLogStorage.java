@@ -0,0 +1,505 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>{@link LogStorage} implementation backed by a memory-mapped circular file.</p>
+ *
+ * <p>The file consists of a fixed-size header followed by a ring of entries. Each entry
+ * is prefixed by its length and the id of the bucket it belongs to, so bucket boundaries
+ * are restored by scanning the ring from the persisted head on start. The length of an
+ * entry is written last and the slot right after it is zeroed beforehand, which means that
+ * a crash in the middle of an append never exposes a partially written record.</p>
+ *
+ * <p>Disk usage is bounded by the storage size passed to the constructor: the file is
+ * allocated once and records that do not fit are rejected with {@link IllegalStateException},
+ * exactly like {@link org.kaaproject.kaa.client.logging.memory.MemLogStorage} does.</p>
+ *
+ * <p><b>Note:</b> {@link #addLogRecord(LogRecord)} supports a single producer thread (the API
+ * executor by default) and never takes a lock; concurrent appends are rejected. Bucket
+ * retrieval, removal and rollback may be invoked from any thread and do not block the producer.</p>
+ */
+public class MappedFileLogStorage implements LogStorage, LogStorageStatus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileLogStorage.class);
+
+    public static final String DEFAULT_FILE_NAME = "kaa_logs.ring";
+
+    private static final long DEFAULT_MAX_STORAGE_SIZE = 16 * 1024 * 1024;
+    private static final long DEFAULT_MAX_BUCKET_SIZE = 16 * 1024;
+    private static final int DEFAULT_MAX_BUCKET_RECORD_COUNT = 256;
+
+    private static final int MAGIC = 0x4B414152;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int BUCKET_SIZE_OFFSET = 12;
+    private static final int BUCKET_RECORD_COUNT_OFFSET = 20;
+    private static final int NEXT_BUCKET_ID_OFFSET = 24;
+    private static final int HEAD_OFFSET = 28;
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Entry header: record length followed by bucket id.
+     */
+    private static final int ENTRY_HEADER_SIZE = 8;
+    private static final int WRAP_MARKER = -1;
+
+    private final String fileName;
+    private final int capacity;
+    private final long maxBucketSize;
+    private final int maxBucketRecordCount;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer producerView;
+    private final ByteBuffer consumerView;
+
+    private final ConcurrentNavigableMap<Integer, MappedBucket> buckets = new ConcurrentSkipListMap<>();
+    private final Object consumerLock = new Object();
+    private final AtomicBoolean appending = new AtomicBoolean();
+
+    private final AtomicLong consumedVolume = new AtomicLong();
+    private final AtomicLong recordCount = new AtomicLong();
+
+    private volatile long head;
+    private volatile long tail;
+
+    /*
+     * Fields below are accessed by the producer only.
+     */
+    private MappedBucket currentBucket;
+    private long currentBucketSize;
+    private int currentBucketRecordCount;
+    private int nextBucketId = 1;
+
+    public MappedFileLogStorage() {
+        this(DEFAULT_MAX_BUCKET_SIZE, DEFAULT_MAX_BUCKET_RECORD_COUNT);
+    }
+
+    public MappedFileLogStorage(long bucketSize, int bucketRecordCount) {
+        this(DEFAULT_FILE_NAME, bucketSize, bucketRecordCount);
+    }
+
+    public MappedFileLogStorage(String fileName, long bucketSize, int bucketRecordCount) {
+        this(fileName, DEFAULT_MAX_STORAGE_SIZE, bucketSize, bucketRecordCount);
+    }
+
+    public MappedFileLogStorage(String fileName, long maxStorageSize, long bucketSize, int bucketRecordCount) {
+        if (maxStorageSize > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Storage size (" + maxStorageSize + ") is too big for a mapped file!");
+        }
+        if (maxStorageSize < 2 * (bucketSize + 2 * ENTRY_HEADER_SIZE)) {
+            throw new IllegalArgumentException("Storage size (" + maxStorageSize + ") should be at least twice as big as bucket size ("
+                    + bucketSize + ")!");
+        }
+        this.fileName = fileName;
+        this.capacity = (int) maxStorageSize;
+        this.maxBucketSize = bucketSize;
+        this.maxBucketRecordCount = bucketRecordCount;
+        try {
+            LOG.info("Opening log storage file: {}", fileName);
+            file = new RandomAccessFile(new File(fileName), "rw");
+            channel = file.getChannel();
+            boolean compatible = isCompatible();
+            if (!compatible) {
+                LOG.info("Log storage file {} is empty or incompatible with current settings. Truncating it", fileName);
+                file.setLength(0);
+                file.setLength(HEADER_SIZE + (long) capacity);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity);
+            producerView = buffer.duplicate();
+            consumerView = buffer.duplicate();
+            if (compatible) {
+                recover();
+            } else {
+                writeHeader();
+            }
+        } catch (IOException e) {
+            LOG.error("Error while initializing log storage file {}", fileName, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public BucketInfo addLogRecord(LogRecord record) {
+        LOG.trace("Adding new log record with size {}", record.getSize());
+        if (record.getSize() > maxBucketSize) {
+            throw new IllegalArgumentException("Record size(" + record.getSize() + ") is bigger than max bucket size (" + maxBucketSize + ")!");
+        }
+        if (!appending.compareAndSet(false, true)) {
+            throw new IllegalStateException("Concurrent log record appending is not supported!");
+        }
+        try {
+            return append(record.getData());
+        } finally {
+            appending.set(false);
+        }
+    }
+
+    private BucketInfo append(byte[] data) {
+        int entrySize = ENTRY_HEADER_SIZE + data.length;
+        long position = tail;
+        int remaining = capacity - ringOffset(position);
+        int padding = remaining < entrySize + ENTRY_HEADER_SIZE ? remaining : 0;
+        if (position - head + padding + entrySize + ENTRY_HEADER_SIZE > capacity) {
+            throw new IllegalStateException("Storage is full!");
+        }
+
+        MappedBucket bucket = currentBucket;
+        if (bucket != null && (currentBucketRecordCount >= maxBucketRecordCount || currentBucketSize + data.length > maxBucketSize)) {
+            LOG.trace("Current bucket is full. Creating new one.");
+            bucket.seal();
+            bucket = null;
+        }
+        if (bucket == null) {
+            bucket = openBucket(position);
+        }
+
+        long entryPosition = position + padding;
+        int entryOffset = HEADER_SIZE + ringOffset(entryPosition);
+        // Padding rules guarantee that there are always at least ENTRY_HEADER_SIZE bytes left after an entry
+        producerView.putInt(HEADER_SIZE + ringOffset(entryPosition + entrySize), 0);
+        producerView.putInt(entryOffset + 4, bucket.id);
+        producerView.position(entryOffset + ENTRY_HEADER_SIZE);
+        producerView.put(data);
+        producerView.putInt(entryOffset, data.length);
+        if (padding >= ENTRY_HEADER_SIZE) {
+            producerView.putInt(HEADER_SIZE + ringOffset(position), WRAP_MARKER);
+        }
+
+        recordCount.incrementAndGet();
+        consumedVolume.addAndGet(data.length);
+        while (!bucket.tryAppend(padding + entrySize)) {
+            LOG.trace("Bucket [{}] was sealed by consumer. Moving record to a new one.", bucket.id);
+            bucket = openBucket(position);
+            producerView.putInt(entryOffset + 4, bucket.id);
+        }
+        currentBucketSize += data.length;
+        currentBucketRecordCount++;
+        tail = entryPosition + entrySize;
+
+        LOG.trace("Added a new log record to bucket [{}]", bucket.id);
+        return new BucketInfo(bucket.id, currentBucketRecordCount);
+    }
+
+    private MappedBucket openBucket(long position) {
+        MappedBucket bucket = new MappedBucket(nextBucketId++, position);
+        buffer.putInt(NEXT_BUCKET_ID_OFFSET, nextBucketId);
+        buckets.put(bucket.id, bucket);
+        currentBucket = bucket;
+        currentBucketSize = 0;
+        currentBucketRecordCount = 0;
+        return bucket;
+    }
+
+    @Override
+    public LogStorageStatus getStatus() {
+        return this;
+    }
+
+    @Override
+    public LogBucket getNextBucket() {
+        LOG.trace("Getting new record block");
+        synchronized (consumerLock) {
+            for (MappedBucket bucket : buckets.values()) {
+                if (bucket.pending) {
+                    continue;
+                }
+                long state = bucket.state.get();
+                if (!MappedBucket.isSealed(state)) {
+                    if (MappedBucket.getCount(state) == 0) {
+                        continue;
+                    }
+                    LOG.trace("Only a not yet full bucket found: [{}]. Sealing it", bucket.id);
+                    state = bucket.seal();
+                }
+                List<LogRecord> records = readRecords(bucket.start, MappedBucket.getSize(state), MappedBucket.getCount(state));
+                long volume = 0;
+                for (LogRecord record : records) {
+                    volume += record.getSize();
+                }
+                bucket.pending = true;
+                bucket.volume = volume;
+                recordCount.addAndGet(-records.size());
+                consumedVolume.addAndGet(-volume);
+                LOG.debug("Return record block with records count: [{}]", records.size());
+                return new LogBucket(bucket.id, records);
+            }
+        }
+        return null;
+    }
+
+    private List<LogRecord> readRecords(long start, long size, int count) {
+        List<LogRecord> records = new ArrayList<>(count);
+        long position = start;
+        long end = start + size;
+        while (position < end) {
+            int offset = ringOffset(position);
+            int remaining = capacity - offset;
+            if (remaining < ENTRY_HEADER_SIZE) {
+                position += remaining;
+                continue;
+            }
+            int length = consumerView.getInt(HEADER_SIZE + offset);
+            if (length == WRAP_MARKER) {
+                position += remaining;
+                continue;
+            }
+            byte[] data = new byte[length];
+            consumerView.position(HEADER_SIZE + offset + ENTRY_HEADER_SIZE);
+            consumerView.get(data);
+            records.add(new LogRecord(data));
+            position += ENTRY_HEADER_SIZE + length;
+        }
+        return records;
+    }
+
+    @Override
+    public void removeBucket(int bucketId) {
+        LOG.trace("Removing record block with id [{}]", bucketId);
+        synchronized (consumerLock) {
+            if (buckets.remove(bucketId) != null) {
+                advanceHead();
+                LOG.debug("Record block [{}] removed", bucketId);
+            } else {
+                LOG.debug("Failed to remove record block [{}]", bucketId);
+            }
+        }
+    }
+
+    private void advanceHead() {
+        // The tail must be read before the buckets, otherwise a bucket opened in between may get released.
+        long published = tail;
+        Map.Entry<Integer, MappedBucket> first = buckets.firstEntry();
+        long newHead = first != null ? first.getValue().start : published;
+        if (newHead > head) {
+            head = newHead;
+            buffer.putLong(HEAD_OFFSET, newHead);
+        }
+    }
+
+    @Override
+    public void rollbackBucket(int bucketId) {
+        LOG.trace("Upload of record block [{}] failed", bucketId);
+        synchronized (consumerLock) {
+            MappedBucket bucket = buckets.get(bucketId);
+            if (bucket != null && bucket.pending) {
+                bucket.pending = false;
+                recordCount.addAndGet(MappedBucket.getCount(bucket.state.get()));
+                consumedVolume.addAndGet(bucket.volume);
+            } else {
+                LOG.debug("No pending record block [{}] found", bucketId);
+            }
+        }
+    }
+
+    /**
+     * Flushes the mapped file content to the storage device.
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        LOG.debug("Closing log storage file: {}", fileName);
+        try {
+            flush();
+            channel.close();
+            file.close();
+        } catch (IOException e) {
+            LOG.error("Failed to close log storage file {}", fileName, e);
+        }
+    }
+
+    @Override
+    public long getConsumedVolume() {
+        LOG.debug("Consumed volume: {}", consumedVolume);
+        return consumedVolume.get();
+    }
+
+    @Override
+    public long getRecordCount() {
+        LOG.debug("Record count: {}", recordCount);
+        return recordCount.get();
+    }
+
+    private int ringOffset(long position) {
+        return (int) (position % capacity);
+    }
+
+    private boolean isCompatible() throws IOException {
+        if (file.length() != HEADER_SIZE + (long) capacity) {
+            return false;
+        }
+        file.seek(0);
+        return file.readInt() == MAGIC
+                && file.readInt() == FORMAT_VERSION
+                && file.readInt() == capacity
+                && file.readLong() == maxBucketSize
+                && file.readInt() == maxBucketRecordCount;
+    }
+
+    private void writeHeader() {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(BUCKET_SIZE_OFFSET, maxBucketSize);
+        buffer.putInt(BUCKET_RECORD_COUNT_OFFSET, maxBucketRecordCount);
+        buffer.putInt(NEXT_BUCKET_ID_OFFSET, nextBucketId);
+        buffer.putLong(HEAD_OFFSET, head);
+    }
+
+    /**
+     * Restores buckets by scanning entries from the persisted head. All restored buckets are
+     * considered full and not pending, i.e. they will be uploaded again.
+     */
+    private void recover() {
+        head = buffer.getLong(HEAD_OFFSET);
+        nextBucketId = buffer.getInt(NEXT_BUCKET_ID_OFFSET);
+
+        tail = head;
+        long position = head;
+        long padding = 0;
+        MappedBucket bucket = null;
+        while (position - head < capacity) {
+            int offset = ringOffset(position);
+            int remaining = capacity - offset;
+            if (remaining < ENTRY_HEADER_SIZE) {
+                padding += remaining;
+                position += remaining;
+                continue;
+            }
+            int length = buffer.getInt(HEADER_SIZE + offset);
+            if (length == WRAP_MARKER) {
+                padding += remaining;
+                position += remaining;
+                continue;
+            }
+            if (length <= 0 || ENTRY_HEADER_SIZE + length > remaining || position + ENTRY_HEADER_SIZE + length - head > capacity) {
+                break;
+            }
+            int bucketId = buffer.getInt(HEADER_SIZE + offset + 4);
+            if (bucket == null || bucket.id != bucketId) {
+                if (buckets.containsKey(bucketId)) {
+                    LOG.warn("Found a broken entry for bucket [{}]. Skipping the rest of the storage", bucketId);
+                    break;
+                }
+                bucket = new MappedBucket(bucketId, position - padding);
+                buckets.put(bucketId, bucket);
+                nextBucketId = Math.max(nextBucketId, bucketId + 1);
+            }
+            bucket.tryAppend(padding + ENTRY_HEADER_SIZE + length);
+            recordCount.incrementAndGet();
+            consumedVolume.addAndGet(length);
+            padding = 0;
+            position += ENTRY_HEADER_SIZE + length;
+            tail = position;
+        }
+        for (MappedBucket restored : buckets.values()) {
+            restored.seal();
+        }
+        int tailOffset = ringOffset(tail);
+        if (capacity - tailOffset >= ENTRY_HEADER_SIZE && tail - head + ENTRY_HEADER_SIZE <= capacity) {
+            buffer.putInt(HEADER_SIZE + tailOffset, 0);
+        }
+        LOG.info("Restored {} log records in {} buckets from {}", recordCount.get(), buckets.size(), fileName);
+    }
+
+    /**
+     * Bucket metadata. The state packs a "sealed" flag, the number of records and the number of
+     * ring bytes the bucket occupies into a single word, so the producer and consumers agree on
+     * the bucket content through a single CAS.
+     */
+    private static final class MappedBucket {
+        private static final long SEALED_FLAG = 1L << 63;
+        private static final int COUNT_SHIFT = 40;
+        private static final long SIZE_MASK = (1L << COUNT_SHIFT) - 1;
+
+        private final int id;
+        private final long start;
+        private final AtomicLong state = new AtomicLong();
+
+        /*
+         * Guarded by the consumer lock.
+         */
+        private boolean pending;
+        private long volume;
+
+        MappedBucket(int id, long start) {
+            this.id = id;
+            this.start = start;
+        }
+
+        boolean tryAppend(long ringBytes) {
+            for (;;) {
+                long current = state.get();
+                if (isSealed(current)) {
+                    return false;
+                }
+                if (state.compareAndSet(current, current + (1L << COUNT_SHIFT) + ringBytes)) {
+                    return true;
+                }
+            }
+        }
+
+        long seal() {
+            for (;;) {
+                long current = state.get();
+                if (isSealed(current)) {
+                    return current;
+                }
+                if (state.compareAndSet(current, current | SEALED_FLAG)) {
+                    return current | SEALED_FLAG;
+                }
+            }
+        }
+
+        static boolean isSealed(long state) {
+            return (state & SEALED_FLAG) != 0;
+        }
+
+        static int getCount(long state) {
+            return (int) ((state & ~SEALED_FLAG) >>> COUNT_SHIFT);
+        }
+
+        static long getSize(long state) {
+            return state & SIZE_MASK;
+        }
+    }
+}
@@ -79,6 +79,10 @@ public interface PersistentLogStorageConstants {
                     "SELECT MAX (" + BUCKET_ID_COLUMN + ") " +
                     "FROM " + LOG_TABLE_NAME + ";";
 
+    String KAA_SELECT_BUCKET_IDS =
+                    "SELECT DISTINCT " + BUCKET_ID_COLUMN + " " +
+                    "FROM " + LOG_TABLE_NAME + ";";
+
     String KAA_SELECT_LOG_RECORDS_BY_BUCKET_ID =
                     "SELECT " + LOG_DATA_COLUMN + "," + BUCKET_STATE_COLUMN + " " +
                     "FROM " + LOG_TABLE_NAME + " " +
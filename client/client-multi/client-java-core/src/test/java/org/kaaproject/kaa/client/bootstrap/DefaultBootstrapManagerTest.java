@@ -252,6 +252,32 @@ public class DefaultBootstrapManagerTest {
         verify(channelManager, times(1)).onTransportConnectionInfoUpdated(any(TransportConnectionInfo.class));
     }
 
+    @Test
+    public void testOperationsServerOrderIsKept() throws NoSuchAlgorithmException {
+        DefaultBootstrapManager manager = new DefaultBootstrapManager(null, null);
+
+        ChanelManagerMock channelManager = spy(new ChanelManagerMock());
+        manager.setChannelManager(channelManager);
+
+        // Generating pseudo operation key
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        KeyPair keyPair = keyGen.genKeyPair();
+
+        List<ProtocolMetaData> list = new ArrayList<ProtocolMetaData>();
+        for (int port = 9889; port < 9894; port++) {
+            list.add(IPTransportInfoTest.buildMetaData(TransportProtocolIdConstants.HTTP_TRANSPORT_ID, "localhost", port,
+                    keyPair.getPublic()));
+        }
+
+        manager.onProtocolListUpdated(list);
+        assertEquals("http://localhost:9889", channelManager.getReceivedUrl());
+        for (int port = 9890; port < 9894; port++) {
+            manager.useNextOperationsServer(TransportProtocolIdConstants.HTTP_TRANSPORT_ID);
+            assertEquals("http://localhost:" + port, channelManager.getReceivedUrl());
+        }
+    }
+
     @Test
     public void testUseServerByDnsName() throws NoSuchAlgorithmException {
         DefaultBootstrapManager manager = new DefaultBootstrapManager(null, null);
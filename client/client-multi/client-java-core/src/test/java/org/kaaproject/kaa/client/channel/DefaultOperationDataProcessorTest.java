@@ -16,23 +16,31 @@
 
 package org.kaaproject.kaa.client.channel;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Test;
 import org.kaaproject.kaa.client.channel.impl.DefaultOperationDataProcessor;
+import org.kaaproject.kaa.client.channel.impl.OperationDataMetrics;
 import org.kaaproject.kaa.client.persistence.KaaClientState;
 import org.kaaproject.kaa.common.TransportType;
 import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
 import org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse;
 import org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse;
 import org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus;
+import org.kaaproject.kaa.common.endpoint.gen.LogEntry;
+import org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest;
 import org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.Notification;
 import org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.NotificationType;
 import org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse;
 import org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse;
 import org.kaaproject.kaa.common.endpoint.gen.SyncResponse;
@@ -269,4 +277,46 @@ public class DefaultOperationDataProcessorTest {
         Mockito.verify(logTransport, Mockito.times(0)).onLogResponse(Mockito.any(LogSyncResponse.class));
     }
 
+
+    @Test
+    public void testMetrics() throws Exception {
+        KaaClientState state = Mockito.mock(KaaClientState.class);
+        DefaultOperationDataProcessor operationsDataProcessor = new DefaultOperationDataProcessor(state);
+
+        LogTransport logTransport = Mockito.mock(LogTransport.class);
+        Mockito.when(logTransport.createLogRequest()).thenReturn(new LogSyncRequest(REQUEST_ID,
+                Arrays.asList(new LogEntry(ByteBuffer.wrap(new byte[10])), new LogEntry(ByteBuffer.wrap(new byte[20])))));
+        operationsDataProcessor.setLogTransport(logTransport);
+
+        Map<TransportType, ChannelDirection> types = new HashMap<>();
+        types.put(TransportType.LOGGING, ChannelDirection.UP);
+        byte[] request = operationsDataProcessor.compileRequest(types);
+
+        SyncResponse response = new SyncResponse();
+        response.setRequestId(1);
+        response.setStatus(SyncResponseResultType.SUCCESS);
+        Notification notification = new Notification(1L, NotificationType.CUSTOM, null, 1, ByteBuffer.wrap(new byte[5]));
+        response.setNotificationSyncResponse(new NotificationSyncResponse(SyncResponseStatus.DELTA,
+                Collections.singletonList(notification), null));
+        byte[] responseData = new AvroByteArrayConverter<>(SyncResponse.class).toByteArray(response);
+        operationsDataProcessor.processResponse(responseData);
+
+        OperationDataMetrics metrics = operationsDataProcessor.getMetrics();
+        assertEquals(1, metrics.getRequestCount());
+        assertEquals(1, metrics.getResponseCount());
+        assertEquals(request.length, metrics.getBytesSent());
+        assertEquals(responseData.length, metrics.getBytesReceived());
+        assertEquals(1, metrics.getRequestCount(TransportType.LOGGING));
+        assertEquals(30, metrics.getPayloadBytesSent(TransportType.LOGGING));
+        assertEquals(1, metrics.getResponseCount(TransportType.NOTIFICATION));
+        assertEquals(5, metrics.getPayloadBytesReceived(TransportType.NOTIFICATION));
+        assertEquals(0, metrics.getResponseCount(TransportType.LOGGING));
+
+        long matched = 0;
+        for (long count : metrics.getSyncLatencyHistogram()) {
+            matched += count;
+        }
+        assertEquals(1, matched);
+        assertEquals(metrics.getSyncLatencyBounds().length + 1, metrics.getSyncLatencyHistogram().length);
+    }
 }
@@ -0,0 +1,216 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnectListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.PingRequestListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.SyncRequestListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck.ReturnCode;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Connect;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MessageFactory;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MqttFrame;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingRequest;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingResponse;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncRequest;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponseResultType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal single-threaded KaaTcp server which accepts every Connect and answers every
+ * SyncRequest with an empty unencrypted SyncResponse.
+ */
+public class KaaTcpTestServer implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(KaaTcpTestServer.class);
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread thread;
+    private final byte[] syncResponse;
+    private volatile boolean running = true;
+
+    private final AtomicInteger connectCount = new AtomicInteger();
+    private final AtomicInteger syncCount = new AtomicInteger();
+    private final AtomicInteger pingCount = new AtomicInteger();
+
+    public KaaTcpTestServer() throws IOException {
+        SyncResponse response = new SyncResponse();
+        response.setStatus(SyncResponseResultType.SUCCESS);
+        syncResponse = new AvroByteArrayConverter<>(SyncResponse.class).toByteArray(response);
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("localhost", 0), 4096);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this, "kaa-tcp-test-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectCount() {
+        return connectCount.get();
+    }
+
+    public int getSyncCount() {
+        return syncCount.get();
+    }
+
+    public int getPingCount() {
+        return pingCount.get();
+    }
+
+    /**
+     * Closes all accepted connections, but keeps accepting new ones.
+     */
+    public void dropConnections() {
+        selector.wakeup();
+        for (SelectionKey key : selector.keys()) {
+            if (key.channel() instanceof SocketChannel) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    public void stop() throws IOException {
+        running = false;
+        selector.wakeup();
+        serverChannel.close();
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024);
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        SocketChannel channel = serverChannel.accept();
+                        if (channel != null) {
+                            channel.configureBlocking(false);
+                            channel.register(selector, SelectionKey.OP_READ, createMessageFactory(channel));
+                        }
+                    } else if (key.isReadable()) {
+                        read(key, readBuffer);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    LOG.error("Unexpected error in test server loop", e);
+                }
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private void read(SelectionKey key, ByteBuffer readBuffer) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            readBuffer.clear();
+            int size = channel.read(readBuffer);
+            if (size < 0) {
+                channel.close();
+            } else if (size > 0) {
+                ((MessageFactory) key.attachment()).getFramer().pushBytes(Arrays.copyOf(readBuffer.array(), size));
+            }
+        } catch (IOException | KaaTcpProtocolException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    private MessageFactory createMessageFactory(final SocketChannel channel) {
+        MessageFactory factory = new MessageFactory();
+        factory.registerMessageListener(new ConnectListener() {
+            @Override
+            public void onMessage(Connect message) {
+                connectCount.incrementAndGet();
+                send(channel, new ConnAck(ReturnCode.ACCEPTED));
+                send(channel, new org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse(syncResponse, false, false));
+            }
+        });
+        factory.registerMessageListener(new SyncRequestListener() {
+            @Override
+            public void onMessage(SyncRequest message) {
+                syncCount.incrementAndGet();
+                send(channel, new org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse(syncResponse, false, false));
+            }
+        });
+        factory.registerMessageListener(new PingRequestListener() {
+            @Override
+            public void onMessage(PingRequest message) {
+                pingCount.incrementAndGet();
+                send(channel, new PingResponse());
+            }
+        });
+        return factory;
+    }
+
+    private static void send(SocketChannel channel, MqttFrame frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame.getFrame().array());
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.kaaproject.kaa.client.channel.impl.channels.NioEventLoop;
+import org.kaaproject.kaa.client.channel.impl.channels.NioOperationTcpChannel;
+import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
+import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manual harness that connects a large number of {@link NioOperationTcpChannel}
+ * instances to a local {@link KaaTcpTestServer} from a single JVM.
+ *
+ * <p>Usage: <code>NioOperationTcpChannelSimulator [clientCount] [selectorThreads]</code>.
+ * The process needs an open file limit of at least twice the client count.</p>
+ */
+public class NioOperationTcpChannelSimulator {
+    private static final Logger LOG = LoggerFactory.getLogger(NioOperationTcpChannelSimulator.class);
+
+    private static final int DEFAULT_CLIENT_COUNT = 10000;
+    private static final int DEFAULT_SELECTOR_THREADS = 2;
+    private static final long CONNECT_TIMEOUT_MINUTES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENT_COUNT;
+        int selectorThreads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SELECTOR_THREADS;
+
+        KeyPair clientKeys = KeyUtil.generateKeyPair();
+        PublicKey serverKey = KeyUtil.generateKeyPair().getPublic();
+
+        final CountDownLatch connected = new CountDownLatch(clientCount);
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                connected.countDown();
+                return null;
+            }
+        }).when(failoverManager).onServerConnected(Mockito.any(TransportConnectionInfo.class));
+
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class)))
+                .thenReturn(new AvroByteArrayConverter<SyncRequest>(SyncRequest.class).toByteArray(new SyncRequest()));
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+
+        KaaTcpTestServer server = new KaaTcpTestServer();
+        NioEventLoop eventLoop = new NioEventLoop(selectorThreads, 1);
+        TransportConnectionInfo serverInfo = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS,
+                TransportProtocolIdConstants.TCP_TRANSPORT_ID, "localhost", server.getPort(), serverKey);
+
+        int threadCount = Thread.activeCount();
+        long start = System.currentTimeMillis();
+        List<NioOperationTcpChannel> channels = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            NioOperationTcpChannel channel = new NioOperationTcpChannel(clientState, failoverManager, eventLoop);
+            channel.setMultiplexer(multiplexer);
+            channel.setDemultiplexer(demultiplexer);
+            channel.setServer(serverInfo);
+            channels.add(channel);
+        }
+
+        boolean completed = connected.await(CONNECT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        long elapsed = System.currentTimeMillis() - start;
+
+        LOG.info("Clients requested:  {}", clientCount);
+        LOG.info("Clients connected:  {}{}", clientCount - connected.getCount(), completed ? "" : " (timed out)");
+        LOG.info("Elapsed time:       {} ms", elapsed);
+        LOG.info("Live threads:       {} ({} before connect)", Thread.activeCount(), threadCount);
+        LOG.info("Server connects:    {}", server.getConnectCount());
+        LOG.info("Server syncs:       {}", server.getSyncCount());
+        LOG.info("Server pings:       {}", server.getPingCount());
+
+        for (NioOperationTcpChannel channel : channels) {
+            channel.shutdown();
+        }
+        eventLoop.shutdown();
+        server.stop();
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.client.channel.impl.channels.NioEventLoop;
+import org.kaaproject.kaa.client.channel.impl.channels.NioOperationTcpChannel;
+import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
+import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class NioOperationTcpChannelTest {
+    private static final int TIMEOUT = 5000;
+    private static final String SCHEDULER_THREAD_PREFIX = "kaa-tcp-scheduler-";
+
+    private final KeyPair clientKeys;
+    private final PublicKey serverKey;
+
+    private KaaTcpTestServer server;
+    private NioEventLoop eventLoop;
+
+    public NioOperationTcpChannelTest() throws Exception {
+        clientKeys = KeyUtil.generateKeyPair();
+        serverKey = KeyUtil.generateKeyPair().getPublic();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new KaaTcpTestServer();
+        eventLoop = new NioEventLoop(2, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventLoop.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testConnectAndSync() throws Exception {
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        KaaDataMultiplexer multiplexer = createMultiplexer();
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        Set<Thread> callbackThreads = recordCallbackThreads(demultiplexer);
+        NioOperationTcpChannel channel = createChannel(failoverManager, multiplexer, demultiplexer);
+
+        channel.setServer(createServerInfo());
+        Mockito.verify(demultiplexer, Mockito.timeout(TIMEOUT)).processResponse(Mockito.any(byte[].class));
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT)).onServerConnected(Mockito.any(TransportConnectionInfo.class));
+        Assert.assertEquals(1, server.getConnectCount());
+
+        channel.sync(TransportType.USER);
+        channel.syncAll();
+        Mockito.verify(demultiplexer, Mockito.timeout(TIMEOUT).times(3)).processResponse(Mockito.any(byte[].class));
+        Assert.assertEquals(2, server.getSyncCount());
+        // responses are processed on the scheduler rather than on a selector thread
+        Assert.assertEquals(1, callbackThreads.size());
+        Assert.assertTrue(callbackThreads.iterator().next().getName().startsWith(SCHEDULER_THREAD_PREFIX));
+        Mockito.verify(multiplexer, Mockito.times(3)).compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class));
+
+        channel.shutdown();
+        channel.syncAll();
+        Mockito.verify(multiplexer, Mockito.times(3)).compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class));
+    }
+
+    @Test
+    public void testServerFailure() throws Exception {
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        NioOperationTcpChannel channel = createChannel(failoverManager, createMultiplexer(), demultiplexer);
+
+        channel.setServer(createServerInfo());
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT)).onServerConnected(Mockito.any(TransportConnectionInfo.class));
+
+        server.dropConnections();
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT)).onServerFailed(Mockito.any(TransportConnectionInfo.class));
+        channel.shutdown();
+    }
+
+    @Test
+    public void testChannelsShareEventLoop() throws Exception {
+        int channelCount = 200;
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        Set<Thread> callbackThreads = recordCallbackThreads(demultiplexer);
+        List<NioOperationTcpChannel> channels = new ArrayList<>(channelCount);
+        for (int i = 0; i < channelCount; i++) {
+            NioOperationTcpChannel channel = createChannel(failoverManager, createMultiplexer(), demultiplexer);
+            channel.setServer(createServerInfo());
+            channels.add(channel);
+        }
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT * 4).times(channelCount))
+                .onServerConnected(Mockito.any(TransportConnectionInfo.class));
+        Assert.assertEquals(channelCount, server.getConnectCount());
+        // all channels are served by the single scheduler thread of the event loop
+        Assert.assertEquals(1, callbackThreads.size());
+        Assert.assertTrue(callbackThreads.iterator().next().getName().startsWith(SCHEDULER_THREAD_PREFIX));
+        for (NioOperationTcpChannel channel : channels) {
+            channel.shutdown();
+        }
+    }
+
+    private NioOperationTcpChannel createChannel(FailoverManager failoverManager, KaaDataMultiplexer multiplexer,
+                                                 KaaDataDemultiplexer demultiplexer) {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+        NioOperationTcpChannel channel = new NioOperationTcpChannel(clientState, failoverManager, eventLoop);
+        channel.setMultiplexer(multiplexer);
+        channel.setDemultiplexer(demultiplexer);
+        return channel;
+    }
+
+    private static Set<Thread> recordCallbackThreads(KaaDataDemultiplexer demultiplexer) throws Exception {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                threads.add(Thread.currentThread());
+                return null;
+            }
+        }).when(demultiplexer).processResponse(Mockito.any(byte[].class));
+        return threads;
+    }
+
+    private KaaDataMultiplexer createMultiplexer() throws Exception {
+        AvroByteArrayConverter<SyncRequest> requestCreator = new AvroByteArrayConverter<SyncRequest>(SyncRequest.class);
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class)))
+                .thenReturn(requestCreator.toByteArray(new SyncRequest()));
+        return multiplexer;
+    }
+
+    private TransportConnectionInfo createServerInfo() {
+        return IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", server.getPort(), serverKey);
+    }
+}
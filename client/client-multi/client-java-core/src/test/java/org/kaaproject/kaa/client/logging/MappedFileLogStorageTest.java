@@ -0,0 +1,105 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.logging;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedFileLogStorageTest extends AbstractPersistentLogStorageTest {
+    private static final String FILENAME = "test.ring";
+    private static File file = new File(FILENAME);
+
+    @Before
+    public void prepare() {
+        deleteFile();
+    }
+
+    @After
+    public void cleanup() {
+        deleteFile();
+    }
+
+    @Override
+    protected MappedFileLogStorage getStorage(long bucketSize, int recordCount) {
+        return new MappedFileLogStorage(FILENAME, bucketSize, recordCount);
+    }
+
+    @Test
+    public void testWrapAround() {
+        MappedFileLogStorage storage = new MappedFileLogStorage(FILENAME, 64, 9, 3);
+        LogRecord record = new LogRecord();
+
+        /*
+         * Each entry takes 11B of 64B ring, so every few iterations the tail wraps around
+         */
+        for (int i = 0; i < 50; i++) {
+            storage.addLogRecord(record);
+            storage.addLogRecord(record);
+            LogBucket bucket = storage.getNextBucket();
+            Assert.assertEquals(2, bucket.getRecords().size());
+            storage.removeBucket(bucket.getBucketId());
+            Assert.assertEquals(0, storage.getRecordCount());
+        }
+        storage.addLogRecord(record);
+        storage.close();
+
+        storage = new MappedFileLogStorage(FILENAME, 64, 9, 3);
+        Assert.assertEquals(1, storage.getRecordCount());
+        LogBucket bucket = storage.getNextBucket();
+        Assert.assertEquals(1, bucket.getRecords().size());
+        Assert.assertArrayEquals(record.getData(), bucket.getRecords().get(0).getData());
+        storage.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStorageIsFull() {
+        MappedFileLogStorage storage = new MappedFileLogStorage(FILENAME, 64, 9, 3);
+        LogRecord record = new LogRecord();
+        try {
+            for (int i = 0; i < 10; i++) {
+                storage.addLogRecord(record);
+            }
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    public void testRemovedBucketsAreNotRestored() {
+        MappedFileLogStorage storage = getStorage(9, 3);
+        LogRecord record = new LogRecord();
+        for (int i = 0; i < 7; i++) {
+            storage.addLogRecord(record);
+        }
+        LogBucket bucket = storage.getNextBucket();
+        storage.removeBucket(bucket.getBucketId());
+        storage.close();
+
+        storage = getStorage(9, 3);
+        Assert.assertEquals(4, storage.getRecordCount());
+        Assert.assertNotEquals(bucket.getBucketId(), storage.getNextBucket().getBucketId());
+        storage.close();
+    }
+
+    private void deleteFile() {
+        file.delete();
+    }
+}
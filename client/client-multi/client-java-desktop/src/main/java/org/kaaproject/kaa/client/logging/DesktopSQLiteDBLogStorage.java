@@ -25,20 +25,44 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
+/**
+ * <p>SQLite based {@link LogStorage} implementation.</p>
+ *
+ * <p>By default every added record is inserted in its own transaction. In the write-buffered mode
+ * (see {@link #DesktopSQLiteDBLogStorage(String, long, int, int, long)}) records are accumulated in memory
+ * and inserted in a single transaction once the batch is full or the batch timeout expires, the database is
+ * switched to the WAL journal mode and the WAL file is checkpointed periodically. Records that fail to be
+ * inserted are kept in memory and inserted again with the next batch, their buckets are not available for
+ * upload until then.</p>
+ *
+ * <p>Bucket bookkeeping (which buckets are available for upload and which ones are pending) is kept
+ * in memory. Pending state is not persisted, because all buckets become available again on restart anyway.</p>
+ */
+public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageWriteStatus {
 
     private static final Logger LOG = LoggerFactory.getLogger(DesktopSQLiteDBLogStorage.class);
 
     private static final String SQLITE_URL_PREFIX = "jdbc:sqlite:";
 
+    private static final String KAA_ENABLE_WAL_MODE = "PRAGMA journal_mode=WAL;";
+    private static final String KAA_SYNCHRONOUS_NORMAL = "PRAGMA synchronous=NORMAL;";
+    private static final String KAA_WAL_CHECKPOINT = "PRAGMA wal_checkpoint(PASSIVE);";
+
+    private static final long DEFAULT_CHECKPOINT_PERIOD = 60 * 1000L;
+
     private PreparedStatement insertStatement;
     private PreparedStatement deleteByBucketIdStatement;
-    private PreparedStatement resetBucketIdStatement;
     private PreparedStatement selectUnmarkedStatement;
 
     private long totalRecordCount;
@@ -52,7 +76,17 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
     private long maxBucketSize;
     private int maxRecordCount;
 
-    private Map<Integer, Long> consumedMemoryStorage = new HashMap<>();
+    private final int writeBatchSize;
+    private final List<PendingRecord> pendingRecords = new ArrayList<>();
+    private final ScheduledExecutorService flushExecutor;
+
+    private final TreeSet<Integer> unmarkedBuckets = new TreeSet<>();
+    private final Map<Integer, PendingBucket> pendingBuckets = new HashMap<>();
+
+    private long flushCount;
+    private long flushedRecordCount;
+    private long totalFlushLatency;
+    private long maxFlushLatency;
 
     private final Connection connection;
 
@@ -61,20 +95,40 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
     }
 
     public DesktopSQLiteDBLogStorage(String dbName, long maxBucketSize, int maxRecordCount) {
+        this(dbName, maxBucketSize, maxRecordCount, 1, 0);
+    }
+
+    /**
+     * Creates a log storage which inserts records in batches.
+     *
+     * @param dbName             The database file name.
+     * @param maxBucketSize      The max size of a bucket in bytes.
+     * @param maxRecordCount     The max number of records in a bucket.
+     * @param writeBatchSize     The max number of records inserted in a single transaction.
+     *                           Values less than 2 disable the write-buffered mode.
+     * @param writeBatchTimeout  The max time in milliseconds a record may stay in memory before it is inserted.
+     *                           Zero means records are inserted only when a batch is full or data is requested.
+     */
+    public DesktopSQLiteDBLogStorage(String dbName, long maxBucketSize, int maxRecordCount, int writeBatchSize, long writeBatchTimeout) {
         try {
             this.maxBucketSize = maxBucketSize;
             this.maxRecordCount = maxRecordCount;
+            this.writeBatchSize = Math.max(writeBatchSize, 1);
             Class.forName("org.sqlite.JDBC");
             String dbURL = SQLITE_URL_PREFIX + dbName;
             LOG.info("Connecting to db by url: {}", dbURL);
             connection = DriverManager.getConnection(dbURL);
             LOG.debug("SQLite connection was successfully established");
+            if (isWriteBuffered()) {
+                enableWalMode();
+            }
             initTable();
             truncateIfBucketSizeIncompatible();
             retrieveConsumedSizeAndVolume();
             if (totalRecordCount > 0) {
                 retrieveBucketId();
                 resetBucketIDs();
+                retrieveUnmarkedBuckets();
             }
         } catch (ClassNotFoundException e) {
             LOG.error("Can't find SQLite classes in classpath", e);
@@ -83,20 +137,41 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
             LOG.error("Error while initializing SQLite DB and its tables", e);
             throw new RuntimeException(e);
         }
+
+        if (isWriteBuffered()) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "kaa-log-storage-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            if (writeBatchTimeout > 0) {
+                flushExecutor.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (connection) {
+                            flushPendingRecords();
+                        }
+                    }
+                }, writeBatchTimeout, writeBatchTimeout, TimeUnit.MILLISECONDS);
+            }
+            flushExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    checkpoint();
+                }
+            }, DEFAULT_CHECKPOINT_PERIOD, DEFAULT_CHECKPOINT_PERIOD, TimeUnit.MILLISECONDS);
+        } else {
+            flushExecutor = null;
+        }
     }
 
     @Override
     public BucketInfo addLogRecord(LogRecord record) {
         synchronized (connection) {
             LOG.trace("Adding a new log record...");
-            if (insertStatement == null) {
-                try {
-                    insertStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_INSERT_NEW_RECORD);
-                } catch (SQLException e) {
-                    LOG.error("Can't create row insert statement", e);
-                    throw new RuntimeException(e);
-                }
-            }
 
             long leftConsumedSize = maxBucketSize - currentBucketSize;
             long leftRecordCount = maxRecordCount - currentRecordCount;
@@ -105,27 +180,76 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
                 moveToNextBucket();
             }
 
+            pendingRecords.add(new PendingRecord(currentBucketId, record.getData()));
+            unmarkedBuckets.add(currentBucketId);
+            currentBucketSize += record.getSize();
+            currentRecordCount++;
+
+            unmarkedConsumedSize += record.getSize();
+            unmarkedRecordCount++;
+            totalRecordCount++;
+            LOG.trace("Added a new log record, total record count: {}, data: {}, unmarked record count: {}",
+                    totalRecordCount, record.getData(), unmarkedRecordCount);
+
+            if (pendingRecords.size() >= writeBatchSize) {
+                flushPendingRecords();
+            }
+            return new BucketInfo(currentBucketId, currentRecordCount);
+        }
+    }
+
+    private void flushPendingRecords() {
+        if (pendingRecords.isEmpty()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            if (insertStatement == null) {
+                insertStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_INSERT_NEW_RECORD);
+            }
+            connection.setAutoCommit(false);
             try {
-                insertStatement.setInt(1, currentBucketId);
-                insertStatement.setBytes(2, record.getData());
-                int affectedRows = insertStatement.executeUpdate();
-                if (affectedRows == 1) {
-                    currentBucketSize += record.getSize();
-                    currentRecordCount++;
-
-                    unmarkedConsumedSize += record.getSize();
-                    unmarkedRecordCount++;
-                    totalRecordCount++;
-                    LOG.trace("Added a new log record, total record count: {}, data: {}, unmarked record count: {}",
-                            totalRecordCount, record.getData(), unmarkedRecordCount);
-                } else {
-                    LOG.warn("No log record was added");
+                for (PendingRecord record : pendingRecords) {
+                    insertStatement.setInt(1, record.bucketId);
+                    insertStatement.setBytes(2, record.data);
+                    insertStatement.addBatch();
                 }
+                insertStatement.executeBatch();
+                connection.commit();
             } catch (SQLException e) {
-                LOG.error("Can't add a new record", e);
+                insertStatement.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
+
+            long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+            flushCount++;
+            flushedRecordCount += pendingRecords.size();
+            totalFlushLatency += latency;
+            maxFlushLatency = Math.max(maxFlushLatency, latency);
+            LOG.trace("Inserted {} log records in {} us", pendingRecords.size(), latency);
+            pendingRecords.clear();
+        } catch (SQLException e) {
+            // the records and the bucket state stay as they are, the insert is retried with the next flush
+            LOG.error("Can't add {} new records, will retry", pendingRecords.size(), e);
         }
-        return new BucketInfo(currentBucketId, currentRecordCount);
+    }
+
+    /**
+     * Returns the first unmarked bucket, if all of its records are stored. Buckets with records
+     * that failed to be inserted are not available until the records are stored.
+     */
+    private Integer getFirstStoredBucket() {
+        if (unmarkedBuckets.isEmpty()) {
+            return null;
+        }
+        int bucketId = unmarkedBuckets.first();
+        if (!pendingRecords.isEmpty() && bucketId >= pendingRecords.get(0).bucketId) {
+            return null;
+        }
+        return bucketId;
     }
 
     @Override
@@ -137,34 +261,19 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
     public LogBucket getNextBucket() {
         synchronized (connection) {
             LOG.trace("Creating a new record block, needed size: {}, batch count: {}", maxBucketSize, maxRecordCount);
+            flushPendingRecords();
 
             ResultSet resultSet = null;
             LogBucket logBlock = null;
-            PreparedStatement selectBucketWithMinIdStatement = null;
-            List<LogRecord> logRecords = new LinkedList<>();
-            int bucketId = 0;
-
-            try {
-                selectBucketWithMinIdStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_SELECT_MIN_BUCKET_ID);
-                resultSet = selectBucketWithMinIdStatement.executeQuery();
-                if (resultSet.next()) {
-                    bucketId = resultSet.getInt(1);
-                }
-            } catch (SQLException e) {
-                LOG.error("Can't retrieve min bucket ID", e);
-            } finally {
-                try {
-                    tryCloseStatement(selectBucketWithMinIdStatement);
-                    tryCloseResultSet(resultSet);
-                } catch (SQLException e) {
-                    LOG.error("Can't close result set", e);
-                }
-            }
 
             try {
-                long leftBlockSize = maxBucketSize;
-                if (bucketId > 0) {
-                    selectUnmarkedStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_SELECT_LOG_RECORDS_BY_BUCKET_ID);
+                Integer bucketId;
+                while (logBlock == null && (bucketId = getFirstStoredBucket()) != null) {
+                    List<LogRecord> logRecords = new LinkedList<>();
+                    long leftBlockSize = maxBucketSize;
+                    if (selectUnmarkedStatement == null) {
+                        selectUnmarkedStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_SELECT_LOG_RECORDS_BY_BUCKET_ID);
+                    }
                     selectUnmarkedStatement.setInt(1, bucketId);
                     resultSet = selectUnmarkedStatement.executeQuery();
                     while (resultSet.next()) {
@@ -179,15 +288,17 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
                             LOG.warn("Found unmarked record with no data. Deleting it...");
                         }
                     }
+                    tryCloseResultSet(resultSet);
+                    resultSet = null;
+                    unmarkedBuckets.remove(bucketId);
 
                     if (!logRecords.isEmpty()) {
-                        updateBucketState(bucketId);
                         logBlock = new LogBucket(bucketId, logRecords);
 
                         long logBlockSize = maxBucketSize - leftBlockSize;
                         unmarkedConsumedSize -= logBlockSize;
                         unmarkedRecordCount -= logRecords.size();
-                        consumedMemoryStorage.put(logBlock.getBucketId(), logBlockSize);
+                        pendingBuckets.put(bucketId, new PendingBucket(logBlockSize, logRecords.size()));
 
                         if (currentBucketId == bucketId) {
                             moveToNextBucket();
@@ -197,10 +308,9 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
                                         " unmarked record count: {}",
                                 logBlock.getBucketId(), logBlockSize, logBlock.getRecords().size(), totalRecordCount, unmarkedRecordCount);
                     } else {
-                        LOG.info("No unmarked log records found");
+                        LOG.info("No unmarked log records found for bucket id [{}]", bucketId);
                     }
                 }
-
             } catch (SQLException e) {
                 LOG.error("Can't retrieve unmarked records from storage", e);
             } finally {
@@ -214,37 +324,6 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
         }
     }
 
-    private void updateBucketState(int bucketId) throws SQLException {
-        synchronized (connection) {
-            LOG.trace("Updating bucket id [{}]", bucketId);
-
-            PreparedStatement updateBucketStateStatement = null;
-            try {
-                try {
-                    updateBucketStateStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_UPDATE_BUCKET_ID);
-                } catch (SQLException e) {
-                    LOG.error("Can't create bucket id update statement", e);
-                    throw new RuntimeException(e);
-                }
-
-                try {
-                    updateBucketStateStatement.setString(1, PersistentLogStorageConstants.BUCKET_PENDING_STATE);
-                    updateBucketStateStatement.setInt(2, bucketId);
-                    int affectedRows = updateBucketStateStatement.executeUpdate();
-                    if (affectedRows > 0) {
-                        LOG.info("Successfully updated id [{}] for log records: {}", bucketId, affectedRows);
-                    } else {
-                        LOG.warn("No log records were updated");
-                    }
-                } catch (SQLException e) {
-                    LOG.error("Failed to update bucket id [{}]", bucketId, e);
-                }
-            } finally {
-                tryCloseStatement(updateBucketStateStatement);
-            }
-        }
-    }
-
     @Override
     public void removeBucket(int recordBlockId) {
         synchronized (connection) {
@@ -262,6 +341,7 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
                 deleteByBucketIdStatement.setInt(1, recordBlockId);
                 int removedRecordsCount = deleteByBucketIdStatement.executeUpdate();
                 if (removedRecordsCount > 0) {
+                    pendingBuckets.remove(recordBlockId);
                     totalRecordCount -= removedRecordsCount;
                     LOG.info("Removed {} records from storage. Total log record count: {}", removedRecordsCount, totalRecordCount);
                 } else {
@@ -277,41 +357,30 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
     public void rollbackBucket(int bucketId) {
         synchronized (connection) {
             LOG.trace("Notifying upload fail for bucket id: {}", bucketId);
-            if (resetBucketIdStatement == null) {
-                try {
-                    resetBucketIdStatement = connection.prepareStatement(PersistentLogStorageConstants.KAA_RESET_BY_BUCKET_ID);
-                } catch (SQLException e) {
-                    LOG.error("Can't create bucket id reset statement", e);
-                    throw new RuntimeException(e);
-                }
-            }
-
-            try {
-                resetBucketIdStatement.setInt(1, bucketId);
-                int affectedRows = resetBucketIdStatement.executeUpdate();
-                if (affectedRows > 0) {
-                    LOG.info("Total {} log records reset for bucket id: [{}]", affectedRows, bucketId);
-                    long previouslyConsumedSize = consumedMemoryStorage.remove(bucketId);
-                    unmarkedConsumedSize += previouslyConsumedSize;
-                    unmarkedRecordCount += affectedRows;
-                } else {
-                    LOG.info("No log records for bucket with id: [{}]", bucketId);
-                }
-
-            } catch (SQLException e) {
-                LOG.error("Failed to reset bucket with id [{}]", bucketId, e);
+            PendingBucket bucket = pendingBuckets.remove(bucketId);
+            if (bucket != null) {
+                LOG.info("Total {} log records reset for bucket id: [{}]", bucket.recordCount, bucketId);
+                unmarkedBuckets.add(bucketId);
+                unmarkedConsumedSize += bucket.size;
+                unmarkedRecordCount += bucket.recordCount;
+            } else {
+                LOG.info("No log records for bucket with id: [{}]", bucketId);
             }
         }
     }
 
     @Override
     public long getConsumedVolume() {
-        return unmarkedConsumedSize;
+        synchronized (connection) {
+            return unmarkedConsumedSize;
+        }
     }
 
     @Override
     public long getRecordCount() {
-        return unmarkedRecordCount;
+        synchronized (connection) {
+            return unmarkedRecordCount;
+        }
     }
 
     private void moveToNextBucket() {
@@ -453,18 +522,86 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
         }
     }
 
+    @Override
+    public long getFlushCount() {
+        synchronized (connection) {
+            return flushCount;
+        }
+    }
+
+    @Override
+    public long getFlushedRecordCount() {
+        synchronized (connection) {
+            return flushedRecordCount;
+        }
+    }
+
+    @Override
+    public long getAverageFlushLatency() {
+        synchronized (connection) {
+            return flushCount > 0 ? totalFlushLatency / flushCount : 0;
+        }
+    }
+
+    @Override
+    public long getMaxFlushLatency() {
+        synchronized (connection) {
+            return maxFlushLatency;
+        }
+    }
+
     public void close() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        synchronized (connection) {
+            flushPendingRecords();
+            try {
+                tryCloseStatement(insertStatement);
+                tryCloseStatement(deleteByBucketIdStatement);
+                tryCloseStatement(selectUnmarkedStatement);
+
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                LOG.error("Can't close SQLite db connection", e);
+            }
+        }
+    }
+
+    private boolean isWriteBuffered() {
+        return writeBatchSize > 1;
+    }
+
+    private void enableWalMode() throws SQLException {
+        Statement statement = null;
         try {
-            tryCloseStatement(insertStatement);
-            tryCloseStatement(deleteByBucketIdStatement);
-            tryCloseStatement(resetBucketIdStatement);
-            tryCloseStatement(selectUnmarkedStatement);
+            statement = connection.createStatement();
+            statement.execute(KAA_ENABLE_WAL_MODE);
+            statement.execute(KAA_SYNCHRONOUS_NORMAL);
+            LOG.debug("SQLite WAL journal mode was enabled");
+        } finally {
+            tryCloseStatement(statement);
+        }
+    }
 
-            if (connection != null) {
-                connection.close();
+    private void checkpoint() {
+        synchronized (connection) {
+            Statement statement = null;
+            try {
+                statement = connection.createStatement();
+                statement.execute(KAA_WAL_CHECKPOINT);
+                LOG.trace("SQLite WAL checkpoint was performed");
+            } catch (SQLException e) {
+                LOG.warn("Can't perform SQLite WAL checkpoint", e);
+            } finally {
+                try {
+                    tryCloseStatement(statement);
+                } catch (SQLException e) {
+                    LOG.error("Can't close statement", e);
+                }
             }
-        } catch (SQLException e) {
-            LOG.error("Can't close SQLite db connection", e);
         }
     }
 
@@ -496,4 +633,40 @@ public class DesktopSQLiteDBLogStorage implements LogStorage, LogStorageStatus {
             }
         }
     }
+
+    private void retrieveUnmarkedBuckets() throws SQLException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery(PersistentLogStorageConstants.KAA_SELECT_BUCKET_IDS);
+            while (resultSet.next()) {
+                unmarkedBuckets.add(resultSet.getInt(1));
+            }
+            LOG.trace("Retrieved {} unmarked buckets", unmarkedBuckets.size());
+        } finally {
+            tryCloseResultSet(resultSet);
+            tryCloseStatement(statement);
+        }
+    }
+
+    private static final class PendingRecord {
+        private final int bucketId;
+        private final byte[] data;
+
+        PendingRecord(int bucketId, byte[] data) {
+            this.bucketId = bucketId;
+            this.data = data;
+        }
+    }
+
+    private static final class PendingBucket {
+        private final long size;
+        private final int recordCount;
+
+        PendingBucket(long size, int recordCount) {
+            this.size = size;
+            this.recordCount = recordCount;
+        }
+    }
 }
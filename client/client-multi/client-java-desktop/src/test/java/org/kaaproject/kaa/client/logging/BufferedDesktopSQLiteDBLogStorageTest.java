@@ -0,0 +1,108 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.logging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+public class BufferedDesktopSQLiteDBLogStorageTest extends AbstractPersistentLogStorageTest {
+    private static final String DB_FILENAME = "test_buffered.db";
+    private static final int WRITE_BATCH_SIZE = 4;
+    private static final long WRITE_BATCH_TIMEOUT = 50;
+
+    @Before
+    public void prepare() {
+        deleteDBFiles();
+    }
+
+    @After
+    public void cleanup() {
+        deleteDBFiles();
+    }
+
+    @Override
+    protected DesktopSQLiteDBLogStorage getStorage(long bucketSize, int recordCount) {
+        return new DesktopSQLiteDBLogStorage(DB_FILENAME, bucketSize, recordCount, WRITE_BATCH_SIZE, WRITE_BATCH_TIMEOUT);
+    }
+
+    @Test
+    public void testRecordsAreInsertedInBatches() {
+        DesktopSQLiteDBLogStorage storage = new DesktopSQLiteDBLogStorage(DB_FILENAME, 8192, 1000, WRITE_BATCH_SIZE, 0);
+        LogRecord record = new LogRecord();
+        for (int i = 0; i < WRITE_BATCH_SIZE * 3 - 1; i++) {
+            storage.addLogRecord(record);
+        }
+        Assert.assertEquals(2, storage.getFlushCount());
+        Assert.assertEquals(WRITE_BATCH_SIZE * 2, storage.getFlushedRecordCount());
+        Assert.assertEquals(WRITE_BATCH_SIZE * 3 - 1, storage.getRecordCount());
+
+        LogBucket bucket = storage.getNextBucket();
+        Assert.assertEquals(WRITE_BATCH_SIZE * 3 - 1, bucket.getRecords().size());
+        Assert.assertEquals(3, storage.getFlushCount());
+        Assert.assertTrue(storage.getMaxFlushLatency() >= storage.getAverageFlushLatency());
+        storage.close();
+    }
+
+    @Test
+    public void testRecordsAreInsertedOnTimeout() throws InterruptedException {
+        DesktopSQLiteDBLogStorage storage = getStorage(8192, 1000);
+        storage.addLogRecord(new LogRecord());
+        Assert.assertEquals(0, storage.getFlushedRecordCount());
+        Thread.sleep(WRITE_BATCH_TIMEOUT * 5);
+        Assert.assertEquals(1, storage.getFlushedRecordCount());
+        storage.close();
+    }
+
+    @Test
+    public void testFailedInsertIsRetried() throws Exception {
+        DesktopSQLiteDBLogStorage storage = new DesktopSQLiteDBLogStorage(DB_FILENAME, 8192, 1000, WRITE_BATCH_SIZE, 0);
+        LogRecord record = new LogRecord();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + DB_FILENAME);
+             Statement statement = connection.createStatement()) {
+            // inserts fail while the log table is missing
+            statement.executeUpdate("ALTER TABLE " + PersistentLogStorageConstants.LOG_TABLE_NAME + " RENAME TO hidden_logs");
+            for (int i = 0; i < WRITE_BATCH_SIZE; i++) {
+                storage.addLogRecord(record);
+            }
+            Assert.assertEquals(0, storage.getFlushCount());
+            Assert.assertEquals(WRITE_BATCH_SIZE, storage.getRecordCount());
+            Assert.assertNull(storage.getNextBucket());
+            Assert.assertEquals(WRITE_BATCH_SIZE, storage.getRecordCount());
+            statement.executeUpdate("ALTER TABLE hidden_logs RENAME TO " + PersistentLogStorageConstants.LOG_TABLE_NAME);
+        }
+
+        LogBucket bucket = storage.getNextBucket();
+        Assert.assertNotNull(bucket);
+        Assert.assertEquals(WRITE_BATCH_SIZE, bucket.getRecords().size());
+        Assert.assertEquals(1, storage.getFlushCount());
+        Assert.assertEquals(0, storage.getRecordCount());
+        storage.close();
+    }
+
+    private void deleteDBFiles() {
+        new File(DB_FILENAME).delete();
+        new File(DB_FILENAME + "-wal").delete();
+        new File(DB_FILENAME + "-shm").delete();
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.kaaproject.kaa.client.logging.memory.MemLogStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares add/getNextBucket/removeBucket throughput of the available {@link LogStorage} implementations.
+ * Run it with {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LogStorageBenchmark {
+    private static final long MAX_STORAGE_SIZE = 16 * 1024 * 1024;
+    private static final long BUCKET_SIZE = 16 * 1024;
+    private static final int BUCKET_RECORD_COUNT = 256;
+
+    @Param({"memory", "sqlite", "sqlite-buffered", "mapped"})
+    private String storageType;
+
+    @Param({"64", "1024"})
+    private int recordSize;
+
+    private File file;
+    private LogStorage storage;
+    private LogRecord record;
+    private long addedVolume;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        record = new LogRecord(new byte[recordSize]);
+        file = File.createTempFile("kaa-log-storage", ".bench");
+        file.delete();
+        switch (storageType) {
+            case "memory":
+                storage = new MemLogStorage(MAX_STORAGE_SIZE, BUCKET_SIZE, BUCKET_RECORD_COUNT);
+                break;
+            case "sqlite":
+                storage = new DesktopSQLiteDBLogStorage(file.getAbsolutePath(), BUCKET_SIZE, BUCKET_RECORD_COUNT);
+                break;
+            case "sqlite-buffered":
+                storage = new DesktopSQLiteDBLogStorage(file.getAbsolutePath(), BUCKET_SIZE, BUCKET_RECORD_COUNT, BUCKET_RECORD_COUNT, 1000);
+                break;
+            case "mapped":
+                storage = new MappedFileLogStorage(file.getAbsolutePath(), MAX_STORAGE_SIZE, BUCKET_SIZE, BUCKET_RECORD_COUNT);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + storageType);
+        }
+        addedVolume = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        storage.close();
+        file.delete();
+        new File(file.getAbsolutePath() + "-wal").delete();
+        new File(file.getAbsolutePath() + "-shm").delete();
+    }
+
+    /**
+     * Appends a single record. The storage is drained once half of it is consumed, so the cost
+     * of bucket removal is amortized over the appended records.
+     */
+    @Benchmark
+    public BucketInfo addLogRecord() {
+        BucketInfo info = storage.addLogRecord(record);
+        addedVolume += recordSize;
+        if (addedVolume > MAX_STORAGE_SIZE / 2) {
+            drain();
+            addedVolume = 0;
+        }
+        return info;
+    }
+
+    /**
+     * Fills a bucket, then fetches and removes it, i.e. a full upload cycle of a single bucket.
+     */
+    @Benchmark
+    public LogBucket uploadBucket() {
+        int count = (int) Math.min(BUCKET_RECORD_COUNT, BUCKET_SIZE / recordSize);
+        for (int i = 0; i < count; i++) {
+            storage.addLogRecord(record);
+        }
+        LogBucket bucket = storage.getNextBucket();
+        storage.removeBucket(bucket.getBucketId());
+        return bucket;
+    }
+
+    private void drain() {
+        LogBucket bucket;
+        while ((bucket = storage.getNextBucket()) != null) {
+            storage.removeBucket(bucket.getBucketId());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LogStorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
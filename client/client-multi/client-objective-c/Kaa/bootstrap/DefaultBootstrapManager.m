@@ -16,7 +16,6 @@
 
 #import "DefaultBootstrapManager.h"
 #import "GenericTransportInfo.h"
-#import "NSMutableArray+Shuffling.h"
 #import "TransportConnectionInfo.h"
 #import "KaaLogging.h"
 #import "KaaExceptions.h"
@@ -135,9 +134,9 @@
             }
             [servers addObject:server];
         }
+        // Keep the order of the server list: the Bootstrap server puts the least loaded servers first
         for (TransportProtocolId *key in self.mappedOperationServerList.allKeys) {
             NSMutableArray *servers = self.mappedOperationServerList[key];
-            [servers shuffle];
             self.mappedIterators[key] = [servers objectEnumerator];
         }
         if (self.serverToApply) {
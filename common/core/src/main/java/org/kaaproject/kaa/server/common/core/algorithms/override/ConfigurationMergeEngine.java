@@ -0,0 +1,384 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.override;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.configuration.OverrideData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges endpoint group configurations without parsing their JSON bodies on
+ * every merge.
+ * <p>
+ * Each configuration body is decoded once and kept in a cache keyed by
+ * configuration id and sequence number, parsed schemas are cached by
+ * configuration schema id. The cache is bounded by the total length of the
+ * cached configuration bodies, since a few large configurations take more
+ * memory than many small ones. A merge deep copies the decoded base
+ * configuration and applies the decoded overrides to it structurally, if the
+ * algorithm created by the {@link OverrideAlgorithmFactory} is a
+ * {@link DefaultOverrideAlgorithm}, other algorithms get the JSON bodies.
+ * Since a configuration gets a new sequence number on every change, cached
+ * entries never become stale and are only evicted when the cache is full.
+ * <p>
+ * This class is thread safe. Decoded configurations held by the cache are
+ * never modified.
+ */
+public class ConfigurationMergeEngine {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationMergeEngine.class);
+
+    /** The default maximum total length of the configuration bodies kept decoded in the cache. */
+    public static final long DEFAULT_MAX_CACHED_WEIGHT = 32L * 1024 * 1024;
+
+    /** The maximum number of parsed schemas kept in the cache. */
+    private static final int MAX_CACHED_SCHEMAS = 64;
+
+    private final OverrideAlgorithmFactory overrideAlgorithmFactory;
+    private final Map<String, ParsedSchemas> schemas;
+    private final WeightedLruMap configurations;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Instantiates a new merge engine with the default cache weight.
+     *
+     * @param overrideAlgorithmFactory the factory of the algorithm that applies overrides
+     */
+    public ConfigurationMergeEngine(OverrideAlgorithmFactory overrideAlgorithmFactory) {
+        this(overrideAlgorithmFactory, DEFAULT_MAX_CACHED_WEIGHT);
+    }
+
+    /**
+     * Instantiates a new merge engine.
+     *
+     * @param overrideAlgorithmFactory the factory of the algorithm that applies overrides
+     * @param maxCachedWeight the maximum total length of the configuration bodies kept decoded in the cache
+     */
+    public ConfigurationMergeEngine(OverrideAlgorithmFactory overrideAlgorithmFactory, long maxCachedWeight) {
+        if (maxCachedWeight <= 0) {
+            throw new IllegalArgumentException("Max cached weight must be positive: " + maxCachedWeight);
+        }
+        this.overrideAlgorithmFactory = overrideAlgorithmFactory;
+        this.schemas = new LruMap<>(MAX_CACHED_SCHEMAS);
+        this.configurations = new WeightedLruMap(maxCachedWeight);
+    }
+
+    /**
+     * Merges configurations into single configuration.
+     *
+     * @param schemaId the id of the configuration schema both schemas belong to
+     * @param baseSchema the base schema
+     * @param overrideSchema the override schema
+     * @param baseConfiguration the base configuration
+     * @param overrideConfigurations the override configurations in order of their weight
+     * @return the merged configuration, or null if there is no base configuration
+     * @throws OverrideException the override exception
+     * @throws IOException Signals that a configuration body can't be decoded.
+     */
+    public BaseData override(String schemaId, BaseSchema baseSchema, OverrideSchema overrideSchema,
+            Source baseConfiguration, List<Source> overrideConfigurations) throws OverrideException, IOException {
+        if (baseConfiguration == null) {
+            LOG.debug("empty endpoint groups or configurations - returning empty result");
+            return null;
+        }
+        OverrideAlgorithm algorithm = overrideAlgorithmFactory.createConfigurationOverrideAlgorithm();
+        if (!(algorithm instanceof DefaultOverrideAlgorithm)) {
+            return algorithm.override(new BaseData(baseSchema, baseConfiguration.body),
+                    toOverrideData(overrideSchema, overrideConfigurations));
+        }
+        ParsedSchemas parsed = getSchemas(schemaId, baseSchema, overrideSchema);
+        GenericRecord merged = merge((DefaultOverrideAlgorithm) algorithm, parsed, baseSchema, baseConfiguration,
+                overrideConfigurations);
+        return new BaseData(baseSchema, new GenericAvroConverter<GenericRecord>(parsed.base).encodeToJson(merged));
+    }
+
+    /**
+     * Merges configurations into single decoded configuration. The overrides
+     * are always applied by {@link DefaultOverrideAlgorithm}, since other
+     * algorithms work on JSON.
+     *
+     * @param schemaId the id of the configuration schema both schemas belong to
+     * @param baseSchema the base schema
+     * @param overrideSchema the override schema
+     * @param baseConfiguration the base configuration
+     * @param overrideConfigurations the override configurations in order of their weight
+     * @return the merged configuration, owned by the caller
+     * @throws OverrideException the override exception
+     * @throws IOException Signals that a configuration body can't be decoded.
+     */
+    public GenericRecord merge(String schemaId, BaseSchema baseSchema, OverrideSchema overrideSchema,
+            Source baseConfiguration, List<Source> overrideConfigurations) throws OverrideException, IOException {
+        return merge(new DefaultOverrideAlgorithm(), getSchemas(schemaId, baseSchema, overrideSchema), baseSchema,
+                baseConfiguration, overrideConfigurations);
+    }
+
+    private GenericRecord merge(DefaultOverrideAlgorithm algorithm, ParsedSchemas parsed, BaseSchema baseSchema,
+            Source baseConfiguration, List<Source> overrideConfigurations) throws OverrideException, IOException {
+        GenericRecord base = getDecoded(parsed.base, baseConfiguration);
+        GenericRecord merged = GenericData.get().deepCopy(parsed.base, base);
+        if (overrideConfigurations == null || overrideConfigurations.isEmpty()) {
+            return merged;
+        }
+        List<GenericRecord> overrides = new ArrayList<>(overrideConfigurations.size());
+        for (Source source : overrideConfigurations) {
+            overrides.add(getDecoded(parsed.override, source));
+        }
+        algorithm.override(baseSchema, parsed.types, merged, overrides);
+        return merged;
+    }
+
+    private static List<OverrideData> toOverrideData(OverrideSchema overrideSchema, List<Source> overrideConfigurations) {
+        List<OverrideData> overrides = new ArrayList<>();
+        if (overrideConfigurations != null) {
+            for (Source source : overrideConfigurations) {
+                overrides.add(new OverrideData(overrideSchema, source.body));
+            }
+        }
+        return overrides;
+    }
+
+    /**
+     * Removes all decoded configurations and parsed schemas from the cache.
+     */
+    public void clear() {
+        synchronized (configurations) {
+            configurations.clear();
+        }
+        synchronized (schemas) {
+            schemas.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int getCachedConfigurationCount() {
+        synchronized (configurations) {
+            return configurations.size();
+        }
+    }
+
+    /**
+     * Gets the total length of the configuration bodies kept decoded in the cache.
+     *
+     * @return the cached weight
+     */
+    public long getCachedWeight() {
+        synchronized (configurations) {
+            return configurations.weight;
+        }
+    }
+
+    private ParsedSchemas getSchemas(String schemaId, BaseSchema baseSchema, OverrideSchema overrideSchema) {
+        ParsedSchemas parsed;
+        synchronized (schemas) {
+            parsed = schemas.get(schemaId);
+        }
+        if (parsed == null) {
+            parsed = new ParsedSchemas(baseSchema, overrideSchema);
+            synchronized (schemas) {
+                schemas.put(schemaId, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    private GenericRecord getDecoded(Schema schema, Source source) throws IOException {
+        ConfigurationKey key = new ConfigurationKey(source.id, source.sequenceNumber);
+        CachedConfiguration cached;
+        synchronized (configurations) {
+            cached = configurations.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.record;
+        }
+        misses.incrementAndGet();
+        GenericRecord decoded = new GenericAvroConverter<GenericRecord>(schema).decodeJson(source.body);
+        synchronized (configurations) {
+            configurations.put(key, new CachedConfiguration(decoded, source.body.length()));
+        }
+        return decoded;
+    }
+
+    /**
+     * A configuration to merge.
+     */
+    public static final class Source {
+
+        private final String id;
+        private final int sequenceNumber;
+        private final String body;
+
+        /**
+         * Instantiates a new source.
+         *
+         * @param id the configuration id
+         * @param sequenceNumber the configuration sequence number
+         * @param body the configuration body in JSON
+         */
+        public Source(String id, int sequenceNumber, String body) {
+            this.id = id;
+            this.sequenceNumber = sequenceNumber;
+            this.body = body;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getSequenceNumber() {
+            return sequenceNumber;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+
+    private static final class ConfigurationKey {
+
+        private final String id;
+        private final int sequenceNumber;
+
+        ConfigurationKey(String id, int sequenceNumber) {
+            this.id = id;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (id == null ? 0 : id.hashCode()) + sequenceNumber;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ConfigurationKey)) {
+                return false;
+            }
+            ConfigurationKey other = (ConfigurationKey) obj;
+            return sequenceNumber == other.sequenceNumber && (id == null ? other.id == null : id.equals(other.id));
+        }
+    }
+
+    private static final class ParsedSchemas {
+
+        private final Schema base;
+        private final Schema override;
+        private final Map<String, Schema> types;
+
+        ParsedSchemas(BaseSchema baseSchema, OverrideSchema overrideSchema) {
+            Schema.Parser baseParser = new Schema.Parser();
+            this.base = baseParser.parse(baseSchema.getRawSchema());
+            this.types = baseParser.getTypes();
+            this.override = new Schema.Parser().parse(overrideSchema.getRawSchema());
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class CachedConfiguration {
+
+        private final GenericRecord record;
+        private final long weight;
+
+        CachedConfiguration(GenericRecord record, long weight) {
+            this.record = record;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * An LRU map that evicts the least recently used configurations while the
+     * total weight of the cached configurations exceeds the limit. A
+     * configuration heavier than the limit is not kept at all.
+     */
+    private static final class WeightedLruMap extends LinkedHashMap<ConfigurationKey, CachedConfiguration> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long maxWeight;
+        private long weight;
+
+        WeightedLruMap(long maxWeight) {
+            super(16, 0.75f, true);
+            this.maxWeight = maxWeight;
+        }
+
+        @Override
+        public CachedConfiguration put(ConfigurationKey key, CachedConfiguration value) {
+            CachedConfiguration previous = super.put(key, value);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += value.weight;
+            Iterator<CachedConfiguration> iterator = values().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                weight -= iterator.next().weight;
+                iterator.remove();
+            }
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            weight = 0;
+        }
+    }
+}
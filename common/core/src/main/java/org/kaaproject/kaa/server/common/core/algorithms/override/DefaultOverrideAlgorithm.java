@@ -20,7 +20,9 @@ import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.U
 import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.UUID_FIELD;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
@@ -35,6 +37,7 @@ import org.kaaproject.kaa.server.common.core.algorithms.generation.DefaultRecord
 import org.kaaproject.kaa.server.common.core.configuration.BaseData;
 import org.kaaproject.kaa.server.common.core.configuration.BaseDataFactory;
 import org.kaaproject.kaa.server.common.core.configuration.OverrideData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,8 +50,9 @@ public class DefaultOverrideAlgorithm implements OverrideAlgorithm {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(DefaultOverrideAlgorithm.class);
 
+    private BaseSchema baseSchema;
     private DefaultRecordGenerationAlgorithm confGenerator;
-    private Schema.Parser baseSchemaParser;
+    private Map<String, Schema> baseSchemaTypes;
 
     /* (non-Javadoc)
      * @see org.kaaproject.kaa.server.operations.service.delta.merge.ConfigurationMerger#merge(List<org.kaaproject.kaa.common.dto.EndpointGroupDto>, List<org.kaaproject.kaa.common.dto.ConfigurationDto>, org.kaaproject.kaa.common.dto.ConfigurationSchemaDto)
@@ -65,40 +69,62 @@ public class DefaultOverrideAlgorithm implements OverrideAlgorithm {
             return baseConfiguration;
         }
 
-        try {
-            confGenerator = new DefaultRecordGenerationAlgorithmImpl(baseConfiguration.getSchema(), new BaseDataFactory());
-        } catch (ConfigurationGenerationException e) {
-            throw new OverrideException(e);
-        }
-
-        baseSchemaParser = new Schema.Parser();
+        Schema.Parser baseSchemaParser = new Schema.Parser();
         Schema baseAvroSchema = baseSchemaParser.parse(baseConfiguration.getSchema().getRawSchema());
         Schema.Parser overrideSchemaParser = new Schema.Parser();
         Schema overrideAvroSchema = overrideSchemaParser.parse(overrideConfigurations.get(0).getSchema().getRawSchema());
 
-        LOG.info("converter: {}", baseAvroSchema.toString());
+        LOG.trace("converter: {}", baseAvroSchema);
         GenericAvroConverter<GenericRecord> baseConverter = new GenericAvroConverter(baseAvroSchema);
         GenericAvroConverter<GenericRecord> overrideConverter = new GenericAvroConverter(overrideAvroSchema);
         GenericRecord mergedConfiguration = baseConverter.decodeJson(baseConfiguration.getRawData());
 
+        List<GenericRecord> nodesToApply = new ArrayList<>(overrideConfigurations.size());
+        for (OverrideData entry : overrideConfigurations) {
+            LOG.debug("Override schema {}", entry.getSchema());
+            nodesToApply.add(overrideConverter.decodeJson(entry.getRawData()));
+        }
+        override(baseConfiguration.getSchema(), baseSchemaParser.getTypes(), mergedConfiguration, nodesToApply);
+        return new BaseData(baseConfiguration.getSchema(), baseConverter.encodeToJson(mergedConfiguration));
+    }
+
+    /**
+     * Applies already decoded override configurations to the decoded base
+     * configuration. The base configuration is modified in place, override
+     * configurations are only read and none of their values are shared with
+     * the base configuration, so they can be shared between merges.
+     *
+     * @param baseSchema the base schema
+     * @param baseSchemaTypes the named types of the parsed base schema
+     * @param baseConfiguration the base configuration to apply overrides to
+     * @param overrideConfigurations the override configurations in order of their weight
+     * @throws OverrideException the override exception
+     */
+    public void override(BaseSchema baseSchema, Map<String, Schema> baseSchemaTypes, GenericRecord baseConfiguration,
+            List<GenericRecord> overrideConfigurations) throws OverrideException {
+        this.baseSchema = baseSchema;
+        this.baseSchemaTypes = baseSchemaTypes;
+        this.confGenerator = null;
         try {
-            ArrayOverrideStrategyResolver arrayMergeStrategyResolver = new ArrayOverrideStrategyResolver(baseSchemaParser.getTypes());
-            for (OverrideData entry : overrideConfigurations) {
-                String configurationToApply = entry.getRawData();
-                // else execute merge
-                LOG.debug("Override schema {}", entry.getSchema());
-                GenericRecord nodeToApply = overrideConverter.decodeJson(configurationToApply);
-                LOG.info("configurationToApply: {}", nodeToApply);
-                applyNode(mergedConfiguration, nodeToApply, arrayMergeStrategyResolver);
+            ArrayOverrideStrategyResolver arrayMergeStrategyResolver = new ArrayOverrideStrategyResolver(baseSchemaTypes);
+            for (GenericRecord nodeToApply : overrideConfigurations) {
+                LOG.trace("configurationToApply: {}", nodeToApply);
+                applyNode(baseConfiguration, nodeToApply, arrayMergeStrategyResolver);
             }
-            return new BaseData(baseConfiguration.getSchema(), baseConverter.encodeToJson(mergedConfiguration));
         } catch (IOException | ConfigurationGenerationException e) {
             throw new OverrideException(e);
         }
     }
 
     private Schema getSchemaByName(String fullName) {
-        return baseSchemaParser.getTypes().get(fullName);
+        return baseSchemaTypes.get(fullName);
+    }
+
+    private DefaultRecordGenerationAlgorithm getConfGenerator() throws ConfigurationGenerationException {
+        if (confGenerator == null) {
+            confGenerator = new DefaultRecordGenerationAlgorithmImpl(baseSchema, new BaseDataFactory());
+        }
+        return confGenerator;
     }
 
     /**
@@ -124,7 +150,7 @@ public class DefaultOverrideAlgorithm implements OverrideAlgorithm {
                 // in destination data we should generate the default value for it
                 if (sourceEnum.toString().equals(UNCHANGED)) {
                     if (destinationRoot.get(field.pos()) == null) {
-                        GenericRecord defRec = confGenerator.getConfigurationByName(sourceRootSchema.getName(), sourceRootSchema.getNamespace());
+                        GenericRecord defRec = getConfGenerator().getConfigurationByName(sourceRootSchema.getName(), sourceRootSchema.getNamespace());
                         destinationRoot.put(field.pos(), defRec.get(field.pos()));
                     }
                     continue;
@@ -187,7 +213,8 @@ public class DefaultOverrideAlgorithm implements OverrideAlgorithm {
                            }
                            destinationRoot.put(sourceChildname, destArray);
                        } else {
-                           destinationRoot.put(sourceChildname, sourceChild);
+                           // copy the array, so changing it later never modifies the source
+                           destinationRoot.put(sourceChildname, GenericData.get().deepCopy(sourceArray.getSchema(), sourceArray));
                        }
                        break;
                    case APPEND:
@@ -200,15 +227,19 @@ public class DefaultOverrideAlgorithm implements OverrideAlgorithm {
                                destArray.add(destRecord);
                            }
                        } else {
-                           destArray.addAll(sourceArray);
+                           Schema itemSchema = sourceArray.getSchema().getElementType();
+                           for (Object item : sourceArray) {
+                               destArray.add(GenericData.get().deepCopy(itemSchema, item));
+                           }
                        }
                        break;
                    default:
                        break;
                }
             } else if (!UUID_FIELD.equals(field.name()) || destinationRoot.get(field.pos()) == null) {
-                // simple node is just copied to destination node
-                destinationRoot.put(sourceChildname, sourceChild);
+                // simple node is just copied to destination node, mutable values
+                // like bytes and maps are not shared with the source
+                destinationRoot.put(sourceChildname, GenericData.get().deepCopy(field.schema(), sourceChild));
             }
         }
     }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.override;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.server.common.core.algorithms.delta.DefaultDeltaCalculationAlgorithm;
+import org.kaaproject.kaa.server.common.core.algorithms.delta.RawBinaryDelta;
+import org.kaaproject.kaa.server.common.core.algorithms.schema.SchemaGenerationAlgorithm;
+import org.kaaproject.kaa.server.common.core.algorithms.schema.SchemaGenerationAlgorithmFactoryImpl;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.configuration.OverrideData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.DataSchema;
+import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
+import org.kaaproject.kaa.server.common.core.schema.ProtocolSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares configuration override and delta calculation on JSON bodies with
+ * the same operations on decoded configurations, using a schema with nested
+ * record arrays. With 112 groups the base configuration is about 1MB of JSON.
+ * Run it with {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigurationMergeBenchmark {
+
+    private static final String SCHEMA_ID = "1";
+    private static final String SYSTEM_NAMESPACE = "org.kaaproject.configuration";
+
+    /** Sizes of the nested arrays by depth, the size of the top level arrays is a parameter. */
+    private static final int[] NESTED_ARRAY_SIZES = {8, 6, 4};
+
+    private static final int OVERRIDE_COUNT = 2;
+    private static final int OVERRIDE_GROUP_COUNT = 2;
+
+    @Param({"8", "112"})
+    private int groupCount;
+
+    private BaseSchema baseSchema;
+    private OverrideSchema overrideSchema;
+    private Schema baseAvroSchema;
+    private Schema protocolAvroSchema;
+
+    private BaseData baseData;
+    private List<OverrideData> overrideData;
+    private ConfigurationMergeEngine.Source baseSource;
+    private List<ConfigurationMergeEngine.Source> overrideSources;
+    private ConfigurationMergeEngine engine;
+
+    private BaseData mergedData;
+    private GenericRecord baseRecord;
+    private GenericRecord mergedRecord;
+
+    @Setup
+    public void setUp() throws Exception {
+        String rawSchema = new String(Files.readAllBytes(Paths.get(Thread.currentThread().getContextClassLoader()
+                .getResource("override/benchmark_schema.json").toURI())), "UTF-8");
+        SchemaGenerationAlgorithm generator = new SchemaGenerationAlgorithmFactoryImpl().createSchemaGenerator(new DataSchema(rawSchema));
+        baseSchema = generator.getBaseSchema();
+        overrideSchema = generator.getOverrideSchema();
+        ProtocolSchema protocolSchema = generator.getProtocolSchema();
+        baseAvroSchema = new Schema.Parser().parse(baseSchema.getRawSchema());
+        protocolAvroSchema = new Schema.Parser().parse(protocolSchema.getRawSchema());
+        Schema overrideAvroSchema = new Schema.Parser().parse(overrideSchema.getRawSchema());
+
+        Random random = new Random(42);
+        GenericAvroConverter<GenericRecord> baseConverter = new GenericAvroConverter<>(baseAvroSchema);
+        GenericAvroConverter<GenericRecord> overrideConverter = new GenericAvroConverter<>(overrideAvroSchema);
+        baseData = new BaseData(baseSchema, baseConverter.encodeToJson(
+                (GenericRecord) generate(baseAvroSchema, 0, groupCount, "base", random)));
+        baseSource = new ConfigurationMergeEngine.Source("base", 1, baseData.getRawData());
+        overrideData = new ArrayList<>(OVERRIDE_COUNT);
+        overrideSources = new ArrayList<>(OVERRIDE_COUNT);
+        for (int i = 0; i < OVERRIDE_COUNT; i++) {
+            String body = overrideConverter.encodeToJson(
+                    (GenericRecord) generate(overrideAvroSchema, 0, OVERRIDE_GROUP_COUNT, "override" + i, random));
+            overrideData.add(new OverrideData(overrideSchema, body));
+            overrideSources.add(new ConfigurationMergeEngine.Source("override" + i, 1, body));
+        }
+        engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory());
+
+        mergedData = new DefaultOverrideAlgorithm().override(baseData, overrideData);
+        baseRecord = baseConverter.decodeJson(baseData.getRawData());
+        mergedRecord = baseConverter.decodeJson(mergedData.getRawData());
+    }
+
+    /**
+     * Merges the JSON configurations with {@link DefaultOverrideAlgorithm}.
+     */
+    @Benchmark
+    public BaseData overrideJson() throws Exception {
+        return new DefaultOverrideAlgorithm().override(baseData, overrideData);
+    }
+
+    /**
+     * Merges the cached decoded configurations, the result stays decoded.
+     */
+    @Benchmark
+    public GenericRecord overrideDecoded() throws Exception {
+        return engine.merge(SCHEMA_ID, baseSchema, overrideSchema, baseSource, overrideSources);
+    }
+
+    /**
+     * Merges the cached decoded configurations and encodes the result to JSON.
+     */
+    @Benchmark
+    public BaseData overrideDecodedToJson() throws Exception {
+        return engine.override(SCHEMA_ID, baseSchema, overrideSchema, baseSource, overrideSources);
+    }
+
+    /**
+     * Calculates the delta between the base and the merged JSON configurations.
+     */
+    @Benchmark
+    public RawBinaryDelta deltaJson() throws Exception {
+        return new DefaultDeltaCalculationAlgorithm(protocolAvroSchema, baseAvroSchema).calculate(baseData, mergedData);
+    }
+
+    /**
+     * Calculates the delta between the base and the merged decoded configurations.
+     */
+    @Benchmark
+    public RawBinaryDelta deltaDecoded() throws Exception {
+        return new DefaultDeltaCalculationAlgorithm(protocolAvroSchema, baseAvroSchema).calculate(baseRecord, mergedRecord);
+    }
+
+    /**
+     * Generates a value of the schema, the size of the top level arrays is given,
+     * nested arrays have fixed sizes.
+     */
+    private static Object generate(Schema schema, int depth, int topLevelArraySize, String prefix, Random random) throws IOException {
+        switch (schema.getType()) {
+            case RECORD:
+                GenericRecord record = new GenericData.Record(schema);
+                for (Schema.Field field : schema.getFields()) {
+                    record.put(field.pos(), generate(field.schema(), depth, topLevelArraySize, prefix, random));
+                }
+                return record;
+            case UNION:
+                for (Schema type : schema.getTypes()) {
+                    if (type.getType() != Schema.Type.NULL
+                            && !(type.getType() == Schema.Type.ENUM && SYSTEM_NAMESPACE.equals(type.getNamespace()))) {
+                        return generate(type, depth, topLevelArraySize, prefix, random);
+                    }
+                }
+                return null;
+            case ARRAY:
+                int size = depth == 0 ? topLevelArraySize : NESTED_ARRAY_SIZES[Math.min(depth, NESTED_ARRAY_SIZES.length) - 1];
+                GenericData.Array<Object> array = new GenericData.Array<>(size, schema);
+                for (int i = 0; i < size; i++) {
+                    array.add(generate(schema.getElementType(), depth + 1, topLevelArraySize, prefix, random));
+                }
+                return array;
+            case FIXED:
+                byte[] bytes = new byte[schema.getFixedSize()];
+                random.nextBytes(bytes);
+                return new GenericData.Fixed(schema, bytes);
+            case ENUM:
+                return new GenericData.EnumSymbol(schema, schema.getEnumSymbols().get(0));
+            case STRING:
+                return prefix + "-" + Integer.toHexString(random.nextInt());
+            case BYTES:
+                return ByteBuffer.wrap(Arrays.copyOf(prefix.getBytes("UTF-8"), 16));
+            case INT:
+                return random.nextInt(1000);
+            case LONG:
+                return random.nextLong();
+            case FLOAT:
+                return random.nextFloat();
+            case DOUBLE:
+                return random.nextDouble();
+            case BOOLEAN:
+                return random.nextBoolean();
+            default:
+                return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConfigurationMergeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.override;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericArray;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.server.common.core.algorithms.schema.SchemaGenerationAlgorithm;
+import org.kaaproject.kaa.server.common.core.algorithms.schema.SchemaGenerationAlgorithmFactoryImpl;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.configuration.OverrideData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.DataSchema;
+import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
+
+public class ConfigurationMergeEngineTest {
+
+    private static final String SCHEMA_ID = "1";
+
+    private BaseSchema baseSchema;
+    private OverrideSchema overrideSchema;
+    private ConfigurationMergeEngine.Source base;
+    private List<ConfigurationMergeEngine.Source> overrides;
+    private GenericRecord expected;
+
+    @Before
+    public void before() throws Exception {
+        SchemaGenerationAlgorithm generator = new SchemaGenerationAlgorithmFactoryImpl().createSchemaGenerator(
+                new DataSchema(readResource("override/schema.json")));
+        baseSchema = generator.getBaseSchema();
+        overrideSchema = generator.getOverrideSchema();
+
+        base = new ConfigurationMergeEngine.Source("0", 1, readResource("override/config_weight_0.json"));
+        overrides = new ArrayList<>();
+        overrides.add(new ConfigurationMergeEngine.Source("1", 1, readResource("override/config_weight_1.json")));
+        overrides.add(new ConfigurationMergeEngine.Source("2", 1, readResource("override/config_weight_2.json")));
+
+        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(baseSchema.getRawSchema());
+        expected = converter.decodeJson(readResource("override/merged_config.json"));
+    }
+
+    @Test
+    public void testMergeOf3Configurations() throws Exception {
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory());
+        BaseData mergeResult = engine.override(SCHEMA_ID, baseSchema, overrideSchema, base, overrides);
+
+        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(baseSchema.getRawSchema());
+        Assert.assertEquals(expected, converter.decodeJson(mergeResult.getRawData()));
+    }
+
+    @Test
+    public void testRepeatedMergeUsesCacheAndKeepsCachedConfigurationsIntact() throws Exception {
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory());
+        GenericRecord first = engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides);
+        Assert.assertEquals(0, engine.getHitCount());
+        Assert.assertEquals(3, engine.getMissCount());
+
+        GenericRecord second = engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides);
+        Assert.assertEquals(3, engine.getHitCount());
+        Assert.assertEquals(3, engine.getMissCount());
+        Assert.assertEquals(3, engine.getCachedConfigurationCount());
+
+        Assert.assertEquals(expected, first);
+        Assert.assertEquals(expected, second);
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void testNewSequenceNumberIsDecodedAgain() throws Exception {
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory());
+        engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides);
+        ConfigurationMergeEngine.Source updatedBase = new ConfigurationMergeEngine.Source(base.getId(), 2, base.getBody());
+        engine.merge(SCHEMA_ID, baseSchema, overrideSchema, updatedBase, overrides);
+        Assert.assertEquals(2, engine.getHitCount());
+        Assert.assertEquals(4, engine.getMissCount());
+    }
+
+    @Test
+    public void testMergedConfigurationSharesNoValuesWithCache() throws Exception {
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory());
+        scramble(engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides));
+        Assert.assertEquals(expected, engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides));
+        Assert.assertEquals(3, engine.getHitCount());
+    }
+
+    @Test
+    public void testCacheIsBoundedByWeight() throws Exception {
+        long maxWeight = overrides.get(0).getBody().length() + overrides.get(1).getBody().length();
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory(), maxWeight);
+        engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides);
+        Assert.assertEquals(2, engine.getCachedConfigurationCount());
+        Assert.assertEquals(maxWeight, engine.getCachedWeight());
+
+        Assert.assertEquals(expected, engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides));
+        Assert.assertTrue(engine.getCachedWeight() <= maxWeight);
+
+        engine.clear();
+        Assert.assertEquals(0, engine.getCachedConfigurationCount());
+        Assert.assertEquals(0, engine.getCachedWeight());
+    }
+
+    @Test
+    public void testConfigurationHeavierThanCacheIsNotCached() throws Exception {
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory(), 1);
+        Assert.assertEquals(expected, engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base, overrides));
+        Assert.assertEquals(0, engine.getCachedConfigurationCount());
+    }
+
+    @Test
+    public void testOverrideUsesAlgorithmFromFactory() throws Exception {
+        BaseData result = new BaseData(baseSchema, base.getBody());
+        OverrideAlgorithm algorithm = Mockito.mock(OverrideAlgorithm.class);
+        Mockito.when(algorithm.override(Mockito.any(BaseData.class), Mockito.anyListOf(OverrideData.class))).thenReturn(result);
+        OverrideAlgorithmFactory factory = Mockito.mock(OverrideAlgorithmFactory.class);
+        Mockito.when(factory.createConfigurationOverrideAlgorithm()).thenReturn(algorithm);
+
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(factory);
+        Assert.assertSame(result, engine.override(SCHEMA_ID, baseSchema, overrideSchema, base, overrides));
+        Mockito.verify(algorithm).override(Mockito.any(BaseData.class), Mockito.anyListOf(OverrideData.class));
+        Assert.assertEquals(0, engine.getCachedConfigurationCount());
+    }
+
+    @Test
+    public void testMergeWithoutOverrides() throws Exception {
+        ConfigurationMergeEngine engine = new ConfigurationMergeEngine(new DefaultOverrideAlgorithmFactory());
+        GenericRecord result = engine.merge(SCHEMA_ID, baseSchema, overrideSchema, base,
+                Collections.<ConfigurationMergeEngine.Source>emptyList());
+        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(baseSchema.getRawSchema());
+        Assert.assertEquals(converter.decodeJson(base.getBody()), result);
+        Assert.assertNull(engine.override(SCHEMA_ID, baseSchema, overrideSchema, null, overrides));
+    }
+
+    /**
+     * Modifies every mutable value of the record in place.
+     */
+    private static void scramble(Object value) {
+        if (value instanceof GenericRecord) {
+            GenericRecord record = (GenericRecord) value;
+            for (Schema.Field field : record.getSchema().getFields()) {
+                scramble(record.get(field.pos()));
+            }
+        } else if (value instanceof GenericArray) {
+            for (Object item : (GenericArray<?>) value) {
+                scramble(item);
+            }
+            ((GenericArray<?>) value).clear();
+        } else if (value instanceof GenericFixed) {
+            Arrays.fill(((GenericFixed) value).bytes(), (byte) 0);
+        } else if (value instanceof Utf8) {
+            ((Utf8) value).set("scrambled");
+        }
+    }
+
+    private static String readResource(String name) throws Exception {
+        Path path = Paths.get(Thread.currentThread().getContextClassLoader().getResource(name).toURI());
+        return new String(Files.readAllBytes(path));
+    }
+}
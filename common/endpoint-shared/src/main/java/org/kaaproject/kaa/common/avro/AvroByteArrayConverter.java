@@ -19,10 +19,12 @@ package org.kaaproject.kaa.common.avro;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
+import org.apache.avro.Schema;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecordBase;
@@ -52,6 +54,19 @@ public class AvroByteArrayConverter<T extends SpecificRecordBase> {
         avroWriter = new SpecificDatumWriter<T>(typeParameterClass);
     }
 
+    /**
+     * Instantiates a new Avro byte array converter that reads data written
+     * with an older schema of the class.
+     *
+     * @param typeParameterClass the type parameter class
+     * @param writerSchema the schema the data was written with
+     */
+    public AvroByteArrayConverter(Class<T> typeParameterClass, Schema writerSchema) {
+        super();
+        avroReader = new SpecificDatumReader<T>(writerSchema, SpecificData.get().getSchema(typeParameterClass));
+        avroWriter = new SpecificDatumWriter<T>(typeParameterClass);
+    }
+
     /**
      * Converts object to byte array
      *
@@ -19,6 +19,8 @@ package org.kaaproject.kaa.common.avro;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericContainer;
@@ -38,6 +40,11 @@ import org.slf4j.LoggerFactory;
 /**
  * The Class AvroByteArrayConverter is used to convert {#link org.apache.avro.generic.GenericContainer specific avro records} to/from bytes.
  * NOT Thread safe.
+ * <p>
+ * Parsed schemas are shared through a bounded cache keyed by the schema
+ * source, so converters created from the same schema string parse it once.
+ * The static helpers keep a few converters per thread, which reuse their
+ * readers, writers, encoders and decoders between calls.
  *
  * @param <T> the generic type that extends GenericContainer
  */
@@ -48,6 +55,23 @@ public class GenericAvroConverter<T extends GenericContainer> {
 
     private static final Charset UTF8 = Charset.forName("UTF-8");
 
+    /** The maximum number of parsed schemas kept in the cache. */
+    private static final int MAX_CACHED_SCHEMAS = 256;
+
+    /** The maximum number of converters each thread keeps for the static helpers. */
+    private static final int MAX_CACHED_CONVERTERS = 32;
+
+    /** The parsed schemas by schema source, guarded by itself. */
+    private static final Map<String, Schema> SCHEMAS = new LruMap<>(MAX_CACHED_SCHEMAS);
+
+    private static final ThreadLocal<Map<String, GenericAvroConverter<GenericContainer>>> CONVERTERS =
+            new ThreadLocal<Map<String, GenericAvroConverter<GenericContainer>>>() {
+                @Override
+                protected Map<String, GenericAvroConverter<GenericContainer>> initialValue() {
+                    return new LruMap<>(MAX_CACHED_CONVERTERS);
+                }
+            };
+
     private Schema schema;
     private DatumReader<T> datumReader;
     private DatumWriter<T> datumWriter;
@@ -62,7 +86,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @param schemaSrc the schemaSrc
      */
     public GenericAvroConverter(String schemaSrc){
-        this(new Schema.Parser().parse(schemaSrc));
+        this(parseSchema(schemaSrc));
     }
 
     /**
@@ -97,7 +121,13 @@ public class GenericAvroConverter<T extends GenericContainer> {
      */
     public T decodeBinary(byte[] data, T reuse) throws IOException{
         binaryDecoder = DecoderFactory.get().binaryDecoder(data, binaryDecoder);
-        return datumReader.read(reuse, binaryDecoder);
+        try {
+            return datumReader.read(reuse, binaryDecoder);
+        } catch (IOException | RuntimeException e) {
+            // malformed data may leave the decoder's scratch buffer corrupted
+            binaryDecoder = null;
+            throw e;
+        }
     }
 
     /**
@@ -131,7 +161,11 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public T decodeJson(String data, T reuse) throws IOException{
-        jsonDecoder = DecoderFactory.get().jsonDecoder(this.schema, data);
+        if (jsonDecoder == null) {
+            jsonDecoder = DecoderFactory.get().jsonDecoder(this.schema, data);
+        } else {
+            jsonDecoder.configure(data);
+        }
         return datumReader.read(null, jsonDecoder);
     }
 
@@ -155,9 +189,19 @@ public class GenericAvroConverter<T extends GenericContainer> {
      */
     public byte[] encodeToJsonBytes(T record) throws IOException{
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        jsonEncoder = EncoderFactory.get().jsonEncoder(this.schema, baos);
-        datumWriter.write(record, jsonEncoder);
-        jsonEncoder.flush();
+        if (jsonEncoder == null) {
+            jsonEncoder = EncoderFactory.get().jsonEncoder(this.schema, baos);
+        } else {
+            jsonEncoder.configure(baos);
+        }
+        try {
+            datumWriter.write(record, jsonEncoder);
+            jsonEncoder.flush();
+        } catch (IOException | RuntimeException e) {
+            // a failed write leaves the encoder in the middle of the schema
+            jsonEncoder = null;
+            throw e;
+        }
         baos.flush();
         return baos.toByteArray();
     }
@@ -186,8 +230,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @return the string
      */
     public static String toJson(byte[] rawData, String dataSchema) {
-        Schema schema = new Schema.Parser().parse(dataSchema);
-        GenericAvroConverter<GenericContainer> converter = new GenericAvroConverter<GenericContainer>(schema);
+        GenericAvroConverter<GenericContainer> converter = getConverter(dataSchema);
 
         String json;
 
@@ -209,8 +252,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @return the byte[]
      */
     public static byte[] toRawData(String json, String dataSchema) {
-        Schema schema = new Schema.Parser().parse(dataSchema);
-        GenericAvroConverter<GenericContainer> converter = new GenericAvroConverter<GenericContainer>(schema);
+        GenericAvroConverter<GenericContainer> converter = getConverter(dataSchema);
 
         byte[] rawData;
 
@@ -224,4 +266,56 @@ public class GenericAvroConverter<T extends GenericContainer> {
         return rawData;
     }
 
+    /**
+     * Parses the schema, or takes it from the cache if it was parsed before.
+     *
+     * @param schemaSrc the schema source
+     * @return the parsed schema
+     */
+    static Schema parseSchema(String schemaSrc) {
+        Schema schema;
+        synchronized (SCHEMAS) {
+            schema = SCHEMAS.get(schemaSrc);
+        }
+        if (schema == null) {
+            schema = new Schema.Parser().parse(schemaSrc);
+            synchronized (SCHEMAS) {
+                SCHEMAS.put(schemaSrc, schema);
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Gets the converter of the current thread for the schema.
+     *
+     * @param schemaSrc the schema source
+     * @return the converter
+     */
+    private static GenericAvroConverter<GenericContainer> getConverter(String schemaSrc) {
+        Map<String, GenericAvroConverter<GenericContainer>> converters = CONVERTERS.get();
+        GenericAvroConverter<GenericContainer> converter = converters.get(schemaSrc);
+        if (converter == null) {
+            converter = new GenericAvroConverter<GenericContainer>(parseSchema(schemaSrc));
+            converters.put(schemaSrc, converter);
+        }
+        return converter;
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
@@ -74,4 +74,13 @@ public interface CommonEPConstans  extends Constants { //NOSONAR
     
     /** The Constant NEXT_PROTOCOL_ATTR_NAME. */
     public static final String NEXT_PROTOCOL_ATTR_NAME = "nextProtocol"; //NOSONAR
+
+    /** The Constant REQUEST_BINARY_CONTENT_TYPE. */
+    public static final String REQUEST_BINARY_CONTENT_TYPE = "application/octet-stream"; //NOSONAR
+
+    /** The Constant REQUEST_KEY_HEADER_NAME. */
+    public static final String REQUEST_KEY_HEADER_NAME = "X-REQUEST-KEY"; //NOSONAR
+
+    /** The Constant NEXT_PROTOCOL_HEADER_NAME. */
+    public static final String NEXT_PROTOCOL_HEADER_NAME = "X-NEXT-PROTOCOL"; //NOSONAR
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the static {@link GenericAvroConverter} helpers with parsing the
+ * schema and creating a converter on every call, for a typical profile and
+ * log schema. Run it with {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenericAvroConverterBenchmark {
+
+    private static final String PROFILE_SCHEMA = "{\"type\":\"record\",\"name\":\"Profile\",\"namespace\":\"org.kaaproject.kaa.schema.sample\","
+            + "\"fields\":[{\"name\":\"id\",\"type\":\"string\"},{\"name\":\"os\",\"type\":{\"type\":\"enum\",\"name\":\"OS\","
+            + "\"symbols\":[\"Android\",\"iOS\",\"Linux\"]}},{\"name\":\"osVersion\",\"type\":\"string\"},"
+            + "{\"name\":\"build\",\"type\":[\"string\",\"null\"]},{\"name\":\"location\",\"type\":{\"type\":\"record\","
+            + "\"name\":\"Location\",\"fields\":[{\"name\":\"latitude\",\"type\":\"double\"},{\"name\":\"longitude\",\"type\":\"double\"}]}},"
+            + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}]}";
+
+    private static final String PROFILE_JSON = "{\"id\":\"e4b5f1c2\",\"os\":\"Android\",\"osVersion\":\"5.1\","
+            + "\"build\":{\"string\":\"LMY47D\"},\"location\":{\"latitude\":50.45,\"longitude\":30.52},\"tags\":[\"beta\",\"eu\"]}";
+
+    private static final String LOG_SCHEMA = "{\"type\":\"record\",\"name\":\"LogData\",\"namespace\":\"org.kaaproject.kaa.schema.sample.logging\","
+            + "\"fields\":[{\"name\":\"level\",\"type\":{\"type\":\"enum\",\"name\":\"Level\",\"symbols\":[\"DEBUG\",\"INFO\",\"WARN\",\"ERROR\"]}},"
+            + "{\"name\":\"tag\",\"type\":\"string\"},{\"name\":\"message\",\"type\":\"string\"},{\"name\":\"timestamp\",\"type\":\"long\"}]}";
+
+    private static final String LOG_JSON = "{\"level\":\"INFO\",\"tag\":\"sensor\",\"message\":\"temperature is 21.5\",\"timestamp\":1458000000000}";
+
+    @Param({"profile", "log"})
+    private String schemaType;
+
+    private String schema;
+    private String json;
+    private byte[] rawData;
+
+    @Setup
+    public void setUp() {
+        if ("profile".equals(schemaType)) {
+            schema = PROFILE_SCHEMA;
+            json = PROFILE_JSON;
+        } else {
+            schema = LOG_SCHEMA;
+            json = LOG_JSON;
+        }
+        rawData = GenericAvroConverter.toRawData(json, schema);
+    }
+
+    /**
+     * Converts binary data to JSON with the cached schema and converter.
+     */
+    @Benchmark
+    public String toJson() {
+        return GenericAvroConverter.toJson(rawData, schema);
+    }
+
+    /**
+     * Converts binary data to JSON, parsing the schema on every call.
+     */
+    @Benchmark
+    public String toJsonUncached() throws Exception {
+        GenericAvroConverter<GenericContainer> converter = new GenericAvroConverter<>(new Schema.Parser().parse(schema));
+        return converter.encodeToJson(converter.decodeBinary(rawData));
+    }
+
+    /**
+     * Converts JSON to binary data with the cached schema and converter.
+     */
+    @Benchmark
+    public byte[] toRawData() {
+        return GenericAvroConverter.toRawData(json, schema);
+    }
+
+    /**
+     * Converts JSON to binary data, parsing the schema on every call.
+     */
+    @Benchmark
+    public byte[] toRawDataUncached() throws Exception {
+        GenericAvroConverter<GenericContainer> converter = new GenericAvroConverter<>(new Schema.Parser().parse(schema));
+        return converter.encode(converter.decodeJson(json));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GenericAvroConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
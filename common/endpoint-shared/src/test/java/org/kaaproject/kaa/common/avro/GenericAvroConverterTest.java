@@ -16,6 +16,10 @@
 
 package org.kaaproject.kaa.common.avro;
 
+import java.io.IOException;
+
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Assert;
 import org.junit.Test;
 import org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile;
 
@@ -25,6 +29,48 @@ public class GenericAvroConverterTest {
     public void testStaticMethod() throws Exception{
         GenericAvroConverter.toJson("Expected to fail with this invalid input".getBytes(), BasicEndpointProfile.SCHEMA$.toString());
     }
-    
-    
+
+    @Test
+    public void testStaticMethodsReuseConverter() throws Exception {
+        String schema = BasicEndpointProfile.SCHEMA$.toString();
+        for (int i = 0; i < 3; i++) {
+            String json = "{\"profileBody\":\"body" + i + "\"}";
+            byte[] rawData = GenericAvroConverter.toRawData(json, schema);
+            Assert.assertArrayEquals(new GenericAvroConverter<BasicEndpointProfile>(schema).encode(new BasicEndpointProfile("body" + i)),
+                    rawData);
+            Assert.assertEquals(json, GenericAvroConverter.toJson(rawData, schema));
+        }
+    }
+
+    @Test
+    public void testStaticMethodAfterFailure() throws Exception {
+        String schema = BasicEndpointProfile.SCHEMA$.toString();
+        try {
+            GenericAvroConverter.toRawData("{\"profileBody\":1}", schema);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // expected
+        }
+        byte[] rawData = GenericAvroConverter.toRawData("{\"profileBody\":\"body\"}", schema);
+        Assert.assertEquals("{\"profileBody\":\"body\"}", GenericAvroConverter.toJson(rawData, schema));
+    }
+
+    @Test
+    public void testSchemaIsParsedOnce() {
+        String schema = BasicEndpointProfile.SCHEMA$.toString();
+        Assert.assertSame(GenericAvroConverter.parseSchema(schema), GenericAvroConverter.parseSchema(schema));
+    }
+
+    @Test
+    public void testEncodeToJsonAfterFailure() throws Exception {
+        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(BasicEndpointProfile.SCHEMA$);
+        try {
+            converter.encodeToJson(new BasicEndpointProfile());
+            Assert.fail();
+        } catch (RuntimeException | IOException e) {
+            // expected
+        }
+        Assert.assertEquals("{\"profileBody\":\"body\"}", converter.encodeToJson(new BasicEndpointProfile("body")));
+        Assert.assertEquals("other", converter.decodeJson("{\"profileBody\":\"other\"}").get("profileBody").toString());
+    }
 }
@@ -18,10 +18,15 @@ package org.kaaproject.kaa.server.appenders.cdap.appender;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
+import org.apache.avro.Schema;
 import org.kaaproject.kaa.common.dto.logs.LogAppenderDto;
 import org.kaaproject.kaa.common.dto.logs.LogEventDto;
 import org.kaaproject.kaa.server.appenders.cdap.config.gen.CdapConfig;
@@ -42,6 +47,7 @@ import co.cask.cdap.security.authentication.client.basic.BasicAuthenticationClie
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
 
@@ -49,6 +55,7 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
     private static final Charset UTF8 = Charset.forName("UTF-8");
 
     private static final int DEFAULT_CALLBACK_THREAD_POOL_SIZE = 2;
+    private static final int DEFAULT_MAX_OUTSTANDING_WRITES = 1000;
 
     /**
      * Max values for security purposes
@@ -56,12 +63,25 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
     private static final int MAX_CALLBACK_THREAD_POOL_SIZE = 10;
     private static final int MAX_WRITER_POOL_SIZE = 100;
 
+    /**
+     * The configuration schema before maxOutstandingWrites was added
+     */
+    private static final String CONFIGURATION_SCHEMA_V1 = "/cdap-appender-config-v1.avsc";
+
     private boolean closed = false;
 
     private StreamClient streamClient;
     private StreamWriter streamWriter;
     private Executor callbackExecutor;
 
+    /**
+     * Permits for outstanding writes. A reconfiguration replaces the
+     * semaphore, writes in flight release their permits into the semaphore
+     * they were acquired from.
+     */
+    private volatile Semaphore writePermits = new Semaphore(DEFAULT_MAX_OUTSTANDING_WRITES);
+    private volatile int maxOutstandingWrites = DEFAULT_MAX_OUTSTANDING_WRITES;
+
     public CdapLogAppender() {
         super(CdapConfig.class);
     }
@@ -71,18 +91,41 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
         if (!closed) {
             if (streamWriter != null) {
                 LOG.debug("[{}] appending {} logs to cdap stream", this.getApplicationToken(), logEventPack.getEvents().size());
+                List<LogEventDto> dtos;
                 try {
-                    for (LogEventDto dto : generateLogEvent(logEventPack, header)) {
-                        StringBuilder sb = new StringBuilder();
-                        sb.append("{\"header\":").append(dto.getHeader()).append(",");
-                        sb.append("\"event\":").append(dto.getEvent()).append("}");
-                        ListenableFuture<Void> result = streamWriter.write(sb.toString(), UTF8);
-                        Futures.addCallback(result, new Callback(listener), callbackExecutor);
-                    }
+                    dtos = generateLogEvent(logEventPack, header);
                 } catch (IOException e) {
                     LOG.debug("[{}] Failed to generate log event.", getName());
                     listener.onInternalError();
+                    return;
+                }
+                // a pack larger than the limit may still be written when there are no other outstanding writes
+                Semaphore permits = writePermits;
+                int requiredPermits = Math.min(dtos.size(), maxOutstandingWrites);
+                if (!permits.tryAcquire(requiredPermits)) {
+                    LOG.warn("[{}] Too many outstanding writes, {} logs were not appended.", getName(), dtos.size());
+                    listener.onRemoteError();
+                    return;
+                }
+                List<ListenableFuture<Void>> results = new ArrayList<>(dtos.size());
+                StringBuilder sb = new StringBuilder();
+                for (LogEventDto dto : dtos) {
+                    sb.setLength(0);
+                    sb.append("{\"header\":").append(dto.getHeader()).append(",");
+                    sb.append("\"event\":").append(dto.getEvent()).append("}");
+                    ListenableFuture<Void> result;
+                    try {
+                        result = streamWriter.write(sb.toString(), UTF8);
+                    } catch (RuntimeException e) {
+                        LOG.warn("[{}] Failed to write log event.", getName(), e);
+                        results.add(Futures.<Void> immediateFailedFuture(e));
+                        break;
+                    }
+                    results.add(result);
                 }
+                Futures.successfulAsList(results).addListener(new PermitRelease(permits, requiredPermits),
+                        MoreExecutors.sameThreadExecutor());
+                Futures.addCallback(Futures.allAsList(results), new Callback(listener), callbackExecutor);
             } else {
                 LOG.info("[{}] Attempted to append to empty streamWriter.", getName());
                 listener.onInternalError();
@@ -93,6 +136,11 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
         }
     }
 
+    @Override
+    protected List<Schema> getPreviousConfigurationSchemas() {
+        return Collections.singletonList(parseConfigurationSchema(CONFIGURATION_SCHEMA_V1));
+    }
+
     @Override
     protected void initFromConfiguration(LogAppenderDto appender, CdapConfig configuration) {
         try {
@@ -103,6 +151,12 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
             }
             callbackPoolSize = Math.min(callbackPoolSize, MAX_CALLBACK_THREAD_POOL_SIZE);
             callbackExecutor = Executors.newFixedThreadPool(callbackPoolSize);
+            Integer maxWrites = configuration.getMaxOutstandingWrites();
+            if (maxWrites == null) {
+                maxWrites = DEFAULT_MAX_OUTSTANDING_WRITES;
+            }
+            maxOutstandingWrites = Math.max(1, maxWrites);
+            writePermits = new Semaphore(maxOutstandingWrites);
 
             if (configuration.getStream() != null) {
                 streamWriter = streamClient.createWriter(configuration.getStream());
@@ -166,7 +220,25 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
         return builder.build();
     }
 
-    private static final class Callback implements FutureCallback<Void> {
+    /**
+     * Releases the permits of a pack once all its writes have completed.
+     */
+    private static final class PermitRelease implements Runnable {
+        private final Semaphore permits;
+        private final int count;
+
+        private PermitRelease(Semaphore permits, int count) {
+            this.permits = permits;
+            this.count = count;
+        }
+
+        @Override
+        public void run() {
+            permits.release(count);
+        }
+    }
+
+    private static final class Callback implements FutureCallback<List<Void>> {
         private final LogDeliveryCallback callback;
 
         private Callback(LogDeliveryCallback callback) {
@@ -174,7 +246,7 @@ public class CdapLogAppender extends AbstractLogAppender<CdapConfig> {
         }
 
         @Override
-        public void onSuccess(Void result) {
+        public void onSuccess(List<Void> result) {
             callback.onSuccess();
         }
 
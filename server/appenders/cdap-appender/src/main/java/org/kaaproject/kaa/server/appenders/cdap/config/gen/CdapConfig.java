@@ -7,7 +7,7 @@ package org.kaaproject.kaa.server.appenders.cdap.config.gen;
 @SuppressWarnings("all")
 @org.apache.avro.specific.AvroGenerated
 public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
-  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"CdapConfig\",\"namespace\":\"org.kaaproject.kaa.server.appenders.cdap.config.gen\",\"fields\":[{\"name\":\"stream\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Stream\",\"by_default\":\"stream\"},{\"name\":\"host\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Host\",\"by_default\":\"localhost\"},{\"name\":\"port\",\"type\":\"int\",\"displayName\":\"Port\",\"by_default\":10000},{\"name\":\"ssl\",\"type\":[\"boolean\",\"null\"],\"displayName\":\"Use SSL\"},{\"name\":\"verifySslCert\",\"type\":[\"boolean\",\"null\"],\"displayName\":\"Validate SSL Certificate\"},{\"name\":\"writerPoolSize\",\"type\":[\"int\",\"null\"],\"displayName\":\"Writer thread/connection pool size\"},{\"name\":\"callbackThreadPoolSize\",\"type\":[\"int\",\"null\"],\"displayName\":\"Callback thread pool size\",\"by_default\":2},{\"name\":\"version\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Version\"},{\"name\":\"authClient\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Authentication client class name\"},{\"name\":\"username\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Username\"},{\"name\":\"password\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Password\"}]}");
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"CdapConfig\",\"namespace\":\"org.kaaproject.kaa.server.appenders.cdap.config.gen\",\"fields\":[{\"name\":\"stream\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Stream\",\"by_default\":\"stream\"},{\"name\":\"host\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Host\",\"by_default\":\"localhost\"},{\"name\":\"port\",\"type\":\"int\",\"displayName\":\"Port\",\"by_default\":10000},{\"name\":\"ssl\",\"type\":[\"boolean\",\"null\"],\"displayName\":\"Use SSL\"},{\"name\":\"verifySslCert\",\"type\":[\"boolean\",\"null\"],\"displayName\":\"Validate SSL Certificate\"},{\"name\":\"writerPoolSize\",\"type\":[\"int\",\"null\"],\"displayName\":\"Writer thread/connection pool size\"},{\"name\":\"callbackThreadPoolSize\",\"type\":[\"int\",\"null\"],\"displayName\":\"Callback thread pool size\",\"by_default\":2},{\"name\":\"version\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Version\"},{\"name\":\"authClient\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Authentication client class name\"},{\"name\":\"username\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Username\"},{\"name\":\"password\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Password\"},{\"name\":\"maxOutstandingWrites\",\"type\":[\"int\",\"null\"],\"default\":1000,\"displayName\":\"Max outstanding stream writes\",\"by_default\":1000}]}");
   public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
    private java.lang.String stream;
    private java.lang.String host;
@@ -20,6 +20,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
    private java.lang.String authClient;
    private java.lang.String username;
    private java.lang.String password;
+   private java.lang.Integer maxOutstandingWrites;
 
   /**
    * Default constructor.  Note that this does not initialize fields
@@ -31,7 +32,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
   /**
    * All-args constructor.
    */
-  public CdapConfig(java.lang.String stream, java.lang.String host, java.lang.Integer port, java.lang.Boolean ssl, java.lang.Boolean verifySslCert, java.lang.Integer writerPoolSize, java.lang.Integer callbackThreadPoolSize, java.lang.String version, java.lang.String authClient, java.lang.String username, java.lang.String password) {
+  public CdapConfig(java.lang.String stream, java.lang.String host, java.lang.Integer port, java.lang.Boolean ssl, java.lang.Boolean verifySslCert, java.lang.Integer writerPoolSize, java.lang.Integer callbackThreadPoolSize, java.lang.String version, java.lang.String authClient, java.lang.String username, java.lang.String password, java.lang.Integer maxOutstandingWrites) {
     this.stream = stream;
     this.host = host;
     this.port = port;
@@ -43,6 +44,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
     this.authClient = authClient;
     this.username = username;
     this.password = password;
+    this.maxOutstandingWrites = maxOutstandingWrites;
   }
 
   public org.apache.avro.Schema getSchema() { return SCHEMA$; }
@@ -60,6 +62,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
     case 8: return authClient;
     case 9: return username;
     case 10: return password;
+    case 11: return maxOutstandingWrites;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -78,6 +81,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
     case 8: authClient = (java.lang.String)value$; break;
     case 9: username = (java.lang.String)value$; break;
     case 10: password = (java.lang.String)value$; break;
+    case 11: maxOutstandingWrites = (java.lang.Integer)value$; break;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -247,6 +251,21 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
     this.password = value;
   }
 
+  /**
+   * Gets the value of the 'maxOutstandingWrites' field.
+   */
+  public java.lang.Integer getMaxOutstandingWrites() {
+    return maxOutstandingWrites;
+  }
+
+  /**
+   * Sets the value of the 'maxOutstandingWrites' field.
+   * @param value the value to set.
+   */
+  public void setMaxOutstandingWrites(java.lang.Integer value) {
+    this.maxOutstandingWrites = value;
+  }
+
   /** Creates a new CdapConfig RecordBuilder */
   public static org.kaaproject.kaa.server.appenders.cdap.config.gen.CdapConfig.Builder newBuilder() {
     return new org.kaaproject.kaa.server.appenders.cdap.config.gen.CdapConfig.Builder();
@@ -279,6 +298,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
     private java.lang.String authClient;
     private java.lang.String username;
     private java.lang.String password;
+    private java.lang.Integer maxOutstandingWrites;
 
     /** Creates a new Builder */
     private Builder() {
@@ -332,6 +352,10 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
         this.password = data().deepCopy(fields()[10].schema(), other.password);
         fieldSetFlags()[10] = true;
       }
+      if (isValidValue(fields()[11], other.maxOutstandingWrites)) {
+        this.maxOutstandingWrites = data().deepCopy(fields()[11].schema(), other.maxOutstandingWrites);
+        fieldSetFlags()[11] = true;
+      }
     }
     
     /** Creates a Builder by copying an existing CdapConfig instance */
@@ -381,6 +405,10 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
         this.password = data().deepCopy(fields()[10].schema(), other.password);
         fieldSetFlags()[10] = true;
       }
+      if (isValidValue(fields()[11], other.maxOutstandingWrites)) {
+        this.maxOutstandingWrites = data().deepCopy(fields()[11].schema(), other.maxOutstandingWrites);
+        fieldSetFlags()[11] = true;
+      }
     }
 
     /** Gets the value of the 'stream' field */
@@ -657,6 +685,31 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
       return this;
     }
 
+    /** Gets the value of the 'maxOutstandingWrites' field */
+    public java.lang.Integer getMaxOutstandingWrites() {
+      return maxOutstandingWrites;
+    }
+    
+    /** Sets the value of the 'maxOutstandingWrites' field */
+    public org.kaaproject.kaa.server.appenders.cdap.config.gen.CdapConfig.Builder setMaxOutstandingWrites(java.lang.Integer value) {
+      validate(fields()[11], value);
+      this.maxOutstandingWrites = value;
+      fieldSetFlags()[11] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'maxOutstandingWrites' field has been set */
+    public boolean hasMaxOutstandingWrites() {
+      return fieldSetFlags()[11];
+    }
+    
+    /** Clears the value of the 'maxOutstandingWrites' field */
+    public org.kaaproject.kaa.server.appenders.cdap.config.gen.CdapConfig.Builder clearMaxOutstandingWrites() {
+      maxOutstandingWrites = null;
+      fieldSetFlags()[11] = false;
+      return this;
+    }
+
     @Override
     public CdapConfig build() {
       try {
@@ -672,6 +725,7 @@ public class CdapConfig extends org.apache.avro.specific.SpecificRecordBase impl
         record.authClient = fieldSetFlags()[8] ? this.authClient : (java.lang.String) defaultValue(fields()[8]);
         record.username = fieldSetFlags()[9] ? this.username : (java.lang.String) defaultValue(fields()[9]);
         record.password = fieldSetFlags()[10] ? this.password : (java.lang.String) defaultValue(fields()[10]);
+        record.maxOutstandingWrites = fieldSetFlags()[11] ? this.maxOutstandingWrites : (java.lang.Integer) defaultValue(fields()[11]);
         return record;
       } catch (Exception e) {
         throw new org.apache.avro.AvroRuntimeException(e);
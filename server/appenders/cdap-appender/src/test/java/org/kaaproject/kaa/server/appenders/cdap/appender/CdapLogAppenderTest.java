@@ -16,22 +16,34 @@
 
 package org.kaaproject.kaa.server.appenders.cdap.appender;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.common.dto.EndpointProfileDataDto;
 import org.kaaproject.kaa.common.dto.logs.LogHeaderStructureDto;
 import org.kaaproject.kaa.common.dto.logs.LogSchemaDto;
 import org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile;
+import org.kaaproject.kaa.server.appenders.cdap.config.gen.CdapConfig;
 import org.kaaproject.kaa.server.common.log.shared.appender.LogAppender;
 import org.kaaproject.kaa.server.common.log.shared.appender.LogDeliveryCallback;
 import org.kaaproject.kaa.server.common.log.shared.appender.LogEvent;
@@ -44,6 +56,8 @@ import co.cask.cdap.client.StreamWriter;
 import co.cask.cdap.common.http.exception.HttpFailureException;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 
 public class CdapLogAppenderTest {
     private static final int _10SEC = 10000;
@@ -56,6 +70,7 @@ public class CdapLogAppenderTest {
         writer = Mockito.mock(StreamWriter.class);
         ReflectionTestUtils.setField(appender, "header", Arrays.asList(LogHeaderStructureDto.values()));
         ReflectionTestUtils.setField(appender, "streamWriter", writer);
+        ReflectionTestUtils.setField(appender, "callbackExecutor", MoreExecutors.sameThreadExecutor());
     }
 
     @Test
@@ -85,6 +100,63 @@ public class CdapLogAppenderTest {
         Mockito.verify(callback, Mockito.timeout(10000)).onRemoteError();
     }
 
+    @Test
+    public void testAppendAcknowledgesPackOnce() throws IOException {
+        BaseLogEventPack logEventPack = getLogEventPack(3);
+
+        Mockito.when(writer.write(Mockito.anyString(), Mockito.any(Charset.class))).thenReturn(new DummyFuture());
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(logEventPack, callback);
+        Mockito.verify(writer, Mockito.times(3)).write(Mockito.anyString(), Mockito.any(Charset.class));
+        Mockito.verify(callback, Mockito.timeout(_10SEC)).onSuccess();
+        Mockito.verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    public void testAppendWithTooManyOutstandingWrites() throws IOException {
+        ReflectionTestUtils.setField(appender, "writePermits", new Semaphore(1));
+        ReflectionTestUtils.setField(appender, "maxOutstandingWrites", 1);
+
+        SettableFuture<Void> pending = SettableFuture.create();
+        Mockito.when(writer.write(Mockito.anyString(), Mockito.any(Charset.class))).thenReturn(pending);
+        LogDeliveryCallback pendingCallback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(), pendingCallback);
+
+        // the pack is rejected at once, without waiting for the outstanding write
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(), callback);
+        Mockito.verify(callback).onRemoteError();
+        Mockito.verify(writer, Mockito.times(1)).write(Mockito.anyString(), Mockito.any(Charset.class));
+
+        pending.set(null);
+        Mockito.verify(pendingCallback).onSuccess();
+        callback = Mockito.mock(LogDeliveryCallback.class);
+        Mockito.when(writer.write(Mockito.anyString(), Mockito.any(Charset.class))).thenReturn(new DummyFuture());
+        appender.doAppend(getLogEventPack(2), callback);
+        Mockito.verify(callback).onSuccess();
+        Mockito.verify(writer, Mockito.times(3)).write(Mockito.anyString(), Mockito.any(Charset.class));
+    }
+
+    @Test
+    public void testWritesInFlightReleaseIntoTheirPermits() throws IOException {
+        Semaphore previousPermits = new Semaphore(2);
+        ReflectionTestUtils.setField(appender, "writePermits", previousPermits);
+        ReflectionTestUtils.setField(appender, "maxOutstandingWrites", 2);
+
+        SettableFuture<Void> pending = SettableFuture.create();
+        Mockito.when(writer.write(Mockito.anyString(), Mockito.any(Charset.class))).thenReturn(pending);
+        appender.doAppend(getLogEventPack(), Mockito.mock(LogDeliveryCallback.class));
+        Assert.assertEquals(1, previousPermits.availablePermits());
+
+        Semaphore newPermits = new Semaphore(5);
+        ReflectionTestUtils.setField(appender, "writePermits", newPermits);
+        ReflectionTestUtils.setField(appender, "maxOutstandingWrites", 5);
+        pending.set(null);
+        Assert.assertEquals(2, previousPermits.availablePermits());
+        Assert.assertEquals(5, newPermits.availablePermits());
+    }
+
     @Test
     public void testAppendToClosed() throws IOException {
         BaseLogEventPack logEventPack = getLogEventPack();
@@ -94,18 +166,68 @@ public class CdapLogAppenderTest {
         Mockito.verify(callback, Mockito.timeout(10000)).onInternalError();
     }
 
+    @Test
+    public void testDecodeConfiguration() throws IOException {
+        CdapConfig configuration = CdapConfig.newBuilder()
+                .setStream("stream")
+                .setHost("localhost")
+                .setPort(10000)
+                .setSsl(null)
+                .setVerifySslCert(null)
+                .setWriterPoolSize(null)
+                .setCallbackThreadPoolSize(2)
+                .setVersion(null)
+                .setAuthClient(null)
+                .setUsername(null)
+                .setPassword(null)
+                .setMaxOutstandingWrites(10)
+                .build();
+        byte[] rawConfiguration = new AvroByteArrayConverter<>(CdapConfig.class).toByteArray(configuration);
+        Assert.assertEquals(configuration, ReflectionTestUtils.invokeMethod(appender, "decodeConfiguration", rawConfiguration));
+    }
+
+    @Test
+    public void testDecodePreviousConfiguration() throws IOException {
+        Schema previousSchema = new Schema.Parser().parse(getClass().getResourceAsStream("/cdap-appender-config-v1.avsc"));
+        GenericRecord previousConfiguration = new GenericData.Record(previousSchema);
+        previousConfiguration.put("stream", "stream");
+        previousConfiguration.put("host", "localhost");
+        previousConfiguration.put("port", 10000);
+        previousConfiguration.put("callbackThreadPoolSize", 2);
+        previousConfiguration.put("version", "v2");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(previousSchema).write(previousConfiguration, encoder);
+        encoder.flush();
+
+        CdapConfig configuration = ReflectionTestUtils.invokeMethod(appender, "decodeConfiguration", out.toByteArray());
+        Assert.assertEquals("stream", configuration.getStream());
+        Assert.assertEquals(Integer.valueOf(2), configuration.getCallbackThreadPoolSize());
+        Assert.assertEquals("v2", configuration.getVersion());
+        Assert.assertNull(configuration.getPassword());
+        Assert.assertEquals(Integer.valueOf(1000), configuration.getMaxOutstandingWrites());
+    }
+
     private BaseLogEventPack getLogEventPack() throws IOException {
+        return getLogEventPack(1);
+    }
+
+    private BaseLogEventPack getLogEventPack(int count) throws IOException {
         GenericAvroConverter<BasicEndpointProfile> converter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
         BasicEndpointProfile theLog = new BasicEndpointProfile("test");
 
         LogSchemaDto schemaDto = new LogSchemaDto();
         schemaDto.setSchema(BasicEndpointProfile.SCHEMA$.toString());
         LogSchema schema = new LogSchema(schemaDto);
-        LogEvent logEvent = new LogEvent();
-
-        logEvent.setLogData(converter.encode(theLog));
-        EndpointProfileDataDto profileDto = new EndpointProfileDataDto("1", "endpointKey", 1, "", null, null);
-        BaseLogEventPack logEventPack = new BaseLogEventPack(profileDto, 1234567l, schema.getVersion(), Collections.singletonList(logEvent));
+        List<LogEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LogEvent logEvent = new LogEvent();
+            logEvent.setLogData(converter.encode(theLog));
+            events.add(logEvent);
+        }
+        EndpointProfileDataDto profileDto = new EndpointProfileDataDto("1", "endpointKey", 1, "", 0, null);
+        BaseLogEventPack logEventPack = new BaseLogEventPack(profileDto, 1234567l, schema.getVersion(), events);
         logEventPack.setLogSchema(schema);
         return logEventPack;
     }
@@ -113,7 +235,7 @@ public class CdapLogAppenderTest {
     private static class DummyFuture implements ListenableFuture<Void> {
         @Override
         public boolean isDone() {
-            return false;
+            return true;
         }
 
         @Override
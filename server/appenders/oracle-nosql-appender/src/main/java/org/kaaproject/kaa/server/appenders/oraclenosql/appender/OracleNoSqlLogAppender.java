@@ -21,9 +21,12 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import oracle.kv.FaultException;
 import oracle.kv.KVSecurityConstants;
@@ -67,14 +70,19 @@ public class OracleNoSqlLogAppender extends AbstractLogAppender<OracleNoSqlConfi
 
     private static final Logger LOG = LoggerFactory.getLogger(OracleNoSqlLogAppender.class);
 
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** The configuration schema before batchSize was added. */
+    private static final String CONFIGURATION_SCHEMA_V1 = "/oracle-nosql-appender-config-v1.avsc";
+
     private boolean closed = false;
 
     private KVStore kvStore;
     private String username;
-    private GenericAvroBinding binding;
-    private GenericRecord wrapperRecord;
-    private BinaryDecoder binaryDecoder;
-    private DatumReader<GenericRecord> datumReader;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** The bindings and readers of the log schema versions appended so far. */
+    private final ConcurrentMap<Integer, SchemaBinding> bindings = new ConcurrentHashMap<>();
 
     public OracleNoSqlLogAppender() {
         super(OracleNoSqlConfig.class);
@@ -105,9 +113,17 @@ public class OracleNoSqlLogAppender extends AbstractLogAppender<OracleNoSqlConfi
         }
     }
 
+    @Override
+    protected List<Schema> getPreviousConfigurationSchemas() {
+        return Collections.singletonList(parseConfigurationSchema(CONFIGURATION_SCHEMA_V1));
+    }
+
     @Override
     protected void initFromConfiguration(LogAppenderDto appender, OracleNoSqlConfig configuration) {
         try {
+            if (configuration.getBatchSize() != null) {
+                batchSize = Math.max(1, configuration.getBatchSize());
+            }
             kvStore = initKvStore(configuration);
         } catch (Exception e) {
             LOG.error("Failed to init kvStore: ", e);
@@ -115,24 +131,25 @@ public class OracleNoSqlLogAppender extends AbstractLogAppender<OracleNoSqlConfi
     }
 
     private void doAppendGenericAvro(LogEventPack logEventPack, RecordHeader header) throws Exception {
-        if (binding == null) {
-            initialize(logEventPack);
-        }
+        SchemaBinding schemaBinding = getSchemaBinding(logEventPack);
 
         GenericRecord recordData = null;
+        GenericRecord wrapperRecord = new GenericData.Record(schemaBinding.wrapperSchema);
+        BinaryDecoder binaryDecoder = null;
 
         OperationFactory of = kvStore.getOperationFactory();
-        ArrayList<Operation> opList = new ArrayList<Operation>();
+        List<LogEvent> events = logEventPack.getEvents();
+        List<Operation> opList = new ArrayList<Operation>(Math.min(events.size(), batchSize));
 
         List<String> majorPath = Arrays.asList(getApplicationToken(), logEventPack.getLogSchema().getVersion() + "",
                 logEventPack.getEndpointKey(), System.currentTimeMillis() + "");
 
         int counter = 0;
 
-        for (LogEvent event : logEventPack.getEvents()) {
+        for (LogEvent event : events) {
             binaryDecoder = DecoderFactory.get().binaryDecoder(event.getLogData(), binaryDecoder);
             try {
-                recordData = datumReader.read(recordData, binaryDecoder);
+                recordData = schemaBinding.datumReader.read(recordData, binaryDecoder);
             } catch (IOException e) {
                 LOG.error("[{}] Unable to read log event!", e);
                 throw e;
@@ -142,44 +159,54 @@ public class OracleNoSqlLogAppender extends AbstractLogAppender<OracleNoSqlConfi
 
             Key key = Key.createKey(majorPath, Arrays.asList((counter++) + ""));
 
-            opList.add(of.createPut(key, binding.toValue(wrapperRecord)));
+            opList.add(of.createPut(key, schemaBinding.binding.toValue(wrapperRecord)));
+            if (opList.size() >= batchSize) {
+                kvStore.execute(opList);
+                opList.clear();
+            }
+        }
+
+        if (!opList.isEmpty()) {
+            kvStore.execute(opList);
         }
+    }
 
-        kvStore.execute(opList);
+    private SchemaBinding getSchemaBinding(LogEventPack logEventPack) throws Exception {
+        int version = logEventPack.getLogSchema().getVersion();
+        SchemaBinding schemaBinding = bindings.get(version);
+        if (schemaBinding == null) {
+            schemaBinding = initialize(logEventPack);
+            SchemaBinding existing = bindings.putIfAbsent(version, schemaBinding);
+            if (existing != null) {
+                schemaBinding = existing;
+            }
+        }
+        return schemaBinding;
     }
 
-    private void initialize(LogEventPack logEventPack) throws Exception {
+    private SchemaBinding initialize(LogEventPack logEventPack) throws Exception {
         try {
             Schema recordWrapperSchema = RecordWrapperSchemaGenerator.generateRecordWrapperSchema(logEventPack.getLogSchema().getSchema());
             checkSchemaUploaded(recordWrapperSchema);
             AvroCatalog avroCatalog = kvStore.getAvroCatalog();
-            binding = avroCatalog.getGenericBinding(recordWrapperSchema);
+            GenericAvroBinding binding = avroCatalog.getGenericBinding(recordWrapperSchema);
             Schema userSchema = new Schema.Parser().parse(logEventPack.getLogSchema().getSchema());
-            datumReader = new GenericDatumReader<GenericRecord>(userSchema);
-            wrapperRecord = new GenericData.Record(recordWrapperSchema);
+            DatumReader<GenericRecord> datumReader = new GenericDatumReader<GenericRecord>(userSchema);
+            LOG.info("[{}] Initialized binding for log schema version {}.", getName(), logEventPack.getLogSchema().getVersion());
+            return new SchemaBinding(recordWrapperSchema, binding, datumReader);
         } catch (Exception e) {
             LOG.error("[{}] Unable to initialize parameters for log event pack.", getName());
             throw e;
         }
-
     }
 
     private void checkSchemaUploaded(Schema schema) {
         String schemaText = schema.toString(true);
         AvroDdl avroDdl = new AvroDdl(kvStore);
         SortedMap<String, SchemaSummary> schemaSummaries = avroDdl.getSchemaSummaries(false);
-        boolean uploaded = false;
-        boolean evolve = schemaSummaries.containsKey(schema.getFullName());
-
-        if (evolve) {
-            for (String key : schemaSummaries.keySet()) {
-                SchemaSummary summary = schemaSummaries.get(key);
-                if (checkSchemaUploaded(avroDdl, summary, schemaText)) {
-                    uploaded = true;
-                    break;
-                }
-            }
-        }
+        SchemaSummary summary = schemaSummaries.get(schema.getFullName());
+        boolean evolve = summary != null;
+        boolean uploaded = evolve && checkSchemaUploaded(avroDdl, summary, schemaText);
 
         if (!uploaded) {
             AvroSchemaMetadata metadata = new AvroSchemaMetadata(AvroSchemaStatus.ACTIVE, System.currentTimeMillis(), username,
@@ -219,6 +246,7 @@ public class OracleNoSqlLogAppender extends AbstractLogAppender<OracleNoSqlConfi
                 kvStore.close();
                 kvStore = null;
             }
+            bindings.clear();
         }
         LOG.debug("Stopped Oracle NoSQL log appender.");
     }
@@ -277,4 +305,16 @@ public class OracleNoSqlLogAppender extends AbstractLogAppender<OracleNoSqlConfi
         return kvStore;
     }
 
+    static final class SchemaBinding {
+
+        private final Schema wrapperSchema;
+        private final GenericAvroBinding binding;
+        private final DatumReader<GenericRecord> datumReader;
+
+        SchemaBinding(Schema wrapperSchema, GenericAvroBinding binding, DatumReader<GenericRecord> datumReader) {
+            this.wrapperSchema = wrapperSchema;
+            this.binding = binding;
+            this.datumReader = datumReader;
+        }
+    }
 }
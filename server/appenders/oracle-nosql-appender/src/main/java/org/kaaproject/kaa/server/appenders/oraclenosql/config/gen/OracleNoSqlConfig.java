@@ -7,7 +7,7 @@ package org.kaaproject.kaa.server.appenders.oraclenosql.config.gen;
 @SuppressWarnings("all")
 @org.apache.avro.specific.AvroGenerated
 public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
-  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"OracleNoSqlConfig\",\"namespace\":\"org.kaaproject.kaa.server.appenders.oraclenosql.config.gen\",\"fields\":[{\"name\":\"storeName\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"KVStore name\",\"by_default\":\"kvstore\"},{\"name\":\"kvStoreNodes\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"KvStoreNode\",\"fields\":[{\"name\":\"host\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Host\",\"weight\":0.75,\"by_default\":\"localhost\"},{\"name\":\"port\",\"type\":\"int\",\"displayName\":\"Port\",\"weight\":0.25,\"by_default\":5000}]}},\"displayName\":\"KVStore nodes\",\"minRowCount\":1},{\"name\":\"username\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Username\"},{\"name\":\"walletDir\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Oracle Wallet directory\"},{\"name\":\"pwdFile\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Password store file\"},{\"name\":\"securityFile\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Security properties file\"},{\"name\":\"transport\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"KVStore communication transport\"},{\"name\":\"ssl\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Security transport\"},{\"name\":\"sslCipherSuites\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"SSL/TLS cipher suites\"},{\"name\":\"sslProtocols\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"SSL/TLS procotols\"},{\"name\":\"sslHostnameVerifier\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"SSL/TLS hostname verifier\"},{\"name\":\"sslTrustStore\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Java truststore file location\"},{\"name\":\"sslTrustStoreType\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Java truststore type\"}]}");
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"OracleNoSqlConfig\",\"namespace\":\"org.kaaproject.kaa.server.appenders.oraclenosql.config.gen\",\"fields\":[{\"name\":\"storeName\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"KVStore name\",\"by_default\":\"kvstore\"},{\"name\":\"kvStoreNodes\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"KvStoreNode\",\"fields\":[{\"name\":\"host\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Host\",\"weight\":0.75,\"by_default\":\"localhost\"},{\"name\":\"port\",\"type\":\"int\",\"displayName\":\"Port\",\"weight\":0.25,\"by_default\":5000}]}},\"displayName\":\"KVStore nodes\",\"minRowCount\":1},{\"name\":\"username\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Username\"},{\"name\":\"walletDir\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Oracle Wallet directory\"},{\"name\":\"pwdFile\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Password store file\"},{\"name\":\"securityFile\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Security properties file\"},{\"name\":\"transport\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"KVStore communication transport\"},{\"name\":\"ssl\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Security transport\"},{\"name\":\"sslCipherSuites\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"SSL/TLS cipher suites\"},{\"name\":\"sslProtocols\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"SSL/TLS procotols\"},{\"name\":\"sslHostnameVerifier\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"SSL/TLS hostname verifier\"},{\"name\":\"sslTrustStore\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Java truststore file location\"},{\"name\":\"sslTrustStoreType\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Java truststore type\"},{\"name\":\"batchSize\",\"type\":[\"int\",\"null\"],\"default\":100,\"displayName\":\"Max log records per KVStore execute\",\"by_default\":100}]}");
   public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
    private java.lang.String storeName;
    private java.util.List<org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.KvStoreNode> kvStoreNodes;
@@ -22,6 +22,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
    private java.lang.String sslHostnameVerifier;
    private java.lang.String sslTrustStore;
    private java.lang.String sslTrustStoreType;
+   private java.lang.Integer batchSize;
 
   /**
    * Default constructor.  Note that this does not initialize fields
@@ -33,7 +34,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
   /**
    * All-args constructor.
    */
-  public OracleNoSqlConfig(java.lang.String storeName, java.util.List<org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.KvStoreNode> kvStoreNodes, java.lang.String username, java.lang.String walletDir, java.lang.String pwdFile, java.lang.String securityFile, java.lang.String transport, java.lang.String ssl, java.lang.String sslCipherSuites, java.lang.String sslProtocols, java.lang.String sslHostnameVerifier, java.lang.String sslTrustStore, java.lang.String sslTrustStoreType) {
+  public OracleNoSqlConfig(java.lang.String storeName, java.util.List<org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.KvStoreNode> kvStoreNodes, java.lang.String username, java.lang.String walletDir, java.lang.String pwdFile, java.lang.String securityFile, java.lang.String transport, java.lang.String ssl, java.lang.String sslCipherSuites, java.lang.String sslProtocols, java.lang.String sslHostnameVerifier, java.lang.String sslTrustStore, java.lang.String sslTrustStoreType, java.lang.Integer batchSize) {
     this.storeName = storeName;
     this.kvStoreNodes = kvStoreNodes;
     this.username = username;
@@ -47,6 +48,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
     this.sslHostnameVerifier = sslHostnameVerifier;
     this.sslTrustStore = sslTrustStore;
     this.sslTrustStoreType = sslTrustStoreType;
+    this.batchSize = batchSize;
   }
 
   public org.apache.avro.Schema getSchema() { return SCHEMA$; }
@@ -66,6 +68,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
     case 10: return sslHostnameVerifier;
     case 11: return sslTrustStore;
     case 12: return sslTrustStoreType;
+    case 13: return batchSize;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -86,6 +89,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
     case 10: sslHostnameVerifier = (java.lang.String)value$; break;
     case 11: sslTrustStore = (java.lang.String)value$; break;
     case 12: sslTrustStoreType = (java.lang.String)value$; break;
+    case 13: batchSize = (java.lang.Integer)value$; break;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -285,6 +289,21 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
     this.sslTrustStoreType = value;
   }
 
+  /**
+   * Gets the value of the 'batchSize' field.
+   */
+  public java.lang.Integer getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the value of the 'batchSize' field.
+   * @param value the value to set.
+   */
+  public void setBatchSize(java.lang.Integer value) {
+    this.batchSize = value;
+  }
+
   /** Creates a new OracleNoSqlConfig RecordBuilder */
   public static org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.OracleNoSqlConfig.Builder newBuilder() {
     return new org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.OracleNoSqlConfig.Builder();
@@ -319,6 +338,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
     private java.lang.String sslHostnameVerifier;
     private java.lang.String sslTrustStore;
     private java.lang.String sslTrustStoreType;
+    private java.lang.Integer batchSize;
 
     /** Creates a new Builder */
     private Builder() {
@@ -380,6 +400,10 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
         this.sslTrustStoreType = data().deepCopy(fields()[12].schema(), other.sslTrustStoreType);
         fieldSetFlags()[12] = true;
       }
+      if (isValidValue(fields()[13], other.batchSize)) {
+        this.batchSize = data().deepCopy(fields()[13].schema(), other.batchSize);
+        fieldSetFlags()[13] = true;
+      }
     }
     
     /** Creates a Builder by copying an existing OracleNoSqlConfig instance */
@@ -437,6 +461,10 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
         this.sslTrustStoreType = data().deepCopy(fields()[12].schema(), other.sslTrustStoreType);
         fieldSetFlags()[12] = true;
       }
+      if (isValidValue(fields()[13], other.batchSize)) {
+        this.batchSize = data().deepCopy(fields()[13].schema(), other.batchSize);
+        fieldSetFlags()[13] = true;
+      }
     }
 
     /** Gets the value of the 'storeName' field */
@@ -764,6 +792,31 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
       return this;
     }
 
+    /** Gets the value of the 'batchSize' field */
+    public java.lang.Integer getBatchSize() {
+      return batchSize;
+    }
+    
+    /** Sets the value of the 'batchSize' field */
+    public org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.OracleNoSqlConfig.Builder setBatchSize(java.lang.Integer value) {
+      validate(fields()[13], value);
+      this.batchSize = value;
+      fieldSetFlags()[13] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'batchSize' field has been set */
+    public boolean hasBatchSize() {
+      return fieldSetFlags()[13];
+    }
+    
+    /** Clears the value of the 'batchSize' field */
+    public org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.OracleNoSqlConfig.Builder clearBatchSize() {
+      batchSize = null;
+      fieldSetFlags()[13] = false;
+      return this;
+    }
+
     @Override
     public OracleNoSqlConfig build() {
       try {
@@ -781,6 +834,7 @@ public class OracleNoSqlConfig extends org.apache.avro.specific.SpecificRecordBa
         record.sslHostnameVerifier = fieldSetFlags()[10] ? this.sslHostnameVerifier : (java.lang.String) defaultValue(fields()[10]);
         record.sslTrustStore = fieldSetFlags()[11] ? this.sslTrustStore : (java.lang.String) defaultValue(fields()[11]);
         record.sslTrustStoreType = fieldSetFlags()[12] ? this.sslTrustStoreType : (java.lang.String) defaultValue(fields()[12]);
+        record.batchSize = fieldSetFlags()[13] ? this.batchSize : (java.lang.Integer) defaultValue(fields()[13]);
         return record;
       } catch (Exception e) {
         throw new org.apache.avro.AvroRuntimeException(e);
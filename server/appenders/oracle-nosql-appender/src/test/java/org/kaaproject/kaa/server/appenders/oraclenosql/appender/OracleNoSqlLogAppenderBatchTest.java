@@ -0,0 +1,231 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.appenders.oraclenosql.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import oracle.kv.FaultException;
+import oracle.kv.KVStore;
+import oracle.kv.Operation;
+import oracle.kv.OperationFactory;
+import oracle.kv.avro.GenericAvroBinding;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.common.dto.EndpointProfileDataDto;
+import org.kaaproject.kaa.common.dto.logs.LogHeaderStructureDto;
+import org.kaaproject.kaa.common.dto.logs.LogSchemaDto;
+import org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile;
+import org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.KvStoreNode;
+import org.kaaproject.kaa.server.appenders.oraclenosql.config.gen.OracleNoSqlConfig;
+import org.kaaproject.kaa.server.common.log.shared.RecordWrapperSchemaGenerator;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogDeliveryCallback;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogEvent;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogSchema;
+import org.kaaproject.kaa.server.common.log.shared.appender.data.BaseLogEventPack;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests {@link OracleNoSqlLogAppender} against a mocked {@link KVStore}, so
+ * that it runs without KVLite.
+ */
+public class OracleNoSqlLogAppenderBatchTest {
+
+    private static final String APPLICATION_TOKEN = "application_token";
+    private static final String ENDPOINT_KEY = "endpoint key";
+
+    private static final String LEVEL_SCHEMA = "{\"type\":\"record\",\"name\":\"Level\",\"namespace\":\"org.kaaproject.kaa.schema.sample\","
+            + "\"fields\":[{\"name\":\"level\",\"type\":\"int\"}]}";
+
+    private OracleNoSqlLogAppender logAppender;
+    private KVStore kvStore;
+    private List<Integer> executedBatchSizes;
+
+    @Before
+    public void beforeTest() throws Exception {
+        logAppender = new OracleNoSqlLogAppender();
+        logAppender.setApplicationToken(APPLICATION_TOKEN);
+        logAppender.setHeader(Arrays.asList(LogHeaderStructureDto.values()));
+
+        executedBatchSizes = new ArrayList<>();
+        kvStore = Mockito.mock(KVStore.class);
+        Mockito.when(kvStore.getOperationFactory()).thenReturn(Mockito.mock(OperationFactory.class));
+        Mockito.when(kvStore.execute(Mockito.anyListOf(Operation.class))).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                executedBatchSizes.add(((List<?>) invocation.getArguments()[0]).size());
+                return null;
+            }
+        });
+        ReflectionTestUtils.setField(logAppender, "kvStore", kvStore);
+    }
+
+    @Test
+    public void doAppendInBatchesTest() throws Exception {
+        ReflectionTestUtils.setField(logAppender, "batchSize", 2);
+        GenericAvroBinding binding = addSchemaBinding(1, BasicEndpointProfile.SCHEMA$.toString());
+
+        GenericAvroConverter<BasicEndpointProfile> converter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(createLogEvent(converter.encode(new BasicEndpointProfile("test" + i))));
+        }
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        logAppender.doAppend(createLogEventPack(BasicEndpointProfile.SCHEMA$.toString(), 1, events), callback);
+
+        Mockito.verify(callback).onSuccess();
+        Mockito.verifyNoMoreInteractions(callback);
+        Assert.assertEquals(Arrays.asList(2, 2, 1), executedBatchSizes);
+        Mockito.verify(binding, Mockito.times(5)).toValue(Mockito.any(GenericRecord.class));
+    }
+
+    @Test
+    public void doAppendWithRemoteErrorTest() throws Exception {
+        addSchemaBinding(1, BasicEndpointProfile.SCHEMA$.toString());
+        Mockito.when(kvStore.execute(Mockito.anyListOf(Operation.class))).thenThrow(Mockito.mock(FaultException.class));
+
+        GenericAvroConverter<BasicEndpointProfile> converter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
+        LogEvent event = createLogEvent(converter.encode(new BasicEndpointProfile("test")));
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        logAppender.doAppend(createLogEventPack(BasicEndpointProfile.SCHEMA$.toString(), 1, Arrays.asList(event)), callback);
+
+        Mockito.verify(callback).onRemoteError();
+        Mockito.verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    public void doAppendWithSeveralSchemaVersionsTest() throws Exception {
+        GenericAvroBinding profileBinding = addSchemaBinding(1, BasicEndpointProfile.SCHEMA$.toString());
+        GenericAvroBinding levelBinding = addSchemaBinding(2, LEVEL_SCHEMA);
+
+        GenericAvroConverter<BasicEndpointProfile> profileConverter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
+        BaseLogEventPack profilePack = createLogEventPack(BasicEndpointProfile.SCHEMA$.toString(), 1,
+                Arrays.asList(createLogEvent(profileConverter.encode(new BasicEndpointProfile("test")))));
+
+        Schema levelSchema = new Schema.Parser().parse(LEVEL_SCHEMA);
+        GenericRecord level = new GenericData.Record(levelSchema);
+        level.put("level", 42);
+        GenericAvroConverter<GenericRecord> levelConverter = new GenericAvroConverter<GenericRecord>(levelSchema);
+        BaseLogEventPack levelPack = createLogEventPack(LEVEL_SCHEMA, 2, Arrays.asList(createLogEvent(levelConverter.encode(level))));
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        logAppender.doAppend(levelPack, callback);
+        logAppender.doAppend(profilePack, callback);
+        Mockito.verify(callback, Mockito.times(2)).onSuccess();
+
+        ArgumentCaptor<GenericRecord> levelRecord = ArgumentCaptor.forClass(GenericRecord.class);
+        Mockito.verify(levelBinding).toValue(levelRecord.capture());
+        GenericRecord levelData = (GenericRecord) levelRecord.getValue().get(RecordWrapperSchemaGenerator.RECORD_DATA_FIELD);
+        Assert.assertEquals(42, levelData.get("level"));
+
+        ArgumentCaptor<GenericRecord> profileRecord = ArgumentCaptor.forClass(GenericRecord.class);
+        Mockito.verify(profileBinding).toValue(profileRecord.capture());
+        GenericRecord profileData = (GenericRecord) profileRecord.getValue().get(RecordWrapperSchemaGenerator.RECORD_DATA_FIELD);
+        Assert.assertEquals("test", profileData.get("profileBody").toString());
+
+        Assert.assertEquals(2, ((Map<?, ?>) ReflectionTestUtils.getField(logAppender, "bindings")).size());
+    }
+
+    @Test
+    public void decodeConfigurationTest() throws Exception {
+        OracleNoSqlConfig configuration = new OracleNoSqlConfig();
+        configuration.setStoreName("kvstore");
+        configuration.setKvStoreNodes(Arrays.asList(new KvStoreNode("localhost", 5000)));
+        configuration.setUsername("user");
+        configuration.setBatchSize(10);
+        byte[] rawConfiguration = new AvroByteArrayConverter<>(OracleNoSqlConfig.class).toByteArray(configuration);
+
+        Assert.assertEquals(configuration, ReflectionTestUtils.invokeMethod(logAppender, "decodeConfiguration", rawConfiguration));
+    }
+
+    @Test
+    public void decodePreviousConfigurationTest() throws Exception {
+        Schema previousSchema = new Schema.Parser().parse(getClass().getResourceAsStream("/oracle-nosql-appender-config-v1.avsc"));
+        Schema nodeSchema = previousSchema.getField("kvStoreNodes").schema().getElementType();
+        GenericRecord node = new GenericData.Record(nodeSchema);
+        node.put("host", "localhost");
+        node.put("port", 5000);
+        GenericRecord previousConfiguration = new GenericData.Record(previousSchema);
+        previousConfiguration.put("storeName", "kvstore");
+        previousConfiguration.put("kvStoreNodes", Arrays.asList(node));
+        previousConfiguration.put("username", "user");
+        previousConfiguration.put("sslTrustStoreType", "JKS");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(previousSchema).write(previousConfiguration, encoder);
+        encoder.flush();
+
+        OracleNoSqlConfig configuration = ReflectionTestUtils.invokeMethod(logAppender, "decodeConfiguration", out.toByteArray());
+        Assert.assertEquals("kvstore", configuration.getStoreName());
+        Assert.assertEquals(Arrays.asList(new KvStoreNode("localhost", 5000)), configuration.getKvStoreNodes());
+        Assert.assertEquals("user", configuration.getUsername());
+        Assert.assertEquals("JKS", configuration.getSslTrustStoreType());
+        Assert.assertEquals(Integer.valueOf(100), configuration.getBatchSize());
+    }
+
+    @SuppressWarnings("unchecked")
+    private GenericAvroBinding addSchemaBinding(int version, String rawSchema) throws IOException {
+        GenericAvroBinding binding = Mockito.mock(GenericAvroBinding.class);
+        Schema wrapperSchema = RecordWrapperSchemaGenerator.generateRecordWrapperSchema(rawSchema);
+        GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<GenericRecord>(new Schema.Parser().parse(rawSchema));
+        Map<Integer, OracleNoSqlLogAppender.SchemaBinding> bindings =
+                (Map<Integer, OracleNoSqlLogAppender.SchemaBinding>) ReflectionTestUtils.getField(logAppender, "bindings");
+        bindings.put(version, new OracleNoSqlLogAppender.SchemaBinding(wrapperSchema, binding, datumReader));
+        return binding;
+    }
+
+    private static LogEvent createLogEvent(byte[] logData) {
+        LogEvent event = new LogEvent();
+        event.setLogData(logData);
+        return event;
+    }
+
+    private static BaseLogEventPack createLogEventPack(String rawSchema, int version, List<LogEvent> events) {
+        LogSchemaDto dto = new LogSchemaDto();
+        dto.setSchema(rawSchema);
+        dto.setVersion(version);
+        LogSchema schema = new LogSchema(dto);
+
+        EndpointProfileDataDto profileDto = new EndpointProfileDataDto("1", ENDPOINT_KEY, 1, "test", 0, null);
+        BaseLogEventPack logEventPack = new BaseLogEventPack(profileDto, System.currentTimeMillis(), version, events);
+        logEventPack.setLogSchema(schema);
+        return logEventPack;
+    }
+}
@@ -270,6 +270,62 @@ public class OracleNoSqlLogAppenderTest {
         Assert.assertEquals(3, getKeyValuesCount());
     }
 
+    @Test
+    public void doAppendInBatchesTest() throws Exception {
+        ReflectionTestUtils.setField(logAppender, "batchSize", 2);
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            LogEvent event = new LogEvent();
+            event.setLogData(new byte[0]);
+            events.add(event);
+        }
+        BaseLogEventPack logEventPack = createLogEventPack(EMPTY_SCHEMA, 1, events);
+
+        Assert.assertEquals(0, getKeyValuesCount());
+        TestLogDeliveryCallback callback = new TestLogDeliveryCallback();
+        logAppender.doAppend(logEventPack, callback);
+        Assert.assertTrue(callback.success);
+        Assert.assertEquals(5, getKeyValuesCount());
+    }
+
+    @Test
+    public void doAppendWithSeveralSchemaVersionsTest() throws Exception {
+        LogEvent emptyEvent = new LogEvent();
+        emptyEvent.setLogData(new byte[0]);
+        BaseLogEventPack firstPack = createLogEventPack(EMPTY_SCHEMA, 1, Arrays.asList(emptyEvent));
+
+        GenericAvroConverter<BasicEndpointProfile> converter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
+        LogEvent profileEvent = new LogEvent();
+        profileEvent.setLogData(converter.encode(new BasicEndpointProfile("test")));
+        BaseLogEventPack secondPack = createLogEventPack(BasicEndpointProfile.SCHEMA$.toString(), 2, Arrays.asList(profileEvent));
+
+        TestLogDeliveryCallback callback = new TestLogDeliveryCallback();
+        logAppender.doAppend(firstPack, callback);
+        Assert.assertTrue(callback.success);
+
+        callback = new TestLogDeliveryCallback();
+        logAppender.doAppend(secondPack, callback);
+        Assert.assertTrue(callback.success);
+        Assert.assertEquals(2, getKeyValuesCount());
+
+        callback = new TestLogDeliveryCallback();
+        logAppender.doAppend(firstPack, callback);
+        Assert.assertTrue(callback.success);
+        Assert.assertEquals(2, ((Map<?, ?>) ReflectionTestUtils.getField(logAppender, "bindings")).size());
+    }
+
+    private static BaseLogEventPack createLogEventPack(String rawSchema, int version, List<LogEvent> events) {
+        LogSchemaDto dto = new LogSchemaDto();
+        dto.setSchema(rawSchema);
+        dto.setVersion(version);
+        LogSchema schema = new LogSchema(dto);
+
+        EndpointProfileDataDto profileDto = new EndpointProfileDataDto("1", ENDPOINT_KEY, 1, "test", 0, null);
+        BaseLogEventPack logEventPack = new BaseLogEventPack(profileDto, DATE_CREATED, version, events);
+        logEventPack.setLogSchema(schema);
+        return logEventPack;
+    }
+
     public int getKeyValuesCount() throws Exception {
         int numvalues = 0;
         KVStore kvStore = connectToStore();
@@ -22,15 +22,22 @@ import java.net.URISyntaxException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.avro.Schema;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpPost;
@@ -48,6 +55,7 @@ import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.kaaproject.kaa.common.dto.logs.LogAppenderDto;
 import org.kaaproject.kaa.common.dto.logs.LogEventDto;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType;
 import org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType;
 import org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType;
 import org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig;
@@ -62,6 +70,9 @@ public class RestLogAppender extends AbstractLogAppender<RestConfig> {
 
     private static final Logger LOG = LoggerFactory.getLogger(RestLogAppender.class);
 
+    /** The configuration schema before batching and compression were added. */
+    private static final String CONFIGURATION_SCHEMA_V1 = "/rest-appender-config-v1.avsc";
+
     private ExecutorService executor;
     private CloseableHttpClient client;
     private HttpHost target;
@@ -73,6 +84,11 @@ public class RestLogAppender extends AbstractLogAppender<RestConfig> {
         super(RestConfig.class);
     }
 
+    @Override
+    protected List<Schema> getPreviousConfigurationSchemas() {
+        return Collections.singletonList(parseConfigurationSchema(CONFIGURATION_SCHEMA_V1));
+    }
+
     @Override
     protected void initFromConfiguration(LogAppenderDto appender, RestConfig configuration) {
         this.configuration = configuration;
@@ -109,6 +125,7 @@ public class RestLogAppender extends AbstractLogAppender<RestConfig> {
         if (closed) {
             LOG.warn("Attempt to append data to already stopped appender");
             listener.onInternalError();
+            return;
         }
         if(targetURI == null){
             try {
@@ -116,57 +133,72 @@ public class RestLogAppender extends AbstractLogAppender<RestConfig> {
             } catch (URISyntaxException e) {
                 LOG.warn("[{}] failed to build request URI", this.getApplicationToken(), e);
                 listener.onInternalError();
+                return;
             }
         }
         LOG.trace("[{}] appending {} logs to rest endpoint", this.getApplicationToken(), logEventPack.getEvents().size());
         final RestConfig configuration = this.configuration;
+        final List<LogEventDto> dtos;
         try {
-            for (final LogEventDto dto : generateLogEvent(logEventPack, header)) {
-                executor.submit(new Runnable() {
+            dtos = generateLogEvent(logEventPack, header);
+        } catch (IOException e) {
+            LOG.error("[{}] Failed to send log events.", getName(), e);
+            listener.onInternalError();
+            return;
+        }
+        if (dtos.isEmpty()) {
+            listener.onSuccess();
+            return;
+        }
+        int batchSize = Math.max(1, configuration.getBatchSize());
+        int batchCount = (dtos.size() + batchSize - 1) / batchSize;
+        final PackDeliveryCallback callback = new PackDeliveryCallback(batchCount, listener);
+        for (int i = 0; i < dtos.size(); i += batchSize) {
+            final List<LogEventDto> batch = dtos.subList(i, Math.min(i + batchSize, dtos.size()));
+            executor.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        LOG.trace("[{}] appending {} logs to rest endpoint", RestLogAppender.this.getApplicationToken(), batch.size());
+                        final HttpRequest request = createRequest(configuration, batch);
+                        LOG.trace("[{}] executing {}", RestLogAppender.this.getApplicationToken(), request.getRequestLine());
 
-                    @Override
-                    public void run() {
+                        CloseableHttpResponse response = client.execute(target, request);
                         try {
-                            LOG.trace("[{}] appending {} to rest endpoint", RestLogAppender.this.getApplicationToken(), dto);
-                            final HttpRequest request = createRequest(configuration, dto);
-                            LOG.trace("[{}] executing {}", RestLogAppender.this.getApplicationToken(), request.getRequestLine());
-                            
-                            CloseableHttpResponse response = client.execute(target, request);
-                            try {
-                                int responseCode = response.getStatusLine().getStatusCode();
-                                LOG.trace("[{}] received {} response code", RestLogAppender.this.getApplicationToken(), response);
-                                if (responseCode >= 200 && responseCode < 400) {
-                                    LOG.trace("[{}] logs appended successfully", getName());
-                                    listener.onSuccess();
-                                } else {
-                                    LOG.warn("[{}] bad response code {}", getName(), responseCode);
-                                    listener.onRemoteError();
-                                }
-                            } finally {
-                                response.close();
+                            int responseCode = response.getStatusLine().getStatusCode();
+                            LOG.trace("[{}] received {} response code", RestLogAppender.this.getApplicationToken(), response);
+                            if (responseCode >= 200 && responseCode < 400) {
+                                LOG.trace("[{}] logs appended successfully", getName());
+                                callback.onBatchDelivered(null);
+                            } else {
+                                LOG.warn("[{}] bad response code {}", getName(), responseCode);
+                                callback.onBatchDelivered(DeliveryFailure.REMOTE);
                             }
-                        } catch (IOException e) {
-                            LOG.error("[{}] Failed to send log event.", getName(), e);
-                            listener.onConnectionError();
-                        } catch (Exception e) {
-                            LOG.error("[{}] Failed to send log event.", getName(), e);
-                            listener.onInternalError();
+                        } finally {
+                            response.close();
                         }
+                    } catch (IOException e) {
+                        LOG.error("[{}] Failed to send log events.", getName(), e);
+                        callback.onBatchDelivered(DeliveryFailure.CONNECTION);
+                    } catch (Exception e) {
+                        LOG.error("[{}] Failed to send log events.", getName(), e);
+                        callback.onBatchDelivered(DeliveryFailure.INTERNAL);
                     }
-                });
-            }
-        } catch (IOException e) {
-            LOG.error("[{}] Failed to send log events.", getName(), e);
-            listener.onInternalError();
+                }
+            });
         }
     }
 
-    private HttpRequest createRequest(RestConfig configuration, LogEventDto dto) throws URISyntaxException {
-        String body = buildRequestBody(configuration, dto);
-        ContentType contentType = buildContentType(configuration);
-        StringEntity entity = new StringEntity(body, contentType);
+    private HttpRequest createRequest(RestConfig configuration, List<LogEventDto> batch) throws URISyntaxException {
+        String body = buildRequestBody(configuration, batch);
+        ContentType contentType = buildContentType(configuration, batch.size() > 1);
+        HttpEntity entity = new StringEntity(body, contentType);
+        if (configuration.getGzip()) {
+            entity = new GzipCompressingEntity(entity);
+        }
         final HttpEntityEnclosingRequestBase request;
-        
+
         if (configuration.getMethod() == MethodType.POST) {
             request = new HttpPost(targetURI);
         } else {
@@ -176,16 +208,46 @@ public class RestLogAppender extends AbstractLogAppender<RestConfig> {
         return request;
     }
 
-    private ContentType buildContentType(RestConfig configuration) {
+    private ContentType buildContentType(RestConfig configuration, boolean batched) {
         ContentType contentType;
         if (configuration.getMimeType() == RequestType.TEXT) {
             contentType = ContentType.create("text/plain", "UTF-8");
+        } else if (batched && configuration.getBatchFormat() == BatchFormatType.NDJSON) {
+            contentType = ContentType.create("application/x-ndjson", "UTF-8");
         } else {
             contentType = ContentType.create("application/json", "UTF-8");
         }
         return contentType;
     }
 
+    /**
+     * Builds the request body. A single record is sent as is, several records
+     * are sent either as a JSON array or as newline delimited JSON.
+     */
+    private String buildRequestBody(RestConfig configuration, List<LogEventDto> batch) {
+        if (batch.size() == 1) {
+            return buildRequestBody(configuration, batch.get(0));
+        }
+        boolean ndjson = configuration.getBatchFormat() == BatchFormatType.NDJSON;
+        StringBuilder sb = new StringBuilder();
+        if (!ndjson) {
+            sb.append('[');
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0 && !ndjson) {
+                sb.append(',');
+            }
+            sb.append(buildRequestBody(configuration, batch.get(i)));
+            if (ndjson) {
+                sb.append('\n');
+            }
+        }
+        if (!ndjson) {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
     private String buildRequestBody(RestConfig configuration, LogEventDto dto) {
         String body;
         if (configuration.getHeader()) {
@@ -210,4 +272,43 @@ public class RestLogAppender extends AbstractLogAppender<RestConfig> {
             LOG.error("Failed to close appender: {}", e.getMessage(), e);
         }
     }
+
+    private enum DeliveryFailure {
+        REMOTE, CONNECTION, INTERNAL
+    }
+
+    /**
+     * Reports a single delivery outcome for a log event pack sent in several
+     * requests: success if all of them succeeded, otherwise the first failure.
+     */
+    private static final class PackDeliveryCallback {
+
+        private final AtomicInteger remaining;
+        private final AtomicReference<DeliveryFailure> failure = new AtomicReference<>();
+        private final LogDeliveryCallback listener;
+
+        PackDeliveryCallback(int batchCount, LogDeliveryCallback listener) {
+            this.remaining = new AtomicInteger(batchCount);
+            this.listener = listener;
+        }
+
+        void onBatchDelivered(DeliveryFailure batchFailure) {
+            if (batchFailure != null) {
+                failure.compareAndSet(null, batchFailure);
+            }
+            if (remaining.decrementAndGet() > 0) {
+                return;
+            }
+            DeliveryFailure result = failure.get();
+            if (result == null) {
+                listener.onSuccess();
+            } else if (result == DeliveryFailure.REMOTE) {
+                listener.onRemoteError();
+            } else if (result == DeliveryFailure.CONNECTION) {
+                listener.onConnectionError();
+            } else {
+                listener.onInternalError();
+            }
+        }
+    }
 }
@@ -7,7 +7,7 @@ package org.kaaproject.kaa.server.appenders.rest.config.gen;
 @SuppressWarnings("all")
 @org.apache.avro.specific.AvroGenerated
 public class RestConfig extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
-  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"RestConfig\",\"namespace\":\"org.kaaproject.kaa.server.appenders.rest.config.gen\",\"fields\":[{\"name\":\"host\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Host\",\"by_default\":\"localhost\"},{\"name\":\"port\",\"type\":\"int\",\"displayName\":\"Port\",\"by_default\":10000},{\"name\":\"ssl\",\"type\":\"boolean\",\"displayName\":\"Use SSL\",\"by_default\":\"false\"},{\"name\":\"verifySslCert\",\"type\":\"boolean\",\"displayName\":\"Validate SSL Certificate\",\"by_default\":\"false\"},{\"name\":\"username\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Username\"},{\"name\":\"password\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Password\"},{\"name\":\"connectionPoolSize\",\"type\":\"int\",\"displayName\":\"Thread/connection pool size\",\"by_default\":1},{\"name\":\"header\",\"type\":\"boolean\",\"displayName\":\"Include Kaa header\",\"by_default\":\"false\"},{\"name\":\"path\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Relative URI path\"},{\"name\":\"method\",\"type\":{\"type\":\"enum\",\"name\":\"MethodType\",\"symbols\":[\"PUT\",\"POST\"]},\"displayName\":\"Method\"},{\"name\":\"mimeType\",\"type\":{\"type\":\"enum\",\"name\":\"RequestType\",\"symbols\":[\"TEXT\",\"JSON\"]},\"displayName\":\"Request mime type\"}]}");
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"RestConfig\",\"namespace\":\"org.kaaproject.kaa.server.appenders.rest.config.gen\",\"fields\":[{\"name\":\"host\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Host\",\"by_default\":\"localhost\"},{\"name\":\"port\",\"type\":\"int\",\"displayName\":\"Port\",\"by_default\":10000},{\"name\":\"ssl\",\"type\":\"boolean\",\"displayName\":\"Use SSL\",\"by_default\":\"false\"},{\"name\":\"verifySslCert\",\"type\":\"boolean\",\"displayName\":\"Validate SSL Certificate\",\"by_default\":\"false\"},{\"name\":\"username\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Username\"},{\"name\":\"password\",\"type\":[{\"type\":\"string\",\"avro.java.string\":\"String\"},\"null\"],\"displayName\":\"Password\",\"inputType\":\"password\"},{\"name\":\"connectionPoolSize\",\"type\":\"int\",\"displayName\":\"Thread/connection pool size\",\"by_default\":1},{\"name\":\"header\",\"type\":\"boolean\",\"displayName\":\"Include Kaa header\",\"by_default\":\"false\"},{\"name\":\"path\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"displayName\":\"Relative URI path\"},{\"name\":\"method\",\"type\":{\"type\":\"enum\",\"name\":\"MethodType\",\"symbols\":[\"PUT\",\"POST\"]},\"displayName\":\"Method\"},{\"name\":\"mimeType\",\"type\":{\"type\":\"enum\",\"name\":\"RequestType\",\"symbols\":[\"TEXT\",\"JSON\"]},\"displayName\":\"Request mime type\"},{\"name\":\"batchSize\",\"type\":\"int\",\"default\":1,\"displayName\":\"Max log records per request\",\"by_default\":1},{\"name\":\"batchFormat\",\"type\":{\"type\":\"enum\",\"name\":\"BatchFormatType\",\"symbols\":[\"JSON_ARRAY\",\"NDJSON\"]},\"default\":\"JSON_ARRAY\",\"displayName\":\"Batched request body format\"},{\"name\":\"gzip\",\"type\":\"boolean\",\"default\":false,\"displayName\":\"Compress request body with gzip\",\"by_default\":\"false\"}]}");
   public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
    private java.lang.String host;
    private int port;
@@ -20,6 +20,9 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
    private java.lang.String path;
    private org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType method;
    private org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType mimeType;
+   private int batchSize;
+   private org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType batchFormat;
+   private boolean gzip;
 
   /**
    * Default constructor.  Note that this does not initialize fields
@@ -31,7 +34,7 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
   /**
    * All-args constructor.
    */
-  public RestConfig(java.lang.String host, java.lang.Integer port, java.lang.Boolean ssl, java.lang.Boolean verifySslCert, java.lang.String username, java.lang.String password, java.lang.Integer connectionPoolSize, java.lang.Boolean header, java.lang.String path, org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType method, org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType mimeType) {
+  public RestConfig(java.lang.String host, java.lang.Integer port, java.lang.Boolean ssl, java.lang.Boolean verifySslCert, java.lang.String username, java.lang.String password, java.lang.Integer connectionPoolSize, java.lang.Boolean header, java.lang.String path, org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType method, org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType mimeType, java.lang.Integer batchSize, org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType batchFormat, java.lang.Boolean gzip) {
     this.host = host;
     this.port = port;
     this.ssl = ssl;
@@ -43,6 +46,9 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
     this.path = path;
     this.method = method;
     this.mimeType = mimeType;
+    this.batchSize = batchSize;
+    this.batchFormat = batchFormat;
+    this.gzip = gzip;
   }
 
   public org.apache.avro.Schema getSchema() { return SCHEMA$; }
@@ -60,6 +66,9 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
     case 8: return path;
     case 9: return method;
     case 10: return mimeType;
+    case 11: return batchSize;
+    case 12: return batchFormat;
+    case 13: return gzip;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -78,6 +87,9 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
     case 8: path = (java.lang.String)value$; break;
     case 9: method = (org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType)value$; break;
     case 10: mimeType = (org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType)value$; break;
+    case 11: batchSize = (java.lang.Integer)value$; break;
+    case 12: batchFormat = (org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType)value$; break;
+    case 13: gzip = (java.lang.Boolean)value$; break;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -247,6 +259,51 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
     this.mimeType = value;
   }
 
+  /**
+   * Gets the value of the 'batchSize' field.
+   */
+  public java.lang.Integer getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the value of the 'batchSize' field.
+   * @param value the value to set.
+   */
+  public void setBatchSize(java.lang.Integer value) {
+    this.batchSize = value;
+  }
+
+  /**
+   * Gets the value of the 'batchFormat' field.
+   */
+  public org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType getBatchFormat() {
+    return batchFormat;
+  }
+
+  /**
+   * Sets the value of the 'batchFormat' field.
+   * @param value the value to set.
+   */
+  public void setBatchFormat(org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType value) {
+    this.batchFormat = value;
+  }
+
+  /**
+   * Gets the value of the 'gzip' field.
+   */
+  public java.lang.Boolean getGzip() {
+    return gzip;
+  }
+
+  /**
+   * Sets the value of the 'gzip' field.
+   * @param value the value to set.
+   */
+  public void setGzip(java.lang.Boolean value) {
+    this.gzip = value;
+  }
+
   /** Creates a new RestConfig RecordBuilder */
   public static org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder newBuilder() {
     return new org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder();
@@ -279,6 +336,9 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
     private java.lang.String path;
     private org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType method;
     private org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType mimeType;
+    private int batchSize;
+    private org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType batchFormat;
+    private boolean gzip;
 
     /** Creates a new Builder */
     private Builder() {
@@ -332,6 +392,18 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
         this.mimeType = data().deepCopy(fields()[10].schema(), other.mimeType);
         fieldSetFlags()[10] = true;
       }
+      if (isValidValue(fields()[11], other.batchSize)) {
+        this.batchSize = data().deepCopy(fields()[11].schema(), other.batchSize);
+        fieldSetFlags()[11] = true;
+      }
+      if (isValidValue(fields()[12], other.batchFormat)) {
+        this.batchFormat = data().deepCopy(fields()[12].schema(), other.batchFormat);
+        fieldSetFlags()[12] = true;
+      }
+      if (isValidValue(fields()[13], other.gzip)) {
+        this.gzip = data().deepCopy(fields()[13].schema(), other.gzip);
+        fieldSetFlags()[13] = true;
+      }
     }
     
     /** Creates a Builder by copying an existing RestConfig instance */
@@ -381,6 +453,18 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
         this.mimeType = data().deepCopy(fields()[10].schema(), other.mimeType);
         fieldSetFlags()[10] = true;
       }
+      if (isValidValue(fields()[11], other.batchSize)) {
+        this.batchSize = data().deepCopy(fields()[11].schema(), other.batchSize);
+        fieldSetFlags()[11] = true;
+      }
+      if (isValidValue(fields()[12], other.batchFormat)) {
+        this.batchFormat = data().deepCopy(fields()[12].schema(), other.batchFormat);
+        fieldSetFlags()[12] = true;
+      }
+      if (isValidValue(fields()[13], other.gzip)) {
+        this.gzip = data().deepCopy(fields()[13].schema(), other.gzip);
+        fieldSetFlags()[13] = true;
+      }
     }
 
     /** Gets the value of the 'host' field */
@@ -653,6 +737,79 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
       return this;
     }
 
+    /** Gets the value of the 'batchSize' field */
+    public java.lang.Integer getBatchSize() {
+      return batchSize;
+    }
+    
+    /** Sets the value of the 'batchSize' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder setBatchSize(int value) {
+      validate(fields()[11], value);
+      this.batchSize = value;
+      fieldSetFlags()[11] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'batchSize' field has been set */
+    public boolean hasBatchSize() {
+      return fieldSetFlags()[11];
+    }
+    
+    /** Clears the value of the 'batchSize' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder clearBatchSize() {
+      fieldSetFlags()[11] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'batchFormat' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType getBatchFormat() {
+      return batchFormat;
+    }
+    
+    /** Sets the value of the 'batchFormat' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder setBatchFormat(org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType value) {
+      validate(fields()[12], value);
+      this.batchFormat = value;
+      fieldSetFlags()[12] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'batchFormat' field has been set */
+    public boolean hasBatchFormat() {
+      return fieldSetFlags()[12];
+    }
+    
+    /** Clears the value of the 'batchFormat' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder clearBatchFormat() {
+      batchFormat = null;
+      fieldSetFlags()[12] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'gzip' field */
+    public java.lang.Boolean getGzip() {
+      return gzip;
+    }
+    
+    /** Sets the value of the 'gzip' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder setGzip(boolean value) {
+      validate(fields()[13], value);
+      this.gzip = value;
+      fieldSetFlags()[13] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'gzip' field has been set */
+    public boolean hasGzip() {
+      return fieldSetFlags()[13];
+    }
+    
+    /** Clears the value of the 'gzip' field */
+    public org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig.Builder clearGzip() {
+      fieldSetFlags()[13] = false;
+      return this;
+    }
+
     @Override
     public RestConfig build() {
       try {
@@ -668,6 +825,9 @@ public class RestConfig extends org.apache.avro.specific.SpecificRecordBase impl
         record.path = fieldSetFlags()[8] ? this.path : (java.lang.String) defaultValue(fields()[8]);
         record.method = fieldSetFlags()[9] ? this.method : (org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType) defaultValue(fields()[9]);
         record.mimeType = fieldSetFlags()[10] ? this.mimeType : (org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType) defaultValue(fields()[10]);
+        record.batchSize = fieldSetFlags()[11] ? this.batchSize : (java.lang.Integer) defaultValue(fields()[11]);
+        record.batchFormat = fieldSetFlags()[12] ? this.batchFormat : (org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType) defaultValue(fields()[12]);
+        record.gzip = fieldSetFlags()[13] ? this.gzip : (java.lang.Boolean) defaultValue(fields()[13]);
         return record;
       } catch (Exception e) {
         throw new org.apache.avro.AvroRuntimeException(e);
@@ -0,0 +1,202 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.appenders.rest.appender;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.common.dto.EndpointProfileDataDto;
+import org.kaaproject.kaa.common.dto.logs.LogAppenderDto;
+import org.kaaproject.kaa.common.dto.logs.LogHeaderStructureDto;
+import org.kaaproject.kaa.common.dto.logs.LogSchemaDto;
+import org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogDeliveryCallback;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogEvent;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogSchema;
+import org.kaaproject.kaa.server.common.log.shared.appender.data.BaseLogEventPack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Measures the time {@link RestLogAppender} takes to deliver a pack of 100 log
+ * records to an embedded HTTP server, for several batch sizes and with and
+ * without gzip. Run it with {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RestLogAppenderBenchmark {
+
+    private static final String PATH = "/logs";
+    private static final int LOG_RECORD_COUNT = 100;
+    private static final int CONNECTION_POOL_SIZE = 4;
+
+    @Param({ "1", "10", "100" })
+    private int batchSize;
+
+    @Param({ "JSON_ARRAY", "NDJSON" })
+    private BatchFormatType batchFormat;
+
+    @Param({ "false", "true" })
+    private boolean gzip;
+
+    private HttpServer server;
+    private RestLogAppender appender;
+    private BaseLogEventPack logEventPack;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(PATH, new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream body = exchange.getRequestBody();
+                byte[] buffer = new byte[4096];
+                while (body.read(buffer) != -1) {
+                    // Discard the request body
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(CONNECTION_POOL_SIZE));
+        server.start();
+
+        RestConfig configuration = RestConfig.newBuilder()
+                .setHost("localhost")
+                .setPort(server.getAddress().getPort())
+                .setSsl(false)
+                .setVerifySslCert(false)
+                .setUsername(null)
+                .setPassword(null)
+                .setConnectionPoolSize(CONNECTION_POOL_SIZE)
+                .setHeader(true)
+                .setPath(PATH)
+                .setMethod(MethodType.POST)
+                .setMimeType(RequestType.JSON)
+                .setBatchSize(batchSize)
+                .setBatchFormat(batchFormat)
+                .setGzip(gzip)
+                .build();
+        LogAppenderDto appenderDto = new LogAppenderDto();
+        appenderDto.setApplicationToken("1");
+        appenderDto.setName("rest");
+        appenderDto.setHeaderStructure(Arrays.asList(LogHeaderStructureDto.values()));
+        appenderDto.setRawConfiguration(new AvroByteArrayConverter<>(RestConfig.class).toByteArray(configuration));
+        appender = new RestLogAppender();
+        appender.init(appenderDto);
+
+        logEventPack = buildLogEventPack();
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public void appendLogEventPack() throws InterruptedException {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        appender.doAppend(logEventPack, new LogDeliveryCallback() {
+
+            @Override
+            public void onSuccess() {
+                delivered.countDown();
+            }
+
+            @Override
+            public void onInternalError() {
+                throw new IllegalStateException("Internal error");
+            }
+
+            @Override
+            public void onConnectionError() {
+                throw new IllegalStateException("Connection error");
+            }
+
+            @Override
+            public void onRemoteError() {
+                throw new IllegalStateException("Remote error");
+            }
+        });
+        if (!delivered.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Log event pack was not delivered");
+        }
+    }
+
+    private static BaseLogEventPack buildLogEventPack() throws IOException {
+        GenericAvroConverter<BasicEndpointProfile> converter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
+        StringBuilder profileBody = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            profileBody.append("temperature=21.5;");
+        }
+        byte[] logData = converter.encode(new BasicEndpointProfile(profileBody.toString()));
+
+        LogSchemaDto schemaDto = new LogSchemaDto();
+        schemaDto.setSchema(BasicEndpointProfile.SCHEMA$.toString());
+        LogSchema schema = new LogSchema(schemaDto);
+        List<LogEvent> events = new ArrayList<>(LOG_RECORD_COUNT);
+        for (int i = 0; i < LOG_RECORD_COUNT; i++) {
+            LogEvent logEvent = new LogEvent();
+            logEvent.setLogData(logData);
+            events.add(logEvent);
+        }
+        EndpointProfileDataDto profileDto = new EndpointProfileDataDto("1", "endpointKey", 1, "", 0, null);
+        BaseLogEventPack pack = new BaseLogEventPack(profileDto, 1234567l, schema.getVersion(), events);
+        pack.setLogSchema(schema);
+        return pack;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RestLogAppenderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
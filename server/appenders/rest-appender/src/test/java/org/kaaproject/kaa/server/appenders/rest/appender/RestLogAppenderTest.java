@@ -0,0 +1,304 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.appenders.rest.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.common.dto.EndpointProfileDataDto;
+import org.kaaproject.kaa.common.dto.logs.LogAppenderDto;
+import org.kaaproject.kaa.common.dto.logs.LogHeaderStructureDto;
+import org.kaaproject.kaa.common.dto.logs.LogSchemaDto;
+import org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.BatchFormatType;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.MethodType;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.RequestType;
+import org.kaaproject.kaa.server.appenders.rest.config.gen.RestConfig;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogDeliveryCallback;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogEvent;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogSchema;
+import org.kaaproject.kaa.server.common.log.shared.appender.data.BaseLogEventPack;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RestLogAppenderTest {
+    private static final int _10SEC = 10000;
+    private static final String PATH = "/logs";
+    private static final String EVENT = "{\"profileBody\":\"test\"}";
+
+    private HttpServer server;
+    private LinkedBlockingQueue<ReceivedRequest> requests;
+    private volatile int responseCode;
+    private RestLogAppender appender;
+
+    @Before
+    public void beforeTest() throws IOException {
+        requests = new LinkedBlockingQueue<>();
+        responseCode = 200;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(PATH, new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                ReceivedRequest request = new ReceivedRequest();
+                request.method = exchange.getRequestMethod();
+                request.contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                request.contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                InputStream body = exchange.getRequestBody();
+                if ("gzip".equals(request.contentEncoding)) {
+                    body = new GZIPInputStream(body);
+                }
+                request.body = read(body);
+                requests.add(request);
+                exchange.sendResponseHeaders(responseCode, -1);
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void afterTest() {
+        if (appender != null) {
+            appender.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void testAppendAsJsonArray() throws Exception {
+        appender = createAppender(2, BatchFormatType.JSON_ARRAY, false);
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(3), callback);
+        Mockito.verify(callback, Mockito.timeout(_10SEC)).onSuccess();
+        Mockito.verifyNoMoreInteractions(callback);
+
+        List<ReceivedRequest> received = takeRequests(2);
+        Assert.assertEquals("POST", received.get(0).method);
+        List<String> bodies = getBodies(received);
+        Assert.assertTrue(bodies.contains("[" + EVENT + "," + EVENT + "]"));
+        Assert.assertTrue(bodies.contains(EVENT));
+        for (ReceivedRequest request : received) {
+            Assert.assertTrue(request.contentType.startsWith("application/json"));
+            Assert.assertNull(request.contentEncoding);
+        }
+    }
+
+    @Test
+    public void testAppendAsNdjson() throws Exception {
+        appender = createAppender(3, BatchFormatType.NDJSON, false);
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(3), callback);
+        Mockito.verify(callback, Mockito.timeout(_10SEC)).onSuccess();
+        Mockito.verifyNoMoreInteractions(callback);
+
+        ReceivedRequest request = takeRequests(1).get(0);
+        Assert.assertEquals(EVENT + "\n" + EVENT + "\n" + EVENT + "\n", request.body);
+        Assert.assertTrue(request.contentType.startsWith("application/x-ndjson"));
+    }
+
+    @Test
+    public void testAppendWithGzip() throws Exception {
+        appender = createAppender(2, BatchFormatType.JSON_ARRAY, true);
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(2), callback);
+        Mockito.verify(callback, Mockito.timeout(_10SEC)).onSuccess();
+
+        ReceivedRequest request = takeRequests(1).get(0);
+        Assert.assertEquals("gzip", request.contentEncoding);
+        Assert.assertEquals("[" + EVENT + "," + EVENT + "]", request.body);
+    }
+
+    @Test
+    public void testAppendWithServerFailureAcknowledgesPackOnce() throws Exception {
+        responseCode = 500;
+        appender = createAppender(1, BatchFormatType.JSON_ARRAY, false);
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(3), callback);
+        Mockito.verify(callback, Mockito.timeout(_10SEC)).onRemoteError();
+
+        takeRequests(3);
+        Mockito.verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    public void testAppendToClosed() throws Exception {
+        appender = createAppender(1, BatchFormatType.JSON_ARRAY, false);
+        appender.close();
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(1), callback);
+        Mockito.verify(callback).onInternalError();
+        Mockito.verifyNoMoreInteractions(callback);
+        Assert.assertNull(requests.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInitWithPreviousConfiguration() throws Exception {
+        Schema previousSchema = new Schema.Parser().parse(getClass().getResourceAsStream("/rest-appender-config-v1.avsc"));
+        GenericRecord previousConfiguration = new GenericData.Record(previousSchema);
+        previousConfiguration.put("host", "localhost");
+        previousConfiguration.put("port", server.getAddress().getPort());
+        previousConfiguration.put("ssl", false);
+        previousConfiguration.put("verifySslCert", false);
+        previousConfiguration.put("connectionPoolSize", 2);
+        previousConfiguration.put("header", false);
+        previousConfiguration.put("path", PATH);
+        previousConfiguration.put("method", new GenericData.EnumSymbol(previousSchema.getField("method").schema(), "PUT"));
+        previousConfiguration.put("mimeType", new GenericData.EnumSymbol(previousSchema.getField("mimeType").schema(), "JSON"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(previousSchema).write(previousConfiguration, encoder);
+        encoder.flush();
+
+        appender = new RestLogAppender();
+        appender.init(createAppenderDto(out.toByteArray()));
+
+        RestConfig configuration = (RestConfig) ReflectionTestUtils.getField(appender, "configuration");
+        Assert.assertNotNull(configuration);
+        Assert.assertEquals(PATH, configuration.getPath());
+        Assert.assertEquals(MethodType.PUT, configuration.getMethod());
+        Assert.assertEquals(Integer.valueOf(1), configuration.getBatchSize());
+        Assert.assertEquals(BatchFormatType.JSON_ARRAY, configuration.getBatchFormat());
+        Assert.assertFalse(configuration.getGzip());
+
+        LogDeliveryCallback callback = Mockito.mock(LogDeliveryCallback.class);
+        appender.doAppend(getLogEventPack(2), callback);
+        Mockito.verify(callback, Mockito.timeout(_10SEC)).onSuccess();
+        List<ReceivedRequest> received = takeRequests(2);
+        Assert.assertEquals("PUT", received.get(0).method);
+        Assert.assertEquals(Collections.nCopies(2, EVENT), getBodies(received));
+    }
+
+    private RestLogAppender createAppender(int batchSize, BatchFormatType batchFormat, boolean gzip) throws IOException {
+        RestConfig configuration = RestConfig.newBuilder()
+                .setHost("localhost")
+                .setPort(server.getAddress().getPort())
+                .setSsl(false)
+                .setVerifySslCert(false)
+                .setUsername(null)
+                .setPassword(null)
+                .setConnectionPoolSize(2)
+                .setHeader(false)
+                .setPath(PATH)
+                .setMethod(MethodType.POST)
+                .setMimeType(RequestType.JSON)
+                .setBatchSize(batchSize)
+                .setBatchFormat(batchFormat)
+                .setGzip(gzip)
+                .build();
+        AvroByteArrayConverter<RestConfig> converter = new AvroByteArrayConverter<>(RestConfig.class);
+        RestLogAppender restAppender = new RestLogAppender();
+        restAppender.init(createAppenderDto(converter.toByteArray(configuration)));
+        return restAppender;
+    }
+
+    private LogAppenderDto createAppenderDto(byte[] rawConfiguration) {
+        LogAppenderDto appenderDto = new LogAppenderDto();
+        appenderDto.setApplicationToken("1");
+        appenderDto.setName("rest");
+        appenderDto.setHeaderStructure(new ArrayList<LogHeaderStructureDto>());
+        appenderDto.setRawConfiguration(rawConfiguration);
+        return appenderDto;
+    }
+
+    private List<ReceivedRequest> takeRequests(int count) throws InterruptedException {
+        List<ReceivedRequest> received = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ReceivedRequest request = requests.poll(_10SEC, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull("Expected " + count + " requests, received " + i, request);
+            received.add(request);
+        }
+        Assert.assertNull(requests.poll(100, TimeUnit.MILLISECONDS));
+        return received;
+    }
+
+    private static List<String> getBodies(List<ReceivedRequest> received) {
+        List<String> bodies = new ArrayList<>(received.size());
+        for (ReceivedRequest request : received) {
+            bodies.add(request.body);
+        }
+        return bodies;
+    }
+
+    private static String read(InputStream input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    private BaseLogEventPack getLogEventPack(int count) throws IOException {
+        GenericAvroConverter<BasicEndpointProfile> converter = new GenericAvroConverter<BasicEndpointProfile>(BasicEndpointProfile.SCHEMA$);
+        BasicEndpointProfile theLog = new BasicEndpointProfile("test");
+
+        LogSchemaDto schemaDto = new LogSchemaDto();
+        schemaDto.setSchema(BasicEndpointProfile.SCHEMA$.toString());
+        LogSchema schema = new LogSchema(schemaDto);
+        List<LogEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LogEvent logEvent = new LogEvent();
+            logEvent.setLogData(converter.encode(theLog));
+            events.add(logEvent);
+        }
+        EndpointProfileDataDto profileDto = new EndpointProfileDataDto("1", "endpointKey", 1, "", 0, null);
+        BaseLogEventPack logEventPack = new BaseLogEventPack(profileDto, 1234567l, schema.getVersion(), events);
+        logEventPack.setLogSchema(schema);
+        return logEventPack;
+    }
+
+    private static class ReceivedRequest {
+        private String method;
+        private String contentType;
+        private String contentEncoding;
+        private String body;
+    }
+}
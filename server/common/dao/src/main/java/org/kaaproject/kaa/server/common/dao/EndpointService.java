@@ -192,6 +192,18 @@ public interface EndpointService {
      */
     EndpointProfileDto saveEndpointProfile(EndpointProfileDto endpointProfileDto);
 
+    /**
+     * Update endpoint profile using the snapshot of its stored state taken
+     * before the profile was modified. The stored profile is not read again.
+     *
+     * @param endpointProfileDto
+     *            the endpoint profile dto
+     * @param storedProfile
+     *            the snapshot of the stored profile, may be null
+     * @return the endpoint profile dto
+     */
+    EndpointProfileDto saveEndpointProfile(EndpointProfileDto endpointProfileDto, EndpointProfileSnapshotDto storedProfile);
+
     /**
      *
      * @param endpointStatusDto
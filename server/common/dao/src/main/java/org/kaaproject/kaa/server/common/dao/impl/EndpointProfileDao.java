@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.kaaproject.kaa.common.dto.EndpointProfileBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesPageDto;
 import org.kaaproject.kaa.common.dto.PageLinkDto;
@@ -40,6 +41,18 @@ public interface EndpointProfileDao<T extends EndpointProfile> extends Dao<T, By
      */
     T save(EndpointProfileDto dto);
 
+    /**
+     * Updates the endpoint profile. The snapshot of the stored profile lets
+     * implementations skip reading the stored profile to update the lookup
+     * indexes; implementations without such indexes may ignore it. The
+     * version of the profile must match the version of the snapshot.
+     *
+     * @param dto the endpoint profile
+     * @param storedProfile the snapshot of the stored profile
+     * @return the saved endpoint profile
+     */
+    T save(EndpointProfileDto dto, EndpointProfileSnapshotDto storedProfile);
+
     /**
      * Find endpoint profile by key hash.
      *
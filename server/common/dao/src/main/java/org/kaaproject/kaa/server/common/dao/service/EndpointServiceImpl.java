@@ -252,16 +252,7 @@ public class EndpointServiceImpl implements EndpointService {
 
     @Override
     public EndpointProfileDto saveEndpointProfile(EndpointProfileDto endpointProfileDto) throws KaaOptimisticLockingFailureException {
-        validateObject(endpointProfileDto, "Can't save endpoint profile object. Invalid endpoint profile object " + endpointProfileDto);
-        byte[] keyHash = endpointProfileDto.getEndpointKeyHash();
-        validateHash(keyHash, "Incorrect key hash for endpoint profile.");
-        if (endpointProfileDto.getServerProfileBody() == null) {
-            ServerProfileSchemaDto serverProfileSchemaDto = serverProfileService.findLatestServerProfileSchema(endpointProfileDto.getApplicationId());
-            CTLSchemaDto schemaDto = ctlService.findCTLSchemaById(serverProfileSchemaDto.getCtlSchemaId());
-            LOG.debug("Set latest server profile schema [{}] and default record {} for endpoint with key [{}]", serverProfileSchemaDto.getVersion(), schemaDto.getBody(), keyHash);
-            endpointProfileDto.setServerProfileVersion(serverProfileSchemaDto.getVersion());
-            endpointProfileDto.setServerProfileBody(schemaDto.getDefaultRecord());
-        }
+        byte[] keyHash = validateEndpointProfile(endpointProfileDto);
         EndpointProfileDto dto;
         if (isBlank(endpointProfileDto.getId())) {
             EndpointProfile storedProfile = endpointProfileDao.findByKeyHash(keyHash);
@@ -285,6 +276,31 @@ public class EndpointServiceImpl implements EndpointService {
         return dto;
     }
 
+    @Override
+    public EndpointProfileDto saveEndpointProfile(EndpointProfileDto endpointProfileDto, EndpointProfileSnapshotDto storedProfile)
+            throws KaaOptimisticLockingFailureException {
+        if (storedProfile == null || isBlank(endpointProfileDto.getId())) {
+            return saveEndpointProfile(endpointProfileDto);
+        }
+        validateEndpointProfile(endpointProfileDto);
+        LOG.debug("Update endpoint profile with id [{}] and stored state {}", endpointProfileDto.getId(), storedProfile);
+        return getDto(endpointProfileDao.save(endpointProfileDto, storedProfile));
+    }
+
+    private byte[] validateEndpointProfile(EndpointProfileDto endpointProfileDto) {
+        validateObject(endpointProfileDto, "Can't save endpoint profile object. Invalid endpoint profile object " + endpointProfileDto);
+        byte[] keyHash = endpointProfileDto.getEndpointKeyHash();
+        validateHash(keyHash, "Incorrect key hash for endpoint profile.");
+        if (endpointProfileDto.getServerProfileBody() == null) {
+            ServerProfileSchemaDto serverProfileSchemaDto = serverProfileService.findLatestServerProfileSchema(endpointProfileDto.getApplicationId());
+            CTLSchemaDto schemaDto = ctlService.findCTLSchemaById(serverProfileSchemaDto.getCtlSchemaId());
+            LOG.debug("Set latest server profile schema [{}] and default record {} for endpoint with key [{}]", serverProfileSchemaDto.getVersion(), schemaDto.getBody(), keyHash);
+            endpointProfileDto.setServerProfileVersion(serverProfileSchemaDto.getVersion());
+            endpointProfileDto.setServerProfileBody(schemaDto.getDefaultRecord());
+        }
+        return keyHash;
+    }
+
     @Override
     public EndpointStatusDto saveEndpointStatus(EndpointStatusDto endpointStatusDto) {
         return getDto(endpointStatusDao.save(endpointStatusDto));
@@ -0,0 +1,109 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.dto;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The state of a stored endpoint profile that its lookup indexes depend on:
+ * the version, the access token and the endpoint group ids. Taken before a
+ * loaded profile is modified, it lets the storage update the indexes
+ * without reading the stored profile again.
+ */
+public class EndpointProfileSnapshotDto implements Serializable {
+
+    private static final long serialVersionUID = 4718052446123960533L;
+
+    private final Long version;
+    private final String accessToken;
+    private final Set<String> endpointGroupIds;
+
+    public EndpointProfileSnapshotDto(Long version, String accessToken, Set<String> endpointGroupIds) {
+        this.version = version;
+        this.accessToken = accessToken;
+        this.endpointGroupIds = Collections.unmodifiableSet(new HashSet<>(endpointGroupIds));
+    }
+
+    /**
+     * Takes a snapshot of the profile.
+     *
+     * @param profile the profile as it is stored
+     */
+    public EndpointProfileSnapshotDto(EndpointProfileDto profile) {
+        this.version = profile.getVersion();
+        this.accessToken = profile.getAccessToken();
+        Set<String> groupIds = new HashSet<>();
+        if (profile.getGroupState() != null) {
+            for (EndpointGroupStateDto groupState : profile.getGroupState()) {
+                groupIds.add(groupState.getEndpointGroupId());
+            }
+        }
+        this.endpointGroupIds = Collections.unmodifiableSet(groupIds);
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public Set<String> getEndpointGroupIds() {
+        return endpointGroupIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        EndpointProfileSnapshotDto that = (EndpointProfileSnapshotDto) o;
+
+        if (version != null ? !version.equals(that.version) : that.version != null) {
+            return false;
+        }
+        if (accessToken != null ? !accessToken.equals(that.accessToken) : that.accessToken != null) {
+            return false;
+        }
+        return endpointGroupIds.equals(that.endpointGroupIds);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = version != null ? version.hashCode() : 0;
+        result = 31 * result + (accessToken != null ? accessToken.hashCode() : 0);
+        result = 31 * result + endpointGroupIds.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointProfileSnapshotDto{" +
+                "version=" + version +
+                ", accessToken='" + accessToken + '\'' +
+                ", endpointGroupIds=" + endpointGroupIds +
+                '}';
+    }
+}
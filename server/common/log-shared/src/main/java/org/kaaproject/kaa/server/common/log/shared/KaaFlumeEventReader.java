@@ -18,14 +18,13 @@ package org.kaaproject.kaa.server.common.log.shared;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.avro.specific.SpecificRecordBase;
-import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,41 +38,81 @@ import org.slf4j.LoggerFactory;
 public class KaaFlumeEventReader<T extends SpecificRecordBase> {
     private static final Logger LOG = LoggerFactory.getLogger(KaaFlumeEventReader.class);
 
-    // Datum reader for generic Kaa Flume object
-    private SpecificDatumReader<RecordData> recordDataReader;
     // Datum reader for user-defined object
     private SpecificDatumReader<T> recordReader;
 
     public KaaFlumeEventReader(Class<T> clazz) {
-        recordDataReader = new SpecificDatumReader<>(RecordData.class);
         recordReader = new SpecificDatumReader<>(clazz);
     }
 
+    /**
+     * Decodes the records of the event body lazily. The records are decoded
+     * one by one from the event body without copying it, each iteration
+     * decodes them again. Decoding errors during iteration are thrown as
+     * {@link AvroRuntimeException}.
+     * <p>
+     * Each iterator has its own decoders, so several iterators may be used
+     * at the same time.
+     *
+     * @param bb the event body
+     * @return the records
+     * @throws IOException if the record data header can't be decoded
+     */
     public Iterable<T> decodeRecords(ByteBuffer bb) throws IOException {
-        byte[] recordDataBody = toByteArray(bb);
-        BinaryDecoder recordDataDecoder = DecoderFactory.get().binaryDecoder(recordDataBody, null);
-        RecordData recordData = recordDataReader.read(null, recordDataDecoder);
+        final ByteBuffer body = bb.slice();
+        RecordDataReader recordDataReader = new RecordDataReader();
+        recordDataReader.reset(body.duplicate());
+        LOG.debug("Avro event header: {}", recordDataReader.getRecordHeader());
+        bb.position(bb.limit());
 
-        LOG.debug("Avro event header: {}", recordData.getRecordHeader());
-        LOG.debug("Avro event data.size: {}", recordData.getEventRecords().size());
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new RecordIterator(body.duplicate());
+            }
+        };
+    }
+
+    private class RecordIterator implements Iterator<T> {
+
+        private final RecordDataReader recordDataReader = new RecordDataReader();
+        private BinaryDecoder recordDecoder;
 
-        List<T> results = new ArrayList<T>();
-        BinaryDecoder recordDecoder = null;
-        for (ByteBuffer eventBuf : recordData.getEventRecords()) {
-            byte[] recordBody = toByteArray(eventBuf);
-            recordDecoder = DecoderFactory.get().binaryDecoder(recordBody, recordDecoder);
-            T record = recordReader.read(null, recordDecoder);
-            results.add(record);
-            LOG.trace("Parsed record: {}", record);
+        RecordIterator(ByteBuffer body) {
+            try {
+                recordDataReader.reset(body);
+            } catch (IOException e) {
+                throw new AvroRuntimeException(e);
+            }
         }
-        return results;
-    }
 
-    // Extracts byte array from byte buffer
-    private static final byte[] toByteArray(ByteBuffer buffer) {
-        byte[] data = new byte[buffer.remaining()];
-        buffer.get(data);
-        return data;
+        @Override
+        public boolean hasNext() {
+            try {
+                return recordDataReader.hasNext();
+            } catch (IOException e) {
+                throw new AvroRuntimeException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                ByteBuffer recordBody = recordDataReader.next();
+                recordDecoder = DecoderFactory.get().binaryDecoder(recordBody.array(),
+                        recordBody.arrayOffset() + recordBody.position(), recordBody.remaining(), recordDecoder);
+                T record = recordReader.read(null, recordDecoder);
+                LOG.trace("Parsed record: {}", record);
+                return record;
+            } catch (IOException e) {
+                throw new AvroRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 
 }
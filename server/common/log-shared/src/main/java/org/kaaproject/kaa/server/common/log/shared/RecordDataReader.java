@@ -0,0 +1,165 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.log.shared;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
+
+/**
+ * Streaming reader of the {@link RecordData} bodies of Apache Flume events
+ * generated by Kaa Flume appender.
+ * <p>
+ * Unlike decoding a whole {@link RecordData}, the reader does not copy the
+ * event records: they are returned one by one as slices of the event body,
+ * so neither the body nor the slices may be modified while they are in use.
+ * The fields that follow the event records are not read. A reader reuses its
+ * decoder and can be {@link #reset(byte[], int, int) reset} to read the next
+ * event body. It is not thread safe.
+ */
+public class RecordDataReader {
+
+    private final SpecificDatumReader<RecordHeader> recordHeaderReader;
+    private final PositionInputStream input = new PositionInputStream();
+    private BinaryDecoder decoder;
+
+    private RecordHeader recordHeader;
+    private int schemaVersion;
+    private String applicationToken;
+    private long blockRemaining;
+    private boolean arrayEnd;
+
+    public RecordDataReader() {
+        recordHeaderReader = new SpecificDatumReader<>(RecordData.SCHEMA$.getField("recordHeader").schema());
+    }
+
+    /**
+     * Starts reading the given event body, the record data header fields are
+     * read immediately.
+     *
+     * @param body the event body
+     * @throws IOException if the header fields can't be decoded
+     */
+    public void reset(ByteBuffer body) throws IOException {
+        if (body.hasArray()) {
+            reset(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        } else {
+            byte[] data = new byte[body.remaining()];
+            body.duplicate().get(data);
+            reset(data, 0, data.length);
+        }
+    }
+
+    /**
+     * Starts reading the given event body, the record data header fields are
+     * read immediately.
+     *
+     * @param body the array holding the event body
+     * @param offset the offset of the event body
+     * @param length the length of the event body
+     * @throws IOException if the header fields can't be decoded
+     */
+    public void reset(byte[] body, int offset, int length) throws IOException {
+        input.reset(body, offset, length);
+        decoder = DecoderFactory.get().directBinaryDecoder(input, decoder);
+        recordHeader = recordHeaderReader.read(null, decoder);
+        schemaVersion = decoder.readInt();
+        applicationToken = decoder.readString();
+        blockRemaining = decoder.readArrayStart();
+        arrayEnd = blockRemaining == 0;
+    }
+
+    public RecordHeader getRecordHeader() {
+        return recordHeader;
+    }
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public String getApplicationToken() {
+        return applicationToken;
+    }
+
+    /**
+     * Checks if there are more event records in the event body.
+     *
+     * @return true if there are more event records
+     * @throws IOException if the event records can't be decoded
+     */
+    public boolean hasNext() throws IOException {
+        if (blockRemaining == 0 && !arrayEnd) {
+            blockRemaining = decoder.arrayNext();
+            arrayEnd = blockRemaining == 0;
+        }
+        return blockRemaining > 0;
+    }
+
+    /**
+     * Gets the next event record as a slice of the event body.
+     *
+     * @return the event record
+     * @throws IOException if the event record can't be decoded
+     */
+    public ByteBuffer next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long length = decoder.readLong();
+        int position = input.position();
+        if (length < 0 || length > input.available()) {
+            throw new AvroRuntimeException("Malformed event record length: " + length);
+        }
+        input.skip(length);
+        blockRemaining--;
+        return ByteBuffer.wrap(input.buffer(), position, (int) length).slice();
+    }
+
+    /**
+     * Input stream over an array that exposes its position, the direct
+     * decoder reads no more bytes than it decodes.
+     */
+    private static final class PositionInputStream extends ByteArrayInputStream {
+
+        PositionInputStream() {
+            super(new byte[0]);
+        }
+
+        void reset(byte[] data, int offset, int length) {
+            this.buf = data;
+            this.pos = offset;
+            this.mark = offset;
+            this.count = offset + length;
+        }
+
+        int position() {
+            return pos;
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -17,14 +17,21 @@
 package org.kaaproject.kaa.server.common.log.shared.appender;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.avro.specific.SpecificRecordBase;
-import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.common.dto.logs.LogAppenderDto;
 import org.kaaproject.kaa.common.dto.logs.LogEventDto;
@@ -93,14 +100,79 @@ public abstract class AbstractLogAppender<T extends SpecificRecordBase> implemen
         this.confirmDelivery = appender.isConfirmDelivery();
         byte[] rawConfiguration = appender.getRawConfiguration();
         try {
-            AvroByteArrayConverter<T> converter = new AvroByteArrayConverter<>(configurationClass);
-            T configuration = converter.fromByteArray(rawConfiguration);
+            T configuration = decodeConfiguration(rawConfiguration);
             initFromConfiguration(appender, configuration);
-        } catch (IOException e) {
+        } catch (IOException | AvroRuntimeException e) {
             LOG.error("Unable to parse configuration for appender '" + getName() + "'", e);
         }
     }
 
+    /**
+     * Gets the schemas that earlier versions of the appender wrote their
+     * configuration with, newest first. A raw configuration that can't be
+     * decoded with the current schema is decoded with these schemas and
+     * resolved to the current one, so that fields with default values can be
+     * appended to the configuration schema.
+     *
+     * @return the previous configuration schemas
+     */
+    protected List<Schema> getPreviousConfigurationSchemas() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Decodes a raw configuration, falling back to the
+     * {@link #getPreviousConfigurationSchemas() previous configuration schemas}
+     * if it was not written with the current schema.
+     *
+     * @param rawConfiguration the raw configuration
+     * @return the configuration
+     * @throws IOException if the configuration can't be decoded with any of the schemas
+     */
+    protected T decodeConfiguration(byte[] rawConfiguration) throws IOException {
+        Schema schema = SpecificData.get().getSchema(configurationClass);
+        try {
+            return decodeConfiguration(rawConfiguration, schema, schema);
+        } catch (IOException | AvroRuntimeException e) {
+            for (Schema writerSchema : getPreviousConfigurationSchemas()) {
+                try {
+                    T configuration = decodeConfiguration(rawConfiguration, writerSchema, schema);
+                    LOG.info("Configuration of appender '{}' was decoded with a previous schema", getName());
+                    return configuration;
+                } catch (IOException | AvroRuntimeException previousSchemaError) {
+                    LOG.trace("Configuration of appender '{}' doesn't match a previous schema", getName(), previousSchemaError);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private T decodeConfiguration(byte[] rawConfiguration, Schema writerSchema, Schema readerSchema) throws IOException {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(rawConfiguration, null);
+        T configuration = new SpecificDatumReader<T>(writerSchema, readerSchema).read(null, decoder);
+        if (!decoder.isEnd()) {
+            throw new IOException("Configuration has unexpected trailing data");
+        }
+        return configuration;
+    }
+
+    /**
+     * Parses a previous configuration schema bundled with the appender.
+     *
+     * @param resource the resource of the schema, relative to the appender class
+     * @return the schema
+     */
+    protected Schema parseConfigurationSchema(String resource) {
+        try (InputStream input = getClass().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Configuration schema " + resource + " not found");
+            }
+            return new Schema.Parser().parse(input);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read configuration schema " + resource, e);
+        }
+    }
+
     @Override
     public void setName(String name) {
         this.name = name;
@@ -0,0 +1,132 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.log.shared;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
+
+public class KaaFlumeEventReaderTest {
+
+    @Test
+    public void decodeRecordsTest() throws IOException {
+        List<RecordHeader> records = records("first", 3);
+        ByteBuffer body = ByteBuffer.wrap(encodeRecordData(records));
+
+        KaaFlumeEventReader<RecordHeader> reader = new KaaFlumeEventReader<>(RecordHeader.class);
+        Iterable<RecordHeader> decoded = reader.decodeRecords(body);
+        Assert.assertFalse(body.hasRemaining());
+        // each iteration decodes the records again
+        Assert.assertEquals(records, toList(decoded));
+        Assert.assertEquals(records, toList(decoded));
+    }
+
+    @Test
+    public void decodeSeveralEventsTest() throws IOException {
+        List<RecordHeader> firstRecords = records("first", 2);
+        List<RecordHeader> secondRecords = records("second", 5);
+
+        KaaFlumeEventReader<RecordHeader> reader = new KaaFlumeEventReader<>(RecordHeader.class);
+        Assert.assertEquals(firstRecords, toList(reader.decodeRecords(ByteBuffer.wrap(encodeRecordData(firstRecords)))));
+        Assert.assertEquals(secondRecords, toList(reader.decodeRecords(ByteBuffer.wrap(encodeRecordData(secondRecords)))));
+    }
+
+    @Test
+    public void interleavedIteratorsTest() throws IOException {
+        List<RecordHeader> firstRecords = records("first", 3);
+        List<RecordHeader> secondRecords = records("second", 4);
+
+        KaaFlumeEventReader<RecordHeader> reader = new KaaFlumeEventReader<>(RecordHeader.class);
+        Iterable<RecordHeader> first = reader.decodeRecords(ByteBuffer.wrap(encodeRecordData(firstRecords)));
+        Iterable<RecordHeader> second = reader.decodeRecords(ByteBuffer.wrap(encodeRecordData(secondRecords)));
+        Iterator<RecordHeader> firstIt = first.iterator();
+        Iterator<RecordHeader> secondIt = second.iterator();
+        Iterator<RecordHeader> firstAgainIt = first.iterator();
+
+        List<RecordHeader> decodedFirst = new ArrayList<>();
+        List<RecordHeader> decodedSecond = new ArrayList<>();
+        List<RecordHeader> decodedFirstAgain = new ArrayList<>();
+        while (firstIt.hasNext() || secondIt.hasNext() || firstAgainIt.hasNext()) {
+            if (firstIt.hasNext()) {
+                decodedFirst.add(firstIt.next());
+            }
+            if (secondIt.hasNext()) {
+                decodedSecond.add(secondIt.next());
+            }
+            if (firstAgainIt.hasNext()) {
+                decodedFirstAgain.add(firstAgainIt.next());
+            }
+        }
+        Assert.assertEquals(firstRecords, decodedFirst);
+        Assert.assertEquals(secondRecords, decodedSecond);
+        Assert.assertEquals(firstRecords, decodedFirstAgain);
+    }
+
+    private static List<RecordHeader> records(String prefix, int count) {
+        List<RecordHeader> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            RecordHeader record = new RecordHeader();
+            record.setEndpointKeyHash(prefix + i);
+            record.setTimestamp((long) i);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static byte[] encodeRecordData(List<RecordHeader> records) throws IOException {
+        SpecificDatumWriter<RecordHeader> recordWriter = new SpecificDatumWriter<>(RecordHeader.class);
+        BinaryEncoder encoder = null;
+        List<ByteBuffer> eventRecords = new ArrayList<>();
+        for (RecordHeader record : records) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
+            recordWriter.write(record, encoder);
+            encoder.flush();
+            eventRecords.add(ByteBuffer.wrap(baos.toByteArray()));
+        }
+        RecordData recordData = new RecordData();
+        recordData.setRecordHeader(new RecordHeader());
+        recordData.setSchemaVersion(1);
+        recordData.setApplicationToken("42342342");
+        recordData.setEventRecords(eventRecords);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
+        new SpecificDatumWriter<>(RecordData.class).write(recordData, encoder);
+        encoder.flush();
+        return baos.toByteArray();
+    }
+
+    private static List<RecordHeader> toList(Iterable<RecordHeader> records) {
+        List<RecordHeader> list = new ArrayList<>();
+        for (RecordHeader record : records) {
+            list.add(record);
+        }
+        return list;
+    }
+}
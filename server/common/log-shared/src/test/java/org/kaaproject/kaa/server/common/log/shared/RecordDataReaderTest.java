@@ -0,0 +1,267 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.log.shared;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
+
+public class RecordDataReaderTest {
+
+    private static final String APPLICATION_TOKEN = "42342342";
+    private static final int SCHEMA_VERSION = 3;
+
+    @Test
+    public void readHeaderFieldsTest() throws IOException {
+        RecordHeader header = header();
+        byte[] body = encodeRecordData(header, records(2));
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(body, 0, body.length);
+        Assert.assertEquals(header, reader.getRecordHeader());
+        Assert.assertEquals(SCHEMA_VERSION, reader.getSchemaVersion());
+        Assert.assertEquals(APPLICATION_TOKEN, reader.getApplicationToken());
+    }
+
+    @Test
+    public void readRecordsAsSlicesTest() throws IOException {
+        List<byte[]> records = records(5);
+        byte[] recordData = encodeRecordData(header(), records);
+        // place the event body in the middle of a larger array
+        byte[] body = new byte[recordData.length + 20];
+        Arrays.fill(body, (byte) 0x7F);
+        System.arraycopy(recordData, 0, body, 10, recordData.length);
+
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(body, 10, recordData.length);
+        for (byte[] record : records) {
+            Assert.assertTrue(reader.hasNext());
+            ByteBuffer slice = reader.next();
+            Assert.assertSame(body, slice.array());
+            Assert.assertEquals(0, slice.position());
+            Assert.assertEquals(record.length, slice.remaining());
+            Assert.assertArrayEquals(record, toArray(slice));
+        }
+        Assert.assertFalse(reader.hasNext());
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void readDirectBufferTest() throws IOException {
+        List<byte[]> records = records(3);
+        byte[] recordData = encodeRecordData(header(), records);
+        ByteBuffer body = ByteBuffer.allocateDirect(recordData.length);
+        body.put(recordData).flip();
+
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(body);
+        Assert.assertEquals(APPLICATION_TOKEN, reader.getApplicationToken());
+        assertRecords(records, readAll(reader));
+        Assert.assertEquals(recordData.length, body.remaining());
+    }
+
+    @Test
+    public void readMultiBlockArrayTest() throws IOException {
+        List<byte[]> records = records(6);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinaryEncoder encoder = encodeHeaderFields(baos, header());
+        // a block with a count, a block with a negative count and a byte size, and a last block
+        encoder.writeArrayStart();
+        encoder.setItemCount(2);
+        encoder.startItem();
+        encoder.writeBytes(records.get(0));
+        encoder.startItem();
+        encoder.writeBytes(records.get(1));
+        encoder.writeLong(-3);
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        BinaryEncoder blockEncoder = EncoderFactory.get().binaryEncoder(block, null);
+        for (int i = 2; i < 5; i++) {
+            blockEncoder.writeBytes(records.get(i));
+        }
+        blockEncoder.flush();
+        encoder.writeLong(block.size());
+        encoder.writeFixed(block.toByteArray());
+        encoder.setItemCount(1);
+        encoder.startItem();
+        encoder.writeBytes(records.get(5));
+        encoder.writeArrayEnd();
+        encodeTrailingFields(encoder);
+        encoder.flush();
+        byte[] body = baos.toByteArray();
+
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(body, 0, body.length);
+        assertRecords(records, readAll(reader));
+    }
+
+    @Test
+    public void readEmptyArrayTest() throws IOException {
+        byte[] body = encodeRecordData(header(), new ArrayList<byte[]>());
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(body, 0, body.length);
+        Assert.assertFalse(reader.hasNext());
+        Assert.assertFalse(reader.hasNext());
+        try {
+            reader.next();
+            Assert.fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void resetTest() throws IOException {
+        List<byte[]> firstRecords = records(2);
+        byte[] first = encodeRecordData(header(), firstRecords);
+        RecordHeader secondHeader = header();
+        secondHeader.setEndpointKeyHash("otherEndpointKeyHash");
+        List<byte[]> secondRecords = records(4);
+        byte[] second = encodeRecordData(secondHeader, secondRecords);
+
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(first, 0, first.length);
+        // the first body is left half read
+        reader.next();
+        reader.reset(second, 0, second.length);
+        Assert.assertEquals(secondHeader, reader.getRecordHeader());
+        assertRecords(secondRecords, readAll(reader));
+    }
+
+    @Test(expected = AvroRuntimeException.class)
+    public void negativeRecordLengthTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinaryEncoder encoder = encodeHeaderFields(baos, header());
+        encoder.writeLong(1);
+        encoder.writeLong(-5);
+        encoder.writeFixed(new byte[10]);
+        encoder.flush();
+        byte[] body = baos.toByteArray();
+
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(body, 0, body.length);
+        Assert.assertTrue(reader.hasNext());
+        reader.next();
+    }
+
+    @Test(expected = AvroRuntimeException.class)
+    public void truncatedRecordTest() throws IOException {
+        byte[] recordData = encodeRecordData(header(), Arrays.asList(new byte[100]));
+        // cut the body in the middle of the record
+        int length = recordData.length - 60;
+
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(recordData, 0, length);
+        Assert.assertTrue(reader.hasNext());
+        reader.next();
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedHeaderTest() throws IOException {
+        byte[] recordData = encodeRecordData(header(), records(1));
+        RecordDataReader reader = new RecordDataReader();
+        reader.reset(recordData, 0, 5);
+    }
+
+    private static RecordHeader header() {
+        RecordHeader header = new RecordHeader();
+        header.setEndpointKeyHash("endpointKeyHash");
+        header.setApplicationToken(APPLICATION_TOKEN);
+        header.setHeaderVersion(1);
+        header.setTimestamp(1234567890L);
+        header.setLogSchemaVersion(SCHEMA_VERSION);
+        return header;
+    }
+
+    private static List<byte[]> records(int count) {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] record = new byte[i * 7 + 1];
+            Arrays.fill(record, (byte) i);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static byte[] encodeRecordData(RecordHeader header, List<byte[]> records) throws IOException {
+        List<ByteBuffer> eventRecords = new ArrayList<>();
+        for (byte[] record : records) {
+            eventRecords.add(ByteBuffer.wrap(record));
+        }
+        RecordData recordData = new RecordData();
+        recordData.setRecordHeader(header);
+        recordData.setSchemaVersion(SCHEMA_VERSION);
+        recordData.setApplicationToken(APPLICATION_TOKEN);
+        recordData.setEventRecords(eventRecords);
+        recordData.setClientProfileBody("{}");
+        recordData.setServerProfileBody("{}");
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(baos, null);
+        new SpecificDatumWriter<>(RecordData.class).write(recordData, encoder);
+        encoder.flush();
+        return baos.toByteArray();
+    }
+
+    private static BinaryEncoder encodeHeaderFields(ByteArrayOutputStream baos, RecordHeader header) throws IOException {
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(baos, null);
+        new SpecificDatumWriter<RecordHeader>(RecordData.SCHEMA$.getField("recordHeader").schema()).write(header, encoder);
+        encoder.writeInt(SCHEMA_VERSION);
+        encoder.writeString(APPLICATION_TOKEN);
+        return encoder;
+    }
+
+    private static void encodeTrailingFields(BinaryEncoder encoder) throws IOException {
+        // the profile fields are null
+        for (int i = 0; i < 4; i++) {
+            encoder.writeIndex(1);
+        }
+    }
+
+    private static List<byte[]> readAll(RecordDataReader reader) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        while (reader.hasNext()) {
+            records.add(toArray(reader.next()));
+        }
+        return records;
+    }
+
+    private static void assertRecords(List<byte[]> expected, List<byte[]> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+}
@@ -21,13 +21,17 @@ import java.util.Collections;
 import java.util.List;
 
 import org.kaaproject.kaa.server.common.nosql.cassandra.dao.client.CassandraClient;
+import org.kaaproject.kaa.server.common.nosql.cassandra.dao.client.CassandraQueryMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import com.codahale.metrics.Timer;
 import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
@@ -147,6 +151,69 @@ public abstract class AbstractCassandraDao<T, K> {
         return execute(statement, statement.getConsistencyLevel());
     }
 
+    /**
+     * Gets the prepared statement of the query type, the query is prepared
+     * once on the first request of the type.
+     *
+     * @param queryType the query type, unique across all DAOs
+     * @param query the query with bind markers
+     * @return the prepared statement
+     */
+    protected PreparedStatement prepare(String queryType, RegularStatement query) {
+        return cassandraClient.getStatementRegistry().prepare(queryType, query);
+    }
+
+    /**
+     * Executes a prepared query and records its latency under the query type.
+     *
+     * @param queryType the query type, unique across all DAOs
+     * @param query the query with bind markers, used only to prepare the query type
+     * @param consistencyLevel the consistency level
+     * @param values the values of the bind markers
+     * @return the result set
+     */
+    protected ResultSet execute(String queryType, RegularStatement query, ConsistencyLevel consistencyLevel, Object... values) {
+        Statement statement = prepare(queryType, query).bind(values);
+        LOG.debug("Execute cassandra statement {}", queryType);
+        statement.setConsistencyLevel(consistencyLevel == null ? ConsistencyLevel.ONE : consistencyLevel);
+        CassandraQueryMetrics metrics = cassandraClient.getQueryMetrics();
+        Timer.Context timer = metrics.time(queryType);
+        try {
+            return getSession().execute(statement);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(queryType);
+            throw e;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Finds one entity by a prepared query.
+     *
+     * @param queryType the query type, unique across all DAOs
+     * @param query the query with bind markers, used only to prepare the query type
+     * @param values the values of the bind markers
+     * @return the entity, null if nothing was found
+     */
+    protected T findOneByQuery(String queryType, RegularStatement query, Object... values) {
+        Result<T> result = getMapper().map(execute(queryType, query, getReadConsistencyLevel(), values));
+        return result != null ? result.one() : null;
+    }
+
+    /**
+     * Finds entities by a prepared query.
+     *
+     * @param queryType the query type, unique across all DAOs
+     * @param query the query with bind markers, used only to prepare the query type
+     * @param values the values of the bind markers
+     * @return the entities
+     */
+    protected List<T> findListByQuery(String queryType, RegularStatement query, Object... values) {
+        Result<T> result = getMapper().map(execute(queryType, query, getReadConsistencyLevel(), values));
+        return result != null ? result.all() : Collections.<T>emptyList();
+    }
+
     public List<T> find() {
         LOG.debug("Get all entities from column family {}", getColumnFamilyName());
         return findListByStatement(QueryBuilder.select().all().from(getColumnFamilyName()).setConsistencyLevel(getReadConsistencyLevel()));
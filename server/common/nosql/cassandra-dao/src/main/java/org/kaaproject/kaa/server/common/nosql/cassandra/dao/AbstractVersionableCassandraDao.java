@@ -65,15 +65,42 @@ public abstract class AbstractVersionableCassandraDao<T extends HasVersion, K> e
     
     private T updateLocked(T entity) {
         long version = (entity.getVersion() == null) ? 0l : entity.getVersion();
-        Assignments assigns = update(getColumnFamilyName()).onlyIf(eq(OPT_LOCK, version)).with(set(OPT_LOCK, version + 1));
         CassandraEntityMapper<T> entityMapper = CassandraEntityMapper.getEntityMapperForClass(getColumnFamilyClass(), cassandraClient);
+        Clause[] whereClauses = buildKeyClauses(entityMapper, entity);
+        executeLockedUpdate(entityMapper, whereClauses, entity, version);
+        Select.Where where = select().from(getColumnFamilyName()).where(whereClauses[0]);
+        if (whereClauses.length > 1) {
+            for (int i = 1; i < whereClauses.length; i++) {
+                where = where.and(whereClauses[i]);
+            }
+        }
+        return findOneByStatement(where);
+    }
+
+    /**
+     * Updates the entity if its stored version is equal to the given version.
+     * Unlike {@link #save(HasVersion)} the updated entity is not read back,
+     * the entity gets the incremented version instead.
+     *
+     * @param entity the entity
+     * @param version the expected stored version
+     * @return the updated entity
+     */
+    protected T updateLockedWithoutReload(T entity, long version) {
+        CassandraEntityMapper<T> entityMapper = CassandraEntityMapper.getEntityMapperForClass(getColumnFamilyClass(), cassandraClient);
+        executeLockedUpdate(entityMapper, buildKeyClauses(entityMapper, entity), entity, version);
+        entity.setVersion(version + 1);
+        return entity;
+    }
+
+    private void executeLockedUpdate(CassandraEntityMapper<T> entityMapper, Clause[] whereClauses, T entity, long version) {
+        Assignments assigns = update(getColumnFamilyName()).onlyIf(eq(OPT_LOCK, version)).with(set(OPT_LOCK, version + 1));
         for (String name : entityMapper.getNonKeyColumnNames()) {
             if (!name.equals(OPT_LOCK)) {
                 Assignment assignment = set(name, entityMapper.getColumnValueForName(name, entity, cassandraClient));
                 assigns = assigns.and(assignment);
             }
         }
-        Clause[] whereClauses = buildKeyClauses(entityMapper, entity);
         Update.Where query = assigns.where(whereClauses[0]);
         if (whereClauses.length > 1) {
             for (int i = 1; i < whereClauses.length; i++) {
@@ -85,17 +112,9 @@ public abstract class AbstractVersionableCassandraDao<T extends HasVersion, K> e
         if (!res.wasApplied()) {
             LOG.error("[{}] Can't update entity with version {}. Entity already changed!", getColumnFamilyClass(), version);
             throw new KaaOptimisticLockingFailureException("Can't update entity with version " + version + ". Entity already changed!");
-        } else {
-            Select.Where where = select().from(getColumnFamilyName()).where(whereClauses[0]);
-            if (whereClauses.length > 1) {
-                for (int i = 1; i < whereClauses.length; i++) {
-                    where = where.and(whereClauses[i]);
-                }
-            }
-            return findOneByStatement(where);
         }
     }
-    
+
     private T insertLocked(T entity) {
         Insert insert = insertInto(getColumnFamilyName()).ifNotExists();
         CassandraEntityMapper<T> entityMapper = CassandraEntityMapper.getEntityMapperForClass(getColumnFamilyClass(), cassandraClient);
@@ -16,6 +16,7 @@
 
 package org.kaaproject.kaa.server.common.nosql.cassandra.dao;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.delete;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
@@ -45,6 +46,8 @@ public class EndpointNotificationCassandraDao extends AbstractCassandraDao<Cassa
 
     private static final Logger LOG = LoggerFactory.getLogger(EndpointNotificationCassandraDao.class);
 
+    private static final String FIND_BY_KEY_HASH_QUERY = ET_NF_COLUMN_FAMILY_NAME + ".findByKeyHash";
+
     @Autowired
     private CassandraEPByAppIdDao cassandraEPByAppIdDao;
 
@@ -63,9 +66,9 @@ public class EndpointNotificationCassandraDao extends AbstractCassandraDao<Cassa
         LOG.debug("Try to find endpoint notifications by endpoint key hash {}", keyHash);
         List<CassandraEndpointNotification> cassandraEndpointNotifications = Collections.emptyList();
         if (keyHash != null) {
-            Select.Where where = select().from(getColumnFamilyName()).where(eq(ET_NF_ENDPOINT_KEY_HASH_PROPERTY, getByteBuffer(keyHash)));
-            LOG.debug("Execute query {}:", where);
-            cassandraEndpointNotifications = findListByStatement(where);
+            cassandraEndpointNotifications = findListByQuery(FIND_BY_KEY_HASH_QUERY,
+                    select().from(getColumnFamilyName()).where(eq(ET_NF_ENDPOINT_KEY_HASH_PROPERTY, bindMarker())),
+                    getByteBuffer(keyHash));
         }
         return cassandraEndpointNotifications;
     }
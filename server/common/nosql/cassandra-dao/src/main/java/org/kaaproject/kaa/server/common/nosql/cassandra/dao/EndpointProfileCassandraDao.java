@@ -16,6 +16,7 @@
 
 package org.kaaproject.kaa.server.common.nosql.cassandra.dao;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.delete;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.in;
@@ -27,6 +28,8 @@ import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.CassandraDaoU
 import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.CassandraDaoUtil.getByteBuffer;
 import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.CassandraDaoUtil.getBytes;
 import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModelConstants.EP_APP_ID_PROPERTY;
+import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModelConstants.EP_BY_ACCESS_TOKEN_ACCESS_TOKEN_PROPERTY;
+import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModelConstants.EP_BY_ACCESS_TOKEN_COLUMN_FAMILY_NAME;
 import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModelConstants.EP_BY_APP_ID_APPLICATION_ID_PROPERTY;
 import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModelConstants.EP_BY_APP_ID_COLUMN_FAMILY_NAME;
 import static org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModelConstants.EP_BY_APP_ID_ENDPOINT_KEY_HASH_PROPERTY;
@@ -54,6 +57,7 @@ import java.util.Set;
 import org.apache.commons.codec.binary.Base64;
 import org.kaaproject.kaa.common.dto.EndpointProfileBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesPageDto;
 import org.kaaproject.kaa.common.dto.PageLinkDto;
@@ -82,13 +86,14 @@ import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
-import com.google.common.base.Predicates;
 import com.google.common.collect.Sets;
 
 @Repository(value = "endpointProfileDao")
 public class EndpointProfileCassandraDao extends AbstractVersionableCassandraDao<CassandraEndpointProfile, ByteBuffer> implements EndpointProfileDao<CassandraEndpointProfile> {
 
     private static final Logger LOG = LoggerFactory.getLogger(EndpointProfileCassandraDao.class);
+
+    private static final String FIND_BY_KEY_HASH_QUERY = EP_COLUMN_FAMILY_NAME + ".findByKeyHash";
     
     @Autowired
     private CassandraEPByAppIdDao cassandraEPByAppIdDao;
@@ -117,6 +122,22 @@ public class EndpointProfileCassandraDao extends AbstractVersionableCassandraDao
         return save(endpointProfile);
     }
     
+    @Override
+    public CassandraEndpointProfile save(EndpointProfileDto dto, EndpointProfileSnapshotDto storedProfile) {
+        CassandraEndpointProfile endpointProfile = new CassandraEndpointProfile(dto);
+        if (endpointProfile.getVersion() == null || storedProfile == null || storedProfile.getVersion() == null) {
+            return save(endpointProfile);
+        }
+        if (!storedProfile.getVersion().equals(endpointProfile.getVersion())) {
+            LOG.error("[{}] Can't update endpoint profile with version {}. Stored profile snapshot has version {}",
+                    endpointProfile.getId(), endpointProfile.getVersion(), storedProfile.getVersion());
+            throw new KaaOptimisticLockingFailureException("Can't update endpoint profile with version " + endpointProfile.getVersion()
+                    + ". Stored profile snapshot has version " + storedProfile.getVersion() + "!");
+        }
+        return updateProfile(endpointProfile, storedProfile.getVersion(), storedProfile.getEndpointGroupIds(),
+                storedProfile.getAccessToken());
+    }
+
     @Override
     public CassandraEndpointProfile save(CassandraEndpointProfile endpointProfile) {
         if (endpointProfile.getVersion() == null) {
@@ -151,55 +172,59 @@ public class EndpointProfileCassandraDao extends AbstractVersionableCassandraDao
 
     private CassandraEndpointProfile updateProfile(CassandraEndpointProfile profile) {
         LOG.debug("Updating endpoint profile with id {}", profile.getId());
+        CassandraEndpointProfile storedProfile = findByKeyHash(getBytes(profile.getEndpointKeyHash()));
+        if (storedProfile == null) {
+            LOG.error("[{}] Stored profile is null. Can't update endpoint profile.", profile.getId());
+            throw new DatabaseProcessingException("Stored profile is null. Can't update endpoint profile.");
+        }
+        return updateProfile(profile, profile.getVersion(), getEndpointProfilesGroupIdSet(storedProfile), storedProfile.getAccessToken());
+    }
+
+    /**
+     * Updates the profile row with a conditional update on the version of the
+     * stored profile the old group ids and access token were taken from, and
+     * then applies the changes of the group and access token indexes in a
+     * single batch. The conditional update can't be a part of the batch, since
+     * conditional batches can't span several tables.
+     */
+    private CassandraEndpointProfile updateProfile(CassandraEndpointProfile profile, long oldVersion, Set<String> oldEndpointGroupIds,
+            String oldAccessToken) {
+        LOG.debug("Updating endpoint profile with id {}", profile.getId());
         ByteBuffer epKeyHash = profile.getEndpointKeyHash();
-        byte[] keyHash = getBytes(epKeyHash);
-        CassandraEndpointProfile storedProfile = findByKeyHash(keyHash);
-        if (storedProfile != null) {
-            profile = super.save(profile);
-            List<Statement> statementList = new ArrayList<>();
-
-            Set<String> oldEndpointGroupIds = getEndpointProfilesGroupIdSet(storedProfile);
-            Set<String> newEndpointGroupIds = getEndpointProfilesGroupIdSet(profile);
-
-            Set<String> removeEndpointGroupIds = Sets.filter(oldEndpointGroupIds, Predicates.not(Predicates.in(newEndpointGroupIds)));
-            Set<String> addEndpointGroupIds = Sets.filter(newEndpointGroupIds, Predicates.not(Predicates.in(oldEndpointGroupIds)));
-            if (addEndpointGroupIds != null) {
-                for (String id : addEndpointGroupIds) {
-                    statementList.add(cassandraEPByEndpointGroupIdDao.getSaveQuery(new CassandraEPByEndpointGroupId(id, epKeyHash)));
-                }
-                if (removeEndpointGroupIds != null) {
-                    for (String id : removeEndpointGroupIds) {
-                        statementList.add(delete().from(EP_BY_ENDPOINT_GROUP_ID_COLUMN_FAMILY_NAME)
-                                .where(eq(EP_BY_ENDPOINT_GROUP_ID_ENDPOINT_GROUP_ID_PROPERTY, id))
-                                .and(eq(EP_BY_ENDPOINT_GROUP_ID_ENDPOINT_KEY_HASH_PROPERTY, epKeyHash)));
-                    }
-                }
-                executeBatch(statementList.toArray(new Statement[statementList.size()]));
-            } else {
-                LOG.error("[{}] Can't update endpoint profile with version {}. Endpoint profile already changed!", profile.getId(), profile.getVersion());
-                throw new KaaOptimisticLockingFailureException("Can't update endpoint profile with version . Endpoint profile already changed!");
-            }
+        profile = updateLockedWithoutReload(profile, oldVersion);
 
-            String accessToken = profile.getAccessToken();
-            if (storedProfile.getAccessToken() != null && !storedProfile.getAccessToken().equals(accessToken)) {
-                cassandraEPByAccessTokenDao.removeById(storedProfile.getAccessToken());
-            }
-            if (accessToken != null) {
-                statementList.add(cassandraEPByAccessTokenDao.getSaveQuery(new CassandraEPByAccessToken(accessToken, epKeyHash)));
-            } 
+        List<Statement> statementList = new ArrayList<>();
+        Set<String> newEndpointGroupIds = getEndpointProfilesGroupIdSet(profile);
+        for (String id : Sets.difference(newEndpointGroupIds, oldEndpointGroupIds)) {
+            statementList.add(cassandraEPByEndpointGroupIdDao.getSaveQuery(new CassandraEPByEndpointGroupId(id, epKeyHash)));
+        }
+        for (String id : Sets.difference(oldEndpointGroupIds, newEndpointGroupIds)) {
+            statementList.add(delete().from(EP_BY_ENDPOINT_GROUP_ID_COLUMN_FAMILY_NAME)
+                    .where(eq(EP_BY_ENDPOINT_GROUP_ID_ENDPOINT_GROUP_ID_PROPERTY, id))
+                    .and(eq(EP_BY_ENDPOINT_GROUP_ID_ENDPOINT_KEY_HASH_PROPERTY, epKeyHash)));
+        }
+
+        String accessToken = profile.getAccessToken();
+        if (oldAccessToken != null && !oldAccessToken.equals(accessToken)) {
+            statementList.add(delete().from(EP_BY_ACCESS_TOKEN_COLUMN_FAMILY_NAME)
+                    .where(eq(EP_BY_ACCESS_TOKEN_ACCESS_TOKEN_PROPERTY, oldAccessToken)));
+        }
+        if (accessToken != null && !accessToken.equals(oldAccessToken)) {
+            statementList.add(cassandraEPByAccessTokenDao.getSaveQuery(new CassandraEPByAccessToken(accessToken, epKeyHash)));
+        }
+        if (!statementList.isEmpty()) {
             executeBatch(statementList.toArray(new Statement[statementList.size()]));
-            LOG.debug("[{}] Endpoint profile updated", profile.getId());
-        } else {
-            LOG.error("[{}] Stored profile is null. Can't update endpoint profile.", profile.getId());
-            throw new DatabaseProcessingException("Stored profile is null. Can't update endpoint profile.");
         }
+        LOG.debug("[{}] Endpoint profile updated", profile.getId());
         return profile;
     }
 
     @Override
     public CassandraEndpointProfile findByKeyHash(byte[] endpointKeyHash) {
         LOG.debug("Try to find endpoint profile by key hash [{}]", endpointKeyHash);
-        CassandraEndpointProfile endpointProfile = (CassandraEndpointProfile) getMapper().get(getByteBuffer(endpointKeyHash));
+        CassandraEndpointProfile endpointProfile = findOneByQuery(FIND_BY_KEY_HASH_QUERY,
+                select().from(getColumnFamilyName()).where(eq(EP_EP_KEY_HASH_PROPERTY, bindMarker())),
+                getByteBuffer(endpointKeyHash));
         LOG.debug("[{}] Found endpoint profile {}", endpointKeyHash, endpointProfile);
         return endpointProfile;
     }
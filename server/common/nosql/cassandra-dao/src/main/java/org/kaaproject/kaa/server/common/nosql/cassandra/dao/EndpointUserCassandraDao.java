@@ -16,6 +16,7 @@
 
 package org.kaaproject.kaa.server.common.nosql.cassandra.dao;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.delete;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
@@ -34,12 +35,13 @@ import org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraModel
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.datastax.driver.core.querybuilder.Select.Where;
 import com.datastax.driver.core.querybuilder.Update;
 
 public class EndpointUserCassandraDao extends AbstractVersionableCassandraDao<CassandraEndpointUser, String> implements EndpointUserDao<CassandraEndpointUser> {
 
     private static final Logger LOG = LoggerFactory.getLogger(EndpointUserCassandraDao.class);
+
+    private static final String FIND_BY_EXTERNAL_ID_AND_TENANT_ID_QUERY = CassandraModelConstants.EP_USER_COLUMN_FAMILY_NAME + ".findByExternalIdAndTenantId";
     
     @Override
     protected Class<CassandraEndpointUser> getColumnFamilyClass() {
@@ -69,9 +71,9 @@ public class EndpointUserCassandraDao extends AbstractVersionableCassandraDao<Ca
     @Override
     public CassandraEndpointUser findByExternalIdAndTenantId(String externalId, String tenantId) {
         LOG.debug("Try to find endpoint user by external id {} and tenant id {}", externalId, tenantId);
-        Where where = select().from(getColumnFamilyName()).where(eq(EP_USER_EXTERNAL_ID_PROPERTY, externalId)).and(eq(EP_USER_TENANT_ID_PROPERTY, tenantId));
-        LOG.trace("Try to find endpoint user by cql select {}", where);
-        CassandraEndpointUser endpointUser = findOneByStatement(where);
+        CassandraEndpointUser endpointUser = findOneByQuery(FIND_BY_EXTERNAL_ID_AND_TENANT_ID_QUERY, select().from(getColumnFamilyName())
+                .where(eq(EP_USER_EXTERNAL_ID_PROPERTY, bindMarker())).and(eq(EP_USER_TENANT_ID_PROPERTY, bindMarker())),
+                externalId, tenantId);
         LOG.trace("Found {} endpoint user", endpointUser);
         return endpointUser;
     }
@@ -30,7 +30,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.codahale.metrics.MetricRegistry;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Metrics;
 import com.datastax.driver.core.ProtocolOptions.Compression;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.mapping.Mapper;
@@ -70,7 +72,8 @@ public class CassandraClient implements Closeable {
     private Cluster cluster;
     private Session session;
     private MappingManager mappingManager;
-
+    private PreparedStatementRegistry statementRegistry;
+    private CassandraQueryMetrics queryMetrics;
 
     public Session getSession() {
         if (session == null) {
@@ -87,6 +90,32 @@ public class CassandraClient implements Closeable {
         return getMappingManager().mapper(clazz);
     }
 
+    /**
+     * Gets the registry of statements prepared on the main session.
+     *
+     * @return the prepared statement registry
+     */
+    public synchronized PreparedStatementRegistry getStatementRegistry() {
+        if (statementRegistry == null) {
+            statementRegistry = new PreparedStatementRegistry(getSession());
+        }
+        return statementRegistry;
+    }
+
+    /**
+     * Gets the query metrics. The metrics are kept in the cluster metric
+     * registry, or in a detached registry if the cluster metrics are disabled.
+     *
+     * @return the query metrics
+     */
+    public synchronized CassandraQueryMetrics getQueryMetrics() {
+        if (queryMetrics == null) {
+            Metrics metrics = cluster.getMetrics();
+            queryMetrics = new CassandraQueryMetrics(metrics != null ? metrics.getRegistry() : new MetricRegistry());
+        }
+        return queryMetrics;
+    }
+
     private MappingManager getMappingManager() {
         if (mappingManager == null) {
             mappingManager = new MappingManager(getSession());
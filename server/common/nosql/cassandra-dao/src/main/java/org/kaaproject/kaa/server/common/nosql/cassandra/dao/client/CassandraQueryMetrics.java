@@ -0,0 +1,78 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.nosql.cassandra.dao.client;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Latency timers and failure meters of Cassandra queries, keyed by query
+ * type, e.g. <code>ep_nfs.findByKeyHash</code>. The metrics are kept in the
+ * metric registry of the cluster, so they are reported over JMX together
+ * with the driver metrics when JMX reporting is enabled.
+ */
+public class CassandraQueryMetrics {
+
+    private static final String PREFIX = "kaa-queries";
+    private static final String FAILURES = "failures";
+
+    private final MetricRegistry registry;
+
+    public CassandraQueryMetrics(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts timing a query of the query type.
+     *
+     * @param queryType the query type
+     * @return the timer context, to be stopped once the query completes
+     */
+    public Timer.Context time(String queryType) {
+        return getTimer(queryType).time();
+    }
+
+    /**
+     * Records a failed query.
+     *
+     * @param queryType the query type
+     */
+    public void recordFailure(String queryType) {
+        getFailures(queryType).mark();
+    }
+
+    /**
+     * Gets the latency timer of the query type.
+     *
+     * @param queryType the query type
+     * @return the latency timer
+     */
+    public Timer getTimer(String queryType) {
+        return registry.timer(MetricRegistry.name(PREFIX, queryType));
+    }
+
+    /**
+     * Gets the failure meter of the query type.
+     *
+     * @param queryType the query type
+     * @return the failure meter
+     */
+    public Meter getFailures(String queryType) {
+        return registry.meter(MetricRegistry.name(PREFIX, queryType, FAILURES));
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.nosql.cassandra.dao.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+
+/**
+ * Prepares each query type once per session and keeps the prepared
+ * statements. Queries are registered under a type name, so a statement built
+ * with bind markers is only rendered and sent to the cluster for the first
+ * execution of its type. A failed preparation is not cached and is retried
+ * on the next request.
+ */
+public class PreparedStatementRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PreparedStatementRegistry.class);
+
+    private final Session session;
+
+    private final ConcurrentMap<String, PreparedStatement> statements = new ConcurrentHashMap<>();
+
+    public PreparedStatementRegistry(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Gets the prepared statement of the query type, preparing the query if
+     * this is the first request of the type. Concurrent first requests may
+     * prepare the query more than once, only one statement is kept.
+     *
+     * @param queryType the query type
+     * @param query the query with bind markers, used only on the first request
+     * @return the prepared statement
+     */
+    public PreparedStatement prepare(String queryType, RegularStatement query) {
+        PreparedStatement statement = statements.get(queryType);
+        if (statement == null) {
+            LOG.debug("Prepare query {}: {}", queryType, query);
+            PreparedStatement prepared = session.prepare(query);
+            statement = statements.putIfAbsent(queryType, prepared);
+            if (statement == null) {
+                statement = prepared;
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Gets the number of registered query types.
+     *
+     * @return the registered query types count
+     */
+    public int size() {
+        return statements.size();
+    }
+}
@@ -21,9 +21,12 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.kaaproject.kaa.common.dto.EndpointNotificationDto;
+import org.kaaproject.kaa.server.common.nosql.cassandra.dao.client.CassandraClient;
+import org.kaaproject.kaa.server.common.nosql.cassandra.dao.client.CassandraQueryMetrics;
 import org.kaaproject.kaa.server.common.nosql.cassandra.dao.model.CassandraEndpointNotification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -39,6 +42,9 @@ public class EndpointNotificationCassandraDaoTest extends AbstractCassandraTest
 
     private static final Logger LOG = LoggerFactory.getLogger(EndpointNotificationCassandraDaoTest.class);
 
+    @Autowired
+    private CassandraClient cassandraClient;
+
     @Test
     public void testFindNotificationsByKeyHash() throws Exception {
         List<CassandraEndpointNotification> notifications = generateEndpointNotification(null, 1);
@@ -48,6 +54,21 @@ public class EndpointNotificationCassandraDaoTest extends AbstractCassandraTest
         Assert.assertEquals(notifications.size(), found.size());
     }
 
+    @Test
+    public void testFindNotificationsByKeyHashIsPrepared() throws Exception {
+        List<CassandraEndpointNotification> notifications = generateEndpointNotification(null, 3);
+        CassandraEndpointNotification notification = notifications.get(0);
+        CassandraQueryMetrics metrics = cassandraClient.getQueryMetrics();
+        long calls = metrics.getTimer("ep_nfs.findByKeyHash").getCount();
+        List<CassandraEndpointNotification> found = unicastNotificationDao.findNotificationsByKeyHash(notification.getEndpointKeyHash().array());
+        Assert.assertEquals(notifications.size(), found.size());
+        Assert.assertTrue(unicastNotificationDao.findNotificationsByKeyHash(null).isEmpty());
+
+        Assert.assertEquals(calls + 1, metrics.getTimer("ep_nfs.findByKeyHash").getCount());
+        Assert.assertEquals(0, metrics.getFailures("ep_nfs.findByKeyHash").getCount());
+        Assert.assertTrue(cassandraClient.getStatementRegistry().size() > 0);
+    }
+
     @Test
     public void testRemoveNotificationsByKeyHash() throws Exception {
         ByteBuffer epKeyHash = ByteBuffer.wrap(generateBytes());
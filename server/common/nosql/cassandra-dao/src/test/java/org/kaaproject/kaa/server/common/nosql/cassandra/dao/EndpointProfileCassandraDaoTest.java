@@ -19,6 +19,7 @@ package org.kaaproject.kaa.server.common.nosql.cassandra.dao;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -32,6 +33,7 @@ import org.kaaproject.kaa.common.dto.EndpointGroupDto;
 import org.kaaproject.kaa.common.dto.EndpointGroupStateDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesPageDto;
 import org.kaaproject.kaa.common.dto.EndpointUserDto;
@@ -163,6 +165,62 @@ public class EndpointProfileCassandraDaoTest extends AbstractCassandraTest {
         }
     }
 
+    @Test
+    public void testUpdateWithStoredProfileSnapshot() throws Exception {
+        List<EndpointGroupStateDto> cfGroupStateSave = new ArrayList<>();
+        cfGroupStateSave.add(new EndpointGroupStateDto("555", null, null));
+        cfGroupStateSave.add(new EndpointGroupStateDto("666", null, null));
+        byte[] keyHash = generateBytes();
+        EndpointProfileDto stored = endpointProfileDao.save(generateEndpointProfileForTestUpdate(null, keyHash, cfGroupStateSave)).toDto();
+        EndpointProfileSnapshotDto snapshot = new EndpointProfileSnapshotDto(stored);
+
+        List<EndpointGroupStateDto> cfGroupStateUpdate = new ArrayList<>();
+        cfGroupStateUpdate.add(new EndpointGroupStateDto("555", null, null));
+        cfGroupStateUpdate.add(new EndpointGroupStateDto("777", null, null));
+        EndpointProfileDto update = generateEndpointProfileForTestUpdate(stored.getId(), keyHash, cfGroupStateUpdate);
+        update.setVersion(stored.getVersion());
+        EndpointProfile saved = endpointProfileDao.save(update, snapshot);
+        Assert.assertEquals(Long.valueOf(stored.getVersion() + 1), saved.getVersion());
+        Assert.assertEquals(saved.getVersion(), endpointProfileDao.findByKeyHash(keyHash).getVersion());
+
+        String limit = "10";
+        String offset = "0";
+        Assert.assertFalse(endpointProfileDao.findByEndpointGroupId(new PageLinkDto("555", limit, offset)).getEndpointProfiles().isEmpty());
+        Assert.assertFalse(endpointProfileDao.findByEndpointGroupId(new PageLinkDto("777", limit, offset)).getEndpointProfiles().isEmpty());
+        Assert.assertTrue(endpointProfileDao.findByEndpointGroupId(new PageLinkDto("666", limit, offset)).getEndpointProfiles().isEmpty());
+        Assert.assertNull(endpointProfileDao.findByAccessToken(stored.getAccessToken()));
+        Assert.assertNotNull(endpointProfileDao.findByAccessToken(update.getAccessToken()));
+    }
+
+    @Test(expected = KaaOptimisticLockingFailureException.class)
+    public void testUpdateWithStaleStoredProfileSnapshot() throws Exception {
+        byte[] keyHash = generateBytes();
+        EndpointProfileDto stored = endpointProfileDao.save(
+                generateEndpointProfileForTestUpdate(null, keyHash, new ArrayList<EndpointGroupStateDto>())).toDto();
+        EndpointProfileSnapshotDto snapshot = new EndpointProfileSnapshotDto(stored);
+
+        EndpointProfileDto first = generateEndpointProfileForTestUpdate(stored.getId(), keyHash, new ArrayList<EndpointGroupStateDto>());
+        first.setVersion(stored.getVersion());
+        endpointProfileDao.save(first, snapshot);
+
+        EndpointProfileDto second = generateEndpointProfileForTestUpdate(stored.getId(), keyHash, new ArrayList<EndpointGroupStateDto>());
+        second.setVersion(stored.getVersion());
+        endpointProfileDao.save(second, snapshot);
+    }
+
+    @Test(expected = KaaOptimisticLockingFailureException.class)
+    public void testUpdateWithMismatchingStoredProfileSnapshot() throws Exception {
+        byte[] keyHash = generateBytes();
+        EndpointProfileDto stored = endpointProfileDao.save(
+                generateEndpointProfileForTestUpdate(null, keyHash, new ArrayList<EndpointGroupStateDto>())).toDto();
+        EndpointProfileSnapshotDto snapshot = new EndpointProfileSnapshotDto(stored.getVersion() + 1, stored.getAccessToken(),
+                Collections.<String> emptySet());
+
+        EndpointProfileDto update = generateEndpointProfileForTestUpdate(stored.getId(), keyHash, new ArrayList<EndpointGroupStateDto>());
+        update.setVersion(stored.getVersion());
+        endpointProfileDao.save(update, snapshot);
+    }
+
     @Test
     public void testSave() throws Exception {
         EndpointProfileDto endpointProfile = generateEndpointProfile(null, null, null, null);
@@ -177,6 +235,12 @@ public class EndpointProfileCassandraDaoTest extends AbstractCassandraTest {
         Assert.assertEquals(expected, found.toDto());
     }
 
+    @Test
+    public void testFindByKeyHashNotFound() throws Exception {
+        generateEndpointProfile(null, null, null, null);
+        Assert.assertNull(endpointProfileDao.findByKeyHash(generateBytes()));
+    }
+
     @Test
     public void testFindEndpointIdByKeyHash() throws Exception {
         EndpointProfileDto endpointProfile = generateEndpointProfile(null, null, null, null);
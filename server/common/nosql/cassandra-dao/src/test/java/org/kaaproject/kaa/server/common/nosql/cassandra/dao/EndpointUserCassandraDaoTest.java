@@ -44,6 +44,12 @@ public class EndpointUserCassandraDaoTest extends AbstractCassandraTest {
         Assert.assertEquals(expected, found.toDto());
     }
 
+    @Test
+    public void testFindByExternalIdAndTenantIdNotFound() throws Exception {
+        EndpointUserDto expected = generateEndpointUser();
+        Assert.assertNull(endpointUserDao.findByExternalIdAndTenantId(expected.getExternalId(), generateStringId()));
+    }
+
     @Test
     public void testRemoveByExternalIdAndTenantId() throws Exception {
         EndpointUserDto expected = generateEndpointUser();
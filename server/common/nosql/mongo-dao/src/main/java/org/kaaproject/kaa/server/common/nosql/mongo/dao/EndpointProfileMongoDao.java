@@ -39,6 +39,7 @@ import java.util.List;
 
 import org.kaaproject.kaa.common.dto.EndpointProfileBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesBodyDto;
 import org.kaaproject.kaa.common.dto.EndpointProfilesPageDto;
 import org.kaaproject.kaa.common.dto.PageLinkDto;
@@ -207,6 +208,12 @@ public class EndpointProfileMongoDao extends AbstractVersionableMongoDao<MongoEn
         return save(new MongoEndpointProfile(dto));
     }
 
+    @Override
+    public MongoEndpointProfile save(EndpointProfileDto dto, EndpointProfileSnapshotDto storedProfile) {
+        // lookups are served by collection indexes, there is nothing to update separately
+        return save(dto);
+    }
+
     @Override
     public boolean checkSdkToken(String sdkToken) {
         LOG.debug("Checking for endpoint profiles with SDK token {}", sdkToken);
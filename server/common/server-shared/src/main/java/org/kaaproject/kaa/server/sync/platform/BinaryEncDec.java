@@ -16,6 +16,7 @@
 
 package org.kaaproject.kaa.server.sync.platform;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.text.MessageFormat;
@@ -92,6 +93,15 @@ public class BinaryEncDec implements PlatformEncDec {
     private static final Charset UTF8 = Charset.forName("UTF-8");
     private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.wrap(new byte[0]);
     private static final int DEFAULT_BUFFER_SIZE = 128;
+    /** Encode buffers that grew larger than this are not kept for reuse. */
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+    /** The encode buffer of each thread, reused between responses. */
+    private static final ThreadLocal<GrowingByteBuffer> BUFFERS = new ThreadLocal<GrowingByteBuffer>() {
+        @Override
+        protected GrowingByteBuffer initialValue() {
+            return new GrowingByteBuffer(DEFAULT_BUFFER_SIZE);
+        }
+    };
     private static final int SIZE_OF_INT = 4;
     private static final int EXTENSIONS_COUNT_POSITION = 6;
     private static final int MIN_SIZE_OF_MESSAGE_HEADER = 8;
@@ -219,7 +229,17 @@ public class BinaryEncDec implements PlatformEncDec {
     @Override
     public byte[] encode(ServerSync sync) throws PlatformEncDecException {
         LOG.trace("Encoding server sync {}", sync);
-        GrowingByteBuffer buf = new GrowingByteBuffer(DEFAULT_BUFFER_SIZE);
+        GrowingByteBuffer buf = BUFFERS.get().reset();
+        try {
+            return encode(buf, sync);
+        } finally {
+            if (buf.capacity() > MAX_POOLED_BUFFER_SIZE) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    private byte[] encode(GrowingByteBuffer buf, ServerSync sync) {
         buf.putInt(getId());
         buf.putShort(PROTOCOL_VERSION);
         buf.putShort(NOTHING); // will be updated later
@@ -436,8 +456,9 @@ public class BinaryEncDec implements PlatformEncDec {
                 buf.putLong(t.getIdAsLong());
                 buf.put(t.getSubscriptionType() == SubscriptionType.MANDATORY ? MANDATORY : OPTIONAL);
                 buf.put(NOTHING);
-                buf.putShort((short) t.getName().getBytes(UTF8).length);
-                putUTF(buf, t.getName());
+                byte[] name = t.getName().getBytes(UTF8);
+                buf.putShort((short) name.length);
+                put(buf, name);
             }
         }
         if (notificationSync.getNotifications() != null) {
@@ -859,7 +880,13 @@ public class BinaryEncDec implements PlatformEncDec {
     }
 
     private static String getUTF8String(ByteBuffer buf, int size) {
-        return new String(getNewByteArray(buf, size), UTF8);
+        if (size > buf.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String str = new String(buf.array(), buf.arrayOffset() + buf.position(), size, UTF8);
+        buf.position(buf.position() + size);
+        handlePadding(buf, size);
+        return str;
     }
 
     private static byte[] getNewByteArray(ByteBuffer buf, int size, boolean withPadding) {
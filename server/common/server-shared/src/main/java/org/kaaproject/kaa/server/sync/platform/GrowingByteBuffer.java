@@ -92,6 +92,21 @@ public class GrowingByteBuffer {
         return data.position();
     }
 
+    public int capacity() {
+        return data.capacity();
+    }
+
+    /**
+     * Resets the position to zero so that the buffer can be reused. The old
+     * content is not cleared and is overwritten by subsequent puts.
+     *
+     * @return this buffer
+     */
+    public GrowingByteBuffer reset() {
+        data.clear();
+        return this;
+    }
+
     private void checkPosition(int position) {
         if (data.capacity() < position) {
             throw new IllegalArgumentException(MessageFormat.format("Position {0} is greater then capacity {1}", position, data.capacity()));
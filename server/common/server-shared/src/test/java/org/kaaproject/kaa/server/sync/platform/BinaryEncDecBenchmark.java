@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.sync.platform;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kaaproject.kaa.common.Constants;
+import org.kaaproject.kaa.server.sync.ClientSync;
+import org.kaaproject.kaa.server.sync.ConfigurationServerSync;
+import org.kaaproject.kaa.server.sync.LogDeliveryStatus;
+import org.kaaproject.kaa.server.sync.LogServerSync;
+import org.kaaproject.kaa.server.sync.Notification;
+import org.kaaproject.kaa.server.sync.NotificationServerSync;
+import org.kaaproject.kaa.server.sync.NotificationType;
+import org.kaaproject.kaa.server.sync.ProfileServerSync;
+import org.kaaproject.kaa.server.sync.ServerSync;
+import org.kaaproject.kaa.server.sync.SubscriptionType;
+import org.kaaproject.kaa.server.sync.SyncResponseStatus;
+import org.kaaproject.kaa.server.sync.SyncStatus;
+import org.kaaproject.kaa.server.sync.Topic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link BinaryEncDec} on a server sync with profile, log,
+ * configuration and notification responses and on a client sync with meta
+ * data, 20 log records and a configuration hash. Run it with
+ * {@link #main(String[])} from the test classpath, with <code>-prof gc</code>
+ * to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BinaryEncDecBenchmark {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int SHA_1_LENGTH = 20;
+    private static final int LOG_RECORD_COUNT = 20;
+    private static final int LOG_RECORD_SIZE = 200;
+
+    private BinaryEncDec encDec;
+    private ServerSync serverSync;
+    private byte[] clientSyncData;
+
+    @Setup
+    public void setUp() {
+        encDec = new BinaryEncDec();
+
+        serverSync = new ServerSync();
+        serverSync.setRequestId(42);
+        serverSync.setProfileSync(new ProfileServerSync(SyncResponseStatus.NO_DELTA));
+        List<LogDeliveryStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            statuses.add(new LogDeliveryStatus(i, SyncStatus.SUCCESS, null));
+        }
+        serverSync.setLogSync(new LogServerSync(statuses));
+        serverSync.setConfigurationSync(new ConfigurationServerSync(1, SyncResponseStatus.DELTA, null, ByteBuffer.wrap(new byte[2048])));
+        List<Topic> topics = Arrays.asList(new Topic("1", "alerts", SubscriptionType.MANDATORY), new Topic("2", "news",
+                SubscriptionType.OPTIONAL), new Topic("3", "firmware", SubscriptionType.OPTIONAL));
+        List<Notification> notifications = Arrays.asList(
+                new Notification("1", NotificationType.CUSTOM, null, 1, ByteBuffer.wrap(new byte[256])),
+                new Notification("2", NotificationType.CUSTOM, null, 2, ByteBuffer.wrap(new byte[256])));
+        serverSync.setNotificationSync(new NotificationServerSync(SyncResponseStatus.DELTA, notifications, topics));
+
+        clientSyncData = buildClientSync();
+    }
+
+    @Benchmark
+    public byte[] encodeServerSync() throws PlatformEncDecException {
+        return encDec.encode(serverSync);
+    }
+
+    @Benchmark
+    public ClientSync decodeClientSync() throws PlatformEncDecException {
+        return encDec.decode(clientSyncData);
+    }
+
+    private static byte[] buildClientSync() {
+        ByteBuffer metaData = ByteBuffer.allocate(8 + SHA_1_LENGTH + SHA_1_LENGTH + 28);
+        metaData.putInt(1);
+        metaData.putInt(60);
+        metaData.put(new byte[SHA_1_LENGTH]);
+        metaData.put(new byte[SHA_1_LENGTH]);
+        metaData.put("12345678900987654321abcdEFGH".getBytes(UTF8));
+
+        ByteBuffer logs = ByteBuffer.allocate(4 + LOG_RECORD_COUNT * (4 + LOG_RECORD_SIZE));
+        logs.putShort((short) 1);
+        logs.putShort((short) LOG_RECORD_COUNT);
+        for (int i = 0; i < LOG_RECORD_COUNT; i++) {
+            logs.putInt(LOG_RECORD_SIZE);
+            logs.put(new byte[LOG_RECORD_SIZE]);
+        }
+
+        ByteBuffer configuration = ByteBuffer.allocate(4 + SHA_1_LENGTH);
+        configuration.putInt(1);
+        configuration.put(new byte[SHA_1_LENGTH]);
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + 3 * 8 + metaData.capacity() + logs.capacity() + configuration.capacity());
+        buf.putInt(Constants.KAA_PLATFORM_PROTOCOL_BINARY_ID);
+        buf.putShort((short) 1);
+        buf.putShort((short) 3);
+        putExtension(buf, BinaryEncDec.META_DATA_EXTENSION_ID, 0x0F, metaData.array());
+        putExtension(buf, BinaryEncDec.LOGGING_EXTENSION_ID, 0, logs.array());
+        putExtension(buf, BinaryEncDec.CONFIGURATION_EXTENSION_ID, 0x02, configuration.array());
+        return buf.array();
+    }
+
+    private static void putExtension(ByteBuffer buf, short type, int options, byte[] payload) {
+        buf.putShort(type);
+        buf.put((byte) 0);
+        buf.put((byte) options);
+        buf.putInt(payload.length);
+        buf.put(payload);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BinaryEncDecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
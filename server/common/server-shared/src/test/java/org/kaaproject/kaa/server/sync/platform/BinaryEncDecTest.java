@@ -179,6 +179,25 @@ public class BinaryEncDecTest {
         LOG.trace(Arrays.toString(buf.array()));
     }
 
+    @Test
+    public void testEncodeReusesBufferWithoutStaleData() throws PlatformEncDecException {
+        ServerSync basicSync = new ServerSync();
+        basicSync.setRequestId(MAGIC_NUMBER);
+        byte[] expected = encDec.encode(basicSync);
+
+        ServerSync largeSync = new ServerSync();
+        largeSync.setRequestId(MAGIC_NUMBER);
+        UserServerSync uSync = new UserServerSync();
+        char[] longId = new char[4096];
+        Arrays.fill(longId, 'x');
+        uSync.setUserAttachNotification(new UserAttachNotification(new String(longId), "token"));
+        largeSync.setUserSync(uSync);
+        Assert.assertTrue(encDec.encode(largeSync).length > longId.length);
+
+        Assert.assertArrayEquals(expected, encDec.encode(basicSync));
+        Assert.assertArrayEquals(expected, new BinaryEncDec().encode(basicSync));
+    }
+
     @Test
     public void testEncodeUserServerSync() throws PlatformEncDecException {
         ServerSync sync = new ServerSync();
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.thrift.util;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolDecorator;
+
+/**
+ * The Class MeteredProtocol.<br>
+ * Measures the time between sending a call and reading its reply. A call
+ * that was sent but whose reply was never read is reported as pending, which
+ * lets the pool discard connections broken by errors the caller swallowed.
+ */
+class MeteredProtocol extends TProtocolDecorator {
+
+    /** The metrics. */
+    private final ThriftMethodMetrics metrics;
+
+    /** The service name. */
+    private final String serviceName;
+
+    /** The method of the call in progress. */
+    private String pendingMethod;
+
+    /** The start time of the call in progress. */
+    private long startTime;
+
+    /**
+     * The Constructor.
+     *
+     * @param protocol the protocol to decorate
+     * @param serviceName the service name
+     * @param metrics the metrics
+     */
+    MeteredProtocol(TProtocol protocol, String serviceName, ThriftMethodMetrics metrics) {
+        super(protocol);
+        this.serviceName = serviceName;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void writeMessageBegin(TMessage message) throws TException {
+        pendingMethod = serviceName + "." + message.name;
+        startTime = System.nanoTime();
+        super.writeMessageBegin(message);
+    }
+
+    @Override
+    public void readMessageEnd() throws TException {
+        super.readMessageEnd();
+        if (pendingMethod != null) {
+            metrics.recordSuccess(pendingMethod, System.nanoTime() - startTime);
+            pendingMethod = null;
+        }
+    }
+
+    /**
+     * Checks if a call was sent without its reply being read.
+     *
+     * @return true if a call is pending
+     */
+    boolean isCallPending() {
+        return pendingMethod != null;
+    }
+
+    /**
+     * Records the pending call, if any, as failed.
+     */
+    void failPendingCall() {
+        if (pendingMethod != null) {
+            metrics.recordFailure(pendingMethod);
+            pendingMethod = null;
+        }
+    }
+}
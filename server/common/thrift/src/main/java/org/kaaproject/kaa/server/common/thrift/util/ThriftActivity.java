@@ -36,4 +36,16 @@ public interface ThriftActivity<T> {
      * @param activitySuccess the activity success
      */
     public void isSuccess(boolean activitySuccess);
+
+    /**
+     * Checks if the activity may run again after a call that the remote node
+     * may have already processed, e.g. when the connection is closed while
+     * waiting for the reply. Activities that are not idempotent are retried
+     * only if the request could not be sent.
+     *
+     * @return true if the activity is idempotent
+     */
+    public default boolean isIdempotent() {
+        return false;
+    }
 }
@@ -39,7 +39,10 @@ import org.slf4j.LoggerFactory;
  *
  * @author Andrey Panasenko <apanasenko@cybervisiontech.com>
  * @param <T> the generic type
+ * @deprecated opens a new socket for every call, use
+ *             {@link ThriftExecutor#submit(String, int, KaaThriftService, Class, ThriftActivity)} instead
  */
+@Deprecated
 public class ThriftClient<T extends TServiceClient> implements Runnable {
     
     /** The Constant logger. */
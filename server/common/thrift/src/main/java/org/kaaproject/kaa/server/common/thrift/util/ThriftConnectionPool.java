@@ -0,0 +1,456 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.thrift.util;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TServiceClient;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TMultiplexedProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.kaaproject.kaa.server.common.thrift.KaaThriftService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class ThriftConnectionPool.<br>
+ * Pool of long-lived connections to one Thrift service of one remote node.
+ * Connections are validated before being handed out, connections that were
+ * left in an inconsistent state by a failed call are discarded, and unused
+ * connections are closed after the configured idle timeout. Idle connections
+ * that the remote node closed in the meantime are replaced when borrowed. A
+ * call on a reused connection is retried once on a new connection if the
+ * request could not be sent, or after any transport error other than a read
+ * timeout if the activity is {@link ThriftActivity#isIdempotent() idempotent}.
+ *
+ * @param <T> the generic type
+ */
+public class ThriftConnectionPool<T extends TServiceClient> {
+
+    /** The Constant logger. */
+    private static final Logger LOG = LoggerFactory.getLogger(ThriftConnectionPool.class);
+
+    /** The time to wait for the end of stream when checking an idle connection. */
+    private static final int PROBE_TIMEOUT = 1;
+
+    /** The host. */
+    private final String host;
+
+    /** The port. */
+    private final int port;
+
+    /** The service. */
+    private final KaaThriftService service;
+
+    /** The client constructor. */
+    private final Constructor<T> constructor;
+
+    /** The pool config. */
+    private final ThriftPoolConfig config;
+
+    /** The metrics. */
+    private final ThriftMethodMetrics metrics;
+
+    /** The permits limiting the number of connections. */
+    private final Semaphore permits;
+
+    /** The idle connections, most recently used first. */
+    private final LinkedBlockingDeque<PooledConnection<T>> idle = new LinkedBlockingDeque<>();
+
+    /** The closed flag. */
+    private volatile boolean closed;
+
+    /**
+     * The Constructor.
+     *
+     * @param host the host
+     * @param port the port
+     * @param service the service
+     * @param clazz the client class
+     * @param config the pool config
+     * @param metrics the metrics
+     * @throws NoSuchMethodException if the client class has no (TProtocol, TProtocol) constructor
+     */
+    public ThriftConnectionPool(String host, int port, KaaThriftService service, Class<T> clazz, ThriftPoolConfig config,
+            ThriftMethodMetrics metrics) throws NoSuchMethodException {
+        this.host = host;
+        this.port = port;
+        this.service = service;
+        this.config = config;
+        this.metrics = metrics;
+        this.constructor = clazz.getConstructor(TProtocol.class, TProtocol.class);
+        this.permits = new Semaphore(config.getMaxConnections(), true);
+    }
+
+    /**
+     * Runs the activity on a pooled connection. The activity is notified of
+     * the result through {@link ThriftActivity#isSuccess(boolean)}.
+     *
+     * @param activity the activity
+     * @return true if the activity completed without errors
+     */
+    public boolean execute(ThriftActivity<T> activity) {
+        boolean success = false;
+        try {
+            PooledConnection<T> connection = borrow(false);
+            success = call(activity, connection);
+            if (!success && isRetriable(activity, connection)) {
+                LOG.debug("Retry call to thrift server [{}:{}] on a new connection", host, port);
+                success = call(activity, borrow(true));
+            }
+        } catch (TTransportException e) {
+            LOG.error("Unable to get connection to thrift server " + host + ":" + port, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (success) {
+            LOG.debug("Successfuly invoke Thrift server [{}:{}]", host, port);
+        }
+        activity.isSuccess(success);
+        return success;
+    }
+
+    /**
+     * Runs the activity on the connection and returns the connection to the pool.
+     *
+     * @param activity the activity
+     * @param connection the connection
+     * @return true if the activity completed without errors
+     */
+    private boolean call(ThriftActivity<T> activity, PooledConnection<T> connection) {
+        boolean success = false;
+        try {
+            LOG.debug("Call Thrift server [{}:{}]", host, port);
+            activity.doInTemplate(connection.client);
+            success = !connection.protocol.isCallPending() && connection.transport.getFailure() == null;
+        } catch (RuntimeException e) {
+            LOG.error("Unexpected error occurred while invoke thrift object " + host + ":" + port, e);
+        } finally {
+            release(connection, !success);
+        }
+        return success;
+    }
+
+    /**
+     * Checks if a failed call may be retried on a new connection. This is the
+     * case if the connection was reused and the request could not be written,
+     * so the remote node has not received it. Idempotent activities are also
+     * retried after other transport errors except read timeouts, after which
+     * the remote node may still be processing the call.
+     *
+     * @param activity the activity
+     * @param connection the connection of the failed call
+     * @return true if the call may be retried
+     */
+    private boolean isRetriable(ThriftActivity<T> activity, PooledConnection<T> connection) {
+        TTransportException failure = connection.transport.getFailure();
+        if (!connection.reused || failure == null) {
+            return false;
+        }
+        if (connection.transport.isWriteFailure()) {
+            return true;
+        }
+        return activity.isIdempotent() && failure.getType() != TTransportException.TIMED_OUT
+                && !(failure.getCause() instanceof SocketTimeoutException);
+    }
+
+    /**
+     * Borrows a connection, opening a new one if no healthy idle connection is
+     * available or if a new connection is requested.
+     *
+     * @param fresh true to open a new connection rather than reuse an idle one
+     * @return the pooled connection
+     * @throws TTransportException if the connection can not be opened or the borrow timeout expires
+     * @throws InterruptedException if interrupted while waiting for a connection
+     */
+    PooledConnection<T> borrow(boolean fresh) throws TTransportException, InterruptedException {
+        if (closed) {
+            throw new TTransportException(TTransportException.NOT_OPEN, "Connection pool is closed");
+        }
+        if (!permits.tryAcquire(config.getBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+            throw new TTransportException(TTransportException.TIMED_OUT, "Timed out waiting for a connection to " + host + ":" + port);
+        }
+        try {
+            PooledConnection<T> connection;
+            while (!fresh && (connection = idle.pollFirst()) != null) {
+                if (isHealthy(connection, System.currentTimeMillis()) && !isClosedByRemote(connection)) {
+                    connection.reused = true;
+                    return connection;
+                }
+                connection.close();
+            }
+            return open();
+        } catch (TTransportException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool.
+     *
+     * @param connection the connection
+     * @param broken true if the connection must be discarded
+     */
+    void release(PooledConnection<T> connection, boolean broken) {
+        try {
+            if (broken || closed) {
+                connection.protocol.failPendingCall();
+                connection.close();
+            } else {
+                connection.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes idle connections which are unused longer than the idle timeout
+     * or whose socket is no longer usable.
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection<T>> it = idle.iterator();
+        while (it.hasNext()) {
+            PooledConnection<T> connection = it.next();
+            if (!isHealthy(connection, now) && idle.remove(connection)) {
+                LOG.trace("Evict idle connection to thrift server [{}:{}]", host, port);
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the pool and all idle connections. Borrowed connections are
+     * closed when returned.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection<T> connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Gets the number of idle connections.
+     *
+     * @return the idle connections count
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Gets the number of borrowed connections.
+     *
+     * @return the active connections count
+     */
+    public int getActiveCount() {
+        return config.getMaxConnections() - permits.availablePermits();
+    }
+
+    private boolean isHealthy(PooledConnection<T> connection, long now) {
+        if (now - connection.lastUsed > config.getIdleTimeout() || !connection.socket.isOpen()) {
+            return false;
+        }
+        Socket socket = connection.socket.getSocket();
+        return !socket.isClosed() && !socket.isInputShutdown() && !socket.isOutputShutdown();
+    }
+
+    /**
+     * Checks if the remote node closed the idle connection, by reading from it
+     * with a short timeout. Nothing can be read from a healthy idle connection.
+     */
+    private boolean isClosedByRemote(PooledConnection<T> connection) {
+        Socket socket = connection.socket.getSocket();
+        try {
+            socket.setSoTimeout(PROBE_TIMEOUT);
+            try {
+                // either the end of stream or unexpected data
+                socket.getInputStream().read();
+                return true;
+            } catch (SocketTimeoutException e) {
+                return false;
+            } finally {
+                socket.setSoTimeout(config.getSocketTimeout());
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private PooledConnection<T> open() throws TTransportException {
+        TSocket socket = new TSocket(host, port, config.getSocketTimeout());
+        try {
+            socket.getSocket().setKeepAlive(config.isKeepAlive());
+        } catch (SocketException e) {
+            LOG.warn("Unable to set keep-alive on socket to thrift server " + host + ":" + port, e);
+        }
+        socket.open();
+        FailureTrackingTransport transport = new FailureTrackingTransport(socket);
+        MeteredProtocol protocol = new MeteredProtocol(
+                new TMultiplexedProtocol(new TBinaryProtocol(transport), service.getServiceName()), service.getServiceName(), metrics);
+        try {
+            T client = constructor.newInstance(protocol, protocol);
+            LOG.debug("ThriftClient new Client to {}:{} created.", host, port);
+            return new PooledConnection<>(socket, transport, protocol, client);
+        } catch (ReflectiveOperationException e) {
+            socket.close();
+            throw new IllegalStateException("Unable to create thrift client " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    /**
+     * The Class PooledConnection.
+     *
+     * @param <T> the generic type
+     */
+    static final class PooledConnection<T> {
+
+        /** The socket. */
+        private final TSocket socket;
+
+        /** The transport used by the protocol. */
+        private final FailureTrackingTransport transport;
+
+        /** The protocol. */
+        private final MeteredProtocol protocol;
+
+        /** The client. */
+        private final T client;
+
+        /** The last time the connection was returned to the pool. */
+        private volatile long lastUsed;
+
+        /** Whether the connection was taken from the idle connections. */
+        private boolean reused;
+
+        PooledConnection(TSocket socket, FailureTrackingTransport transport, MeteredProtocol protocol, T client) {
+            this.socket = socket;
+            this.transport = transport;
+            this.protocol = protocol;
+            this.client = client;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        void close() {
+            socket.close();
+        }
+    }
+
+    /**
+     * The Class FailureTrackingTransport.<br>
+     * Remembers the last transport error of the socket, since activities
+     * usually catch and log errors themselves.
+     */
+    static final class FailureTrackingTransport extends TTransport {
+
+        /** The socket. */
+        private final TSocket socket;
+
+        /** The last transport error. */
+        private TTransportException failure;
+
+        /** Whether the last transport error happened while writing the request. */
+        private boolean writeFailure;
+
+        FailureTrackingTransport(TSocket socket) {
+            this.socket = socket;
+        }
+
+        TTransportException getFailure() {
+            return failure;
+        }
+
+        boolean isWriteFailure() {
+            return writeFailure;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return socket.isOpen();
+        }
+
+        @Override
+        public boolean peek() {
+            return socket.peek();
+        }
+
+        @Override
+        public void open() throws TTransportException {
+            try {
+                socket.open();
+            } catch (TTransportException e) {
+                failure = e;
+                writeFailure = false;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            socket.close();
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws TTransportException {
+            try {
+                return socket.read(buf, off, len);
+            } catch (TTransportException e) {
+                failure = e;
+                writeFailure = false;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws TTransportException {
+            try {
+                socket.write(buf, off, len);
+            } catch (TTransportException e) {
+                failure = e;
+                writeFailure = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws TTransportException {
+            try {
+                socket.flush();
+            } catch (TTransportException e) {
+                failure = e;
+                writeFailure = true;
+                throw e;
+            }
+        }
+    }
+}
@@ -19,19 +19,109 @@
  */
 package org.kaaproject.kaa.server.common.thrift.util;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TServiceClient;
+import org.kaaproject.kaa.server.common.thrift.KaaThriftService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * The Class ThriftExecutor.
+ * The Class ThriftExecutor.<br>
+ * Runs Thrift activities asynchronously. Activities submitted with
+ * {@link #submit(String, int, KaaThriftService, Class, ThriftActivity)} share
+ * long-lived pooled connections per remote node and service.
  *
  * @author Andrey Panasenko <apanasenko@cybervisiontech.com>
  */
 public class ThriftExecutor {
 
+    /** The Constant logger. */
+    private static final Logger LOG = LoggerFactory.getLogger(ThriftExecutor.class);
+
     /** The executor. */
     private static ExecutorService executor = null;
-    
+
+    /** The idle connection evictor. */
+    private static ScheduledExecutorService evictor = null;
+
+    /** The connection pools by remote node and service. */
+    private static final ConcurrentMap<String, ThriftConnectionPool<?>> pools = new ConcurrentHashMap<>();
+
+    /** The outgoing call metrics. */
+    private static final ThriftMethodMetrics methodMetrics = new ThriftMethodMetrics();
+
+    /** The pool config. */
+    private static volatile ThriftPoolConfig poolConfig = new ThriftPoolConfig();
+
+    /**
+     * Sets the config used for connection pools created after this call.
+     *
+     * @param config the pool config
+     */
+    public static void setPoolConfig(ThriftPoolConfig config) {
+        poolConfig = config;
+    }
+
+    /**
+     * Runs the activity asynchronously on a pooled connection to the given
+     * node. The activity is notified of the result through
+     * {@link ThriftActivity#isSuccess(boolean)}, the returned future completes
+     * with the same value.
+     *
+     * @param <T> the generic type
+     * @param host the host
+     * @param port the port
+     * @param service the service
+     * @param clazz the client class
+     * @param activity the activity
+     * @return the future result of the activity
+     */
+    public static <T extends TServiceClient> CompletableFuture<Boolean> submit(String host, int port, KaaThriftService service,
+            Class<T> clazz, ThriftActivity<T> activity) {
+        ThriftConnectionPool<T> pool;
+        try {
+            pool = getPool(host, port, service, clazz);
+        } catch (NoSuchMethodException e) {
+            LOG.error("Unable to create thrift client " + clazz.getName(), e);
+            activity.isSuccess(false);
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> pool.execute(activity), getExecutorService());
+    }
+
+    /**
+     * Closes the connection pool to the given node and service, if any. Call
+     * it when the node leaves the cluster, so that its connections are not
+     * kept open.
+     *
+     * @param host the host
+     * @param port the port
+     * @param service the service
+     */
+    public static void closePool(String host, int port, KaaThriftService service) {
+        ThriftConnectionPool<?> pool = pools.remove(getPoolKey(host, port, service));
+        if (pool != null) {
+            LOG.debug("Closing connection pool to thrift server [{}:{}] {}", host, port, service.getServiceName());
+            pool.close();
+        }
+    }
+
+    /**
+     * Gets the metrics of calls made through pooled connections.
+     *
+     * @return the method metrics
+     */
+    public static ThriftMethodMetrics getMethodMetrics() {
+        return methodMetrics;
+    }
+
     /**
      * Execute.
      *
@@ -44,11 +134,69 @@ public class ThriftExecutor {
     /**
      * Shutdown.
      */
-    public static void shutdown() {
+    public static synchronized void shutdown() {
         if (executor != null) {
             executor.shutdown();
             executor = null;
         }
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+        for (ThriftConnectionPool<?> pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+    }
+
+    /**
+     * Gets the connection pool for the node and service, creating it if needed.
+     *
+     * @param <T> the generic type
+     * @param host the host
+     * @param port the port
+     * @param service the service
+     * @param clazz the client class
+     * @return the connection pool
+     * @throws NoSuchMethodException if the client class has no (TProtocol, TProtocol) constructor
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends TServiceClient> ThriftConnectionPool<T> getPool(String host, int port, KaaThriftService service,
+            Class<T> clazz) throws NoSuchMethodException {
+        String key = getPoolKey(host, port, service);
+        ThriftConnectionPool<T> pool = (ThriftConnectionPool<T>) pools.get(key);
+        if (pool == null) {
+            ThriftConnectionPool<T> created = new ThriftConnectionPool<>(host, port, service, clazz, poolConfig, methodMetrics);
+            pool = (ThriftConnectionPool<T>) pools.putIfAbsent(key, created);
+            if (pool == null) {
+                pool = created;
+                startEvictor();
+            }
+        }
+        return pool;
+    }
+
+    private static String getPoolKey(String host, int port, KaaThriftService service) {
+        return host + ":" + port + "/" + service.getServiceName();
+    }
+
+    /**
+     * Starts the periodic eviction of idle connections.
+     */
+    private static synchronized void startEvictor() {
+        if (evictor == null) {
+            long interval = poolConfig.getEvictionInterval();
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "thrift-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(() -> {
+                for (ThriftConnectionPool<?> pool : pools.values()) {
+                    pool.evictIdle();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
     }
     
     /**
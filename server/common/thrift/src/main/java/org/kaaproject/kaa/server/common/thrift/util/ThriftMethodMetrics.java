@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.thrift.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class ThriftMethodMetrics.<br>
+ * Call counts and latencies of outgoing Thrift calls, keyed by
+ * <code>serviceName.methodName</code>.
+ */
+public class ThriftMethodMetrics {
+
+    /** The statistics by method. */
+    private final ConcurrentMap<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Records a completed call.
+     *
+     * @param method the method
+     * @param latencyNanos the latency in nanoseconds
+     */
+    public void recordSuccess(String method, long latencyNanos) {
+        getStats(method).recordSuccess(latencyNanos);
+    }
+
+    /**
+     * Records a call that was interrupted by an error.
+     *
+     * @param method the method
+     */
+    public void recordFailure(String method) {
+        getStats(method).failures.increment();
+    }
+
+    /**
+     * Gets the statistics of all methods called so far.
+     *
+     * @return the statistics by method
+     */
+    public Map<String, MethodStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Gets the statistics of the method, creating empty ones if needed.
+     *
+     * @param method the method
+     * @return the method statistics
+     */
+    public MethodStats getStats(String method) {
+        MethodStats methodStats = stats.get(method);
+        if (methodStats == null) {
+            methodStats = new MethodStats();
+            MethodStats existing = stats.putIfAbsent(method, methodStats);
+            if (existing != null) {
+                methodStats = existing;
+            }
+        }
+        return methodStats;
+    }
+
+    /**
+     * The Class MethodStats.
+     */
+    public static final class MethodStats {
+
+        /** The successful calls count. */
+        private final LongAdder calls = new LongAdder();
+
+        /** The failed calls count. */
+        private final LongAdder failures = new LongAdder();
+
+        /** The total latency. */
+        private final LongAdder totalLatency = new LongAdder();
+
+        /** The max latency. */
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        private void recordSuccess(long latencyNanos) {
+            calls.increment();
+            totalLatency.add(latencyNanos);
+            long max = maxLatency.get();
+            while (latencyNanos > max && !maxLatency.compareAndSet(max, latencyNanos)) {
+                max = maxLatency.get();
+            }
+        }
+
+        public long getCallCount() {
+            return calls.sum();
+        }
+
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        /**
+         * Gets the average latency of successful calls.
+         *
+         * @return the average latency in microseconds
+         */
+        public long getAverageLatency() {
+            long count = calls.sum();
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatency.sum() / count);
+        }
+
+        /**
+         * Gets the max latency of successful calls.
+         *
+         * @return the max latency in microseconds
+         */
+        public long getMaxLatency() {
+            return TimeUnit.NANOSECONDS.toMicros(maxLatency.get());
+        }
+
+        @Override
+        public String toString() {
+            return "MethodStats [calls=" + getCallCount() + ", failures=" + getFailureCount() + ", averageLatency="
+                    + getAverageLatency() + ", maxLatency=" + getMaxLatency() + "]";
+        }
+    }
+}
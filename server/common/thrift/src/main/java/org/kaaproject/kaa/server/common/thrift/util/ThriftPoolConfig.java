@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.thrift.util;
+
+/**
+ * The Class ThriftPoolConfig.<br>
+ * Settings of the per-node connection pools used by {@link ThriftExecutor}.
+ * All time values are in milliseconds.
+ */
+public class ThriftPoolConfig {
+
+    /** The default maximum number of connections per remote node and service. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
+    /** The default time an unused connection is kept open. */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    /** The default time to wait for a free connection. */
+    public static final long DEFAULT_BORROW_TIMEOUT = 10000;
+
+    /** The default interval between idle connection evictions. */
+    public static final long DEFAULT_EVICTION_INTERVAL = 30000;
+
+    /** The default time to wait for the reply to a call. */
+    public static final int DEFAULT_SOCKET_TIMEOUT = 30000;
+
+    /** The maximum number of connections. */
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    /** The idle timeout. */
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /** The borrow timeout. */
+    private long borrowTimeout = DEFAULT_BORROW_TIMEOUT;
+
+    /** The eviction interval. */
+    private long evictionInterval = DEFAULT_EVICTION_INTERVAL;
+
+    /** The socket timeout, 0 means no timeout. */
+    private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+
+    /** The TCP keep-alive flag. */
+    private boolean keepAlive = true;
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public long getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(long evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.thrift.util;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.TMultiplexedProcessor;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TSocket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.thrift.KaaThriftService;
+import org.kaaproject.kaa.server.common.thrift.gen.bootstrap.BootstrapThriftService;
+import org.kaaproject.kaa.server.common.thrift.gen.bootstrap.ThriftOperationsServer;
+
+public class ThriftConnectionPoolTest {
+
+    private ServerSocket serverSocket;
+    private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+    private final AtomicInteger updates = new AtomicInteger();
+    private volatile int sleepTime;
+    private volatile boolean closeAfterCall;
+    private final AtomicBoolean dropNextReply = new AtomicBoolean();
+    private final ThreadLocal<Socket> workerSocket = new ThreadLocal<>();
+    private ThriftConnectionPool<BootstrapThriftService.Client> pool;
+
+    @Before
+    public void before() throws Exception {
+        BootstrapThriftService.Iface service = new BootstrapThriftService.Iface() {
+
+            @Override
+            public void onOperationsServerListUpdate(List<ThriftOperationsServer> operationsServersList) throws TException {
+                if (sleepTime > 0) {
+                    try {
+                        Thread.sleep(sleepTime);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                updates.incrementAndGet();
+                if (dropNextReply.compareAndSet(true, false)) {
+                    // the call is processed, but the connection is lost before the reply
+                    closeQuietly(workerSocket.get());
+                }
+            }
+        };
+        final TMultiplexedProcessor processor = new TMultiplexedProcessor();
+        processor.registerProcessor(KaaThriftService.BOOTSTRAP_SERVICE.getServiceName(),
+                new BootstrapThriftService.Processor<BootstrapThriftService.Iface>(service));
+
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        accepted.add(socket);
+                        Thread worker = new Thread(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                workerSocket.set(socket);
+                                try {
+                                    TProtocol protocol = new TBinaryProtocol(new TSocket(socket));
+                                    while (processor.process(protocol, protocol)) {
+                                        if (closeAfterCall) {
+                                            closeQuietly(socket);
+                                            return;
+                                        }
+                                    }
+                                } catch (TException e) {
+                                    closeQuietly(socket);
+                                }
+                            }
+                        });
+                        worker.setDaemon(true);
+                        worker.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        ThriftPoolConfig config = new ThriftPoolConfig();
+        config.setSocketTimeout(500);
+        pool = new ThriftConnectionPool<>("localhost", serverSocket.getLocalPort(), KaaThriftService.BOOTSTRAP_SERVICE,
+                BootstrapThriftService.Client.class, config, new ThriftMethodMetrics());
+    }
+
+    @After
+    public void after() throws IOException {
+        pool.close();
+        serverSocket.close();
+        for (Socket socket : accepted) {
+            closeQuietly(socket);
+        }
+    }
+
+    @Test
+    public void testConnectionIsReused() {
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+        Assert.assertEquals(2, updates.get());
+        Assert.assertEquals(1, accepted.size());
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testConnectionClosedByRemoteIsReplaced() throws Exception {
+        closeAfterCall = true;
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+        while (!accepted.get(0).isClosed()) {
+            Thread.sleep(10);
+        }
+        closeAfterCall = false;
+
+        UpdateActivity activity = new UpdateActivity();
+        Assert.assertTrue(pool.execute(activity));
+        Assert.assertEquals(1, activity.attempts);
+        Assert.assertEquals(Boolean.TRUE, activity.result);
+        Assert.assertEquals(2, updates.get());
+        Assert.assertEquals(2, accepted.size());
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testRetryOnNewConnectionAfterWriteFailure() throws Exception {
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+
+        UpdateActivity activity = new UpdateActivity() {
+
+            @Override
+            public void doInTemplate(BootstrapThriftService.Client client) {
+                if (attempts == 0) {
+                    // the connection is reset after it was borrowed, so the request can not be written
+                    resetQuietly(accepted.get(0));
+                }
+                super.doInTemplate(client);
+            }
+        };
+        Assert.assertTrue(pool.execute(activity));
+        Assert.assertEquals(2, activity.attempts);
+        Assert.assertEquals(Boolean.TRUE, activity.result);
+        Assert.assertEquals(2, updates.get());
+        Assert.assertEquals(2, accepted.size());
+    }
+
+    @Test
+    public void testNoRetryAfterCallIsProcessed() throws Exception {
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+        dropNextReply.set(true);
+
+        UpdateActivity activity = new UpdateActivity();
+        Assert.assertFalse(pool.execute(activity));
+        Assert.assertEquals(1, activity.attempts);
+        Assert.assertEquals(Boolean.FALSE, activity.result);
+        Assert.assertEquals(2, updates.get());
+        Assert.assertEquals(1, accepted.size());
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testIdempotentRetryAfterCallIsProcessed() throws Exception {
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+        dropNextReply.set(true);
+
+        UpdateActivity activity = new UpdateActivity() {
+
+            @Override
+            public boolean isIdempotent() {
+                return true;
+            }
+        };
+        Assert.assertTrue(pool.execute(activity));
+        Assert.assertEquals(2, activity.attempts);
+        Assert.assertEquals(Boolean.TRUE, activity.result);
+        Assert.assertEquals(3, updates.get());
+        Assert.assertEquals(2, accepted.size());
+    }
+
+    @Test
+    public void testNoRetryAfterTimeout() throws Exception {
+        Assert.assertTrue(pool.execute(new UpdateActivity()));
+        sleepTime = 1000;
+
+        UpdateActivity activity = new UpdateActivity();
+        Assert.assertFalse(pool.execute(activity));
+        Assert.assertEquals(1, activity.attempts);
+        Assert.assertEquals(Boolean.FALSE, activity.result);
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testNoRetryOnNewConnection() throws Exception {
+        serverSocket.close();
+
+        UpdateActivity activity = new UpdateActivity();
+        Assert.assertFalse(pool.execute(activity));
+        Assert.assertEquals(0, activity.attempts);
+        Assert.assertEquals(Boolean.FALSE, activity.result);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static void resetQuietly(Socket socket) {
+        try {
+            socket.setSoLinger(true, 0);
+            socket.close();
+            // let the reset reach the client socket
+            Thread.sleep(100);
+        } catch (IOException e) {
+            // Ignore
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class UpdateActivity implements ThriftActivity<BootstrapThriftService.Client> {
+
+        protected int attempts;
+        private Boolean result;
+
+        @Override
+        public void doInTemplate(BootstrapThriftService.Client client) {
+            attempts++;
+            try {
+                client.onOperationsServerListUpdate(Collections.<ThriftOperationsServer> emptyList());
+            } catch (TException e) {
+                // Reported through isSuccess
+            }
+        }
+
+        @Override
+        public void isSuccess(boolean activitySuccess) {
+            result = activitySuccess;
+        }
+    }
+}
@@ -18,9 +18,11 @@ package org.kaaproject.kaa.server.common.zk;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.apache.avro.Schema;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
@@ -55,6 +57,9 @@ public abstract class ControlNodeTracker implements ControlNodeAware, Closeable
     private static final Logger LOG = LoggerFactory
             .getLogger(ControlNodeTracker.class);
 
+    /** The schema of endpoint node info written by nodes that don't report load details yet. */
+    private static final Schema OPERATIONS_NODE_INFO_V1_SCHEMA = parseSchema("/operations-node-info-v1.avsc");
+
     /** The client. */
     protected CuratorFramework client;
 
@@ -83,6 +88,17 @@ public abstract class ControlNodeTracker implements ControlNodeAware, Closeable
         }
     };
 
+    /**
+     * The endpoint node avro converter for data written by nodes that don't
+     * report load details yet.
+     */
+    protected ThreadLocal<AvroByteArrayConverter<OperationsNodeInfo>> previousOperationsNodeAvroConverter = new ThreadLocal<AvroByteArrayConverter<OperationsNodeInfo>>(){
+        @Override
+        protected AvroByteArrayConverter<OperationsNodeInfo> initialValue() {
+            return new AvroByteArrayConverter<OperationsNodeInfo>(OperationsNodeInfo.class, OPERATIONS_NODE_INFO_V1_SCHEMA);
+        }
+    };
+
     /** The bootstrap node avro converter. */
     protected ThreadLocal<AvroByteArrayConverter<BootstrapNodeInfo>> bootstrapNodeAvroConverter = new ThreadLocal<AvroByteArrayConverter<BootstrapNodeInfo>>(){
         @Override
@@ -293,6 +309,14 @@ public abstract class ControlNodeTracker implements ControlNodeAware, Closeable
         return controlServerInfo;
     }
 
+    private static Schema parseSchema(String resource) {
+        try (InputStream in = ControlNodeTracker.class.getResourceAsStream(resource)) {
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't parse schema " + resource, e);
+        }
+    }
+
     public boolean doZKClientAction(ZKClientAction action) throws IOException{
         return doZKClientAction(action, false);
     }
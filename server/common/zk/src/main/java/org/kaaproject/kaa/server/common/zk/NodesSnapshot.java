@@ -0,0 +1,90 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.zk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class NodesSnapshot.<br>
+ * Immutable list of decoded node infos registered in ZooKeeper at some
+ * moment. The version grows with every change of the list, so readers can
+ * cheaply detect that the cluster has changed. Node infos are shared between
+ * all readers and must not be modified.
+ *
+ * @param <T> the node info type
+ */
+public final class NodesSnapshot<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final NodesSnapshot EMPTY = new NodesSnapshot<>(0, Collections.emptyList());
+
+    /** The version. */
+    private final long version;
+
+    /** The nodes. */
+    private final List<T> nodes;
+
+    /**
+     * Instantiates a new snapshot.
+     *
+     * @param version
+     *            the version
+     * @param nodes
+     *            the nodes
+     */
+    public NodesSnapshot(long version, Collection<T> nodes) {
+        this.version = version;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+
+    /**
+     * Gets the empty snapshot.
+     *
+     * @param <T> the node info type
+     * @return the empty snapshot with version 0
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> NodesSnapshot<T> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Gets the version.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the nodes.
+     *
+     * @return the unmodifiable list of nodes
+     */
+    public List<T> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return "NodesSnapshot [version=" + version + ", nodes=" + nodes.size() + "]";
+    }
+}
@@ -16,8 +16,11 @@
 
 package org.kaaproject.kaa.server.common.zk;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.util.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.curator.RetryPolicy;
@@ -62,6 +65,18 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      * string and its start time */
     private Map<String, Long> bootstrapNodesStartTimes;
 
+    /** Decoded operations node infos by ZooKeeper node path, changed only by cache events. */
+    private Map<String, OperationsNodeInfo> operationsNodesByPath;
+
+    /** Decoded bootstrap node infos by ZooKeeper node path, changed only by cache events. */
+    private Map<String, BootstrapNodeInfo> bootstrapNodesByPath;
+
+    /** The current operations nodes snapshot. */
+    private volatile NodesSnapshot<OperationsNodeInfo> operationsNodesSnapshot;
+
+    /** The current bootstrap nodes snapshot. */
+    private volatile NodesSnapshot<BootstrapNodeInfo> bootstrapNodesSnapshot;
+
     /**
      * Instantiates a new worker node tracker.
      *
@@ -99,6 +114,10 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
         bootstrapListeners = new CopyOnWriteArrayList<BootstrapNodeListener>();
         operationNodesStartTimes = new HashMap<String, Long>();
         bootstrapNodesStartTimes = new HashMap<String, Long>();
+        operationsNodesByPath = new HashMap<String, OperationsNodeInfo>();
+        bootstrapNodesByPath = new HashMap<String, BootstrapNodeInfo>();
+        operationsNodesSnapshot = NodesSnapshot.empty();
+        bootstrapNodesSnapshot = NodesSnapshot.empty();
     }
 
     /*
@@ -152,42 +171,40 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
     }
 
     /**
-     * Gets the current endpoint nodes.
+     * Gets the current endpoint nodes. If several nodes share a connection,
+     * only the latest started one is returned.
      *
-     * @return the current endpoint nodes
+     * @return the unmodifiable list of current endpoint nodes
      */
     public List<OperationsNodeInfo> getCurrentOperationServerNodes() {
-        List<ChildData> nodesData = endpointCache != null ? endpointCache.getCurrentData() : new ArrayList<ChildData>();
-        Map<ConnectionInfoKey, OperationsNodeInfo> uniqueMap = new HashMap<>();
-
-        for (ChildData data : nodesData) {
-            OperationsNodeInfo newNodeInfo = extractOperationServerInfo(data);
-            ConnectionInfoKey key = new ConnectionInfoKey(newNodeInfo.getConnectionInfo());
-            OperationsNodeInfo oldNodeInfo = uniqueMap.get(key);
-            if (oldNodeInfo != null) {
-                if (newNodeInfo.getTimeStarted() >= oldNodeInfo.getTimeStarted()) {
-                    uniqueMap.put(key, newNodeInfo);
-                }
-            } else {
-                uniqueMap.put(key, newNodeInfo);
-            }
-        }
+        return operationsNodesSnapshot.getNodes();
+    }
 
-        return new ArrayList<>(uniqueMap.values());
+    /**
+     * Gets the current endpoint nodes snapshot.
+     *
+     * @return the current endpoint nodes snapshot
+     */
+    public NodesSnapshot<OperationsNodeInfo> getOperationServerNodesSnapshot() {
+        return operationsNodesSnapshot;
     }
 
     /**
      * Gets the current bootstrap nodes.
      *
-     * @return the current bootstrap nodes
+     * @return the unmodifiable list of current bootstrap nodes
      */
     public List<BootstrapNodeInfo> getCurrentBootstrapNodes() {
-        List<ChildData> nodesData = bootstrapCache != null ? bootstrapCache.getCurrentData() : new ArrayList<ChildData>();
-        List<BootstrapNodeInfo> result = new ArrayList<>(nodesData.size());
-        for (ChildData data : nodesData) {
-            result.add(extractBootstrapServerInfo(data));
-        }
-        return result;
+        return bootstrapNodesSnapshot.getNodes();
+    }
+
+    /**
+     * Gets the current bootstrap nodes snapshot.
+     *
+     * @return the current bootstrap nodes snapshot
+     */
+    public NodesSnapshot<BootstrapNodeInfo> getBootstrapNodesSnapshot() {
+        return bootstrapNodesSnapshot;
     }
 
     /**
@@ -198,6 +215,7 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      */
     protected void endpointAdded(ChildData data) {
         OperationsNodeInfo nodeInfo = extractOperationServerInfo(data);
+        putOperationsNode(data.getPath(), nodeInfo);
         String endpointAddress = constructEndpointAddress(nodeInfo);
         operationNodesStartTimes.put(endpointAddress, nodeInfo.getTimeStarted());
         for (OperationsNodeListener listener : endpointListeners) {
@@ -213,6 +231,7 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      */
     protected void endpointUpdated(ChildData data) {
         OperationsNodeInfo nodeInfo = extractOperationServerInfo(data);
+        putOperationsNode(data.getPath(), nodeInfo);
         String endpointAddress = constructEndpointAddress(nodeInfo);
         operationNodesStartTimes.put(endpointAddress, nodeInfo.getTimeStarted());
         for (OperationsNodeListener listener : endpointListeners) {
@@ -228,6 +247,7 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      */
     protected void endpointRemoved(ChildData data) {
         OperationsNodeInfo nodeInfo = extractOperationServerInfo(data);
+        removeOperationsNode(data.getPath());
         String endpointAddress = constructEndpointAddress(nodeInfo);
         Long removeTime = nodeInfo.getTimeStarted();
         Long updateTime = operationNodesStartTimes.get(endpointAddress);
@@ -249,6 +269,7 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      */
     protected void bootstrapAdded(ChildData data) {
         BootstrapNodeInfo nodeInfo = extractBootstrapServerInfo(data);
+        putBootstrapNode(data.getPath(), nodeInfo);
         String bootstrapAddress = constructBootstrapAddress(nodeInfo);
         bootstrapNodesStartTimes.put(bootstrapAddress, nodeInfo.getTimeStarted());
         for (BootstrapNodeListener listener : bootstrapListeners) {
@@ -264,6 +285,7 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      */
     protected void bootstrapUpdated(ChildData data) {
         BootstrapNodeInfo nodeInfo = extractBootstrapServerInfo(data);
+        putBootstrapNode(data.getPath(), nodeInfo);
         String bootstrapAddress = constructBootstrapAddress(nodeInfo);
         bootstrapNodesStartTimes.put(bootstrapAddress, nodeInfo.getTimeStarted());
         for (BootstrapNodeListener listener : bootstrapListeners) {
@@ -279,6 +301,7 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
      */
     protected void bootstrapRemoved(ChildData data) {
         BootstrapNodeInfo nodeInfo = extractBootstrapServerInfo(data);
+        removeBootstrapNode(data.getPath());
         String bootstrapAddress = constructBootstrapAddress(nodeInfo);
         Long removeTime = nodeInfo.getTimeStarted();
         Long updateTime = bootstrapNodesStartTimes.get(bootstrapAddress);
@@ -291,6 +314,62 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
         }
     }
 
+    private void putOperationsNode(String path, OperationsNodeInfo nodeInfo) {
+        synchronized (operationsNodesByPath) {
+            if (nodeInfo != null) {
+                operationsNodesByPath.put(path, nodeInfo);
+            } else {
+                operationsNodesByPath.remove(path);
+            }
+            rebuildOperationsNodesSnapshot();
+        }
+    }
+
+    private void removeOperationsNode(String path) {
+        synchronized (operationsNodesByPath) {
+            if (operationsNodesByPath.remove(path) != null) {
+                rebuildOperationsNodesSnapshot();
+            }
+        }
+    }
+
+    private void rebuildOperationsNodesSnapshot() {
+        Map<ConnectionInfoKey, OperationsNodeInfo> uniqueMap = new HashMap<>();
+        for (OperationsNodeInfo newNodeInfo : operationsNodesByPath.values()) {
+            ConnectionInfoKey key = new ConnectionInfoKey(newNodeInfo.getConnectionInfo());
+            OperationsNodeInfo oldNodeInfo = uniqueMap.get(key);
+            if (oldNodeInfo == null || newNodeInfo.getTimeStarted() >= oldNodeInfo.getTimeStarted()) {
+                uniqueMap.put(key, newNodeInfo);
+            }
+        }
+        operationsNodesSnapshot = new NodesSnapshot<>(operationsNodesSnapshot.getVersion() + 1, uniqueMap.values());
+        LOG.trace("Operations nodes snapshot updated: {}", operationsNodesSnapshot);
+    }
+
+    private void putBootstrapNode(String path, BootstrapNodeInfo nodeInfo) {
+        synchronized (bootstrapNodesByPath) {
+            if (nodeInfo != null) {
+                bootstrapNodesByPath.put(path, nodeInfo);
+            } else {
+                bootstrapNodesByPath.remove(path);
+            }
+            rebuildBootstrapNodesSnapshot();
+        }
+    }
+
+    private void removeBootstrapNode(String path) {
+        synchronized (bootstrapNodesByPath) {
+            if (bootstrapNodesByPath.remove(path) != null) {
+                rebuildBootstrapNodesSnapshot();
+            }
+        }
+    }
+
+    private void rebuildBootstrapNodesSnapshot() {
+        bootstrapNodesSnapshot = new NodesSnapshot<>(bootstrapNodesSnapshot.getVersion() + 1, bootstrapNodesByPath.values());
+        LOG.trace("Bootstrap nodes snapshot updated: {}", bootstrapNodesSnapshot);
+    }
+
     /**
      * Adds the listener.
      *
@@ -357,7 +436,12 @@ public abstract class WorkerNodeTracker extends ControlNodeTracker {
     private OperationsNodeInfo extractOperationServerInfo(ChildData currentData) {
         OperationsNodeInfo endpointServerInfo = null;
         try {
-            endpointServerInfo = operationsNodeAvroConverter.get().fromByteArray(currentData.getData(), null);
+            try {
+                endpointServerInfo = operationsNodeAvroConverter.get().fromByteArray(currentData.getData(), null);
+            } catch (EOFException e) {
+                // The data ends before the fields added later, read it as written by an older node
+                endpointServerInfo = previousOperationsNodeAvroConverter.get().fromByteArray(currentData.getData(), null);
+            }
         } catch (IOException e) {
             LOG.error("error reading control server info", e);
         }
@@ -0,0 +1,358 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package org.kaaproject.kaa.server.common.zk.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.AvroGenerated
+public class LoadDetails extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"LoadDetails\",\"namespace\":\"org.kaaproject.kaa.server.common.zk.gen\",\"fields\":[{\"name\":\"syncRate\",\"type\":\"double\",\"doc\":\"Endpoint sync requests per second\"},{\"name\":\"eventRate\",\"type\":\"double\",\"doc\":\"Endpoint events per second\"},{\"name\":\"logRate\",\"type\":\"double\",\"doc\":\"Endpoint log records per second\"},{\"name\":\"heapUsage\",\"type\":\"double\",\"doc\":\"Used heap memory as a fraction of max heap memory\"},{\"name\":\"mailboxDepth\",\"type\":\"long\",\"doc\":\"Messages waiting in actor mailboxes\"}]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+  /** Endpoint sync requests per second */
+   private double syncRate;
+  /** Endpoint events per second */
+   private double eventRate;
+  /** Endpoint log records per second */
+   private double logRate;
+  /** Used heap memory as a fraction of max heap memory */
+   private double heapUsage;
+  /** Messages waiting in actor mailboxes */
+   private long mailboxDepth;
+
+  /**
+   * Default constructor.  Note that this does not initialize fields
+   * to their default values from the schema.  If that is desired then
+   * one should use {@link \#newBuilder()}. 
+   */
+  public LoadDetails() {}
+
+  /**
+   * All-args constructor.
+   */
+  public LoadDetails(java.lang.Double syncRate, java.lang.Double eventRate, java.lang.Double logRate, java.lang.Double heapUsage, java.lang.Long mailboxDepth) {
+    this.syncRate = syncRate;
+    this.eventRate = eventRate;
+    this.logRate = logRate;
+    this.heapUsage = heapUsage;
+    this.mailboxDepth = mailboxDepth;
+  }
+
+  public org.apache.avro.Schema getSchema() { return SCHEMA$; }
+  // Used by DatumWriter.  Applications should not call. 
+  public java.lang.Object get(int field$) {
+    switch (field$) {
+    case 0: return syncRate;
+    case 1: return eventRate;
+    case 2: return logRate;
+    case 3: return heapUsage;
+    case 4: return mailboxDepth;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+  // Used by DatumReader.  Applications should not call. 
+  @SuppressWarnings(value="unchecked")
+  public void put(int field$, java.lang.Object value$) {
+    switch (field$) {
+    case 0: syncRate = (java.lang.Double)value$; break;
+    case 1: eventRate = (java.lang.Double)value$; break;
+    case 2: logRate = (java.lang.Double)value$; break;
+    case 3: heapUsage = (java.lang.Double)value$; break;
+    case 4: mailboxDepth = (java.lang.Long)value$; break;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+
+  /**
+   * Gets the value of the 'syncRate' field.
+   * Endpoint sync requests per second   */
+  public java.lang.Double getSyncRate() {
+    return syncRate;
+  }
+
+  /**
+   * Sets the value of the 'syncRate' field.
+   * Endpoint sync requests per second   * @param value the value to set.
+   */
+  public void setSyncRate(java.lang.Double value) {
+    this.syncRate = value;
+  }
+
+  /**
+   * Gets the value of the 'eventRate' field.
+   * Endpoint events per second   */
+  public java.lang.Double getEventRate() {
+    return eventRate;
+  }
+
+  /**
+   * Sets the value of the 'eventRate' field.
+   * Endpoint events per second   * @param value the value to set.
+   */
+  public void setEventRate(java.lang.Double value) {
+    this.eventRate = value;
+  }
+
+  /**
+   * Gets the value of the 'logRate' field.
+   * Endpoint log records per second   */
+  public java.lang.Double getLogRate() {
+    return logRate;
+  }
+
+  /**
+   * Sets the value of the 'logRate' field.
+   * Endpoint log records per second   * @param value the value to set.
+   */
+  public void setLogRate(java.lang.Double value) {
+    this.logRate = value;
+  }
+
+  /**
+   * Gets the value of the 'heapUsage' field.
+   * Used heap memory as a fraction of max heap memory   */
+  public java.lang.Double getHeapUsage() {
+    return heapUsage;
+  }
+
+  /**
+   * Sets the value of the 'heapUsage' field.
+   * Used heap memory as a fraction of max heap memory   * @param value the value to set.
+   */
+  public void setHeapUsage(java.lang.Double value) {
+    this.heapUsage = value;
+  }
+
+  /**
+   * Gets the value of the 'mailboxDepth' field.
+   * Messages waiting in actor mailboxes   */
+  public java.lang.Long getMailboxDepth() {
+    return mailboxDepth;
+  }
+
+  /**
+   * Sets the value of the 'mailboxDepth' field.
+   * Messages waiting in actor mailboxes   * @param value the value to set.
+   */
+  public void setMailboxDepth(java.lang.Long value) {
+    this.mailboxDepth = value;
+  }
+
+  /** Creates a new LoadDetails RecordBuilder */
+  public static org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder newBuilder() {
+    return new org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder();
+  }
+  
+  /** Creates a new LoadDetails RecordBuilder by copying an existing Builder */
+  public static org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder newBuilder(org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder other) {
+    return new org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder(other);
+  }
+  
+  /** Creates a new LoadDetails RecordBuilder by copying an existing LoadDetails instance */
+  public static org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder newBuilder(org.kaaproject.kaa.server.common.zk.gen.LoadDetails other) {
+    return new org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder(other);
+  }
+  
+  /**
+   * RecordBuilder for LoadDetails instances.
+   */
+  public static class Builder extends org.apache.avro.specific.SpecificRecordBuilderBase<LoadDetails>
+    implements org.apache.avro.data.RecordBuilder<LoadDetails> {
+
+    private double syncRate;
+    private double eventRate;
+    private double logRate;
+    private double heapUsage;
+    private long mailboxDepth;
+
+    /** Creates a new Builder */
+    private Builder() {
+      super(org.kaaproject.kaa.server.common.zk.gen.LoadDetails.SCHEMA$);
+    }
+    
+    /** Creates a Builder by copying an existing Builder */
+    private Builder(org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder other) {
+      super(other);
+      if (isValidValue(fields()[0], other.syncRate)) {
+        this.syncRate = data().deepCopy(fields()[0].schema(), other.syncRate);
+        fieldSetFlags()[0] = true;
+      }
+      if (isValidValue(fields()[1], other.eventRate)) {
+        this.eventRate = data().deepCopy(fields()[1].schema(), other.eventRate);
+        fieldSetFlags()[1] = true;
+      }
+      if (isValidValue(fields()[2], other.logRate)) {
+        this.logRate = data().deepCopy(fields()[2].schema(), other.logRate);
+        fieldSetFlags()[2] = true;
+      }
+      if (isValidValue(fields()[3], other.heapUsage)) {
+        this.heapUsage = data().deepCopy(fields()[3].schema(), other.heapUsage);
+        fieldSetFlags()[3] = true;
+      }
+      if (isValidValue(fields()[4], other.mailboxDepth)) {
+        this.mailboxDepth = data().deepCopy(fields()[4].schema(), other.mailboxDepth);
+        fieldSetFlags()[4] = true;
+      }
+    }
+    
+    /** Creates a Builder by copying an existing LoadDetails instance */
+    private Builder(org.kaaproject.kaa.server.common.zk.gen.LoadDetails other) {
+            super(org.kaaproject.kaa.server.common.zk.gen.LoadDetails.SCHEMA$);
+      if (isValidValue(fields()[0], other.syncRate)) {
+        this.syncRate = data().deepCopy(fields()[0].schema(), other.syncRate);
+        fieldSetFlags()[0] = true;
+      }
+      if (isValidValue(fields()[1], other.eventRate)) {
+        this.eventRate = data().deepCopy(fields()[1].schema(), other.eventRate);
+        fieldSetFlags()[1] = true;
+      }
+      if (isValidValue(fields()[2], other.logRate)) {
+        this.logRate = data().deepCopy(fields()[2].schema(), other.logRate);
+        fieldSetFlags()[2] = true;
+      }
+      if (isValidValue(fields()[3], other.heapUsage)) {
+        this.heapUsage = data().deepCopy(fields()[3].schema(), other.heapUsage);
+        fieldSetFlags()[3] = true;
+      }
+      if (isValidValue(fields()[4], other.mailboxDepth)) {
+        this.mailboxDepth = data().deepCopy(fields()[4].schema(), other.mailboxDepth);
+        fieldSetFlags()[4] = true;
+      }
+    }
+
+    /** Gets the value of the 'syncRate' field */
+    public java.lang.Double getSyncRate() {
+      return syncRate;
+    }
+    
+    /** Sets the value of the 'syncRate' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder setSyncRate(double value) {
+      validate(fields()[0], value);
+      this.syncRate = value;
+      fieldSetFlags()[0] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'syncRate' field has been set */
+    public boolean hasSyncRate() {
+      return fieldSetFlags()[0];
+    }
+    
+    /** Clears the value of the 'syncRate' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder clearSyncRate() {
+      fieldSetFlags()[0] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'eventRate' field */
+    public java.lang.Double getEventRate() {
+      return eventRate;
+    }
+    
+    /** Sets the value of the 'eventRate' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder setEventRate(double value) {
+      validate(fields()[1], value);
+      this.eventRate = value;
+      fieldSetFlags()[1] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'eventRate' field has been set */
+    public boolean hasEventRate() {
+      return fieldSetFlags()[1];
+    }
+    
+    /** Clears the value of the 'eventRate' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder clearEventRate() {
+      fieldSetFlags()[1] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'logRate' field */
+    public java.lang.Double getLogRate() {
+      return logRate;
+    }
+    
+    /** Sets the value of the 'logRate' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder setLogRate(double value) {
+      validate(fields()[2], value);
+      this.logRate = value;
+      fieldSetFlags()[2] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'logRate' field has been set */
+    public boolean hasLogRate() {
+      return fieldSetFlags()[2];
+    }
+    
+    /** Clears the value of the 'logRate' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder clearLogRate() {
+      fieldSetFlags()[2] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'heapUsage' field */
+    public java.lang.Double getHeapUsage() {
+      return heapUsage;
+    }
+    
+    /** Sets the value of the 'heapUsage' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder setHeapUsage(double value) {
+      validate(fields()[3], value);
+      this.heapUsage = value;
+      fieldSetFlags()[3] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'heapUsage' field has been set */
+    public boolean hasHeapUsage() {
+      return fieldSetFlags()[3];
+    }
+    
+    /** Clears the value of the 'heapUsage' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder clearHeapUsage() {
+      fieldSetFlags()[3] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'mailboxDepth' field */
+    public java.lang.Long getMailboxDepth() {
+      return mailboxDepth;
+    }
+    
+    /** Sets the value of the 'mailboxDepth' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder setMailboxDepth(long value) {
+      validate(fields()[4], value);
+      this.mailboxDepth = value;
+      fieldSetFlags()[4] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'mailboxDepth' field has been set */
+    public boolean hasMailboxDepth() {
+      return fieldSetFlags()[4];
+    }
+    
+    /** Clears the value of the 'mailboxDepth' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails.Builder clearMailboxDepth() {
+      fieldSetFlags()[4] = false;
+      return this;
+    }
+
+    @Override
+    public LoadDetails build() {
+      try {
+        LoadDetails record = new LoadDetails();
+        record.syncRate = fieldSetFlags()[0] ? this.syncRate : (java.lang.Double) defaultValue(fields()[0]);
+        record.eventRate = fieldSetFlags()[1] ? this.eventRate : (java.lang.Double) defaultValue(fields()[1]);
+        record.logRate = fieldSetFlags()[2] ? this.logRate : (java.lang.Double) defaultValue(fields()[2]);
+        record.heapUsage = fieldSetFlags()[3] ? this.heapUsage : (java.lang.Double) defaultValue(fields()[3]);
+        record.mailboxDepth = fieldSetFlags()[4] ? this.mailboxDepth : (java.lang.Long) defaultValue(fields()[4]);
+        return record;
+      } catch (Exception e) {
+        throw new org.apache.avro.AvroRuntimeException(e);
+      }
+    }
+  }
+}
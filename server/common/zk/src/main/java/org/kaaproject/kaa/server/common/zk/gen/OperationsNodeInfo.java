@@ -7,12 +7,14 @@ package org.kaaproject.kaa.server.common.zk.gen;
 @SuppressWarnings("all")
 @org.apache.avro.specific.AvroGenerated
 public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
-  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"OperationsNodeInfo\",\"namespace\":\"org.kaaproject.kaa.server.common.zk.gen\",\"fields\":[{\"name\":\"connectionInfo\",\"type\":{\"type\":\"record\",\"name\":\"ConnectionInfo\",\"fields\":[{\"name\":\"thriftHost\",\"type\":\"string\"},{\"name\":\"thriftPort\",\"type\":\"int\"},{\"name\":\"publicKey\",\"type\":[\"bytes\",\"null\"]}]}},{\"name\":\"loadInfo\",\"type\":{\"type\":\"record\",\"name\":\"LoadInfo\",\"fields\":[{\"name\":\"endpointCount\",\"type\":\"int\"},{\"name\":\"loadAverage\",\"type\":\"double\"}]}},{\"name\":\"timeStarted\",\"type\":\"long\"},{\"name\":\"transports\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"TransportMetaData\",\"fields\":[{\"name\":\"id\",\"type\":\"int\"},{\"name\":\"minSupportedVersion\",\"type\":\"int\"},{\"name\":\"maxSupportedVersion\",\"type\":\"int\"},{\"name\":\"connectionInfo\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"VersionConnectionInfoPair\",\"fields\":[{\"name\":\"version\",\"type\":\"int\"},{\"name\":\"conenctionInfo\",\"type\":\"bytes\"}]}}}]}}}]}");
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"OperationsNodeInfo\",\"namespace\":\"org.kaaproject.kaa.server.common.zk.gen\",\"fields\":[{\"name\":\"connectionInfo\",\"type\":{\"type\":\"record\",\"name\":\"ConnectionInfo\",\"fields\":[{\"name\":\"thriftHost\",\"type\":\"string\"},{\"name\":\"thriftPort\",\"type\":\"int\"},{\"name\":\"publicKey\",\"type\":[\"bytes\",\"null\"]}]}},{\"name\":\"loadInfo\",\"type\":{\"type\":\"record\",\"name\":\"LoadInfo\",\"fields\":[{\"name\":\"endpointCount\",\"type\":\"int\"},{\"name\":\"loadAverage\",\"type\":\"double\"}]}},{\"name\":\"timeStarted\",\"type\":\"long\"},{\"name\":\"transports\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"TransportMetaData\",\"fields\":[{\"name\":\"id\",\"type\":\"int\"},{\"name\":\"minSupportedVersion\",\"type\":\"int\"},{\"name\":\"maxSupportedVersion\",\"type\":\"int\"},{\"name\":\"connectionInfo\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"VersionConnectionInfoPair\",\"fields\":[{\"name\":\"version\",\"type\":\"int\"},{\"name\":\"conenctionInfo\",\"type\":\"bytes\"}]}}}]}}},{\"name\":\"loadDetails\",\"type\":[\"null\",{\"type\":\"record\",\"name\":\"LoadDetails\",\"fields\":[{\"name\":\"syncRate\",\"type\":\"double\",\"doc\":\"Endpoint sync requests per second\"},{\"name\":\"eventRate\",\"type\":\"double\",\"doc\":\"Endpoint events per second\"},{\"name\":\"logRate\",\"type\":\"double\",\"doc\":\"Endpoint log records per second\"},{\"name\":\"heapUsage\",\"type\":\"double\",\"doc\":\"Used heap memory as a fraction of max heap memory\"},{\"name\":\"mailboxDepth\",\"type\":\"long\",\"doc\":\"Messages waiting in actor mailboxes\"}]}],\"doc\":\"Appended last, so nodes that don't know the field still read the record\",\"default\":null}]}");
   public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
    private org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo connectionInfo;
    private org.kaaproject.kaa.server.common.zk.gen.LoadInfo loadInfo;
    private long timeStarted;
    private java.util.List<org.kaaproject.kaa.server.common.zk.gen.TransportMetaData> transports;
+  /** Appended last, so nodes that don't know the field still read the record */
+   private org.kaaproject.kaa.server.common.zk.gen.LoadDetails loadDetails;
 
   /**
    * Default constructor.  Note that this does not initialize fields
@@ -24,11 +26,12 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
   /**
    * All-args constructor.
    */
-  public OperationsNodeInfo(org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo connectionInfo, org.kaaproject.kaa.server.common.zk.gen.LoadInfo loadInfo, java.lang.Long timeStarted, java.util.List<org.kaaproject.kaa.server.common.zk.gen.TransportMetaData> transports) {
+  public OperationsNodeInfo(org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo connectionInfo, org.kaaproject.kaa.server.common.zk.gen.LoadInfo loadInfo, java.lang.Long timeStarted, java.util.List<org.kaaproject.kaa.server.common.zk.gen.TransportMetaData> transports, org.kaaproject.kaa.server.common.zk.gen.LoadDetails loadDetails) {
     this.connectionInfo = connectionInfo;
     this.loadInfo = loadInfo;
     this.timeStarted = timeStarted;
     this.transports = transports;
+    this.loadDetails = loadDetails;
   }
 
   public org.apache.avro.Schema getSchema() { return SCHEMA$; }
@@ -39,6 +42,7 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
     case 1: return loadInfo;
     case 2: return timeStarted;
     case 3: return transports;
+    case 4: return loadDetails;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -50,6 +54,7 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
     case 1: loadInfo = (org.kaaproject.kaa.server.common.zk.gen.LoadInfo)value$; break;
     case 2: timeStarted = (java.lang.Long)value$; break;
     case 3: transports = (java.util.List<org.kaaproject.kaa.server.common.zk.gen.TransportMetaData>)value$; break;
+    case 4: loadDetails = (org.kaaproject.kaa.server.common.zk.gen.LoadDetails)value$; break;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -114,6 +119,21 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
     this.transports = value;
   }
 
+  /**
+   * Gets the value of the 'loadDetails' field.
+   * Appended last, so nodes that don't know the field still read the record   */
+  public org.kaaproject.kaa.server.common.zk.gen.LoadDetails getLoadDetails() {
+    return loadDetails;
+  }
+
+  /**
+   * Sets the value of the 'loadDetails' field.
+   * Appended last, so nodes that don't know the field still read the record   * @param value the value to set.
+   */
+  public void setLoadDetails(org.kaaproject.kaa.server.common.zk.gen.LoadDetails value) {
+    this.loadDetails = value;
+  }
+
   /** Creates a new OperationsNodeInfo RecordBuilder */
   public static org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo.Builder newBuilder() {
     return new org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo.Builder();
@@ -139,6 +159,7 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
     private org.kaaproject.kaa.server.common.zk.gen.LoadInfo loadInfo;
     private long timeStarted;
     private java.util.List<org.kaaproject.kaa.server.common.zk.gen.TransportMetaData> transports;
+    private org.kaaproject.kaa.server.common.zk.gen.LoadDetails loadDetails;
 
     /** Creates a new Builder */
     private Builder() {
@@ -164,6 +185,10 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
         this.transports = data().deepCopy(fields()[3].schema(), other.transports);
         fieldSetFlags()[3] = true;
       }
+      if (isValidValue(fields()[4], other.loadDetails)) {
+        this.loadDetails = data().deepCopy(fields()[4].schema(), other.loadDetails);
+        fieldSetFlags()[4] = true;
+      }
     }
     
     /** Creates a Builder by copying an existing OperationsNodeInfo instance */
@@ -185,6 +210,10 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
         this.transports = data().deepCopy(fields()[3].schema(), other.transports);
         fieldSetFlags()[3] = true;
       }
+      if (isValidValue(fields()[4], other.loadDetails)) {
+        this.loadDetails = data().deepCopy(fields()[4].schema(), other.loadDetails);
+        fieldSetFlags()[4] = true;
+      }
     }
 
     /** Gets the value of the 'connectionInfo' field */
@@ -286,6 +315,31 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
       return this;
     }
 
+    /** Gets the value of the 'loadDetails' field */
+    public org.kaaproject.kaa.server.common.zk.gen.LoadDetails getLoadDetails() {
+      return loadDetails;
+    }
+    
+    /** Sets the value of the 'loadDetails' field */
+    public org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo.Builder setLoadDetails(org.kaaproject.kaa.server.common.zk.gen.LoadDetails value) {
+      validate(fields()[4], value);
+      this.loadDetails = value;
+      fieldSetFlags()[4] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'loadDetails' field has been set */
+    public boolean hasLoadDetails() {
+      return fieldSetFlags()[4];
+    }
+    
+    /** Clears the value of the 'loadDetails' field */
+    public org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo.Builder clearLoadDetails() {
+      loadDetails = null;
+      fieldSetFlags()[4] = false;
+      return this;
+    }
+
     @Override
     public OperationsNodeInfo build() {
       try {
@@ -294,6 +348,7 @@ public class OperationsNodeInfo extends org.apache.avro.specific.SpecificRecordB
         record.loadInfo = fieldSetFlags()[1] ? this.loadInfo : (org.kaaproject.kaa.server.common.zk.gen.LoadInfo) defaultValue(fields()[1]);
         record.timeStarted = fieldSetFlags()[2] ? this.timeStarted : (java.lang.Long) defaultValue(fields()[2]);
         record.transports = fieldSetFlags()[3] ? this.transports : (java.util.List<org.kaaproject.kaa.server.common.zk.gen.TransportMetaData>) defaultValue(fields()[3]);
+        record.loadDetails = fieldSetFlags()[4] ? this.loadDetails : (org.kaaproject.kaa.server.common.zk.gen.LoadDetails) defaultValue(fields()[4]);
         return record;
       } catch (Exception e) {
         throw new org.apache.avro.AvroRuntimeException(e);
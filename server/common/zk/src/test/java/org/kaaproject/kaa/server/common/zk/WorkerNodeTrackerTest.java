@@ -0,0 +1,183 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.zk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.server.common.zk.bootstrap.BootstrapNode;
+import org.kaaproject.kaa.server.common.zk.gen.BootstrapNodeInfo;
+import org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo;
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
+import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
+import org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo;
+
+public class WorkerNodeTrackerTest {
+
+    private static final ByteBuffer KEY_DATA = ByteBuffer.wrap(new byte[] { 10, 11, 12, 45, 34, 23, 67, 89, 66, 12 });
+
+    private final AvroByteArrayConverter<OperationsNodeInfo> operationsConverter = new AvroByteArrayConverter<>(OperationsNodeInfo.class);
+    private final AvroByteArrayConverter<BootstrapNodeInfo> bootstrapConverter = new AvroByteArrayConverter<>(BootstrapNodeInfo.class);
+
+    private BootstrapNode tracker;
+
+    @Before
+    public void before() {
+        tracker = new BootstrapNode(buildBootstrapNodeInfo("192.168.0.1", 1000), "localhost:2181", new ExponentialBackoffRetry(100, 1));
+    }
+
+    @After
+    public void after() throws IOException {
+        tracker.close();
+    }
+
+    @Test
+    public void operationsNodesSnapshotTest() throws Exception {
+        NodesSnapshot<OperationsNodeInfo> empty = tracker.getOperationServerNodesSnapshot();
+        assertTrue(empty.getNodes().isEmpty());
+
+        tracker.endpointAdded(operationsNodeData("/operationsServerNodes/1", "192.168.0.101", 1000, 1L));
+        tracker.endpointAdded(operationsNodeData("/operationsServerNodes/2", "192.168.0.102", 1000, 1L));
+        NodesSnapshot<OperationsNodeInfo> snapshot = tracker.getOperationServerNodesSnapshot();
+        assertEquals(2, snapshot.getNodes().size());
+        assertTrue(snapshot.getVersion() > empty.getVersion());
+        assertSame(snapshot.getNodes(), tracker.getCurrentOperationServerNodes());
+
+        // A restarted node registers a new path with the same connection, only the latest one is visible
+        tracker.endpointAdded(operationsNodeData("/operationsServerNodes/3", "192.168.0.101", 1000, 2L));
+        snapshot = tracker.getOperationServerNodesSnapshot();
+        assertEquals(2, snapshot.getNodes().size());
+        for (OperationsNodeInfo nodeInfo : snapshot.getNodes()) {
+            if ("192.168.0.101".equals(nodeInfo.getConnectionInfo().getThriftHost().toString())) {
+                assertEquals(2L, nodeInfo.getTimeStarted().longValue());
+            }
+        }
+
+        tracker.endpointRemoved(operationsNodeData("/operationsServerNodes/1", "192.168.0.101", 1000, 1L));
+        tracker.endpointRemoved(operationsNodeData("/operationsServerNodes/2", "192.168.0.102", 1000, 1L));
+        snapshot = tracker.getOperationServerNodesSnapshot();
+        assertEquals(1, snapshot.getNodes().size());
+        assertEquals(2L, snapshot.getNodes().get(0).getTimeStarted().longValue());
+    }
+
+    @Test
+    public void bootstrapNodesSnapshotTest() throws Exception {
+        tracker.bootstrapAdded(bootstrapNodeData("/bootstrapServerNodes/1", "192.168.0.201", 1000));
+        tracker.bootstrapAdded(bootstrapNodeData("/bootstrapServerNodes/2", "192.168.0.202", 1000));
+        NodesSnapshot<BootstrapNodeInfo> snapshot = tracker.getBootstrapNodesSnapshot();
+        assertEquals(2, snapshot.getNodes().size());
+
+        tracker.bootstrapUpdated(bootstrapNodeData("/bootstrapServerNodes/2", "192.168.0.202", 1000));
+        assertEquals(2, tracker.getCurrentBootstrapNodes().size());
+        assertTrue(tracker.getBootstrapNodesSnapshot().getVersion() > snapshot.getVersion());
+
+        tracker.bootstrapRemoved(bootstrapNodeData("/bootstrapServerNodes/1", "192.168.0.201", 1000));
+        assertEquals(1, tracker.getCurrentBootstrapNodes().size());
+        assertEquals("192.168.0.202", tracker.getCurrentBootstrapNodes().get(0).getConnectionInfo().getThriftHost().toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsImmutableTest() throws Exception {
+        tracker.endpointAdded(operationsNodeData("/operationsServerNodes/1", "192.168.0.101", 1000, 1L));
+        tracker.getCurrentOperationServerNodes().clear();
+    }
+
+    @Test
+    public void operationsNodeWrittenByOlderNodeTest() throws Exception {
+        Schema previousSchema = loadPreviousSchema();
+        OperationsNodeInfo nodeInfo = buildOperationsNodeInfo("192.168.0.101", 1000, 5L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new SpecificDatumWriter<OperationsNodeInfo>(previousSchema).write(nodeInfo, encoder);
+        encoder.flush();
+
+        tracker.endpointAdded(new ChildData("/operationsServerNodes/1", null, out.toByteArray()));
+        assertEquals(1, tracker.getCurrentOperationServerNodes().size());
+        OperationsNodeInfo decoded = tracker.getCurrentOperationServerNodes().get(0);
+        assertEquals("192.168.0.101", decoded.getConnectionInfo().getThriftHost().toString());
+        assertEquals(1, decoded.getLoadInfo().getEndpointCount().intValue());
+        assertEquals(5L, decoded.getTimeStarted().longValue());
+        assertEquals(nodeInfo.getTransports(), decoded.getTransports());
+        assertNull(decoded.getLoadDetails());
+    }
+
+    @Test
+    public void operationsNodeReadByOlderNodeTest() throws Exception {
+        Schema previousSchema = loadPreviousSchema();
+        OperationsNodeInfo nodeInfo = buildOperationsNodeInfo("192.168.0.101", 1000, 5L);
+        nodeInfo.setLoadDetails(new LoadDetails(100.0, 10.0, 20.0, 0.5, 3L));
+        byte[] data = operationsConverter.toByteArray(nodeInfo);
+
+        GenericRecord decoded = new GenericDatumReader<GenericRecord>(previousSchema).read(null,
+                DecoderFactory.get().binaryDecoder(data, null));
+        assertEquals(5L, decoded.get("timeStarted"));
+        assertEquals(1, ((GenericRecord) decoded.get("loadInfo")).get("endpointCount"));
+        assertEquals(nodeInfo.getTransports().size(), ((List<?>) decoded.get("transports")).size());
+    }
+
+    private Schema loadPreviousSchema() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/operations-node-info-v1.avsc")) {
+            return new Schema.Parser().parse(in);
+        }
+    }
+
+    private ChildData operationsNodeData(String path, String host, int port, long timeStarted) throws IOException {
+        return new ChildData(path, null, operationsConverter.toByteArray(buildOperationsNodeInfo(host, port, timeStarted)));
+    }
+
+    private OperationsNodeInfo buildOperationsNodeInfo(String host, int port, long timeStarted) {
+        OperationsNodeInfo nodeInfo = new OperationsNodeInfo();
+        nodeInfo.setConnectionInfo(new ConnectionInfo(host, port, KEY_DATA));
+        nodeInfo.setLoadInfo(new LoadInfo(1, 1.0));
+        nodeInfo.setTimeStarted(timeStarted);
+        nodeInfo.setTransports(BootstrapNodeIT.getHttpAndTcpTransportMD());
+        return nodeInfo;
+    }
+
+    private ChildData bootstrapNodeData(String path, String host, int port) throws IOException {
+        return new ChildData(path, null, bootstrapConverter.toByteArray(buildBootstrapNodeInfo(host, port)));
+    }
+
+    private BootstrapNodeInfo buildBootstrapNodeInfo(String host, int port) {
+        BootstrapNodeInfo nodeInfo = new BootstrapNodeInfo();
+        nodeInfo.setConnectionInfo(new ConnectionInfo(host, port, KEY_DATA));
+        nodeInfo.setTimeStarted(System.currentTimeMillis());
+        nodeInfo.setTransports(BootstrapNodeIT.getHttpAndTcpTransportMD());
+        return nodeInfo;
+    }
+}
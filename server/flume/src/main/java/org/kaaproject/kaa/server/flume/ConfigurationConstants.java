@@ -63,12 +63,29 @@ public interface ConfigurationConstants {
     
     public static final String CONFIG_HDFS_FILE_PREFIX = "hdfs.filePrefix";
     public static final String DEFAULT_HDFS_FILE_PREFIX = "data";
+
+    public static final String CONFIG_HDFS_FILE_FORMAT = "hdfs.fileFormat";
+    public static final String FILE_FORMAT_AVRO = "avro";
+    public static final String FILE_FORMAT_PARQUET = "parquet";
+    public static final String DEFAULT_HDFS_FILE_FORMAT = FILE_FORMAT_AVRO;
+
+    public static final String CONFIG_HDFS_PARQUET_ROW_GROUP_SIZE = "hdfs.parquet.rowGroupSize";
+    public static final int DEFAULT_HDFS_PARQUET_ROW_GROUP_SIZE = 128 * 1024 * 1024;
+
+    public static final String CONFIG_HDFS_PARQUET_PAGE_SIZE = "hdfs.parquet.pageSize";
+    public static final int DEFAULT_HDFS_PARQUET_PAGE_SIZE = 1024 * 1024;
+
+    public static final String CONFIG_HDFS_PARQUET_COMPRESSION_CODEC = "hdfs.parquet.compressionCodec";
+    public static final String DEFAULT_HDFS_PARQUET_COMPRESSION_CODEC = "snappy";
     
     public static final String CONFIG_HDFS_KERBEROS_PRINCIPAL = "hdfs.kerberosPrincipal";
     
     public static final String CONFIG_HDFS_KERBEROS_KEYTAB = "hdfs.kerberosKeytab";
     
     public static final String CONFIG_HDFS_PROXY_USER = "hdfs.proxyUser";
+
+    // Hadoop configuration properties used to open the bucket files, e.g. hdfs.config.dfs.replication
+    public static final String CONFIG_HDFS_HADOOP_CONFIG_PREFIX = "hdfs.config.";
     
     public static final String CONFIG_AVRO_EVENT_SERIALIZER_SCHEMA_SOURCE = "avro.schema.source";
     
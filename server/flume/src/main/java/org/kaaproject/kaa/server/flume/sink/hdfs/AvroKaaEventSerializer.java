@@ -22,8 +22,9 @@ import static org.apache.flume.serialization.AvroEventSerializerConfigurationCon
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
@@ -63,7 +64,7 @@ public class AvroKaaEventSerializer implements EventSerializer, Configurable,
 
     private int syncIntervalBytes;
     private String compressionCodec;
-    private static Map<KaaSinkKey, Schema> schemaCache = new HashMap<KaaSinkKey, Schema>();
+    private static Map<KaaSinkKey, Schema> schemaCache = new ConcurrentHashMap<KaaSinkKey, Schema>();
 
     private AvroSchemaSource schemaSource;
 
@@ -103,7 +104,9 @@ public class AvroKaaEventSerializer implements EventSerializer, Configurable,
         }
         KaaRecordEvent kaaRecordEvent = (KaaRecordEvent)event;
         
-        binaryDecoder = DecoderFactory.get().binaryDecoder(kaaRecordEvent.getBody(), binaryDecoder);
+        ByteBuffer body = kaaRecordEvent.getBodyBuffer();
+        binaryDecoder = DecoderFactory.get().binaryDecoder(body.array(), body.arrayOffset() + body.position(),
+                body.remaining(), binaryDecoder);
         GenericRecord recordData = datumReader.read(null, binaryDecoder);
         
         wrapperRecord.put(RecordWrapperSchemaGenerator.RECORD_HEADER_FIELD, kaaRecordEvent.getRecordHeader());
@@ -113,31 +116,8 @@ public class AvroKaaEventSerializer implements EventSerializer, Configurable,
     }
 
     private void initialize(Event event) throws IOException {
-        Schema schema = null;
+        Schema schema = loadSchema(schemaSource, event);
         Schema wrapperSchema = null;
-        KaaSinkKey key = new KaaSinkKey(event.getHeaders());
-        schema = schemaCache.get(key);
-        if (schema == null) {
-            try {
-                schema = schemaSource.loadByKey(key);
-            } catch (Exception e) {
-                logger.error("Unable to load schema by key {}", key);
-                logger.error("Caused by: ", e);
-                throw new FlumeException("Could not find schema for event "
-                        + event);
-            }
-            schemaCache.put(key, schema);
-        }
-
-        if (schema == null) {
-            String schemaString = event.getHeaders().get(
-                    AVRO_SCHEMA_LITERAL_HEADER);
-            if (schemaString == null) {
-                throw new FlumeException("Could not find schema for event "
-                        + event);
-            }
-            schema = new Schema.Parser().parse(schemaString);
-        }
         
         datumReader = new GenericDatumReader<GenericRecord>(schema);
         
@@ -162,6 +142,38 @@ public class AvroKaaEventSerializer implements EventSerializer, Configurable,
         wrapperRecord = new GenericData.Record(wrapperSchema);
     }
 
+    /**
+     * Gets the log schema of the event from the schema source or the event headers.
+     */
+    static Schema loadSchema(AvroSchemaSource schemaSource, Event event) {
+        KaaSinkKey key = new KaaSinkKey(event.getHeaders());
+        Schema schema = schemaCache.get(key);
+        if (schema == null) {
+            try {
+                schema = schemaSource.loadByKey(key);
+            } catch (Exception e) {
+                logger.error("Unable to load schema by key {}", key);
+                logger.error("Caused by: ", e);
+                throw new FlumeException("Could not find schema for event "
+                        + event);
+            }
+            if (schema != null) {
+                schemaCache.put(key, schema);
+            }
+        }
+
+        if (schema == null) {
+            String schemaString = event.getHeaders().get(
+                    AVRO_SCHEMA_LITERAL_HEADER);
+            if (schemaString == null) {
+                throw new FlumeException("Could not find schema for event "
+                        + event);
+            }
+            schema = new Schema.Parser().parse(schemaString);
+        }
+        return schema;
+    }
+
     @Override
     public void flush() throws IOException {
         if (dataFileWriter != null) {
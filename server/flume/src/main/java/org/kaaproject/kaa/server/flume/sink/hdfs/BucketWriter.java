@@ -19,15 +19,14 @@ package org.kaaproject.kaa.server.flume.sink.hdfs;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.security.PrivilegedExceptionAction;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.flume.Context;
-import org.apache.flume.Event;
 import org.apache.flume.instrumentation.SinkCounter;
 import org.apache.flume.sink.hdfs.HDFSWriter;
 import org.apache.hadoop.conf.Configuration;
@@ -35,6 +34,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.kaaproject.kaa.server.flume.ConfigurationConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,13 +51,13 @@ class BucketWriter {
       .getLogger(BucketWriter.class);
 
   private static final String IN_USE_EXT = ".tmp";
-  private static final String AVRO_EXT = ".avro";
   /**
    * This lock ensures that only one thread can open a file at a time.
    */
   private static final Integer staticLock = new Integer(1);
 
   private final HDFSWriter writer;
+  private final String fileExtension;
   private final long rollInterval;
   private final long rollSize;
   private final long rollCount;
@@ -65,6 +65,7 @@ class BucketWriter {
   private final long defaultBlockSize;
   private final ScheduledThreadPoolExecutor timedRollerPool;
   private final UserGroupInformation user;
+  private final Map<String, String> hadoopProperties;
 
   private long eventCounter;
   private long processSize;
@@ -79,7 +80,7 @@ class BucketWriter {
   private final SinkCounter sinkCounter;
 
   BucketWriter(long rollInterval, long rollSize, long rollCount, long batchSize, long defaultBlockSize,
-      Context context, String filePath, HDFSWriter writer,
+      Context context, String filePath, HDFSWriter writer, String fileExtension,
       ScheduledThreadPoolExecutor timedRollerPool, UserGroupInformation user,
       SinkCounter sinkCounter) {
     this.rollInterval = rollInterval;
@@ -89,9 +90,11 @@ class BucketWriter {
     this.defaultBlockSize = defaultBlockSize;
     this.filePath = filePath;
     this.writer = writer;
+    this.fileExtension = fileExtension;
     this.timedRollerPool = timedRollerPool;
     this.user = user;
     this.sinkCounter = sinkCounter;
+    this.hadoopProperties = context.getSubProperties(ConfigurationConstants.CONFIG_HDFS_HADOOP_CONFIG_PREFIX);
 
     isOpen = false;
 
@@ -149,6 +152,20 @@ class BucketWriter {
     });
   }
 
+  /**
+   * Creates the Hadoop configuration used to open bucket files.
+   * @param properties the properties set by the sink configuration
+   */
+  static Configuration createHadoopConfiguration(Map<String, String> properties) {
+    Configuration config = new Configuration();
+    // disable FileSystem JVM shutdown hook
+    config.setBoolean("fs.automatic.close", false);
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      config.set(property.getKey(), property.getValue());
+    }
+    return config;
+  }
+
   /**
    * doOpen() must only be called by open()
    * @throws IOException
@@ -158,9 +175,7 @@ class BucketWriter {
       throw new IOException("Invalid file settings");
     }
 
-    Configuration config = new Configuration();
-    // disable FileSystem JVM shutdown hook
-    config.setBoolean("fs.automatic.close", false);
+    Configuration config = createHadoopConfiguration(hadoopProperties);
 
     long blockSize = DFSConfigKeys.DFS_BLOCK_SIZE_DEFAULT;
     if (defaultBlockSize > 0) {
@@ -226,19 +241,37 @@ class BucketWriter {
     runPrivileged(new PrivilegedExceptionAction<Void>() {
       @Override
       public Void run() throws Exception {
-        doClose();
+        doClose(false);
         return null;
       }
     });
   }
 
   /**
-   * doClose() must only be called by close()
+   * Close the file handle and rename the temp file like {@link #close()}, but
+   * fail if the HDFSWriter can't be closed. The incomplete temp file is not
+   * renamed then. Used with writers whose data is durable only once closed.
+   * @throws IOException On failure to close the HDFSWriter or to rename the temp file.
+   */
+  public synchronized void roll() throws IOException, InterruptedException {
+    flush();
+    runPrivileged(new PrivilegedExceptionAction<Void>() {
+      @Override
+      public Void run() throws Exception {
+        doClose(true);
+        return null;
+      }
+    });
+  }
+
+  /**
+   * doClose() must only be called by close() or roll()
    * @throws IOException
    */
-  private void doClose() throws IOException {
+  private void doClose(boolean failOnWriterError) throws IOException {
 	String currentBucket = bucketPath + IN_USE_EXT;
     LOG.debug("Closing {}", currentBucket);
+    IOException writerError = null;
     if (isOpen) {
       try {
         writer.close(); // could block
@@ -246,6 +279,7 @@ class BucketWriter {
       } catch (IOException e) {
         LOG.warn("failed to close() HDFSWriter for file (" + currentBucket + "). Exception follows.", e);
         sinkCounter.incrementConnectionFailedCount();
+        writerError = e;
       }
       isOpen = false;
     } else {
@@ -260,6 +294,11 @@ class BucketWriter {
         timedRollFuture = null;
     }
 
+    if (failOnWriterError && writerError != null) {
+      fileSystem = null;
+      throw writerError;
+    }
+
     if (bucketPath != null && fileSystem != null) {
       renameBucket(); // could block or throw IOException
       fileSystem = null;
@@ -328,7 +367,7 @@ class BucketWriter {
     }
 
     // update statistics
-    processSize += event.getBody().length;
+    processSize += event.getBodyLength();
     eventCounter++;
     batchCounter++;
 
@@ -354,9 +393,9 @@ class BucketWriter {
     // write the event
     try {
       sinkCounter.addToEventDrainAttemptCount(events.size());
-      for (Event event : events) {
+      for (KaaRecordEvent event : events) {
     	  writer.append(event); // could block
-    	  processSize += event.getBody().length;
+    	  processSize += event.getBodyLength();
       }
     } catch (IOException e) {
       LOG.warn("Caught IOException writing to HDFSWriter ({}). Closing file (" +
@@ -404,7 +443,7 @@ class BucketWriter {
    */
   private void renameBucket() throws IOException {
     Path srcPath = new Path(bucketPath + IN_USE_EXT);
-    Path dstPath = new Path(bucketPath + AVRO_EXT);
+    Path dstPath = new Path(bucketPath + fileExtension);
     if(fileSystem.exists(srcPath)) { // could block
       LOG.info("Renaming " + srcPath + " to " + dstPath);
       fileSystem.rename(srcPath, dstPath); // could block
@@ -421,8 +460,8 @@ class BucketWriter {
     return (batchCounter == 0);
   }
 
-  private long generateSerial (Event event) {
+  private long generateSerial (KaaRecordEvent event) {
 	  long timestamp = System.currentTimeMillis();
-	  return Arrays.hashCode(event.getBody()) + ManagementFactory.getRuntimeMXBean().getName().hashCode() + (int)(timestamp ^ (timestamp >>> 32));
+	  return event.getBodyBuffer().hashCode() + ManagementFactory.getRuntimeMXBean().getName().hashCode() + (int)(timestamp ^ (timestamp >>> 32));
   }
 }
@@ -22,33 +22,31 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.avro.io.BinaryDecoder;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.flume.Event;
-import org.apache.flume.event.EventBuilder;
-import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
+import org.kaaproject.kaa.server.common.log.shared.RecordDataReader;
 
 import com.google.common.collect.Lists;
 
 public class KaaEventFactory {
 
-    private SpecificDatumReader<RecordData> avroReader;
-    private BinaryDecoder decoder;
+    private RecordDataReader recordDataReader;
     private Map<KaaSinkKey, Map<String,String>> headersMap = new HashMap<>();
     
     public KaaEventFactory() {
-        avroReader = new SpecificDatumReader<>(RecordData.class);
+        recordDataReader = new RecordDataReader();
     }
     
+    /**
+     * Splits the Flume event into record events. The record events share the
+     * body of the Flume event, it must not be modified while they are in use.
+     */
     public Map<KaaSinkKey, List<KaaRecordEvent>> processIncomingFlumeEvent(Event event) throws IOException {
         Map<KaaSinkKey, List<KaaRecordEvent>> eventsMap = new LinkedHashMap<KaaSinkKey, List<KaaRecordEvent>>(); 
         
         byte[] body = event.getBody();
-        decoder = DecoderFactory.get().binaryDecoder(body, decoder);
+        recordDataReader.reset(body, 0, body.length);
         
-        RecordData data = avroReader.read(null, decoder);
-        KaaSinkKey sinkKey = new KaaSinkKey(data.getApplicationToken(), data.getSchemaVersion());
+        KaaSinkKey sinkKey = new KaaSinkKey(recordDataReader.getApplicationToken(), recordDataReader.getSchemaVersion());
         Map<String,String> headers = headersMap.get(sinkKey);
         if (headers == null) {
             headers = new HashMap<>();
@@ -56,8 +54,9 @@ public class KaaEventFactory {
             headersMap.put(sinkKey, headers);
         }
         List<KaaRecordEvent> events = Lists.newArrayList();
-        for (ByteBuffer eventData : data.getEventRecords()) {
-            KaaRecordEvent kaaRecordEvent = new KaaRecordEvent(data.getRecordHeader(), headers, eventData.array());
+        while (recordDataReader.hasNext()) {
+            ByteBuffer eventData = recordDataReader.next();
+            KaaRecordEvent kaaRecordEvent = new KaaRecordEvent(recordDataReader.getRecordHeader(), headers, eventData);
             events.add(kaaRecordEvent);
         }
         eventsMap.put(sinkKey, events);
@@ -17,7 +17,8 @@ package org.kaaproject.kaa.server.flume.sink.hdfs;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -76,7 +77,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
       //writers
       private LoadingCache<HdfsSinkKey, BucketWriter> writerCache;
       private BucketWriterLoader bucketWriterLoader;
-      private Map<HdfsSinkKey, BucketWriter> writerFlushMap;
+      private Map<HdfsSinkKey, List<KaaRecordEvent>> bucketEventsMap;
       private ExecutorService callTimeoutPool;
       private ScheduledThreadPoolExecutor timedRollerPool;
       private ScheduledExecutorService statisticsPool;
@@ -113,6 +114,8 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
       private long batchSize;
       private long defaultBlockSize;
       private String filePrefix;
+      private String fileFormat;
+      private boolean rollEachTransaction;
       private long statisticsInterval;
 
       public KaaHdfsSink() {
@@ -141,6 +144,11 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
         defaultBlockSize = context.getLong(CONFIG_HDFS_DEFAULT_BLOCK_SIZE, DEFAULT_HDFS_DEFAULT_BLOCK_SIZE);
 
         filePrefix = context.getString(CONFIG_HDFS_FILE_PREFIX, DEFAULT_HDFS_FILE_PREFIX);
+        fileFormat = context.getString(CONFIG_HDFS_FILE_FORMAT, DEFAULT_HDFS_FILE_FORMAT);
+        Preconditions.checkArgument(FILE_FORMAT_AVRO.equals(fileFormat) || FILE_FORMAT_PARQUET.equals(fileFormat),
+                "fileFormat must be " + FILE_FORMAT_AVRO + " or " + FILE_FORMAT_PARQUET);
+        // Parquet files can't be flushed, their records are durable only once the file is closed
+        rollEachTransaction = FILE_FORMAT_PARQUET.equals(fileFormat);
 
         Preconditions.checkArgument(batchSize > 0,
                 "batchSize must be greater than 0");
@@ -181,18 +189,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
               eT);
         } catch (ExecutionException e1) {
           sinkCounter.incrementConnectionFailedCount();
-          Throwable cause = e1.getCause();
-          if (cause instanceof IOException) {
-            throw (IOException) cause;
-          } else if (cause instanceof InterruptedException) {
-            throw (InterruptedException) cause;
-          } else if (cause instanceof RuntimeException) {
-            throw (RuntimeException) cause;
-          } else if (cause instanceof Error) {
-            throw (Error)cause;
-          } else {
-            throw new RuntimeException(e1);
-          }
+          throw rethrowCause(e1);
         } catch (CancellationException ce) {
           throw new InterruptedException(
               "Blocked callable interrupted by rotation event");
@@ -202,6 +199,25 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
         }
       }
 
+      /**
+       * Rethrow the cause of a failed callable
+       */
+      private static RuntimeException rethrowCause(ExecutionException e)
+          throws IOException, InterruptedException {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof InterruptedException) {
+          throw (InterruptedException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        } else {
+          throw new RuntimeException(e);
+        }
+      }
+
       @Override
       public Status process() throws EventDeliveryException {
             Channel channel = getChannel();
@@ -235,14 +251,15 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
                 }
                   for (KaaSinkKey key : incomingEventsMap.keySet()) {
                       HdfsSinkKey hdfsSinkKey = new HdfsSinkKey(rootHdfsPath, key);
-                      BucketWriter bucketWriter;
-                      // track the buckets getting written in this transaction
-                      bucketWriter = writerCache.get(hdfsSinkKey);
-                      writerFlushMap.put(hdfsSinkKey, bucketWriter);
-                      // Write the data to HDFS
+                      // collect the events of each bucket, they are written once the transaction is drained
+                      List<KaaRecordEvent> bucketEvents = bucketEventsMap.get(hdfsSinkKey);
+                      if (bucketEvents == null) {
+                          bucketEvents = new ArrayList<KaaRecordEvent>();
+                          bucketEventsMap.put(hdfsSinkKey, bucketEvents);
+                      }
                       List<KaaRecordEvent> events = incomingEventsMap.get(key);
                       sinkEventCount += events.size();
-                      appendBatch(bucketWriter, events);
+                      bucketEvents.addAll(events);
                   }
 
               }
@@ -254,12 +271,13 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
                 sinkCounter.incrementBatchUnderflowCount();
               }
 
-              // flush all pending buckets before committing the transaction
-              for (BucketWriter bucketWriter : writerFlushMap.values()) {
-                  flush(bucketWriter);
+              // write and flush (or roll) all pending buckets in parallel before committing the transaction
+              List<BucketFlush> bucketFlushes = new ArrayList<BucketFlush>(bucketEventsMap.size());
+              for (Entry<HdfsSinkKey, List<KaaRecordEvent>> entry : bucketEventsMap.entrySet()) {
+                  bucketFlushes.add(new BucketFlush(entry.getKey(), writerCache.get(entry.getKey()), entry.getValue()));
               }
-
-              writerFlushMap.clear();
+              bucketEventsMap.clear();
+              appendAndFlush(bucketFlushes);
 
               transaction.commit();
 
@@ -272,10 +290,12 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
               }
               return Status.READY;
             } catch (IOException eIO) {
+              bucketEventsMap.clear();
               transaction.rollback();
               logger.warn("HDFS IO error", eIO);
               return Status.BACKOFF;
             } catch (Throwable th) { //NOSONAR
+              bucketEventsMap.clear();
               transaction.rollback();
               logger.error("process failed", th);
               if (th instanceof Error) {
@@ -326,6 +346,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
                      defaultBlockSize,
                      context,
                      filePrefix,
+                     fileFormat,
                      timedRollerPool,
                      proxyTicket,
                      sinkCounter);
@@ -336,7 +357,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
                 removalListener(this).
                 build(bucketWriterLoader);
 
-        writerFlushMap = new HashMap<HdfsSinkKey, BucketWriter>();
+        bucketEventsMap = new LinkedHashMap<HdfsSinkKey, List<KaaRecordEvent>>();
 
         sinkCounter.start();
         started = true;
@@ -409,11 +430,9 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
                 RemovalNotification<HdfsSinkKey, BucketWriter> entry) {
             if (started) {
                 RemovalCause cause = entry.getCause();
-                HdfsSinkKey key = entry.getKey();
                 BucketWriter writer = entry.getValue();
                 logger.info("Stopping removed writer because of " + cause + " for key: " + entry.getKey());
                try {
-                   writerFlushMap.remove(key);
                    writer.close();
                  } catch (IOException e) {
                    logger.warn(entry.getKey().toString(), e);
@@ -614,33 +633,43 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
 
 
           /**
-           * Append to bucket writer with timeout enforced
+           * Append to and flush the bucket writers concurrently on the call
+           * runner pool and wait until all of them complete, so that a slow
+           * bucket does not delay the others. Each bucket must complete within
+           * the call timeout from its submission, including the time it waits
+           * for a free runner, so the whole batch takes at most one call
+           * timeout. Throws the first failure once all buckets are done.
            */
-          private void appendBatch(final BucketWriter bucketWriter, final List<KaaRecordEvent> events)
-                  throws IOException, InterruptedException {
-                // Write the data to HDFS
-                callWithTimeout(new Callable<Void>() {
-                  @Override
-                  public Void call() throws Exception {
-                    bucketWriter.appendBatch(events);
-                    return null;
+          private void appendAndFlush(List<BucketFlush> bucketFlushes)
+              throws IOException, InterruptedException {
+            for (BucketFlush bucketFlush : bucketFlushes) {
+              bucketFlush.submit(callTimeoutPool);
+            }
+            Exception failure = null;
+            try {
+              for (BucketFlush bucketFlush : bucketFlushes) {
+                try {
+                  bucketFlush.await();
+                } catch (IOException | RuntimeException e) {
+                  logger.warn("Failed to write bucket " + bucketFlush.key, e);
+                  if (failure == null) {
+                    failure = e;
+                  } else {
+                    failure.addSuppressed(e);
                   }
-                });
+                }
               }
-
-          /**
-           * Flush bucket writer with timeout enforced
-           */
-          private void flush(final BucketWriter bucketWriter)
-              throws IOException, InterruptedException {
-
-            callWithTimeout(new Callable<Void>() {
-              @Override
-              public Void call() throws Exception {
-                bucketWriter.flush();
-                return null;
+            } catch (InterruptedException e) {
+              for (BucketFlush bucketFlush : bucketFlushes) {
+                bucketFlush.future.cancel(true);
               }
-            });
+              throw e;
+            }
+            if (failure instanceof IOException) {
+              throw (IOException) failure;
+            } else if (failure != null) {
+              throw (RuntimeException) failure;
+            }
           }
 
           /**
@@ -658,9 +687,70 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
             });
           }
 
+      /**
+       * Appends the events of a transaction to a bucket writer and flushes it,
+       * or rolls it if the file format can't be flushed
+       */
+      private class BucketFlush implements Callable<Void> {
+
+          private final HdfsSinkKey key;
+          private final BucketWriter bucketWriter;
+          private final List<KaaRecordEvent> events;
+          private long deadline;
+          private Future<Void> future;
+
+          BucketFlush(HdfsSinkKey key, BucketWriter bucketWriter, List<KaaRecordEvent> events) {
+              this.key = key;
+              this.bucketWriter = bucketWriter;
+              this.events = events;
+          }
+
+          @Override
+          public Void call() throws Exception {
+              bucketWriter.appendBatch(events);
+              if (rollEachTransaction) {
+                  bucketWriter.roll();
+              } else {
+                  bucketWriter.flush();
+              }
+              return null;
+          }
+
+          void submit(ExecutorService pool) {
+              deadline = System.currentTimeMillis() + callTimeout;
+              future = pool.submit(this);
+          }
+
+          /**
+           * Wait for the completion, cancel the flush and throw an IOException
+           * if it is not done within the call timeout after submission
+           */
+          void await() throws IOException, InterruptedException {
+              try {
+                  if (callTimeout <= 0) {
+                      future.get();
+                  } else {
+                      future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                  }
+              } catch (TimeoutException e) {
+                  future.cancel(true);
+                  sinkCounter.incrementConnectionFailedCount();
+                  throw new IOException("Bucket " + key + " flush timed out after " + callTimeout + " ms", e);
+              } catch (ExecutionException e) {
+                  sinkCounter.incrementConnectionFailedCount();
+                  throw rethrowCause(e);
+              } catch (CancellationException e) {
+                  throw new IOException("Bucket " + key + " flush cancelled", e);
+              }
+          }
+      }
+
       static class BucketWriterLoader extends CacheLoader<HdfsSinkKey, BucketWriter>
       {
 
+          private static final String AVRO_EXT = ".avro";
+          private static final String PARQUET_EXT = ".parquet";
+
           private final long rollInterval;
           private final long rollSize;
           private final long rollCount;
@@ -668,6 +758,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
           private final long defaultBlockSize;
           private final Context context;
           private final String filePrefix;
+          private final String fileFormat;
           private final ScheduledThreadPoolExecutor timedRollerPool;
           private final UserGroupInformation proxyTicket;
           private final SinkCounter sinkCounter;
@@ -679,6 +770,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
                                      long defaultBlockSize,
                                      Context context,
                                      String filePrefix,
+                                     String fileFormat,
                                      ScheduledThreadPoolExecutor timedRollerPool,
                                      UserGroupInformation proxyTicket,
                                      SinkCounter sinkCounter) {
@@ -689,6 +781,7 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
               this.defaultBlockSize = defaultBlockSize;
               this.context = context;
               this.filePrefix = filePrefix;
+              this.fileFormat = fileFormat;
               this.timedRollerPool = timedRollerPool;
               this.proxyTicket = proxyTicket;
               this.sinkCounter = sinkCounter;
@@ -698,15 +791,22 @@ public class KaaHdfsSink extends AbstractSink implements Configurable, Configura
         @Override
         public BucketWriter load(HdfsSinkKey key) throws Exception {
 
-            HDFSWriter hdfsWriter = new HDFSDataStream();
+            HDFSWriter hdfsWriter;
+            String fileExtension;
+            if (FILE_FORMAT_PARQUET.equals(fileFormat)) {
+                hdfsWriter = new ParquetKaaEventWriter();
+                fileExtension = PARQUET_EXT;
+            } else {
+                hdfsWriter = new HDFSDataStream();
+                fileExtension = AVRO_EXT;
+                context.put("serializer", AvroKaaEventSerializer.Builder.class.getName());
+            }
             String path = key.getPath() + Path.SEPARATOR + filePrefix;
 
-            context.put("serializer", AvroKaaEventSerializer.Builder.class.getName());
-
             logger.info("Creating new writer for key: " + key);
 
             return new BucketWriter(rollInterval, rollSize, rollCount,
-                      batchSize, defaultBlockSize, context, path, hdfsWriter,
+                      batchSize, defaultBlockSize, context, path, hdfsWriter, fileExtension,
                       timedRollerPool, proxyTicket, sinkCounter);
         }
 
@@ -16,18 +16,28 @@
 
 package org.kaaproject.kaa.server.flume.sink.hdfs;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import org.apache.flume.Event;
 import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
 
+/**
+ * A log record of a Kaa Flume event. The record body may be a slice of the
+ * Flume event body, it is copied to a separate array only if
+ * {@link #getBody()} is called.
+ */
 public class KaaRecordEvent implements Event {
 
     private RecordHeader recordHeader;
     private Map<String, String> headers;
-    private byte[] body;
+    private ByteBuffer body;
     
     public KaaRecordEvent(RecordHeader recordHeader, Map<String, String> headers, byte[] body) {
+        this(recordHeader, headers, ByteBuffer.wrap(body));
+    }
+
+    public KaaRecordEvent(RecordHeader recordHeader, Map<String, String> headers, ByteBuffer body) {
         this.recordHeader = recordHeader;
         this.headers = headers;
         this.body = body;
@@ -49,12 +59,30 @@ public class KaaRecordEvent implements Event {
 
     @Override
     public byte[] getBody() {
-        return body;
+        if (!body.hasArray() || body.arrayOffset() != 0 || body.position() != 0 || body.remaining() != body.array().length) {
+            byte[] data = new byte[body.remaining()];
+            body.duplicate().get(data);
+            body = ByteBuffer.wrap(data);
+        }
+        return body.array();
     }
 
     @Override
     public void setBody(byte[] body) {
-        this.body = body;
+        this.body = ByteBuffer.wrap(body);
+    }
+
+    /**
+     * Gets the record body without copying it.
+     *
+     * @return the record body, must not be modified
+     */
+    public ByteBuffer getBodyBuffer() {
+        return body.duplicate();
+    }
+
+    public int getBodyLength() {
+        return body.remaining();
     }
     
 }
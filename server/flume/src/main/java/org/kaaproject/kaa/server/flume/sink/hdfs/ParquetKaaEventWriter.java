@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaaproject.kaa.server.flume.sink.hdfs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.PrivilegedExceptionAction;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.flume.Context;
+import org.apache.flume.Event;
+import org.apache.flume.sink.hdfs.HDFSWriter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.kaaproject.kaa.server.common.log.shared.RecordWrapperSchemaGenerator;
+import org.kaaproject.kaa.server.flume.ConfigurationConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes Kaa record events to Parquet files, with the same record wrapper
+ * schema as {@link AvroKaaEventSerializer}. The log schema is resolved by
+ * the first event written to a file, as with the Avro output.
+ * <p>
+ * Parquet files can't be flushed before a row group is complete, so
+ * {@link #sync()} does nothing and the written records become durable when
+ * the file is closed. {@link KaaHdfsSink} rolls the Parquet files of a
+ * transaction before committing it, each transaction writes new files.
+ * <p>
+ * The file is created with the first event, when its schema is known. The
+ * user that opened the writer, the sink's Kerberos or proxy user, is
+ * remembered and the file is created on its behalf.
+ */
+public class ParquetKaaEventWriter implements HDFSWriter, ConfigurationConstants {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(ParquetKaaEventWriter.class);
+
+    private static final String SERIALIZER_PREFIX = "serializer.";
+
+    private AvroSchemaSource schemaSource;
+    private int rowGroupSize;
+    private int pageSize;
+    private CompressionCodecName compressionCodec;
+    private Map<String, String> hadoopProperties;
+
+    private String filePath;
+    private UserGroupInformation user;
+    private ParquetWriter<GenericRecord> parquetWriter;
+    private DatumReader<GenericRecord> datumReader;
+    private BinaryDecoder binaryDecoder;
+    private GenericRecord wrapperRecord;
+
+    @Override
+    public void configure(Context context) {
+        rowGroupSize = context.getInteger(CONFIG_HDFS_PARQUET_ROW_GROUP_SIZE, DEFAULT_HDFS_PARQUET_ROW_GROUP_SIZE);
+        pageSize = context.getInteger(CONFIG_HDFS_PARQUET_PAGE_SIZE, DEFAULT_HDFS_PARQUET_PAGE_SIZE);
+        Preconditions.checkArgument(rowGroupSize > 0, CONFIG_HDFS_PARQUET_ROW_GROUP_SIZE + " must be greater than 0");
+        Preconditions.checkArgument(pageSize > 0, CONFIG_HDFS_PARQUET_PAGE_SIZE + " must be greater than 0");
+        String codec = context.getString(CONFIG_HDFS_PARQUET_COMPRESSION_CODEC, DEFAULT_HDFS_PARQUET_COMPRESSION_CODEC);
+        compressionCodec = CompressionCodecName.valueOf(codec.toUpperCase());
+        hadoopProperties = context.getSubProperties(CONFIG_HDFS_HADOOP_CONFIG_PREFIX);
+
+        // the schema source shares the serializer configuration of the Avro output
+        schemaSource = new AvroSchemaSource();
+        schemaSource.configure(new Context(context.getSubProperties(SERIALIZER_PREFIX)));
+    }
+
+    @Override
+    public void open(String filePath) throws IOException {
+        this.filePath = filePath;
+        // open() is called by BucketWriter on behalf of the sink user
+        this.user = UserGroupInformation.getCurrentUser();
+    }
+
+    @Override
+    public void open(String filePath, CompressionCodec codec, CompressionType cType) throws IOException {
+        // Parquet compresses the column chunks itself
+        open(filePath);
+    }
+
+    @Override
+    public void append(Event event) throws IOException {
+        if (!(event instanceof KaaRecordEvent)) {
+            throw new IOException("Not instance of KaaRecordEvent!");
+        }
+        KaaRecordEvent kaaRecordEvent = (KaaRecordEvent) event;
+        if (parquetWriter == null) {
+            initialize(kaaRecordEvent);
+        }
+
+        ByteBuffer body = kaaRecordEvent.getBodyBuffer();
+        binaryDecoder = DecoderFactory.get().binaryDecoder(body.array(), body.arrayOffset() + body.position(),
+                body.remaining(), binaryDecoder);
+        GenericRecord recordData = datumReader.read(null, binaryDecoder);
+
+        wrapperRecord.put(RecordWrapperSchemaGenerator.RECORD_HEADER_FIELD, kaaRecordEvent.getRecordHeader());
+        wrapperRecord.put(RecordWrapperSchemaGenerator.RECORD_DATA_FIELD, recordData);
+
+        parquetWriter.write(wrapperRecord);
+    }
+
+    private void initialize(Event event) throws IOException {
+        if (filePath == null) {
+            throw new IOException("Writer is not open");
+        }
+        Schema schema = AvroKaaEventSerializer.loadSchema(schemaSource, event);
+        datumReader = new GenericDatumReader<GenericRecord>(schema);
+
+        final Schema wrapperSchema = RecordWrapperSchemaGenerator.generateRecordWrapperSchema(schema.toString());
+        wrapperRecord = new GenericData.Record(wrapperSchema);
+
+        final Configuration config = BucketWriter.createHadoopConfiguration(hadoopProperties);
+
+        logger.debug("Creating Parquet file {} as {}", filePath, user);
+        final Path path = new Path(filePath);
+        try {
+            parquetWriter = user.doAs(new PrivilegedExceptionAction<ParquetWriter<GenericRecord>>() {
+                @Override
+                public ParquetWriter<GenericRecord> run() throws IOException {
+                    return AvroParquetWriter.<GenericRecord>builder(path)
+                            .withSchema(wrapperSchema)
+                            .withCompressionCodec(compressionCodec)
+                            .withRowGroupSize(rowGroupSize)
+                            .withPageSize(pageSize)
+                            .withConf(config)
+                            .build();
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while creating " + filePath);
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        // row groups are flushed when they are full or the file is closed
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (parquetWriter != null) {
+                parquetWriter.close();
+            }
+        } finally {
+            parquetWriter = null;
+            filePath = null;
+            user = null;
+        }
+    }
+
+    @Override
+    public boolean isUnderReplicated() {
+        return false;
+    }
+
+}
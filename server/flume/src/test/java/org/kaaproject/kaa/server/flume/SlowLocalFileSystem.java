@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaaproject.kaa.server.flume;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+/**
+ * Local file system that delays the creation of files whose path contains
+ * the configured marker, to simulate a slow bucket.
+ */
+public class SlowLocalFileSystem extends LocalFileSystem {
+
+    private static volatile String slowPathMarker;
+    private static volatile long createDelay;
+
+    public static void slowDown(String pathMarker, long delay) {
+        createDelay = delay;
+        slowPathMarker = pathMarker;
+    }
+
+    public static void reset() {
+        slowPathMarker = null;
+        createDelay = 0;
+    }
+
+    @Override
+    public FSDataOutputStream create(Path f, FsPermission permission, boolean overwrite, int bufferSize,
+            short replication, long blockSize, Progressable progress) throws IOException {
+        String marker = slowPathMarker;
+        if (marker != null && f.toString().contains(marker)) {
+            try {
+                Thread.sleep(createDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while creating " + f);
+            }
+        }
+        return super.create(f, permission, overwrite, bufferSize, replication, blockSize, progress);
+    }
+}
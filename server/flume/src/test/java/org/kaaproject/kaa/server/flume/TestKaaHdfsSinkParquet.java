@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaaproject.kaa.server.flume;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.flume.Channel;
+import org.apache.flume.Context;
+import org.apache.flume.Transaction;
+import org.apache.flume.channel.MemoryChannel;
+import org.apache.flume.conf.Configurables;
+import org.apache.flume.event.EventBuilder;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.log.shared.RecordWrapperSchemaGenerator;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
+import org.kaaproject.kaa.server.flume.sink.hdfs.KaaHdfsSink;
+
+/**
+ * Writes Parquet files to the local file system.
+ */
+public class TestKaaHdfsSinkParquet {
+
+    private static final String APPLICATION_TOKEN = "42342342";
+    private static final int LOG_SCHEMA_VERSION = 1;
+    private static final int RECORD_COUNT = 100;
+
+    private File rootDir;
+    private File schemasDir;
+
+    @Before
+    public void before() throws IOException {
+        rootDir = new File("build/parquet");
+        FileUtils.deleteDirectory(rootDir);
+        schemasDir = new File("build/parquet-schemas");
+        File schemaFile = new File(new File(schemasDir, APPLICATION_TOKEN), "schema_v" + LOG_SCHEMA_VERSION);
+        FileUtils.write(schemaFile, TestLogData.getClassSchema().toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(new File("build"));
+    }
+
+    @Test
+    public void testParquetOutput() throws Exception {
+        Context context = createContext();
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_INTERVAL, "0");
+
+        Channel channel = createChannel(context);
+        KaaHdfsSink sink = createSink(context, channel);
+        List<TestLogData> testLogs = putRecords(channel);
+
+        sink.process();
+        Assert.assertEquals(RECORD_COUNT, sink.getEventDrainSuccessCount());
+        sink.stop();
+        channel.stop();
+
+        assertWritten(testLogs);
+    }
+
+    /**
+     * The sink is abandoned right after the transaction is committed, as if
+     * the process was killed before the timed roll. The committed records
+     * must already be in complete Parquet files.
+     */
+    @Test
+    public void testCommittedRecordsSurviveKill() throws Exception {
+        Context context = createContext();
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_INTERVAL, "3600");
+
+        Channel channel = createChannel(context);
+        KaaHdfsSink sink = createSink(context, channel);
+        try {
+            List<TestLogData> testLogs = putRecords(channel);
+            sink.process();
+            Assert.assertEquals(RECORD_COUNT, sink.getEventDrainSuccessCount());
+
+            for (File file : getOutputDir().listFiles()) {
+                Assert.assertFalse(file.getName() + " is still in use", file.getName().endsWith(".tmp"));
+            }
+            assertWritten(testLogs);
+        } finally {
+            sink.stop();
+            channel.stop();
+        }
+    }
+
+    private Context createContext() {
+        Context context = new Context();
+        context.put("capacity", "10000");
+        context.put("transactionCapacity", "1000");
+        context.put(ConfigurationConstants.CONFIG_ROOT_HDFS_PATH, rootDir.getAbsoluteFile().toURI().toString());
+        context.put(ConfigurationConstants.CONFIG_HDFS_FILE_FORMAT, ConfigurationConstants.FILE_FORMAT_PARQUET);
+        context.put(ConfigurationConstants.CONFIG_HDFS_PARQUET_ROW_GROUP_SIZE, "65536");
+        context.put(ConfigurationConstants.CONFIG_HDFS_PARQUET_COMPRESSION_CODEC, "gzip");
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_SIZE, "0");
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_COUNT, "0");
+        context.put(ConfigurationConstants.CONFIG_STATISTICS_INTERVAL, "0");
+        context.put("serializer.avro.schema.source", "local");
+        context.put("serializer.avro.schema.local.root", schemasDir.getAbsolutePath());
+        return context;
+    }
+
+    private static Channel createChannel(Context context) {
+        Channel channel = new MemoryChannel();
+        Configurables.configure(channel, context);
+        channel.start();
+        return channel;
+    }
+
+    private static KaaHdfsSink createSink(Context context, Channel channel) {
+        KaaHdfsSink sink = new KaaHdfsSink();
+        sink.setName("testParquetSink");
+        Configurables.configure(sink, context);
+        sink.setChannel(channel);
+        sink.start();
+        return sink;
+    }
+
+    private static List<TestLogData> putRecords(Channel channel) throws IOException {
+        RecordHeader header = new RecordHeader();
+        header.setApplicationToken(APPLICATION_TOKEN);
+        header.setEndpointKeyHash("endpointKeyHash");
+        header.setHeaderVersion(1);
+        header.setTimestamp(System.currentTimeMillis());
+        List<TestLogData> testLogs = new ArrayList<>();
+
+        Transaction transaction = channel.getTransaction();
+        transaction.begin();
+        channel.put(EventBuilder.withBody(encodeRecordData(header, testLogs)));
+        transaction.commit();
+        transaction.close();
+        return testLogs;
+    }
+
+    private File getOutputDir() {
+        return new File(rootDir, APPLICATION_TOKEN + File.separator + LOG_SCHEMA_VERSION);
+    }
+
+    private void assertWritten(List<TestLogData> testLogs) throws IOException {
+        List<Object> results = new ArrayList<>();
+        for (File file : getOutputDir().listFiles()) {
+            if (!file.getName().endsWith(".parquet")) {
+                continue;
+            }
+            ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(new Path(file.toURI())).build();
+            try {
+                GenericRecord record;
+                while ((record = reader.read()) != null) {
+                    GenericRecord recordHeader = (GenericRecord) record.get(RecordWrapperSchemaGenerator.RECORD_HEADER_FIELD);
+                    Assert.assertEquals(APPLICATION_TOKEN, recordHeader.get("applicationToken").toString());
+                    GenericRecord recordData = (GenericRecord) record.get(RecordWrapperSchemaGenerator.RECORD_DATA_FIELD);
+                    results.add(recordData.get("message").toString());
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        Assert.assertEquals(RECORD_COUNT, results.size());
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            Assert.assertEquals(testLogs.get(i).getMessage(), results.get(i));
+        }
+    }
+
+    private static byte[] encodeRecordData(RecordHeader header, List<TestLogData> testLogs) throws IOException {
+        SpecificDatumWriter<TestLogData> logWriter = new SpecificDatumWriter<>(TestLogData.class);
+        BinaryEncoder encoder = null;
+        List<ByteBuffer> events = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            TestLogData testLogData = new TestLogData();
+            testLogData.setLevel(i % 2 == 0 ? Level.INFO : Level.DEBUG);
+            testLogData.setTag("TestKaaHdfsSinkParquet");
+            testLogData.setMessage("Test log message # " + i);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
+            logWriter.write(testLogData, encoder);
+            encoder.flush();
+            events.add(ByteBuffer.wrap(baos.toByteArray()));
+            testLogs.add(testLogData);
+        }
+
+        RecordData logData = new RecordData();
+        logData.setRecordHeader(header);
+        logData.setApplicationToken(APPLICATION_TOKEN);
+        logData.setSchemaVersion(LOG_SCHEMA_VERSION);
+        logData.setEventRecords(events);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
+        new SpecificDatumWriter<>(RecordData.class).write(logData, encoder);
+        encoder.flush();
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaaproject.kaa.server.flume;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.flume.Channel;
+import org.apache.flume.Context;
+import org.apache.flume.Sink.Status;
+import org.apache.flume.Transaction;
+import org.apache.flume.channel.MemoryChannel;
+import org.apache.flume.conf.Configurables;
+import org.apache.flume.event.EventBuilder;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordData;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
+import org.kaaproject.kaa.server.flume.sink.hdfs.KaaHdfsSink;
+
+/**
+ * Writes several buckets to the local file system while the creation of the
+ * files of some of them is slowed down by {@link SlowLocalFileSystem}.
+ */
+public class TestKaaHdfsSinkSlowBucket {
+
+    private static final String SLOW_MARKER = "slow";
+    private static final String FAST_TOKEN = "42342342";
+    private static final String[] SLOW_TOKENS = { "slow0001", "slow0002", "slow0003" };
+    private static final int LOG_SCHEMA_VERSION = 1;
+    private static final int RECORD_COUNT = 10;
+
+    private File rootDir;
+    private File schemasDir;
+    private Channel channel;
+    private KaaHdfsSink sink;
+
+    @Before
+    public void before() throws IOException {
+        rootDir = new File("build/buckets");
+        FileUtils.deleteDirectory(rootDir);
+        schemasDir = new File("build/buckets-schemas");
+        writeSchema(FAST_TOKEN);
+        for (String token : SLOW_TOKENS) {
+            writeSchema(token);
+        }
+    }
+
+    @After
+    public void after() throws IOException {
+        SlowLocalFileSystem.reset();
+        if (sink != null) {
+            sink.stop();
+            channel.stop();
+        }
+        FileUtils.deleteDirectory(new File("build"));
+    }
+
+    @Test
+    public void testSlowBucketsAreWrittenConcurrently() throws Exception {
+        start(10, 10000);
+        warmUp();
+        SlowLocalFileSystem.slowDown(SLOW_MARKER, 1000);
+        put(FAST_TOKEN);
+        for (String token : SLOW_TOKENS) {
+            put(token);
+        }
+
+        long started = System.currentTimeMillis();
+        sink.process();
+        long elapsed = System.currentTimeMillis() - started;
+        Assert.assertEquals((SLOW_TOKENS.length + 2) * RECORD_COUNT, sink.getEventDrainSuccessCount());
+        Assert.assertTrue("Buckets were written one by one in " + elapsed + " ms", elapsed < 2500);
+
+        sink.stop();
+        channel.stop();
+        sink = null;
+        Assert.assertEquals(2 * RECORD_COUNT, readRecordCount(FAST_TOKEN));
+        for (String token : SLOW_TOKENS) {
+            Assert.assertEquals(RECORD_COUNT, readRecordCount(token));
+        }
+    }
+
+    @Test
+    public void testSlowBucketTimesOut() throws Exception {
+        start(10, 500);
+        warmUp();
+        SlowLocalFileSystem.slowDown(SLOW_MARKER, 5000);
+        put(FAST_TOKEN);
+        put(SLOW_TOKENS[0]);
+
+        long started = System.currentTimeMillis();
+        Assert.assertEquals(Status.BACKOFF, sink.process());
+        long elapsed = System.currentTimeMillis() - started;
+        Assert.assertEquals(RECORD_COUNT, sink.getEventDrainSuccessCount());
+        Assert.assertTrue("Slow bucket was awaited for " + elapsed + " ms", elapsed < 2000);
+        assertEventsRolledBack(2);
+    }
+
+    @Test
+    public void testQueuedBucketsShareCallTimeout() throws Exception {
+        start(1, 500);
+        warmUp();
+        SlowLocalFileSystem.slowDown(SLOW_MARKER, 5000);
+        for (String token : SLOW_TOKENS) {
+            put(token);
+        }
+
+        long started = System.currentTimeMillis();
+        Assert.assertEquals(Status.BACKOFF, sink.process());
+        long elapsed = System.currentTimeMillis() - started;
+        Assert.assertEquals(RECORD_COUNT, sink.getEventDrainSuccessCount());
+        Assert.assertTrue("Queued buckets were awaited for " + elapsed + " ms", elapsed < 1000);
+        assertEventsRolledBack(SLOW_TOKENS.length);
+    }
+
+    private void start(int threadsPoolSize, long callTimeout) {
+        Context context = new Context();
+        context.put("capacity", "10000");
+        context.put("transactionCapacity", "1000");
+        // do not wait for more events once the channel is drained
+        context.put("keep-alive", "0");
+        context.put(ConfigurationConstants.CONFIG_ROOT_HDFS_PATH, rootDir.getAbsoluteFile().toURI().toString());
+        context.put(ConfigurationConstants.CONFIG_HDFS_FILE_FORMAT, ConfigurationConstants.FILE_FORMAT_PARQUET);
+        context.put(ConfigurationConstants.CONFIG_HDFS_THREAD_POOL_SIZE, String.valueOf(threadsPoolSize));
+        context.put(ConfigurationConstants.CONFIG_HDFS_CALL_TIMEOUT, String.valueOf(callTimeout));
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_SIZE, "0");
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_COUNT, "0");
+        context.put(ConfigurationConstants.CONFIG_HDFS_ROLL_INTERVAL, "0");
+        context.put(ConfigurationConstants.CONFIG_STATISTICS_INTERVAL, "0");
+        context.put("serializer.avro.schema.source", "local");
+        context.put("serializer.avro.schema.local.root", schemasDir.getAbsolutePath());
+        // slow down the writes of selected buckets; cached local file systems ignore fs.file.impl
+        context.put(ConfigurationConstants.CONFIG_HDFS_HADOOP_CONFIG_PREFIX + "fs.file.impl", SlowLocalFileSystem.class.getName());
+        context.put(ConfigurationConstants.CONFIG_HDFS_HADOOP_CONFIG_PREFIX + "fs.file.impl.disable.cache", "true");
+
+        channel = new MemoryChannel();
+        Configurables.configure(channel, context);
+        channel.start();
+        sink = new KaaHdfsSink();
+        sink.setName("testSlowBucketSink");
+        Configurables.configure(sink, context);
+        sink.setChannel(channel);
+        sink.start();
+    }
+
+    /**
+     * Writes a bucket before the timing starts, so that the one-off
+     * initialization of the file system and Parquet is not measured
+     */
+    private void warmUp() throws Exception {
+        put(FAST_TOKEN);
+        Assert.assertEquals(Status.BACKOFF, sink.process());
+        Assert.assertEquals(RECORD_COUNT, sink.getEventDrainSuccessCount());
+    }
+
+    private void put(String applicationToken) throws IOException {
+        Transaction transaction = channel.getTransaction();
+        transaction.begin();
+        channel.put(EventBuilder.withBody(encodeRecordData(applicationToken)));
+        transaction.commit();
+        transaction.close();
+    }
+
+    private void assertEventsRolledBack(int eventCount) {
+        Transaction transaction = channel.getTransaction();
+        transaction.begin();
+        int taken = 0;
+        while (channel.take() != null) {
+            taken++;
+        }
+        transaction.commit();
+        transaction.close();
+        Assert.assertEquals(eventCount, taken);
+    }
+
+    private void writeSchema(String applicationToken) throws IOException {
+        File schemaFile = new File(new File(schemasDir, applicationToken), "schema_v" + LOG_SCHEMA_VERSION);
+        FileUtils.write(schemaFile, TestLogData.getClassSchema().toString());
+    }
+
+    private int readRecordCount(String applicationToken) throws IOException {
+        File[] files = new File(rootDir, applicationToken + File.separator + LOG_SCHEMA_VERSION).listFiles();
+        int count = 0;
+        for (File file : files) {
+            if (!file.getName().endsWith(".parquet")) {
+                continue;
+            }
+            ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(new Path(file.toURI())).build();
+            try {
+                while (reader.read() != null) {
+                    count++;
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return count;
+    }
+
+    private static byte[] encodeRecordData(String applicationToken) throws IOException {
+        SpecificDatumWriter<TestLogData> logWriter = new SpecificDatumWriter<>(TestLogData.class);
+        BinaryEncoder encoder = null;
+        List<ByteBuffer> events = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            TestLogData testLogData = new TestLogData();
+            testLogData.setLevel(Level.INFO);
+            testLogData.setTag("TestKaaHdfsSinkSlowBucket");
+            testLogData.setMessage("Test log message # " + i);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
+            logWriter.write(testLogData, encoder);
+            encoder.flush();
+            events.add(ByteBuffer.wrap(baos.toByteArray()));
+        }
+
+        RecordHeader header = new RecordHeader();
+        header.setApplicationToken(applicationToken);
+        header.setEndpointKeyHash("endpointKeyHash");
+        header.setHeaderVersion(1);
+        header.setTimestamp(System.currentTimeMillis());
+
+        RecordData logData = new RecordData();
+        logData.setRecordHeader(header);
+        logData.setApplicationToken(applicationToken);
+        logData.setSchemaVersion(LOG_SCHEMA_VERSION);
+        logData.setEventRecords(events);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
+        new SpecificDatumWriter<>(RecordData.class).write(logData, encoder);
+        encoder.flush();
+        return baos.toByteArray();
+    }
+}
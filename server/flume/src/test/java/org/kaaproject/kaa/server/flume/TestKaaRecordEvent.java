@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaaproject.kaa.server.flume;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.log.shared.avro.gen.RecordHeader;
+import org.kaaproject.kaa.server.flume.sink.hdfs.KaaRecordEvent;
+
+/**
+ * Reads the bodies of record events that are slices of a larger array.
+ */
+public class TestKaaRecordEvent {
+
+    private static final byte[] DATA = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+    @Test
+    public void testSliceBody() {
+        KaaRecordEvent event = new KaaRecordEvent(new RecordHeader(), new HashMap<String, String>(), slice(3, 4));
+        Assert.assertEquals(4, event.getBodyLength());
+
+        ByteBuffer buffer = event.getBodyBuffer();
+        Assert.assertSame(DATA, buffer.array());
+        byte[] bufferData = new byte[buffer.remaining()];
+        buffer.get(bufferData);
+        Assert.assertArrayEquals(Arrays.copyOfRange(DATA, 3, 7), bufferData);
+        // the returned buffer is a view, the event body is not consumed
+        Assert.assertEquals(4, event.getBodyBuffer().remaining());
+
+        byte[] body = event.getBody();
+        Assert.assertArrayEquals(Arrays.copyOfRange(DATA, 3, 7), body);
+        Assert.assertSame(body, event.getBody());
+        Assert.assertEquals(ByteBuffer.wrap(body), event.getBodyBuffer());
+    }
+
+    @Test
+    public void testEmptySliceBody() {
+        KaaRecordEvent event = new KaaRecordEvent(new RecordHeader(), new HashMap<String, String>(), slice(10, 0));
+        Assert.assertEquals(0, event.getBodyLength());
+        Assert.assertEquals(0, event.getBodyBuffer().remaining());
+        Assert.assertArrayEquals(new byte[0], event.getBody());
+    }
+
+    @Test
+    public void testArrayBodyIsNotCopied() {
+        byte[] data = Arrays.copyOf(DATA, DATA.length);
+        KaaRecordEvent event = new KaaRecordEvent(new RecordHeader(), new HashMap<String, String>(), data);
+        Assert.assertSame(data, event.getBody());
+        Assert.assertSame(data, event.getBodyBuffer().array());
+        Assert.assertEquals(DATA.length, event.getBodyLength());
+    }
+
+    private static ByteBuffer slice(int offset, int length) {
+        return ByteBuffer.wrap(DATA, offset, length).slice();
+    }
+}
@@ -18,9 +18,13 @@ package org.kaaproject.kaa.server.bootstrap.service;
 
 import static org.kaaproject.kaa.server.common.zk.ServerNameUtil.getNameFromConnectionInfo;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
@@ -29,9 +33,12 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.kaaproject.kaa.server.common.zk.ServerNameUtil;
 import org.kaaproject.kaa.server.common.zk.bootstrap.BootstrapNode;
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
+import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
 import org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo;
 import org.kaaproject.kaa.server.common.zk.gen.TransportMetaData;
 import org.kaaproject.kaa.server.common.zk.gen.VersionConnectionInfoPair;
@@ -40,11 +47,19 @@ import org.kaaproject.kaa.server.sync.bootstrap.ProtocolConnectionData;
 import org.kaaproject.kaa.server.sync.bootstrap.ProtocolVersionId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * OperationsServerListService Class. Receive new Operations Servers list form
  * Thrift service and create AVRP object EndPointServerList
+ * <p>
+ * The Operations servers of each response are ordered by their load using
+ * the power of two choices: the next server is the less loaded one of two
+ * randomly picked remaining servers. Loads are compared with the
+ * {@link LoadInfo} and {@link LoadDetails} reported by the servers and
+ * updated on every ZK node update. If the subset size is set, only that many servers are returned,
+ * plus the servers needed to cover all the requested protocols.
  *
  * @author Andrey Panasenko
  * @author Andrey Shvayka
@@ -52,15 +67,25 @@ import org.springframework.stereotype.Service;
 @Service
 public class DefaultOperationsServerListService implements OperationsServerListService, OperationsNodeListener {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultOperationsServerListService.class);
+
+    /** The weights of the endpoint count, sync, event and log rates, heap usage and mailbox depth in load comparison. */
+    private static final double[] LOAD_WEIGHTS = {1.0, 2.0, 1.0, 1.0, 0.5, 1.0};
+
     private Map<String, OperationsNodeInfo> opsMap;
+    private Map<Integer, OperationsNodeInfo> loadMap;
     private Memorizer<List<ProtocolVersionId>, Set<ProtocolConnectionData>> cache;
     private Object listenerLock = new Object();
 
+    /** The number of least loaded Operations servers to return, 0 to return all servers. */
+    @Value("#{properties[bootstrap_ops_server_subset_size]}")
+    private int subsetSize;
+
     /**
      * Default constructor.
      */
     public DefaultOperationsServerListService() {
         opsMap = new ConcurrentHashMap<String, OperationsNodeInfo>();
+        loadMap = new ConcurrentHashMap<Integer, OperationsNodeInfo>();
         cache = new Memorizer<List<ProtocolVersionId>, Set<ProtocolConnectionData>>(
                 new Computable<List<ProtocolVersionId>, Set<ProtocolConnectionData>>() {
 
@@ -75,6 +100,7 @@ public class DefaultOperationsServerListService implements OperationsServerListS
     public void init(BootstrapNode zkNode) {
         LOG.info("Initializing with {}", zkNode);
         opsMap.clear();
+        loadMap.clear();
         synchronized (listenerLock) {
             LOG.info("Registering as listener to ZK updates");
             zkNode.addListener(this);
@@ -89,7 +115,7 @@ public class DefaultOperationsServerListService implements OperationsServerListS
     @Override
     public Set<ProtocolConnectionData> filter(List<ProtocolVersionId> keys) {
         try {
-            return cache.compute(keys);
+            return orderByLoad(cache.compute(keys), ThreadLocalRandom.current());
         } catch (InterruptedException e) {
             LOG.info("Failed to filter protocols", e);
             throw new RuntimeException(e);
@@ -120,6 +146,9 @@ public class DefaultOperationsServerListService implements OperationsServerListS
     private void addNode(OperationsNodeInfo info) {
         LOG.info("Add/Update node {}", info);
         opsMap.put(getNameFromConnectionInfo(info.getConnectionInfo()), info);
+        if (info.getLoadInfo() != null) {
+            loadMap.put(ServerNameUtil.crc32(info.getConnectionInfo()), info);
+        }
         LOG.info("Cleanup cached responses");
         cache.clear();
     }
@@ -130,6 +159,7 @@ public class DefaultOperationsServerListService implements OperationsServerListS
         } else {
             LOG.warn("Failed to remove node {}", info);
         }
+        loadMap.remove(ServerNameUtil.crc32(info.getConnectionInfo()));
         LOG.info("Cleanup cached responses");
         cache.clear();
     }
@@ -149,6 +179,116 @@ public class DefaultOperationsServerListService implements OperationsServerListS
         return result;
     }
 
+    /**
+     * Orders the connection data by the load of their Operations servers and
+     * leaves only the subset of the servers if its size is set.
+     *
+     * @param connections the connection data of all matching servers
+     * @param random the source of the random server picks
+     * @return the ordered connection data
+     */
+    protected Set<ProtocolConnectionData> orderByLoad(Set<ProtocolConnectionData> connections, Random random) {
+        Map<Integer, List<ProtocolConnectionData>> byServer = new LinkedHashMap<>();
+        Set<ProtocolVersionId> uncovered = new HashSet<>();
+        for (ProtocolConnectionData connection : connections) {
+            List<ProtocolConnectionData> serverConnections = byServer.get(connection.getAccessPointId());
+            if (serverConnections == null) {
+                serverConnections = new ArrayList<>();
+                byServer.put(connection.getAccessPointId(), serverConnections);
+            }
+            serverConnections.add(connection);
+            uncovered.add(toProtocolVersionId(connection));
+        }
+        if (byServer.size() < 2) {
+            return connections;
+        }
+
+        List<Integer> remaining = new ArrayList<>(byServer.keySet());
+        List<Integer> ordered = new ArrayList<>(remaining.size());
+        while (remaining.size() > 1) {
+            int first = random.nextInt(remaining.size());
+            int second = random.nextInt(remaining.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            int picked = isLessLoaded(remaining.get(second), remaining.get(first)) ? second : first;
+            ordered.add(remaining.remove(picked));
+        }
+        ordered.add(remaining.get(0));
+
+        Set<ProtocolConnectionData> result = new LinkedHashSet<>();
+        int added = 0;
+        for (Integer accessPointId : ordered) {
+            List<ProtocolConnectionData> serverConnections = byServer.get(accessPointId);
+            if (subsetSize > 0 && added >= subsetSize) {
+                if (uncovered.isEmpty()) {
+                    break;
+                }
+                boolean covers = false;
+                for (ProtocolConnectionData connection : serverConnections) {
+                    covers |= uncovered.contains(toProtocolVersionId(connection));
+                }
+                if (!covers) {
+                    continue;
+                }
+            }
+            for (ProtocolConnectionData connection : serverConnections) {
+                uncovered.remove(toProtocolVersionId(connection));
+            }
+            result.addAll(serverConnections);
+            added++;
+        }
+        return result;
+    }
+
+    /**
+     * Compares the last reported loads of two servers metric by metric. A
+     * server that has not reported its load yet is considered idle.
+     */
+    private boolean isLessLoaded(int accessPointId, int otherAccessPointId) {
+        double[] load = toLoadMetrics(loadMap.get(accessPointId));
+        double[] otherLoad = toLoadMetrics(loadMap.get(otherAccessPointId));
+        double share = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < LOAD_WEIGHTS.length; i++) {
+            double total = load[i] + otherLoad[i];
+            if (total > 0) {
+                share += LOAD_WEIGHTS[i] * load[i] / total;
+                totalWeight += LOAD_WEIGHTS[i];
+            }
+        }
+        return totalWeight > 0 && share / totalWeight < 0.5;
+    }
+
+    private static double[] toLoadMetrics(OperationsNodeInfo info) {
+        double[] metrics = new double[LOAD_WEIGHTS.length];
+        if (info == null) {
+            return metrics;
+        }
+        metrics[0] = toDouble(info.getLoadInfo().getEndpointCount());
+        LoadDetails details = info.getLoadDetails();
+        if (details != null) {
+            metrics[1] = toDouble(details.getSyncRate());
+            metrics[2] = toDouble(details.getEventRate());
+            metrics[3] = toDouble(details.getLogRate());
+            metrics[4] = toDouble(details.getHeapUsage());
+            metrics[5] = toDouble(details.getMailboxDepth());
+        }
+        return metrics;
+    }
+
+    private static double toDouble(Number number) {
+        return number != null ? Math.max(number.doubleValue(), 0.0) : 0.0;
+    }
+
+    private static ProtocolVersionId toProtocolVersionId(ProtocolConnectionData connection) {
+        return new ProtocolVersionId(connection.getProtocolId(), connection.getProtocolVersion());
+    }
+
+    public void setSubsetSize(int subsetSize) {
+        this.subsetSize = subsetSize;
+    }
+
     private ProtocolConnectionData toProtocolConnectionData(OperationsNodeInfo node, TransportMetaData md, int version) {
         byte[] connectionData = null;
         for (VersionConnectionInfoPair pair : md.getConnectionInfo()) {
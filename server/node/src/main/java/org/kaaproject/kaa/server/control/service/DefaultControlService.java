@@ -88,10 +88,12 @@ import org.kaaproject.kaa.server.common.thrift.gen.operations.ThriftServerProfil
 import org.kaaproject.kaa.server.common.thrift.gen.operations.ThriftUnicastNotificationMessage;
 import org.kaaproject.kaa.server.common.thrift.gen.operations.UserConfigurationUpdate;
 import org.kaaproject.kaa.server.common.zk.control.ControlNode;
+import org.kaaproject.kaa.server.common.zk.gen.BootstrapNodeInfo;
 import org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo;
 import org.kaaproject.kaa.server.common.zk.operations.OperationsNodeListener;
 import org.kaaproject.kaa.server.control.service.exception.ControlServiceException;
 import org.kaaproject.kaa.server.control.service.schema.SchemaLibraryGenerator;
+import org.kaaproject.kaa.server.control.service.sdk.SdkArtifactStore;
 import org.kaaproject.kaa.server.control.service.sdk.SdkGenerator;
 import org.kaaproject.kaa.server.control.service.sdk.SdkGeneratorFactory;
 import org.kaaproject.kaa.server.control.service.sdk.event.EventFamilyMetadata;
@@ -214,6 +216,13 @@ public class DefaultControlService implements ControlService {
     @Value("#{properties[user_hash_partitions]}")
     private int userHashPartitions = DEFAULT_USER_HASH_PARTITIONS_SIZE;
 
+    /** The directory of the generated SDK store, SDKs are not stored if it is not set. */
+    @Value("#{properties[sdk_store_dir]}")
+    private String sdkStoreDir;
+
+    /** The generated SDK store. */
+    private volatile SdkArtifactStore sdkStore;
+
     /** The neighbors. */
     private volatile Neighbors<NeighborTemplate<OperationsServiceMsg>, OperationsServiceMsg> neighbors;
 
@@ -1061,20 +1070,50 @@ public class DefaultControlService implements ControlService {
 
         LOG.debug("Sdk profile for sdk generation: {}", sdkProfile);
 
+        List<BootstrapNodeInfo> bootstrapNodes = controlZKService.getCurrentBootstrapNodes();
+        SdkArtifactStore store = getSdkStore();
+        String sdkKey = null;
+        if (store != null) {
+            sdkKey = SdkArtifactStore.computeKey(platform, Version.PROJECT_VERSION, bootstrapNodes, sdkProfile, profileSchemaBody,
+                    notificationDataSchema.getRawSchema(), protocolSchema.getRawSchema(), configurationSchema.getBaseSchema(),
+                    defaultConfigurationData, eventFamilies, logDataSchema.getRawSchema());
+            FileData storedSdkFile = store.get(sdkKey);
+            if (storedSdkFile != null) {
+                LOG.debug("Found stored SDK {} for sdk profile {}", sdkKey, sdkProfile.getToken());
+                storedSdkFile.setContentType(platform.getContentType());
+                return storedSdkFile;
+            }
+        }
+
         SdkGenerator generator = SdkGeneratorFactory.createSdkGenerator(platform);
         FileData sdkFile = null;
         try {
-            sdkFile = generator.generateSdk(Version.PROJECT_VERSION, controlZKService.getCurrentBootstrapNodes(), sdkProfile,
+            sdkFile = generator.generateSdk(Version.PROJECT_VERSION, bootstrapNodes, sdkProfile,
                     profileSchemaBody, notificationDataSchema.getRawSchema(), protocolSchema.getRawSchema(),
                     configurationSchema.getBaseSchema(), defaultConfigurationData, eventFamilies, logDataSchema.getRawSchema());
         } catch (Exception e) {
             LOG.error("Unable to generate SDK", e);
             throw new ControlServiceException(e);
         }
+        if (store != null) {
+            store.put(sdkKey, sdkFile);
+        }
         sdkFile.setContentType(platform.getContentType());
         return sdkFile;
     }
 
+    /**
+     * Gets the generated SDK store.
+     *
+     * @return the store, or null if the store directory is not set
+     */
+    private SdkArtifactStore getSdkStore() {
+        if (sdkStore == null && sdkStoreDir != null && !sdkStoreDir.trim().isEmpty()) {
+            sdkStore = new SdkArtifactStore(sdkStoreDir.trim());
+        }
+        return sdkStore;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -18,7 +18,6 @@ package org.kaaproject.kaa.server.control.service.loadmgmt;
 
 import static org.kaaproject.kaa.server.common.zk.ServerNameUtil.getNameFromConnectionInfo;
 
-import java.lang.reflect.InvocationTargetException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -34,7 +33,6 @@ import org.kaaproject.kaa.server.common.thrift.gen.bootstrap.ThriftOperationsSer
 import org.kaaproject.kaa.server.common.thrift.gen.operations.OperationsThriftService;
 import org.kaaproject.kaa.server.common.thrift.gen.operations.RedirectionRule;
 import org.kaaproject.kaa.server.common.thrift.util.ThriftActivity;
-import org.kaaproject.kaa.server.common.thrift.util.ThriftClient;
 import org.kaaproject.kaa.server.common.thrift.util.ThriftExecutor;
 import org.kaaproject.kaa.server.common.zk.ServerNameUtil;
 import org.kaaproject.kaa.server.common.zk.bootstrap.BootstrapNodeListener;
@@ -77,7 +75,7 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
             this.opsServer = opsServer;
             this.nodeInfo = nodeInfo;
             history = new OperationsServerLoadHistory(opsLoadHistoryTTL);
-            history.addOpsServerLoad(nodeInfo.getLoadInfo());
+            history.addOpsServerLoad(nodeInfo.getLoadInfo(), nodeInfo.getLoadDetails());
         }
     }
 
@@ -146,13 +144,27 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
 
     /**
      * Register listeners for Operations server nodes updates and Bootstrap
-     * nodes updates.
+     * nodes updates. Nodes registered before the listeners are taken from
+     * the current nodes snapshot.
      */
     public void registerListeners() {
         LOG.trace("DynamicLoadManager register listeners...");
         ControlNode pm = getLoadDistributionService().getZkService().getControlZKNode();
         pm.addListener((OperationsNodeListener) this);
         pm.addListener((BootstrapNodeListener) this);
+        for (OperationsNodeInfo nodeInfo : pm.getCurrentOperationServerNodes()) {
+            int accessPointId = ServerNameUtil.crc32(nodeInfo.getConnectionInfo());
+            if (!opsServersMap.containsKey(accessPointId)) {
+                addNewOperationsServer(accessPointId, getNameFromConnectionInfo(nodeInfo.getConnectionInfo()), nodeInfo);
+            }
+        }
+        for (BootstrapNodeInfo nodeInfo : pm.getCurrentBootstrapNodes()) {
+            String dnsName = getNameFromConnectionInfo(nodeInfo.getConnectionInfo());
+            if (!bootstrapsMap.containsKey(dnsName)) {
+                bootstrapsMap.put(dnsName, nodeInfo);
+                updateBootstrap(nodeInfo);
+            }
+        }
     }
 
     /**
@@ -205,6 +217,8 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
         String dnsName = getNameFromConnectionInfo(nodeInfo.getConnectionInfo());
         LOG.info("Bootstrap server {} removed", dnsName);
         bootstrapsMap.remove(dnsName);
+        ThriftExecutor.closePool(nodeInfo.getConnectionInfo().getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort(),
+                KaaThriftService.BOOTSTRAP_SERVICE);
     }
 
     /*
@@ -240,7 +254,7 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
         int accessPointId = ServerNameUtil.crc32(nodeInfo.getConnectionInfo());
         LOG.info("Operations server [{}][{}] updated", accessPointId, dnsName);
         if (opsServersMap.containsKey(accessPointId)) {
-            opsServersMap.get(accessPointId).history.addOpsServerLoad(nodeInfo.getLoadInfo());
+            opsServersMap.get(accessPointId).history.addOpsServerLoad(nodeInfo.getLoadInfo(), nodeInfo.getLoadDetails());
         } else {
             addNewOperationsServer(accessPointId, dnsName, nodeInfo);
         }
@@ -270,6 +284,8 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
         String dnsName = getNameFromConnectionInfo(nodeInfo.getConnectionInfo());
         int accessPointId = ServerNameUtil.crc32(nodeInfo.getConnectionInfo());
         opsServersMap.remove(accessPointId);
+        ThriftExecutor.closePool(nodeInfo.getConnectionInfo().getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort(),
+                KaaThriftService.OPERATIONS_SERVICE);
 
         LOG.info("Operations server [{}][{}] removed. Updating {} Bootstrap servers", accessPointId, dnsName, bootstrapsMap.size());
         for (BootstrapNodeInfo bootstrapNodeInfo : bootstrapsMap.values()) {
@@ -305,11 +321,8 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
     private void updateBootstrap(BootstrapNodeInfo nodeInfo) {
         final String dnsName = getNameFromConnectionInfo(nodeInfo.getConnectionInfo());
         LOG.debug("Update bootstrap server: {}", dnsName);
-        try {
-            ThriftClient<BootstrapThriftService.Client> client = new ThriftClient<BootstrapThriftService.Client>(nodeInfo
-                    .getConnectionInfo().getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort(), KaaThriftService.BOOTSTRAP_SERVICE,
-                    BootstrapThriftService.Client.class);
-            client.setThriftActivity(new ThriftActivity<BootstrapThriftService.Client>() {
+        ThriftExecutor.submit(nodeInfo.getConnectionInfo().getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort(),
+                KaaThriftService.BOOTSTRAP_SERVICE, BootstrapThriftService.Client.class, new ThriftActivity<BootstrapThriftService.Client>() {
 
                 @Override
                 public void isSuccess(boolean activitySuccess) {
@@ -318,6 +331,12 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
                             : "unsuccessfully");
                 }
 
+                @Override
+                public boolean isIdempotent() {
+                    // the update replaces the whole list
+                    return true;
+                }
+
                 @Override
                 public void doInTemplate(Client t) {
                     try { // NOSONAR
@@ -335,13 +354,6 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
                     }
                 }
             });
-
-            ThriftExecutor.execute(client);
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException e) {
-            lastBootstrapServersUpdateFailed = true;
-            LOG.error(MessageFormat.format("Bootstrap {0} Operations servers list execute updated failed", dnsName), e);
-        }
     }
 
     /**
@@ -357,11 +369,8 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
     private void sendRedirectionRule(final Integer accessPointId, OperationsNodeInfo nodeInfo, final List<RedirectionRule> rules) {
         LOG.trace("Set redirection rule for Operations server: {}; Thrift: {}:{}", accessPointId, nodeInfo.getConnectionInfo()
                 .getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort());
-        try {
-            ThriftClient<OperationsThriftService.Client> client = new ThriftClient<OperationsThriftService.Client>(nodeInfo
-                    .getConnectionInfo().getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort(), KaaThriftService.OPERATIONS_SERVICE,
-                    OperationsThriftService.Client.class);
-            client.setThriftActivity(new ThriftActivity<OperationsThriftService.Client>() {
+        ThriftExecutor.submit(nodeInfo.getConnectionInfo().getThriftHost().toString(), nodeInfo.getConnectionInfo().getThriftPort(),
+                KaaThriftService.OPERATIONS_SERVICE, OperationsThriftService.Client.class, new ThriftActivity<OperationsThriftService.Client>() {
 
                 @Override
                 public void isSuccess(boolean activitySuccess) {
@@ -382,12 +391,6 @@ public class DynamicLoadManager implements OperationsNodeListener, BootstrapNode
                     }
                 }
             });
-
-            ThriftExecutor.execute(client);
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException e) {
-            LOG.error(MessageFormat.format("Operations server {0} set redirection rule failed", accessPointId), e);
-        }
     }
 
     /**
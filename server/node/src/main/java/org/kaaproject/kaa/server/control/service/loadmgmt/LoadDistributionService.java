@@ -16,6 +16,10 @@
 
 package org.kaaproject.kaa.server.control.service.loadmgmt;
 
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
 import org.kaaproject.kaa.server.control.service.loadmgmt.dynamicmgmt.Rebalancer;
 import org.kaaproject.kaa.server.control.service.zk.ControlZkService;
 import org.slf4j.Logger;
@@ -33,6 +37,8 @@ import org.springframework.stereotype.Service;
 public class LoadDistributionService extends Thread {
     private static final Logger LOG = LoggerFactory.getLogger(LoadDistributionService.class);
 
+    private static final String DEFAULT_REBALANCER = "endpointCountRebalancer";
+
     /**  boolean used to control operation mode in Thread run() cycle. */
     private volatile boolean operate = false;
 
@@ -56,10 +62,31 @@ public class LoadDistributionService extends Thread {
     @Value("#{properties[ops_server_history_ttl]}")
     private int opsServerHistoryTtl;
     
-    /** The dynamic_mgmt. */
+    /** The available rebalancers by bean name. */
     @Autowired
+    private Map<String, Rebalancer> rebalancers;
+
+    /** The bean name of the rebalancer to use. */
+    @Value("#{properties[loadmgmt_rebalancer]}")
+    private String rebalancerName;
+
+    /** The dynamic_mgmt. */
     private Rebalancer rebalancer;
 
+    /**
+     * Selects the configured rebalancer, the endpoint count one by default.
+     */
+    @PostConstruct
+    public void initRebalancer() {
+        String name = rebalancerName != null ? rebalancerName : DEFAULT_REBALANCER;
+        rebalancer = rebalancers.get(name);
+        if (rebalancer == null) {
+            LOG.warn("Unknown rebalancer {}, using {}", name, DEFAULT_REBALANCER);
+            rebalancer = rebalancers.get(DEFAULT_REBALANCER);
+        }
+        LOG.info("Using rebalancer {}", rebalancer.getClass().getSimpleName());
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Thread#toString()
      */
@@ -69,6 +96,7 @@ public class LoadDistributionService extends Thread {
         sb.append("\nLoad Distribution Service properties:\n");
         sb.append("\trecalculation_period: "+recalculationPeriod+"\n");
         sb.append("\tops_server_history_ttl: "+opsServerHistoryTtl+"\n");
+        sb.append("\tloadmgmt_rebalancer: "+rebalancerName+"\n");
         return sb.toString();
     }
 
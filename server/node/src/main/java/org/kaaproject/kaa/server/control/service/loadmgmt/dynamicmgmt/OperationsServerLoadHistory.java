@@ -20,6 +20,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
 import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
 
 /**
@@ -37,10 +38,12 @@ public class OperationsServerLoadHistory {
     public class OperationsServerLoad {
         private final long time;
         private LoadInfo loadInfo;
+        private LoadDetails loadDetails;
 
-        protected OperationsServerLoad(LoadInfo load) {
+        protected OperationsServerLoad(LoadInfo load, LoadDetails details) {
             time = System.currentTimeMillis();
             this.loadInfo = load;
+            this.loadDetails = details;
         }
 
         /**
@@ -69,6 +72,15 @@ public class OperationsServerLoadHistory {
         public void setLoadInfo(LoadInfo loadInfo) {
             this.loadInfo = loadInfo;
         }
+
+        /**
+         * Gets the load details, null if the server doesn't report them.
+         *
+         * @return the load details
+         */
+        public LoadDetails getLoadDetails() {
+            return loadDetails;
+        }
     }
 
     public OperationsServerLoadHistory(long maxHistoryTimeLiv) {
@@ -82,8 +94,18 @@ public class OperationsServerLoadHistory {
      * @param load the load
      */
     public void addOpsServerLoad(LoadInfo load) {
+        addOpsServerLoad(load, null);
+    }
+
+    /**
+     * Adds the Operations server load and its details to the history
+     *
+     * @param load the load
+     * @param details the load details, may be null
+     */
+    public void addOpsServerLoad(LoadInfo load, LoadDetails details) {
         removeOldHistory();
-        history.add(new OperationsServerLoad(load));
+        history.add(new OperationsServerLoad(load, details));
     }
 
     /**
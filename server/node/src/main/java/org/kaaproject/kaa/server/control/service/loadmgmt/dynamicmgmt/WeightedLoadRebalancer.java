@@ -0,0 +1,265 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.control.service.loadmgmt.dynamicmgmt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaaproject.kaa.server.common.thrift.gen.operations.RedirectionRule;
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
+import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
+import org.kaaproject.kaa.server.control.service.loadmgmt.dynamicmgmt.OperationsServerLoadHistory.OperationsServerLoad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebalances Operations servers by a weighted load score instead of the
+ * endpoint count alone.
+ * <p>
+ * Each metric reported in {@link LoadInfo} (endpoint count, sync, event and
+ * log rates, heap usage and mailbox depth) is smoothed over the server load
+ * history with an exponentially weighted moving average. The score of a
+ * server is the weighted sum of its shares of the cluster totals, so the
+ * scores of all servers add up to 1. Servers scoring above the average get
+ * redirection rules towards the servers scoring below it, with probabilities
+ * proportional to the score differences.
+ */
+@Service
+public class WeightedLoadRebalancer implements Rebalancer {
+    private static final Logger LOG = LoggerFactory.getLogger(WeightedLoadRebalancer.class);
+
+    private static final int METRIC_COUNT = 6;
+
+    /**
+     * Minimum difference between the max and the min score in order to
+     * trigger rebalancing
+     */
+    @Value("#{properties[loadmgmt_min_score_diff]}")
+    private double minScoreDiff = 0.1;
+
+    /** The weight of the previous smoothed value, from 0 (no smoothing) to 1 */
+    @Value("#{properties[loadmgmt_smoothing_factor]}")
+    private double smoothingFactor = 0.5;
+
+    @Value("#{properties[loadmgmt_endpoint_count_weight]}")
+    private double endpointCountWeight = 1.0;
+
+    @Value("#{properties[loadmgmt_sync_rate_weight]}")
+    private double syncRateWeight = 2.0;
+
+    @Value("#{properties[loadmgmt_event_rate_weight]}")
+    private double eventRateWeight = 1.0;
+
+    @Value("#{properties[loadmgmt_log_rate_weight]}")
+    private double logRateWeight = 1.0;
+
+    @Value("#{properties[loadmgmt_heap_usage_weight]}")
+    private double heapUsageWeight = 0.5;
+
+    @Value("#{properties[loadmgmt_mailbox_depth_weight]}")
+    private double mailboxDepthWeight = 1.0;
+
+    /** Maximum redirect probability for new sessions */
+    @Value("#{properties[loadmgmt_max_init_redirect_probability]}")
+    private double maxInitRedirectProbability = 0.75;
+
+    /** Maximum redirect probability for existing sessions */
+    @Value("#{properties[loadmgmt_max_session_redirect_probability]}")
+    private double maxSessionRedirectProbability = 0.0;
+
+    /** Load mgmt data recalculation period. */
+    @Value("#{properties[recalculation_period]}")
+    private int recalculationPeriod;
+
+    private final AtomicLong ruleIdSeq = new AtomicLong();
+
+    @Override
+    public Map<Integer, List<RedirectionRule>> recalculate(Map<Integer, OperationsServerLoadHistory> opsServerLoadHistory) {
+        Map<Integer, List<RedirectionRule>> result = new HashMap<>();
+        if (opsServerLoadHistory.size() == 0) {
+            LOG.debug("No ops server load history yet");
+            return result;
+        }
+        if (opsServerLoadHistory.size() == 1) {
+            LOG.debug("No rebalancing in standalone mode");
+            return result;
+        }
+
+        Map<Integer, Double> scores = calculateScores(opsServerLoadHistory);
+        double minScore = Double.MAX_VALUE;
+        double maxScore = -Double.MAX_VALUE;
+        for (Entry<Integer, Double> score : scores.entrySet()) {
+            LOG.debug("Load score of {} is {}", score.getKey(), score.getValue());
+            minScore = Math.min(minScore, score.getValue());
+            maxScore = Math.max(maxScore, score.getValue());
+        }
+        LOG.info("Max difference between load scores is {}", maxScore - minScore);
+        if (maxScore - minScore < minScoreDiff) {
+            LOG.debug("Max load score difference is too small to trigger recalculation. Min required diff is {}", minScoreDiff);
+            return result;
+        }
+
+        double targetScore = 1.0 / scores.size();
+        Map<Integer, Double> weights = calculateWeights(scores, targetScore);
+
+        for (Entry<Integer, Double> opsEntry : weights.entrySet()) {
+            double curWeight = opsEntry.getValue();
+            if (curWeight >= 0) {
+                LOG.debug("No redirection rules for {}", opsEntry.getKey());
+                continue;
+            }
+            List<RedirectionRule> redirectionRules = new ArrayList<>();
+            for (Entry<Integer, Double> targetWeight : weights.entrySet()) {
+                if (targetWeight.getValue() <= 0) {
+                    continue;
+                }
+                double initRedirectProbability = Math.abs(curWeight) * targetWeight.getValue() * maxInitRedirectProbability;
+                double sessionRedirectProbability = Math.abs(curWeight) * targetWeight.getValue() * maxSessionRedirectProbability;
+                if (initRedirectProbability > 0 || sessionRedirectProbability > 0) {
+                    RedirectionRule rule = new RedirectionRule(targetWeight.getKey(), ruleIdSeq.getAndIncrement(), initRedirectProbability,
+                            sessionRedirectProbability, recalculationPeriod * 1000L);
+                    LOG.debug("Calculated new rule for accessPointId: {} -> {}", opsEntry.getKey(), rule);
+                    redirectionRules.add(rule);
+                }
+            }
+            result.put(opsEntry.getKey(), redirectionRules);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the load scores of the servers, the scores add up to 1.
+     */
+    public Map<Integer, Double> calculateScores(Map<Integer, OperationsServerLoadHistory> opsServerLoadHistory) {
+        double[] metricWeights = {endpointCountWeight, syncRateWeight, eventRateWeight, logRateWeight, heapUsageWeight, mailboxDepthWeight};
+        Map<Integer, double[]> metrics = new LinkedHashMap<>();
+        double[] totals = new double[METRIC_COUNT];
+        for (Entry<Integer, OperationsServerLoadHistory> opsEntry : opsServerLoadHistory.entrySet()) {
+            double[] smoothed = smooth(opsEntry.getValue());
+            for (int i = 0; i < METRIC_COUNT; i++) {
+                totals[i] += smoothed[i];
+            }
+            metrics.put(opsEntry.getKey(), smoothed);
+        }
+        double totalWeight = 0;
+        for (int i = 0; i < METRIC_COUNT; i++) {
+            if (totals[i] > 0) {
+                totalWeight += metricWeights[i];
+            }
+        }
+        Map<Integer, Double> scores = new LinkedHashMap<>();
+        for (Entry<Integer, double[]> metricsEntry : metrics.entrySet()) {
+            double score = 0;
+            if (totalWeight > 0) {
+                for (int i = 0; i < METRIC_COUNT; i++) {
+                    if (totals[i] > 0) {
+                        score += metricWeights[i] * metricsEntry.getValue()[i] / totals[i];
+                    }
+                }
+                score /= totalWeight;
+            } else {
+                score = 1.0 / metrics.size();
+            }
+            scores.put(metricsEntry.getKey(), score);
+        }
+        return scores;
+    }
+
+    private Map<Integer, Double> calculateWeights(Map<Integer, Double> scores, double targetScore) {
+        Map<Integer, Double> weights = new LinkedHashMap<>();
+        double totalPosWeight = 0;
+        double totalNegWeight = 0;
+        for (Entry<Integer, Double> score : scores.entrySet()) {
+            double weight = targetScore - score.getValue();
+            if (weight > 0) {
+                totalPosWeight += weight;
+            } else {
+                totalNegWeight = Math.max(totalNegWeight, Math.abs(weight));
+            }
+            weights.put(score.getKey(), weight);
+        }
+        for (Entry<Integer, Double> weightEntry : weights.entrySet()) {
+            double weight = weightEntry.getValue();
+            if (weight > 0) {
+                weightEntry.setValue(weight / totalPosWeight);
+            } else if (totalNegWeight > 0) {
+                weightEntry.setValue(weight / totalNegWeight);
+            }
+            LOG.debug("Calculated redirection weight of {} is {}", weightEntry.getKey(), weightEntry.getValue());
+        }
+        return weights;
+    }
+
+    /**
+     * Smooths the metrics over the history, from the oldest to the latest load.
+     */
+    private double[] smooth(OperationsServerLoadHistory loadHistory) {
+        double[] smoothed = null;
+        for (OperationsServerLoad load : loadHistory.getHistory()) {
+            LoadInfo loadInfo = load.getLoadInfo();
+            if (loadInfo == null) {
+                continue;
+            }
+            double[] current = toMetrics(loadInfo, load.getLoadDetails());
+            if (smoothed == null) {
+                smoothed = current;
+            } else {
+                for (int i = 0; i < METRIC_COUNT; i++) {
+                    smoothed[i] = smoothingFactor * smoothed[i] + (1 - smoothingFactor) * current[i];
+                }
+            }
+        }
+        return smoothed != null ? smoothed : new double[METRIC_COUNT];
+    }
+
+    /**
+     * Servers that don't report load details yet only contribute their
+     * endpoint count.
+     */
+    private static double[] toMetrics(LoadInfo loadInfo, LoadDetails loadDetails) {
+        if (loadDetails == null) {
+            return new double[] {value(loadInfo.getEndpointCount()), 0.0, 0.0, 0.0, 0.0, 0.0};
+        }
+        return new double[] {
+            value(loadInfo.getEndpointCount()),
+            value(loadDetails.getSyncRate()),
+            value(loadDetails.getEventRate()),
+            value(loadDetails.getLogRate()),
+            value(loadDetails.getHeapUsage()),
+            value(loadDetails.getMailboxDepth())
+        };
+    }
+
+    private static double value(Number number) {
+        return number != null ? Math.max(number.doubleValue(), 0.0) : 0.0;
+    }
+
+    public void setMinScoreDiff(double minScoreDiff) {
+        this.minScoreDiff = minScoreDiff;
+    }
+
+    public void setSmoothingFactor(double smoothingFactor) {
+        this.smoothingFactor = smoothingFactor;
+    }
+}
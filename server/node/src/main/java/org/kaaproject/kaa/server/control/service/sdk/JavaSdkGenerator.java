@@ -20,12 +20,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +47,9 @@ import org.apache.avro.compiler.specific.SpecificCompiler;
 import org.apache.avro.compiler.specific.SpecificCompiler.FieldVisibility;
 import org.apache.avro.generic.GenericData.StringType;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.kaaproject.kaa.common.dto.admin.SdkPlatform;
 import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
@@ -337,6 +345,33 @@ public class JavaSdkGenerator extends SdkGenerator {
      */
     private static final SecureRandom RANDOM = new SecureRandom();
 
+    /**
+     * The Constant UTF8.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The max number of schemas with cached generated sources.
+     */
+    private static final int MAX_CACHED_SCHEMA_SOURCES = 256;
+
+    /**
+     * The max number of cached compilation results.
+     */
+    private static final int MAX_CACHED_COMPILATIONS = 16;
+
+    /**
+     * The sources generated by the Avro compiler, by schema hash.
+     */
+    private static final Map<String, List<SchemaSource>> SCHEMA_SOURCES = Collections.synchronizedMap(
+            new LruMap<String, List<SchemaSource>>(MAX_CACHED_SCHEMA_SOURCES));
+
+    /**
+     * The compiled class files by file name, by hash of the compiled sources.
+     */
+    private static final Map<String, Map<String, byte[]>> COMPILED_CLASSES = Collections.synchronizedMap(
+            new LruMap<String, Map<String, byte[]>>(MAX_CACHED_COMPILATIONS));
+
     private final SdkPlatform sdkPlatform;
 
     public JavaSdkGenerator(SdkPlatform sdkPlatform) {
@@ -387,6 +422,20 @@ public class JavaSdkGenerator extends SdkGenerator {
 
         Map<String, Schema> uniqueSchemasMap = SchemaUtil.getUniqueSchemasMap(schemasToCheck);
 
+        List<Schema> schemasToGenerate = new ArrayList<>();
+        schemasToGenerate.add(configurationSchema);
+        if (profileSchemaVersion != DEFAULT_PROFILE_SCHEMA_VERSION) {
+            schemasToGenerate.add(profileSchema);
+        }
+        if (notificationSchemaVersion != DEFAULT_SCHEMA_VERSION) {
+            schemasToGenerate.add(notificationSchema);
+        }
+        if (logSchemaVersion != DEFAULT_SCHEMA_VERSION) {
+            schemasToGenerate.add(logSchema);
+        }
+        schemasToGenerate.addAll(eventFamilySchemas);
+        prepareSchemaSources(schemasToGenerate);
+
         String sdkTemplateLocation;
         if (sdkPlatform == SdkPlatform.JAVA) {
             sdkTemplateLocation = Environment.getServerHomeDir() + "/" + JAVA_SDK_DIR + "/" + JAVA_SDK_PREFIX + buildVersion
@@ -602,6 +651,64 @@ public class JavaSdkGenerator extends SdkGenerator {
      * @throws  IOException Signals that an I/O exception has occurred.
      */
     public static List<JavaDynamicBean> generateSchemaSources(Schema schema, Map<String, Schema> uniqueSchemas) throws IOException {
+        List<JavaDynamicBean> result = new ArrayList<JavaDynamicBean>();
+        for (SchemaSource source : getSchemaSources(schema)) {
+            if (uniqueSchemas.containsKey(source.fullName)) {
+                uniqueSchemas.remove(source.fullName);
+                result.add(new JavaDynamicBean(source.className, source.code));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates the sources of the schemas that are not cached yet in parallel.
+     *
+     * @param schemas the schemas
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void prepareSchemaSources(List<Schema> schemas) throws IOException {
+        try {
+            schemas.parallelStream().forEach(schema -> {
+                try {
+                    getSchemaSources(schema);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Gets the sources generated by the Avro compiler for the schema and all
+     * the named types it contains.
+     *
+     * @param schema the schema
+     * @return the sources
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static List<SchemaSource> getSchemaSources(Schema schema) throws IOException {
+        String key = DigestUtils.sha256Hex(schema.toString());
+        List<SchemaSource> sources = SCHEMA_SOURCES.get(key);
+        if (sources == null) {
+            sources = compileSchema(schema);
+            SCHEMA_SOURCES.put(key, sources);
+        } else {
+            LOG.trace("Reusing generated sources of schema {}", schema.getFullName());
+        }
+        return sources;
+    }
+
+    /**
+     * Compiles the schema with the Avro compiler.
+     *
+     * @param schema the schema
+     * @return the sources
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static List<SchemaSource> compileSchema(Schema schema) throws IOException {
         SpecificCompiler compiler = new SpecificCompiler(schema);
         compiler.setStringType(StringType.String);
         compiler.setFieldVisibility(FieldVisibility.PRIVATE);
@@ -617,13 +724,14 @@ public class JavaSdkGenerator extends SdkGenerator {
         File tmpOutputDir = new File(tmpdir, "tmp-gen-" + Long.toString(n));
         tmpOutputDir.mkdirs();
 
-        compiler.compileToDestination(null, tmpOutputDir);
-
-        List<JavaDynamicBean> sources = getJavaSources(tmpOutputDir, uniqueSchemas);
-
-        tmpOutputDir.delete();
-
-        return sources;
+        try {
+            compiler.compileToDestination(null, tmpOutputDir);
+            List<SchemaSource> sources = new ArrayList<>();
+            getJavaSources(tmpOutputDir, sources);
+            return Collections.unmodifiableList(sources);
+        } finally {
+            FileUtils.deleteQuietly(tmpOutputDir);
+        }
     }
 
     /**
@@ -633,24 +741,41 @@ public class JavaSdkGenerator extends SdkGenerator {
      * @param data        the data
      */
     private void packageSources(List<JavaDynamicBean> javaSources, Map<String, ZipEntryData> data) {
-        JavaDynamicCompiler dynamicCompiler = new JavaDynamicCompiler();
-        dynamicCompiler.init();
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        digest.update((JAVA_SOURCE_COMPILER_RELEASE + ":" + JAVA_TARGET_COMPILER_RELEASE).getBytes(UTF8));
         for (JavaDynamicBean bean : javaSources) {
             LOG.debug("Compiling bean {} with source: {}", bean.getName(), bean.getCharContent(true));
             Stream<String> sourceLines = Arrays.stream(bean.getCharContent(true).split("\n"));
             String packageLine = sourceLines.filter(line -> line.startsWith("package")).findFirst().orElse("");
             String sourceFileName = packageLine.replaceAll("package", "").replaceAll("\\.|;", "/").trim() + bean.getName();
-            data.put(sourceFileName, new ZipEntryData(new ZipEntry(sourceFileName), bean.getCharContent(true).getBytes()));
+            byte[] source = bean.getCharContent(true).getBytes();
+            data.put(sourceFileName, new ZipEntryData(new ZipEntry(sourceFileName), source));
+            digest.update(sourceFileName.getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(source);
+            digest.update((byte) 0);
         }
-        Collection<JavaDynamicBean> compiledObjects = dynamicCompiler.compile(javaSources, 
-                "-source", JAVA_SOURCE_COMPILER_RELEASE,
-                "-target", JAVA_TARGET_COMPILER_RELEASE);
-        for (JavaDynamicBean compiledObject : compiledObjects) {
-            String className = compiledObject.getName();
-            String classFileName = className.replace('.', '/') + Kind.CLASS.extension;
-            ZipEntry classFile = new ZipEntry(classFileName);
-            ZipEntryData zipEntryData = new ZipEntryData(classFile, compiledObject.getBytes());
-            data.put(classFileName, zipEntryData);
+        String key = Hex.encodeHexString(digest.digest());
+        Map<String, byte[]> classFiles = COMPILED_CLASSES.get(key);
+        if (classFiles == null) {
+            JavaDynamicCompiler dynamicCompiler = new JavaDynamicCompiler();
+            dynamicCompiler.init();
+            Collection<JavaDynamicBean> compiledObjects = dynamicCompiler.compile(javaSources,
+                    "-source", JAVA_SOURCE_COMPILER_RELEASE,
+                    "-target", JAVA_TARGET_COMPILER_RELEASE);
+            classFiles = new LinkedHashMap<>();
+            for (JavaDynamicBean compiledObject : compiledObjects) {
+                String className = compiledObject.getName();
+                String classFileName = className.replace('.', '/') + Kind.CLASS.extension;
+                classFiles.put(classFileName, compiledObject.getBytes());
+            }
+            classFiles = Collections.unmodifiableMap(classFiles);
+            COMPILED_CLASSES.put(key, classFiles);
+        } else {
+            LOG.debug("Reusing {} compiled classes", classFiles.size());
+        }
+        for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+            data.put(classFile.getKey(), new ZipEntryData(new ZipEntry(classFile.getKey()), classFile.getValue()));
         }
     }
 
@@ -658,15 +783,14 @@ public class JavaSdkGenerator extends SdkGenerator {
      * Gets the java sources.
      *
      * @param srcDir the src dir
-     * @return the java sources
+     * @param result the sources found
      * @throws IOException Signals that an I/O exception has occurred.
      */
-    private static List<JavaDynamicBean> getJavaSources(File srcDir, Map<String, Schema> uniqueSchemas) throws IOException {
-        List<JavaDynamicBean> result = new ArrayList<JavaDynamicBean>();
+    private static void getJavaSources(File srcDir, List<SchemaSource> result) throws IOException {
         File[] files = srcDir.listFiles();
         for (File f : files) {
             if (f.isDirectory()) {
-                result.addAll(getJavaSources(f, uniqueSchemas));
+                getJavaSources(f, result);
             } else if (f.getName().endsWith(Kind.SOURCE.extension)) {
                 int index = f.getName().indexOf('.');
                 String className = f.getName().substring(0, index);
@@ -682,14 +806,9 @@ public class JavaSdkGenerator extends SdkGenerator {
                     }
                 }
 
-                if (uniqueSchemas.containsKey(classPackageAndName)) {
-                    uniqueSchemas.remove(classPackageAndName);
-                    JavaDynamicBean sourceObject = new JavaDynamicBean(className, sourceCode);
-                    result.add(sourceObject);
-                }
+                result.add(new SchemaSource(classPackageAndName, className, sourceCode));
             }
         }
-        return result;
     }
 
     /**
@@ -727,4 +846,36 @@ public class JavaSdkGenerator extends SdkGenerator {
         return baos.toByteArray();
     }
 
+    /**
+     * A source generated by the Avro compiler.
+     */
+    private static final class SchemaSource {
+
+        private final String fullName;
+        private final String className;
+        private final String code;
+
+        SchemaSource(String fullName, String className, String code) {
+            this.fullName = fullName;
+            this.className = className;
+            this.code = code;
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
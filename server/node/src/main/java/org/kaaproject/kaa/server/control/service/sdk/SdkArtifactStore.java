@@ -0,0 +1,287 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.control.service.sdk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.kaaproject.kaa.common.dto.admin.SdkPlatform;
+import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
+import org.kaaproject.kaa.common.dto.event.ApplicationEventMapDto;
+import org.kaaproject.kaa.common.dto.file.FileData;
+import org.kaaproject.kaa.server.common.Version;
+import org.kaaproject.kaa.server.common.zk.gen.BootstrapNodeInfo;
+import org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo;
+import org.kaaproject.kaa.server.common.zk.gen.TransportMetaData;
+import org.kaaproject.kaa.server.common.zk.gen.VersionConnectionInfoPair;
+import org.kaaproject.kaa.server.control.service.sdk.event.EventFamilyMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A content addressed store of generated SDKs on the local file system. Each
+ * SDK is kept under the hash of everything its generation depends on, see
+ * {@link #computeKey}, so identical SDKs are built once and survive restarts.
+ * The store directory may be shared by several control nodes: SDK files are
+ * written to a temporary file and then moved in place, readers never see a
+ * partially written SDK. Failures to read or write the store are logged and
+ * treated as a cache miss.
+ */
+public class SdkArtifactStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SdkArtifactStore.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String KEY_ALGORITHM = "SHA-256";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path root;
+
+    /**
+     * Instantiates a new SDK artifact store.
+     *
+     * @param rootDir the store directory, created on the first write
+     */
+    public SdkArtifactStore(String rootDir) {
+        this.root = Paths.get(rootDir);
+    }
+
+    /**
+     * Gets a stored SDK.
+     *
+     * @param key the SDK key
+     * @return the SDK without the content type, or null if it is not stored
+     */
+    public FileData get(String key) {
+        Path dir = getDir(key);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(TMP_SUFFIX)) {
+                    FileData sdk = new FileData();
+                    sdk.setFileName(fileName);
+                    sdk.setFileData(Files.readAllBytes(file));
+                    return sdk;
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to read SDK {} from {}", key, dir, e);
+        }
+        return null;
+    }
+
+    /**
+     * Stores an SDK, does nothing if an SDK with the same key is already stored.
+     *
+     * @param key the SDK key
+     * @param sdk the SDK
+     */
+    public void put(String key, FileData sdk) {
+        Path dir = getDir(key);
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(dir);
+            Path file = dir.resolve(sdk.getFileName());
+            if (Files.exists(file)) {
+                return;
+            }
+            tmpFile = Files.createTempFile(dir, sdk.getFileName(), TMP_SUFFIX);
+            Files.write(tmpFile, sdk.getFileData());
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+            tmpFile = null;
+            LOG.debug("Stored SDK {} as {}", key, file);
+        } catch (FileAlreadyExistsException e) {
+            LOG.trace("SDK {} was stored concurrently", key);
+        } catch (IOException e) {
+            LOG.warn("Unable to store SDK {} in {}", key, dir, e);
+        } finally {
+            if (tmpFile != null) {
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch (IOException e) {
+                    LOG.trace("Unable to delete {}", tmpFile, e);
+                }
+            }
+        }
+    }
+
+    private Path getDir(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * Computes the key of an SDK from the arguments of
+     * {@link SdkGenerator#generateSdk} and the target platform. The server
+     * commit hash is included because it is embedded into the SDK. Only the
+     * bootstrap node data embedded into the SDK is included, regardless of
+     * the order of the nodes and their transports.
+     *
+     * @return the SDK key, a hex encoded SHA-256 hash
+     */
+    public static String computeKey(SdkPlatform platform, String buildVersion, List<BootstrapNodeInfo> bootstrapNodes,
+                                    SdkProfileDto sdkProfile, String profileSchemaBody, String notificationSchemaBody,
+                                    String configurationProtocolSchemaBody, String configurationSchemaBody,
+                                    byte[] defaultConfigurationData, List<EventFamilyMetadata> eventFamilies, String logSchemaBody) {
+        MessageDigest digest = newDigest();
+        update(digest, platform.name());
+        update(digest, buildVersion);
+        update(digest, Version.COMMIT_HASH);
+
+        List<String> nodes = new ArrayList<>();
+        if (bootstrapNodes != null) {
+            for (BootstrapNodeInfo node : bootstrapNodes) {
+                nodes.add(computeNodeKey(node));
+            }
+        }
+        update(digest, nodes);
+
+        update(digest, sdkProfile.getToken());
+        update(digest, sdkProfile.getApplicationToken());
+        update(digest, sdkProfile.getConfigurationSchemaVersion());
+        update(digest, sdkProfile.getProfileSchemaVersion());
+        update(digest, sdkProfile.getNotificationSchemaVersion());
+        update(digest, sdkProfile.getLogSchemaVersion());
+        update(digest, sdkProfile.getDefaultVerifierToken());
+
+        update(digest, profileSchemaBody);
+        update(digest, notificationSchemaBody);
+        update(digest, configurationProtocolSchemaBody);
+        update(digest, configurationSchemaBody);
+        update(digest, defaultConfigurationData);
+        update(digest, logSchemaBody);
+
+        update(digest, eventFamilies != null ? eventFamilies.size() : 0);
+        if (eventFamilies != null) {
+            for (EventFamilyMetadata eventFamily : eventFamilies) {
+                update(digest, eventFamily.getEcfName());
+                update(digest, eventFamily.getEcfNamespace());
+                update(digest, eventFamily.getEcfClassName());
+                update(digest, eventFamily.getVersion());
+                update(digest, eventFamily.getEcfSchema());
+                List<ApplicationEventMapDto> eventMaps = eventFamily.getEventMaps();
+                update(digest, eventMaps != null ? eventMaps.size() : 0);
+                if (eventMaps != null) {
+                    for (ApplicationEventMapDto eventMap : eventMaps) {
+                        update(digest, eventMap.getFqn());
+                        update(digest, eventMap.getEventClassId());
+                        update(digest, eventMap.getAction() != null ? eventMap.getAction().name() : null);
+                    }
+                }
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Computes the key of a bootstrap node from its connection info and
+     * transports, the node start time is left out.
+     */
+    private static String computeNodeKey(BootstrapNodeInfo node) {
+        MessageDigest digest = newDigest();
+        ConnectionInfo connectionInfo = node.getConnectionInfo();
+        if (connectionInfo != null) {
+            update(digest, connectionInfo.getThriftHost() != null ? connectionInfo.getThriftHost().toString() : null);
+            update(digest, connectionInfo.getThriftPort());
+            update(digest, connectionInfo.getPublicKey());
+        }
+        List<String> transports = new ArrayList<>();
+        if (node.getTransports() != null) {
+            for (TransportMetaData transport : node.getTransports()) {
+                MessageDigest transportDigest = newDigest();
+                update(transportDigest, transport.getId());
+                update(transportDigest, transport.getMinSupportedVersion());
+                update(transportDigest, transport.getMaxSupportedVersion());
+                List<VersionConnectionInfoPair> pairs = transport.getConnectionInfo();
+                update(transportDigest, pairs != null ? pairs.size() : 0);
+                if (pairs != null) {
+                    for (VersionConnectionInfoPair pair : pairs) {
+                        update(transportDigest, pair.getVersion());
+                        update(transportDigest, pair.getConenctionInfo());
+                    }
+                }
+                transports.add(Hex.encodeHexString(transportDigest.digest()));
+            }
+        }
+        update(digest, transports);
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Updates the digest with the values in their natural order, the given
+     * list is sorted.
+     */
+    private static void update(MessageDigest digest, List<String> values) {
+        Collections.sort(values);
+        update(digest, values.size());
+        for (String value : values) {
+            update(digest, value);
+        }
+    }
+
+    private static void update(MessageDigest digest, Integer value) {
+        digest.update(ByteBuffer.allocate(5).put((byte) (value != null ? 1 : 0)).putInt(value != null ? value : 0).array());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        update(digest, value != null ? value.getBytes(UTF8) : null);
+    }
+
+    private static void update(MessageDigest digest, ByteBuffer value) {
+        if (value == null) {
+            update(digest, (byte[]) null);
+        } else {
+            ByteBuffer data = value.duplicate();
+            update(digest, data.remaining());
+            digest.update(data);
+        }
+    }
+
+    private static void update(MessageDigest digest, byte[] value) {
+        if (value == null) {
+            update(digest, (Integer) null);
+        } else {
+            update(digest, value.length);
+            digest.update(value);
+        }
+    }
+}
@@ -17,7 +17,6 @@
 package org.kaaproject.kaa.server.control.service.zk;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
 import org.apache.curator.retry.RetryUntilElapsed;
@@ -27,7 +26,6 @@ import org.kaaproject.kaa.server.common.thrift.gen.operations.Notification;
 import org.kaaproject.kaa.server.common.thrift.gen.operations.OperationsThriftService;
 import org.kaaproject.kaa.server.common.thrift.gen.operations.OperationsThriftService.Client;
 import org.kaaproject.kaa.server.common.thrift.util.ThriftActivity;
-import org.kaaproject.kaa.server.common.thrift.util.ThriftClient;
 import org.kaaproject.kaa.server.common.thrift.util.ThriftExecutor;
 import org.kaaproject.kaa.server.common.zk.control.ControlNode;
 import org.kaaproject.kaa.server.common.zk.gen.BootstrapNodeInfo;
@@ -113,31 +111,24 @@ public class ControlZkService {
             for (OperationsNodeInfo endpoint : endpoints) {
                 String host = endpoint.getConnectionInfo().getThriftHost().toString();
                 int port = endpoint.getConnectionInfo().getThriftPort();
-                try {
-                    ThriftClient<OperationsThriftService.Client> client = new ThriftClient<>(host, port,
-                            KaaThriftService.OPERATIONS_SERVICE, OperationsThriftService.Client.class);
-                    client.setThriftActivity(new ThriftActivity<OperationsThriftService.Client>() {
-                        @Override
-                        public void isSuccess(boolean activitySuccess) {
-                            if (!activitySuccess) {
-                                LOG.error("Sending notification to endpoint server failed.");
-                            }
+                ThriftExecutor.submit(host, port, KaaThriftService.OPERATIONS_SERVICE, OperationsThriftService.Client.class,
+                        new ThriftActivity<OperationsThriftService.Client>() {
+                    @Override
+                    public void isSuccess(boolean activitySuccess) {
+                        if (!activitySuccess) {
+                            LOG.error("Sending notification to endpoint server failed.");
                         }
+                    }
 
-                        @Override
-                        public void doInTemplate(Client t) {
-                            try { // NOSONAR
-                                t.onNotification(thriftNotification);
-                            } catch (TException e) {
-                                LOG.error("Unexpected error occurred while send notification to endpoint server", e);
-                            }
+                    @Override
+                    public void doInTemplate(Client t) {
+                        try { // NOSONAR
+                            t.onNotification(thriftNotification);
+                        } catch (TException e) {
+                            LOG.error("Unexpected error occurred while send notification to endpoint server", e);
                         }
-                    });
-                    ThriftExecutor.execute(client);
-                } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-                        | IllegalArgumentException | InvocationTargetException e) {
-                    LOG.error("Unexpected error occurred while creating thrift connection to send notification to endpoint server", e);
-                }
+                    }
+                });
             }
         }
     }
@@ -28,6 +28,7 @@ import java.util.function.Function;
 
 import org.kaaproject.kaa.common.dto.EndpointGroupStateDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.dto.EndpointUserConfigurationDto;
 import org.kaaproject.kaa.common.dto.NotificationDto;
 import org.kaaproject.kaa.common.dto.TopicDto;
@@ -37,7 +38,6 @@ import org.kaaproject.kaa.common.hash.SHA1HashUtils;
 import org.kaaproject.kaa.server.common.Base64Util;
 import org.kaaproject.kaa.server.common.core.structure.Pair;
 import org.kaaproject.kaa.server.common.dao.EndpointService;
-import org.kaaproject.kaa.server.common.dao.UserConfigurationService;
 import org.kaaproject.kaa.server.operations.pojo.GetDeltaRequest;
 import org.kaaproject.kaa.server.operations.pojo.GetDeltaResponse;
 import org.kaaproject.kaa.server.operations.pojo.GetNotificationRequest;
@@ -50,6 +50,7 @@ import org.kaaproject.kaa.server.operations.service.cache.AppSeqNumber;
 import org.kaaproject.kaa.server.operations.service.cache.CacheService;
 import org.kaaproject.kaa.server.operations.service.cache.ConfigurationCacheEntry;
 import org.kaaproject.kaa.server.operations.service.cache.TopicListCacheEntry;
+import org.kaaproject.kaa.server.operations.service.cache.UserConfigurationKey;
 import org.kaaproject.kaa.server.operations.service.delta.DeltaService;
 import org.kaaproject.kaa.server.operations.service.delta.HistoryDelta;
 import org.kaaproject.kaa.server.operations.service.history.HistoryDeltaService;
@@ -117,9 +118,6 @@ public class DefaultOperationsService implements OperationsService {
     @Autowired
     EndpointUserService endpointUserService;
 
-    @Autowired
-    UserConfigurationService userConfigurationService;
-
     @Autowired
     EndpointService endpointService;
 
@@ -162,7 +160,8 @@ public class DefaultOperationsService implements OperationsService {
             context.setStatus(SyncStatus.PROFILE_RESYNC);
         }
 
-        profile = syncProfileState(metaData.getApplicationToken(), context.getEndpointKey(), profile, false);
+        profile = syncProfileState(metaData.getApplicationToken(), context.getEndpointKey(), profile,
+                new EndpointProfileSnapshotDto(profile), false);
 
         context.setEndpointProfile(profile);
 
@@ -172,8 +171,9 @@ public class DefaultOperationsService implements OperationsService {
     @Override
     public EndpointProfileDto syncServerProfile(String appToken, String endpointKey, EndpointObjectHash key) {
         EndpointProfileDto profile = refreshServerEndpointProfile(key);
+        EndpointProfileSnapshotDto storedProfile = new EndpointProfileSnapshotDto(profile);
         profile.setGroupState(new ArrayList<>());
-        profile = syncProfileState(appToken, endpointKey, profile, false);
+        profile = syncProfileState(appToken, endpointKey, profile, storedProfile, false);
         return profile;
     }
 
@@ -201,7 +201,7 @@ public class DefaultOperationsService implements OperationsService {
     }
 
     private EndpointProfileDto syncProfileState(String appToken, String endpointId, EndpointProfileDto endpointProfile,
-            boolean userConfigurationChanged) {
+            EndpointProfileSnapshotDto storedProfile, boolean userConfigurationChanged) {
         LOG.debug("[{}][{}] going to sync endpoint group states", appToken, endpointId);
 
         Function<EndpointProfileDto, Pair<EndpointProfileDto, HistoryDelta>> updateFunction = profile -> {
@@ -232,12 +232,12 @@ public class DefaultOperationsService implements OperationsService {
 
         if (historyDelta.isSmthChanged() || userConfigurationChanged) {
             LOG.debug("[{}][{}] going to save new profile", appToken, endpointId);
-            endpointProfile = profileService.updateProfile(endpointProfile, (storedProfile, newProfile) -> {
+            endpointProfile = profileService.updateProfile(endpointProfile, storedProfile, (stored, newProfile) -> {
                 if (userConfigurationChanged) {
-                    storedProfile.setUserConfigurationHash(newProfile.getUserConfigurationHash());
+                    stored.setUserConfigurationHash(newProfile.getUserConfigurationHash());
                 }
-                storedProfile.setGroupState(new ArrayList<EndpointGroupStateDto>());
-                return updateFunction.apply(storedProfile).getV1();
+                stored.setGroupState(new ArrayList<EndpointGroupStateDto>());
+                return updateFunction.apply(stored).getV1();
             });
         }
         return endpointProfile;
@@ -280,7 +280,7 @@ public class DefaultOperationsService implements OperationsService {
     public SyncContext syncUserConfigurationHash(SyncContext context, byte[] ucfHash) {
         EndpointProfileDto profile = context.getEndpointProfile();
         profile.setUserConfigurationHash(ucfHash);
-        profile = syncProfileState(context.getAppToken(), context.getEndpointKey(), profile, true);
+        profile = syncProfileState(context.getAppToken(), context.getEndpointKey(), profile, new EndpointProfileSnapshotDto(profile), true);
         return context;
     }
 
@@ -299,8 +299,9 @@ public class DefaultOperationsService implements OperationsService {
                     profile.setSubscriptions(new ArrayList<>(notificationResponse.getSubscriptionSet()));
                     return profile;
                 };
-                context.setEndpointProfile(profileService.updateProfile(updateFunction.apply(profileDto), (storedProfile, newProfile) -> {
-                    return updateFunction.apply(storedProfile);
+                EndpointProfileSnapshotDto storedProfile = new EndpointProfileSnapshotDto(profileDto);
+                context.setEndpointProfile(profileService.updateProfile(updateFunction.apply(profileDto), storedProfile, (stored, newProfile) -> {
+                    return updateFunction.apply(stored);
                 }));
             }
         }
@@ -317,8 +318,8 @@ public class DefaultOperationsService implements OperationsService {
             LOG.debug("[{}] Operations server hash changed from {} to {}", context.getEndpointKey(), profile.getServerHash(),
                     operationServerHash);
             profile.setServerHash(operationServerHash);
-            context.setEndpointProfile(profileService.updateProfile(profile, (storedProfile, newProfile) -> {
-                return storedProfile;
+            context.setEndpointProfile(profileService.updateProfile(profile, new EndpointProfileSnapshotDto(profile), (stored, newProfile) -> {
+                return stored;
             }));
         }
         return context;
@@ -329,8 +330,8 @@ public class DefaultOperationsService implements OperationsService {
         if (profile.getEndpointUserId() == null || profile.getEndpointUserId().isEmpty()) {
             return null;
         }
-        EndpointUserConfigurationDto ucfDto = userConfigurationService.findUserConfigurationByUserIdAndAppTokenAndSchemaVersion(
-                profile.getEndpointUserId(), appToken, profile.getConfigurationVersion());
+        EndpointUserConfigurationDto ucfDto = cacheService.getUserConfiguration(new UserConfigurationKey(profile.getEndpointUserId(),
+                appToken, profile.getConfigurationVersion()));
         if (ucfDto != null) {
             return EndpointObjectHash.fromString(ucfDto.getBody()).getData();
         }
@@ -0,0 +1,70 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka;
+
+/**
+ * Actor counts and mailbox backlog of an application on this node.
+ */
+public class AkkaApplicationStatus {
+
+    private final String applicationToken;
+    private final int localEndpointActorCount;
+    private final int globalEndpointActorCount;
+    private final int topicActorCount;
+    private final long mailboxBacklog;
+
+    public AkkaApplicationStatus(String applicationToken, int localEndpointActorCount, int globalEndpointActorCount,
+            int topicActorCount, long mailboxBacklog) {
+        this.applicationToken = applicationToken;
+        this.localEndpointActorCount = localEndpointActorCount;
+        this.globalEndpointActorCount = globalEndpointActorCount;
+        this.topicActorCount = topicActorCount;
+        this.mailboxBacklog = mailboxBacklog;
+    }
+
+    public String getApplicationToken() {
+        return applicationToken;
+    }
+
+    public int getLocalEndpointActorCount() {
+        return localEndpointActorCount;
+    }
+
+    public int getGlobalEndpointActorCount() {
+        return globalEndpointActorCount;
+    }
+
+    public int getTopicActorCount() {
+        return topicActorCount;
+    }
+
+    /**
+     * Gets the number of messages waiting in the mailboxes of the application actor and its children.
+     *
+     * @return the mailbox backlog
+     */
+    public long getMailboxBacklog() {
+        return mailboxBacklog;
+    }
+
+    @Override
+    public String toString() {
+        return "AkkaApplicationStatus [applicationToken=" + applicationToken + ", localEndpointActorCount=" + localEndpointActorCount
+                + ", globalEndpointActorCount=" + globalEndpointActorCount + ", topicActorCount=" + topicActorCount
+                + ", mailboxBacklog=" + mailboxBacklog + "]";
+    }
+}
@@ -22,6 +22,7 @@ import org.kaaproject.kaa.server.operations.service.OperationsService;
 import org.kaaproject.kaa.server.operations.service.cache.CacheService;
 import org.kaaproject.kaa.server.operations.service.cluster.ClusterService;
 import org.kaaproject.kaa.server.operations.service.event.EventService;
+import org.kaaproject.kaa.server.operations.service.loadbalance.LoadStatistics;
 import org.kaaproject.kaa.server.operations.service.logs.LogAppenderService;
 import org.kaaproject.kaa.server.operations.service.metrics.MetricsService;
 import org.kaaproject.kaa.server.operations.service.notification.NotificationDeltaService;
@@ -45,6 +46,10 @@ public class AkkaContext {
 
     private static final String IO_WORKER_COUNT_PROP_NAME = "io_worker_count";
 
+    private static final String SESSION_INIT_SHED_IO_BACKLOG = "session_init_shed_io_backlog";
+
+    private static final String SESSION_INIT_SHED_ENDPOINT_BACKLOG = "session_init_shed_endpoint_backlog";
+
     private static final String AKKA_CONF_FILE_NAME = "akka.conf";
 
     @Autowired
@@ -83,6 +88,12 @@ public class AkkaContext {
     
     @Autowired
     private CTLService ctlService;
+
+    @Autowired
+    private LoadStatistics loadStatistics;
+
+    @Autowired
+    private AkkaStatistics akkaStatistics;
     
     @Value("#{properties[support_unencrypted_connection]}")
     private Boolean supportUnencryptedConnection;
@@ -112,6 +123,14 @@ public class AkkaContext {
     public long getEventTimeout() {
         return config.getLong(ENDPOINT_EVENT_TIMEOUT);
     }
+
+    public int getSessionInitShedIoBacklog() {
+        return config.getInt(SESSION_INIT_SHED_IO_BACKLOG);
+    }
+
+    public int getSessionInitShedEndpointBacklog() {
+        return config.getInt(SESSION_INIT_SHED_ENDPOINT_BACKLOG);
+    }
     
     public ClusterService getClusterService() {
         return clusterService;
@@ -157,6 +176,14 @@ public class AkkaContext {
         return ctlService;
     }
 
+    public LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    public AkkaStatistics getAkkaStatistics() {
+        return akkaStatistics;
+    }
+
     public Boolean getSupportUnencryptedConnection() {
         return supportUnencryptedConnection;
     }
@@ -16,15 +16,29 @@
 
 package org.kaaproject.kaa.server.operations.service.akka;
 
+import java.util.Collections;
+import java.util.List;
+
 public class AkkaServiceStatus {
 
     private final long ts;
     private final int endpointCount;
+    private final List<AkkaApplicationStatus> applicationStatuses;
+    private final int userActorCount;
+    private final long userActorBacklog;
 
     public AkkaServiceStatus(long ts, int endpointCount) {
+        this(ts, endpointCount, Collections.<AkkaApplicationStatus>emptyList(), 0, 0L);
+    }
+
+    public AkkaServiceStatus(long ts, int endpointCount, List<AkkaApplicationStatus> applicationStatuses, int userActorCount,
+            long userActorBacklog) {
         super();
         this.ts = ts;
         this.endpointCount = endpointCount;
+        this.applicationStatuses = applicationStatuses;
+        this.userActorCount = userActorCount;
+        this.userActorBacklog = userActorBacklog;
     }
     
     public long getTs() {
@@ -33,5 +47,30 @@ public class AkkaServiceStatus {
 
     public int getEndpointCount() {
         return endpointCount;
-    }    
+    }
+
+    public List<AkkaApplicationStatus> getApplicationStatuses() {
+        return applicationStatuses;
+    }
+
+    public int getUserActorCount() {
+        return userActorCount;
+    }
+
+    public long getUserActorBacklog() {
+        return userActorBacklog;
+    }
+
+    /**
+     * Gets the number of messages waiting in the mailboxes of all application and user actors.
+     *
+     * @return the mailbox backlog
+     */
+    public long getMailboxBacklog() {
+        long backlog = userActorBacklog;
+        for (AkkaApplicationStatus applicationStatus : applicationStatuses) {
+            backlog += applicationStatus.getMailboxBacklog();
+        }
+        return backlog;
+    }
 }
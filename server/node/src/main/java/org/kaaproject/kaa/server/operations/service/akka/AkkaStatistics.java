@@ -0,0 +1,152 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka;
+
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.CORE_DISPATCHER_NAME;
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.ENDPOINT_DISPATCHER_NAME;
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.IO_DISPATCHER_NAME;
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.LOG_DISPATCHER_NAME;
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.TOPIC_DISPATCHER_NAME;
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.USER_DISPATCHER_NAME;
+import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.VERIFIER_DISPATCHER_NAME;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.MailboxStatistics;
+import org.kaaproject.kaa.server.operations.service.metrics.MeterClient;
+import org.kaaproject.kaa.server.operations.service.metrics.MetricsService;
+import org.kaaproject.kaa.server.operations.service.metrics.TimerClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the actor and mailbox metrics of the Akka layer: live actor
+ * counts, actor creation and termination rates and message processing time
+ * by actor and message type, plus the queue depth and wait time of the
+ * dispatcher mailboxes.
+ */
+@Component
+public class AkkaStatistics {
+
+    private static final String METRICS_PREFIX = "akka";
+
+    private static final String[] DISPATCHERS = {IO_DISPATCHER_NAME, CORE_DISPATCHER_NAME, USER_DISPATCHER_NAME,
+        ENDPOINT_DISPATCHER_NAME, LOG_DISPATCHER_NAME, VERIFIER_DISPATCHER_NAME, TOPIC_DISPATCHER_NAME};
+
+    @Autowired
+    private MetricsService metricsService;
+
+    private final ConcurrentMap<String, ActorTypeStatistics> actorTypes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, TimerClient> processingTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the mailbox gauges of the dispatchers.
+     */
+    @PostConstruct
+    public void registerMailboxGauges() {
+        for (String dispatcher : DISPATCHERS) {
+            final MailboxStatistics statistics = MailboxStatistics.forDispatcher(dispatcher);
+            metricsService.registerGauge(statistics::getQueueDepth, METRICS_PREFIX, dispatcher, "queueDepth");
+            metricsService.registerGauge(statistics::getEnqueuedCount, METRICS_PREFIX, dispatcher, "enqueued");
+            metricsService.registerGauge(statistics::getShedCount, METRICS_PREFIX, dispatcher, "shed");
+            metricsService.registerGauge(() -> statistics.getTotalWaitTime(TimeUnit.MILLISECONDS), METRICS_PREFIX, dispatcher,
+                    "waitTime", "ms");
+        }
+    }
+
+    /**
+     * Records the start of an actor.
+     *
+     * @param actorType the actor type
+     */
+    public void actorStarted(String actorType) {
+        ActorTypeStatistics statistics = getActorTypeStatistics(actorType);
+        statistics.live.increment();
+        statistics.created.mark();
+    }
+
+    /**
+     * Records the stop of an actor.
+     *
+     * @param actorType the actor type
+     */
+    public void actorStopped(String actorType) {
+        ActorTypeStatistics statistics = getActorTypeStatistics(actorType);
+        statistics.live.decrement();
+        statistics.terminated.mark();
+    }
+
+    /**
+     * Records the processing of a message by an actor.
+     *
+     * @param actorType the actor type
+     * @param message the message
+     * @param startNanos the {@link System#nanoTime()} the processing started at
+     */
+    public void messageProcessed(String actorType, Object message, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        String messageType = message.getClass().getSimpleName();
+        TimerClient timer = processingTimers.get(actorType + '.' + messageType);
+        if (timer == null) {
+            timer = processingTimers.computeIfAbsent(actorType + '.' + messageType,
+                    key -> metricsService.createTimer(METRICS_PREFIX, actorType, "processingTime", messageType));
+        }
+        timer.update(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of live actors of the type on this node.
+     *
+     * @param actorType the actor type
+     * @return the actor count
+     */
+    public long getActorCount(String actorType) {
+        ActorTypeStatistics statistics = actorTypes.get(actorType);
+        return statistics != null ? statistics.live.sum() : 0L;
+    }
+
+    private ActorTypeStatistics getActorTypeStatistics(String actorType) {
+        ActorTypeStatistics statistics = actorTypes.get(actorType);
+        if (statistics == null) {
+            statistics = actorTypes.computeIfAbsent(actorType, type -> {
+                ActorTypeStatistics created = new ActorTypeStatistics(metricsService.createMeter(METRICS_PREFIX, type, "created"),
+                        metricsService.createMeter(METRICS_PREFIX, type, "terminated"));
+                metricsService.registerGauge(created.live::sum, METRICS_PREFIX, type, "count");
+                return created;
+            });
+        }
+        return statistics;
+    }
+
+    private static final class ActorTypeStatistics {
+
+        private final LongAdder live = new LongAdder();
+        private final MeterClient created;
+        private final MeterClient terminated;
+
+        ActorTypeStatistics(MeterClient created, MeterClient terminated) {
+            this.created = created;
+            this.terminated = terminated;
+        }
+    }
+}
@@ -27,10 +27,12 @@ import java.util.Map.Entry;
 
 import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.kaaproject.kaa.server.common.thrift.gen.operations.Notification;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaApplicationStatus;
 import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
 import org.kaaproject.kaa.server.operations.service.akka.actors.core.endpoint.global.GlobalEndpointActorCreator;
 import org.kaaproject.kaa.server.operations.service.akka.actors.core.endpoint.local.LocalEndpointActorCreator;
 import org.kaaproject.kaa.server.operations.service.akka.actors.supervision.SupervisionStrategyFactory;
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.MailboxStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.endpoint.EndpointAwareMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.endpoint.EndpointStopMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.lb.ClusterUpdateMessage;
@@ -278,7 +280,20 @@ public class ApplicationActor extends UntypedActor {
     private void processStatusRequest(StatusRequestMessage message) {
         LOG.debug("[{}] Processing status request", message.getId());
         int endpointCount = localEndpointSessions.size();
-        context().parent().tell(new ApplicationActorStatusResponse(message.getId(), endpointCount), ActorRef.noSender());
+        long backlog = MailboxStatistics.getQueueSize(self()) + MailboxStatistics.getQueueSize(applicationLogActor)
+                + MailboxStatistics.getQueueSize(userVerifierActor);
+        for (LocalEndpointActorMD actorMD : localEndpointSessions.values()) {
+            backlog += MailboxStatistics.getQueueSize(actorMD.actorRef);
+        }
+        for (GlobalEndpointActorMD actorMD : globalEndpointSessions.values()) {
+            backlog += MailboxStatistics.getQueueSize(actorMD.actorRef);
+        }
+        for (ActorRef topicActor : topicSessions.values()) {
+            backlog += MailboxStatistics.getQueueSize(topicActor);
+        }
+        AkkaApplicationStatus status = new AkkaApplicationStatus(appToken, endpointCount, globalEndpointSessions.size(),
+                topicSessions.size(), backlog);
+        context().parent().tell(new ApplicationActorStatusResponse(message.getId(), endpointCount, status), ActorRef.noSender());
     }
 
     /**
@@ -327,8 +342,8 @@ public class ApplicationActor extends UntypedActor {
         ActorRef topicActor = topicSessions.get(topicId);
         if (topicActor == null) {
             topicActor = context().actorOf(
-                    Props.create(new TopicActor.ActorCreator(context.getNotificationDeltaService())).withDispatcher(TOPIC_DISPATCHER_NAME),
-                    buildTopicKey(topicId));
+                    Props.create(new TopicActor.ActorCreator(context.getNotificationDeltaService(), context.getAkkaStatistics()))
+                            .withDispatcher(TOPIC_DISPATCHER_NAME), buildTopicKey(topicId));
             topicSessions.put(topicId, topicActor);
             context().watch(topicActor);
         }
@@ -202,7 +202,8 @@ public class OperationsServerActor extends UntypedActor {
                 int endpointCount = state.getEndpontCount();
                 AkkaStatusListener listener = state.getOriginator().getListener();
                 if (listener != null) {
-                    listener.onStatusUpdate(new AkkaServiceStatus(System.currentTimeMillis(), endpointCount));
+                    listener.onStatusUpdate(new AkkaServiceStatus(System.currentTimeMillis(), endpointCount,
+                            state.getApplicationStatuses(), state.getUserActorCount(), state.getUserActorBacklog()));
                 } else {
                     LOG.warn("[{}] Calculated state for empty listener", message.getRequestId());
                 }
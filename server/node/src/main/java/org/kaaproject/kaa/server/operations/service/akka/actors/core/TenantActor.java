@@ -19,6 +19,7 @@ package org.kaaproject.kaa.server.operations.service.akka.actors.core;
 import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.CORE_DISPATCHER_NAME;
 import static org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService.USER_DISPATCHER_NAME;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -28,6 +29,7 @@ import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
 import org.kaaproject.kaa.server.operations.service.akka.actors.core.user.GlobalUserActor;
 import org.kaaproject.kaa.server.operations.service.akka.actors.core.user.LocalUserActor;
 import org.kaaproject.kaa.server.operations.service.akka.actors.supervision.SupervisionStrategyFactory;
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.MailboxStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.endpoint.EndpointAwareMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.lb.ClusterUpdateMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.notification.ThriftNotificationMessage;
@@ -189,7 +191,10 @@ public class TenantActor extends UntypedActor {
 
     private void processStatusRequest(StatusRequestMessage message) {
         LOG.debug("[{}] Processing status request", message.getId());
-        statusRequestStatesMap.put(message.getId(), new StatusRequestState(message, applications.size()));
+        StatusRequestState state = new StatusRequestState(message, applications.size());
+        state.addUserActors(localUsers.size() + globalUsers.size(), getMailboxBacklog(localUsers.values())
+                + getMailboxBacklog(globalUsers.values()));
+        statusRequestStatesMap.put(message.getId(), state);
         for (ActorRef tenant : applications.values()) {
             tenant.tell(new StatusRequestMessage(message.getId()), this.getSelf());
         }
@@ -200,13 +205,23 @@ public class TenantActor extends UntypedActor {
         if (state != null) {
             if (state.processResponse(message)) {
                 int endpointCount = state.getEndpontCount();
-                context().parent().tell(new TenantActorStatusResponse(message.getRequestId(), endpointCount), ActorRef.noSender());
+                context().parent().tell(new TenantActorStatusResponse(message.getRequestId(), endpointCount,
+                        state.getApplicationStatuses(), state.getUserActorCount(), state.getUserActorBacklog()), ActorRef.noSender());
+                statusRequestStatesMap.remove(message.getRequestId());
             }
         } else {
             LOG.warn("[{}] State for status request is not found", message.getRequestId());
         }
     }
 
+    private static long getMailboxBacklog(Collection<ActorRef> actors) {
+        long backlog = 0;
+        for (ActorRef actor : actors) {
+            backlog += MailboxStatistics.getQueueSize(actor);
+        }
+        return backlog;
+    }
+
     private void processSessionControlMessage(SessionControlMessage message) {
         ActorRef applicationActor = getOrCreateApplicationActor(message.getSessionInfo().getApplicationToken());
         applicationActor.tell(message, self());
@@ -30,6 +30,7 @@ import java.util.TreeMap;
 
 import org.kaaproject.kaa.common.dto.NotificationDto;
 import org.kaaproject.kaa.common.dto.NotificationTypeDto;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.endpoint.EndpointAwareMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.notification.ThriftNotificationMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.topic.NotificationMessage;
@@ -53,9 +54,14 @@ public class TopicActor extends UntypedActor {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(TopicActor.class);
 
+    private static final String ACTOR_TYPE = "TopicActor";
+
     /** The notification service. */
     private final NotificationDeltaService notificationService;
 
+    /** The Akka statistics. */
+    private final AkkaStatistics statistics;
+
     /** The endpoint sessions. */
     private final Map<String, ActorInfo> endpointSessions;
 
@@ -67,9 +73,12 @@ public class TopicActor extends UntypedActor {
      *
      * @param notificationService
      *            the notification service
+     * @param statistics
+     *            the Akka statistics
      */
-    public TopicActor(NotificationDeltaService notificationService) {
+    public TopicActor(NotificationDeltaService notificationService, AkkaStatistics statistics) {
         this.notificationService = notificationService;
+        this.statistics = statistics;
         this.endpointSessions = new HashMap<>();
         this.notificationCache = new TreeMap<>();
     }
@@ -85,15 +94,21 @@ public class TopicActor extends UntypedActor {
         /** The notification service. */
         private final NotificationDeltaService notificationService;
 
+        /** The Akka statistics. */
+        private final AkkaStatistics statistics;
+
         /**
          * Instantiates a new actor creator.
          *
          * @param notificationService
          *            the notification service
+         * @param statistics
+         *            the Akka statistics
          */
-        public ActorCreator(NotificationDeltaService notificationService) {
+        public ActorCreator(NotificationDeltaService notificationService, AkkaStatistics statistics) {
             super();
             this.notificationService = notificationService;
+            this.statistics = statistics;
         }
 
         /*
@@ -103,7 +118,7 @@ public class TopicActor extends UntypedActor {
          */
         @Override
         public TopicActor create() throws Exception {
-            return new TopicActor(notificationService);
+            return new TopicActor(notificationService, statistics);
         }
     }
 
@@ -114,6 +129,15 @@ public class TopicActor extends UntypedActor {
      */
     @Override
     public void onReceive(Object message) throws Exception {
+        long start = System.nanoTime();
+        try {
+            processMessage(message);
+        } finally {
+            statistics.messageProcessed(ACTOR_TYPE, message, start);
+        }
+    }
+
+    private void processMessage(Object message) throws Exception {
         LOG.debug("Received: {}", message);
         if (message instanceof EndpointAwareMessage) {
             if (message instanceof TopicSubscriptionMessage) {
@@ -215,6 +239,7 @@ public class TopicActor extends UntypedActor {
     @Override
     public void preStart() {
         LOG.info("Starting " + this);
+        statistics.actorStarted(ACTOR_TYPE);
     }
 
     /*
@@ -225,6 +250,7 @@ public class TopicActor extends UntypedActor {
     @Override
     public void postStop() {
         LOG.info("Stoped " + this);
+        statistics.actorStopped(ACTOR_TYPE);
     }
 
     /**
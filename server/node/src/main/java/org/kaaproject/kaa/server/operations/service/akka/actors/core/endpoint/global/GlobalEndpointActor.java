@@ -17,6 +17,7 @@ package org.kaaproject.kaa.server.operations.service.akka.actors.core.endpoint.g
 
 import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.lb.ClusterUpdateMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.route.EndpointActorMsg;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.route.EndpointRouteMessage;
@@ -30,17 +31,31 @@ public class GlobalEndpointActor extends UntypedActor {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(GlobalEndpointActor.class);
 
+    private static final String ACTOR_TYPE = "GlobalEndpointActor";
+
+    private final AkkaStatistics statistics;
+
     private final String actorKey;
 
     private final GlobalEndpointActorMessageProcessor messageProcessor;
 
     GlobalEndpointActor(AkkaContext context, String actorKey, String appToken, EndpointObjectHash endpointKey) {
         this.messageProcessor = new GlobalEndpointActorMessageProcessor(context, appToken, endpointKey, actorKey);
+        this.statistics = context.getAkkaStatistics();
         this.actorKey = actorKey;
     }
 
     @Override
     public void onReceive(Object msg) throws Exception {
+        long start = System.nanoTime();
+        try {
+            processMessage(msg);
+        } finally {
+            statistics.messageProcessed(ACTOR_TYPE, msg, start);
+        }
+    }
+
+    private void processMessage(Object msg) throws Exception {
         if (LOG.isTraceEnabled()) {
             LOG.trace("[{}] Received: {}", actorKey, msg);
         } else {
@@ -66,4 +81,24 @@ public class GlobalEndpointActor extends UntypedActor {
     private void processClusterUpdateMessage() {
         messageProcessor.processClusterUpdate(context());
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see akka.actor.UntypedActor#preStart()
+     */
+    @Override
+    public void preStart() {
+        statistics.actorStarted(ACTOR_TYPE);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see akka.actor.UntypedActor#postStop()
+     */
+    @Override
+    public void postStop() {
+        statistics.actorStopped(ACTOR_TYPE);
+    }
 }
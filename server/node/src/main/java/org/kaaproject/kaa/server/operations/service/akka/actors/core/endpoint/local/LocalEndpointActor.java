@@ -18,6 +18,7 @@ package org.kaaproject.kaa.server.operations.service.akka.actors.core.endpoint.l
 
 import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.endpoint.EndpointStopMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.endpoint.SyncRequestMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.logs.LogDeliveryMessage;
@@ -47,6 +48,10 @@ public class LocalEndpointActor extends UntypedActor {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(LocalEndpointActor.class);
 
+    private static final String ACTOR_TYPE = "LocalEndpointActor";
+
+    private final AkkaStatistics statistics;
+
     private final String actorKey;
 
     private final LocalEndpointActorMessageProcessor messageProcessor;
@@ -61,6 +66,7 @@ public class LocalEndpointActor extends UntypedActor {
      */
     LocalEndpointActor(AkkaContext context, String endpointActorKey, String appToken, EndpointObjectHash key) {
         this.messageProcessor = new LocalEndpointActorMessageProcessor(context, appToken, key, endpointActorKey);
+        this.statistics = context.getAkkaStatistics();
         this.actorKey = endpointActorKey;
     }
 
@@ -71,6 +77,15 @@ public class LocalEndpointActor extends UntypedActor {
      */
     @Override
     public void onReceive(Object message) throws Exception {
+        long start = System.nanoTime();
+        try {
+            processMessage(message);
+        } finally {
+            statistics.messageProcessed(ACTOR_TYPE, message, start);
+        }
+    }
+
+    private void processMessage(Object message) throws Exception {
         if (LOG.isTraceEnabled()) {
             LOG.trace("[{}] Received: {}", actorKey, message);
         } else {
@@ -176,6 +191,7 @@ public class LocalEndpointActor extends UntypedActor {
     @Override
     public void preStart() {
         LOG.debug("[{}] Starting", actorKey);
+        statistics.actorStarted(ACTOR_TYPE);
     }
 
     /*
@@ -186,5 +202,6 @@ public class LocalEndpointActor extends UntypedActor {
     @Override
     public void postStop() {
         LOG.debug("[{}] Stoped", actorKey);
+        statistics.actorStopped(ACTOR_TYPE);
     }
 }
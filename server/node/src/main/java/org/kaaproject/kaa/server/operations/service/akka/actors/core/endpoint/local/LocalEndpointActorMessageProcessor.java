@@ -68,7 +68,12 @@ import org.kaaproject.kaa.server.operations.service.akka.messages.core.user.veri
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.user.verification.UserVerificationResponseMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.io.response.NettySessionResponseMessage;
 import org.kaaproject.kaa.server.operations.service.akka.utils.EntityConvertUtils;
+import org.kaaproject.kaa.server.operations.service.cache.CacheService;
+import org.kaaproject.kaa.server.operations.service.cache.UserConfigurationKey;
 import org.kaaproject.kaa.server.operations.service.event.EventClassFamilyVersion;
+import org.kaaproject.kaa.server.operations.service.loadbalance.LoadStatistics;
+import org.kaaproject.kaa.server.operations.service.metrics.SyncStage;
+import org.kaaproject.kaa.server.operations.service.metrics.SyncTrace;
 import org.kaaproject.kaa.server.sync.ClientSync;
 import org.kaaproject.kaa.server.sync.EndpointAttachResponse;
 import org.kaaproject.kaa.server.sync.EndpointDetachRequest;
@@ -103,9 +108,15 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
 
     private final Map<UUID, UserVerificationResponseMessage> userAttachResponseMap;
 
+    private final CacheService cacheService;
+
+    private final LoadStatistics loadStatistics;
+
     public LocalEndpointActorMessageProcessor(AkkaContext context, String appToken, EndpointObjectHash key, String actorKey) {
         super(new LocalEndpointActorState(Base64Util.encode(key.getData()), actorKey), context.getOperationsService(), appToken, key,
                 actorKey, Base64Util.encode(key.getData()), context.getLocalEndpointTimeout());
+        this.cacheService = context.getCacheService();
+        this.loadStatistics = context.getLoadStatistics();
         this.logUploadResponseMap = new HashMap<>();
         this.userAttachResponseMap = new LinkedHashMap<>();
     }
@@ -138,6 +149,11 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
 
     public void processUserConfigurationUpdate(ActorContext context, EndpointUserConfigurationUpdateMessage message) {
         if (message.getUserConfigurationUpdate() != null) {
+            EndpointProfileDto profile = state.getProfile();
+            if (profile != null) {
+                cacheService.resetUserConfiguration(new UserConfigurationKey(message.getUserId(), appToken, profile
+                        .getConfigurationVersion()));
+            }
             state.setUcfHash(message.getUserConfigurationUpdate().getHash());
             syncChannels(context, state.getChannelsByTypes(TransportType.CONFIGURATION), true, false);
         }
@@ -213,6 +229,8 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
 
     private void sync(ActorContext context, SyncRequestMessage requestMessage) {
         try {
+            SyncTrace trace = requestMessage.getTrace();
+            SyncTrace.mark(trace, SyncStage.QUEUE);
             state.setLastActivityTime(System.currentTimeMillis());
             long start = state.getLastActivityTime();
 
@@ -224,7 +242,10 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
             LOG.debug("[{}][{}] Processing sync request {} from {} channel [{}]", endpointKey, actorKey, request, channelType,
                     requestMessage.getChannelUuid());
 
-            SyncContext responseHolder = sync(request);
+            SyncContext responseHolder = sync(request, trace);
+            if (loadStatistics != null) {
+                loadStatistics.recordSync();
+            }
 
             state.setProfile(responseHolder.getEndpointProfile());
 
@@ -234,6 +255,7 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
                 updateUserConnection(context);
                 processEvents(context, request, responseHolder);
                 notifyAffectedEndpoints(context, request, responseHolder);
+                SyncTrace.mark(trace, SyncStage.PROCESS);
             } else {
                 LOG.warn("[{}][{}] Endpoint profile is not set after request processing!", endpointKey, actorKey);
             }
@@ -263,7 +285,7 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
         }
     }
 
-    private SyncContext sync(ClientSync request) throws GetDeltaException {
+    private SyncContext sync(ClientSync request, SyncTrace trace) throws GetDeltaException {
         if (!request.isValid()) {
             LOG.warn("[{}] Request is not valid. It does not contain profile information!", endpointKey);
             return SyncContext.failure(request.getRequestId());
@@ -280,6 +302,7 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
 
         // TODO; 保存EP profile信息到MongoDB中
         context = operationsService.syncClientProfile(context, request.getProfileSync());
+        SyncTrace.mark(trace, SyncStage.PROFILE);
 
         if (context.getStatus() != SyncStatus.SUCCESS) {
             return context;
@@ -298,9 +321,13 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
             context = operationsService.syncUserConfigurationHash(context, state.getUcfHash());
         }
 
+        SyncTrace.mark(trace, SyncStage.PROCESS);
+
         context = operationsService.syncConfiguration(context, request.getConfigurationSync());
+        SyncTrace.mark(trace, SyncStage.CONFIGURATION);
 
         context = operationsService.syncNotification(context, request.getNotificationSync());
+        SyncTrace.mark(trace, SyncStage.NOTIFICATION);
 
         LOG.trace("[{}][{}] processed sync. Response is {}", endpointKey, request.hashCode(), context.getResponse());
 
@@ -416,6 +443,9 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
         if (request != null) {
             if (request.getLogEntries() != null && request.getLogEntries().size() > 0) {
                 LOG.debug("[{}][{}] Processing log upload request {}", endpointKey, actorKey, request.getLogEntries().size());
+                if (loadStatistics != null) {
+                    loadStatistics.recordLogRecords(request.getLogEntries().size());
+                }
                 EndpointProfileDataDto profileDto = convert(responseHolder.getEndpointProfile());
                 List<LogEvent> logEvents = new ArrayList<>(request.getLogEntries().size());
                 for (LogEntry logEntry : request.getLogEntries()) {
@@ -619,7 +649,7 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
         ServerSync copy = ServerSync.deepCopy(syncResponse);
 
         NettySessionResponseMessage response = new NettySessionResponseMessage(request.getSession(), copy, e, request.getCommand()
-                .getMessageBuilder(), request.getCommand().getErrorBuilder());
+                .getMessageBuilder(), request.getCommand().getErrorBuilder(), request.getTrace());
 
         tellActor(context, request.getOriginator(), response);
         scheduleActorTimeout(context);
@@ -643,6 +673,9 @@ public class LocalEndpointActorMessageProcessor extends AbstractEndpointActorMes
             }
             state.setEventSeqNumber(maxSentEventSeqNum);
             if (!eventsToSend.isEmpty()) {
+                if (loadStatistics != null) {
+                    loadStatistics.recordEvents(eventsToSend.size());
+                }
                 EndpointEventSendMessage message = new EndpointEventSendMessage(state.getUserId(), eventsToSend, key, appToken,
                         context.self());
                 context.parent().tell(message, context.self());
@@ -17,6 +17,7 @@
 package org.kaaproject.kaa.server.operations.service.akka.actors.core.user;
 
 import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.lb.ClusterUpdateMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.user.EndpointRouteUpdateMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.user.UserConfigurationUpdateMessage;
@@ -38,6 +39,10 @@ public class GlobalUserActor extends UntypedActor {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(GlobalUserActor.class);
 
+    private static final String ACTOR_TYPE = "GlobalUserActor";
+
+    private final AkkaStatistics statistics;
+
     private final String userId;
 
     private final GlobalUserActorMessageProcessor messageProcessor;
@@ -51,11 +56,21 @@ public class GlobalUserActor extends UntypedActor {
      */
     private GlobalUserActor(AkkaContext context, String userId, String tenantId) {
         this.messageProcessor = new GlobalUserActorMessageProcessor(context, userId, tenantId);
+        this.statistics = context.getAkkaStatistics();
         this.userId = userId;
     }
 
     @Override
     public void onReceive(Object message) throws Exception {
+        long start = System.nanoTime();
+        try {
+            processMessage(message);
+        } finally {
+            statistics.messageProcessed(ACTOR_TYPE, message, start);
+        }
+    }
+
+    private void processMessage(Object message) throws Exception {
         LOG.debug("[{}] Received: {}", userId, message);
         if (message instanceof EndpointRouteUpdateMessage) {
             messageProcessor.process(context(), ((EndpointRouteUpdateMessage) message).getRoute());
@@ -105,4 +120,24 @@ public class GlobalUserActor extends UntypedActor {
             return new GlobalUserActor(context, userId, tenantId);
         }
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see akka.actor.UntypedActor#preStart()
+     */
+    @Override
+    public void preStart() {
+        statistics.actorStarted(ACTOR_TYPE);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see akka.actor.UntypedActor#postStop()
+     */
+    @Override
+    public void postStop() {
+        statistics.actorStopped(ACTOR_TYPE);
+    }
 }
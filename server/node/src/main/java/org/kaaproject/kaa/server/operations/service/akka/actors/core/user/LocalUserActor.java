@@ -17,6 +17,7 @@
 package org.kaaproject.kaa.server.operations.service.akka.actors.core.user;
 
 import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.lb.ClusterUpdateMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.session.EndpointEventTimeoutMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.core.user.EndpointEventDeliveryMessage;
@@ -38,6 +39,10 @@ public class LocalUserActor extends UntypedActor {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(LocalUserActor.class);
 
+    private static final String ACTOR_TYPE = "LocalUserActor";
+
+    private final AkkaStatistics statistics;
+
     private final String userId;
 
     private final LocalUserActorMessageProcessor messageProcessor;
@@ -51,6 +56,7 @@ public class LocalUserActor extends UntypedActor {
      */
     private LocalUserActor(AkkaContext context, String userId, String tenantId) {
         this.messageProcessor = new LocalUserActorMessageProcessor(context, userId, tenantId);
+        this.statistics = context.getAkkaStatistics();
         this.userId = userId;
     }
 
@@ -96,6 +102,15 @@ public class LocalUserActor extends UntypedActor {
 
     @Override
     public void onReceive(Object message) throws Exception {
+        long start = System.nanoTime();
+        try {
+            processMessage(message);
+        } finally {
+            statistics.messageProcessed(ACTOR_TYPE, message, start);
+        }
+    }
+
+    private void processMessage(Object message) throws Exception {
         LOG.debug("[{}] Received: {}", userId, message);
         if (message instanceof EndpointUserConnectMessage) {
             processEndpointConnectMessage((EndpointUserConnectMessage) message);
@@ -157,4 +172,23 @@ public class LocalUserActor extends UntypedActor {
         messageProcessor.processTerminationMessage(context(), message);
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see akka.actor.UntypedActor#preStart()
+     */
+    @Override
+    public void preStart() {
+        statistics.actorStarted(ACTOR_TYPE);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see akka.actor.UntypedActor#postStop()
+     */
+    @Override
+    public void postStop() {
+        statistics.actorStopped(ACTOR_TYPE);
+    }
 }
@@ -24,6 +24,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.kaaproject.kaa.server.common.thrift.gen.operations.RedirectionRule;
 import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
+import org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService;
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.MailboxStatistics;
 import org.kaaproject.kaa.server.operations.service.akka.messages.io.RuleTimeoutMessage;
 import org.kaaproject.kaa.server.operations.service.akka.messages.io.response.SessionResponse;
 import org.kaaproject.kaa.server.transport.message.SessionAwareMessage;
@@ -50,6 +52,10 @@ public class EncDecActor extends UntypedActor {
     private final HashMap<Long, RedirectionRule> redirectionRules; // NOSONAR
     /** random */
     private final Random random;
+    /** Mailbox size of this actor above which new sessions are shed, 0 to disable */
+    private final int ioBacklogLimit;
+    /** Total mailbox size of endpoint actors above which new sessions are shed, 0 to disable */
+    private final int endpointBacklogLimit;
 
     /**
      * Instantiates a new enc dec actor.
@@ -59,10 +65,16 @@ public class EncDecActor extends UntypedActor {
      * @param platformProtocols the platform protocols
      */
     public EncDecActor(ActorRef epsActor, AkkaContext context, Set<String> platformProtocols) {
+        this(new EncDecActorMessageProcessor(epsActor, context, platformProtocols), context);
+    }
+
+    EncDecActor(EncDecActorMessageProcessor messageProcessor, AkkaContext context) {
         super();
-        this.messageProcessor = new EncDecActorMessageProcessor(epsActor, context, platformProtocols);
+        this.messageProcessor = messageProcessor;
         this.redirectionRules = new HashMap<>();
         this.random = new Random();
+        this.ioBacklogLimit = context.getSessionInitShedIoBacklog();
+        this.endpointBacklogLimit = context.getSessionInitShedEndpointBacklog();
     }
 
     /*
@@ -139,12 +151,7 @@ public class EncDecActor extends UntypedActor {
     public void onReceive(Object message) throws Exception {
         LOG.debug("Received: {}", message.getClass().getName());
         if (message instanceof SessionInitMessage) {
-            RedirectionRule redirection = checkInitRedirection(redirectionRules, random.nextDouble());
-            if (redirection == null) {
-                messageProcessor.decodeAndForward(context(), (SessionInitMessage) message);
-            } else {
-                messageProcessor.redirect(redirection, (SessionInitMessage) message);
-            }
+            processSessionInit((SessionInitMessage) message);
         } else if (message instanceof SessionAware) {
             if (message instanceof SessionAwareMessage) {
                 RedirectionRule redirection = checkSessionRedirection(redirectionRules, random.nextDouble());
@@ -165,6 +172,34 @@ public class EncDecActor extends UntypedActor {
         }
     }
 
+    /**
+     * Redirects or rejects new sessions while the node is overloaded, so that
+     * established sessions keep being served.
+     */
+    private void processSessionInit(SessionInitMessage message) {
+        RedirectionRule redirection = checkInitRedirection(redirectionRules, random.nextDouble());
+        if (redirection != null) {
+            messageProcessor.redirect(redirection, message);
+        } else if (!isOverloaded()) {
+            messageProcessor.decodeAndForward(context(), message);
+        } else {
+            RedirectionRule overloadRedirection = checkOverloadRedirection(redirectionRules, random.nextDouble());
+            if (overloadRedirection != null) {
+                messageProcessor.redirectOverloaded(overloadRedirection, message);
+            } else {
+                messageProcessor.reject(message);
+            }
+        }
+    }
+
+    private boolean isOverloaded() {
+        if (ioBacklogLimit > 0 && MailboxStatistics.getQueueSize(self()) > ioBacklogLimit) {
+            return true;
+        }
+        return endpointBacklogLimit > 0
+                && MailboxStatistics.forDispatcher(DefaultAkkaService.ENDPOINT_DISPATCHER_NAME).getQueueDepth() > endpointBacklogLimit;
+    }
+
     private void applyRedirectionRule(RedirectionRule body) {
         context()
                 .system()
@@ -188,6 +223,23 @@ public class EncDecActor extends UntypedActor {
         return checkRedirection(redirectionRules, random, false);
     }
 
+    /**
+     * Chooses the rule to redirect a new session to while the node is
+     * overloaded. The rules are weighted by their init redirect probability,
+     * as in {@link #checkInitRedirection(HashMap, double)}, but one of them is
+     * always chosen unless all of these probabilities are 0.
+     */
+    public static RedirectionRule checkOverloadRedirection(HashMap<Long, RedirectionRule> redirectionRules, double random) {
+        double total = 0.0;
+        for (RedirectionRule rule : redirectionRules.values()) {
+            total += rule.initRedirectProbability;
+        }
+        if (total <= 0.0) {
+            return null;
+        }
+        return checkRedirection(redirectionRules, random * total, true);
+    }
+
     public static RedirectionRule checkRedirection(HashMap<Long, RedirectionRule> redirectionRules, double random, boolean initSession) { // NOSONAR
         RedirectionRule result = null;
         for (RedirectionRule rule : redirectionRules.values()) {
@@ -33,6 +33,8 @@ import org.kaaproject.kaa.server.operations.service.akka.messages.io.response.Se
 import org.kaaproject.kaa.server.operations.service.cache.CacheService;
 import org.kaaproject.kaa.server.operations.service.metrics.MeterClient;
 import org.kaaproject.kaa.server.operations.service.metrics.MetricsService;
+import org.kaaproject.kaa.server.operations.service.metrics.SyncStage;
+import org.kaaproject.kaa.server.operations.service.metrics.SyncTrace;
 import org.kaaproject.kaa.server.sync.ClientSync;
 import org.kaaproject.kaa.server.sync.ClientSyncMetaData;
 import org.kaaproject.kaa.server.sync.RedirectServerSync;
@@ -77,6 +79,10 @@ public class EncDecActorMessageProcessor {
     private final MeterClient sessionResponseMeter;
     private final MeterClient redirectMeter;
     private final MeterClient errorMeter;
+    private final MeterClient sessionInitShedMeter;
+    private final MeterClient overloadRedirectMeter;
+
+    private final MetricsService metricsService;
 
     protected EncDecActorMessageProcessor(ActorRef epsActor, AkkaContext context, Set<String> platformProtocols) {
         super();
@@ -85,18 +91,20 @@ public class EncDecActorMessageProcessor {
         this.supportUnencryptedConnection = context.getSupportUnencryptedConnection();
         this.crypt = new MessageEncoderDecoder(context.getKeyStoreService().getPrivateKey(), context.getKeyStoreService().getPublicKey());
         this.platformEncDecMap = PlatformLookup.initPlatformProtocolMap(platformProtocols);
-        MetricsService metricsService = context.getMetricsService();
+        this.metricsService = context.getMetricsService();
         this.sessionInitMeter = metricsService.createMeter("sessionInitMeter", Thread.currentThread().getName());
         this.sessionRequestMeter = metricsService.createMeter("sessionRequestMeter", Thread.currentThread().getName());
         this.sessionResponseMeter = metricsService.createMeter("sessionResponseMeter", Thread.currentThread().getName());
         this.redirectMeter = metricsService.createMeter("redirectMeter", Thread.currentThread().getName());
         this.errorMeter = metricsService.createMeter("errorMeter", Thread.currentThread().getName());
+        this.sessionInitShedMeter = metricsService.createMeter("sessionInitShedMeter", Thread.currentThread().getName());
+        this.overloadRedirectMeter = metricsService.createMeter("overloadRedirectMeter", Thread.currentThread().getName());
     }
 
     void decodeAndForward(ActorContext context, SessionInitMessage message) {
         try {
             sessionInitMeter.mark();
-            processSignedRequest(context, message);
+            processSignedRequest(context, message, new SyncTrace(getTransportName(message)));
         } catch (Exception e) {
             processErrors(message.getChannelContext(), message.getErrorBuilder(), e);
         }
@@ -105,7 +113,7 @@ public class EncDecActorMessageProcessor {
     void decodeAndForward(ActorContext context, SessionAwareMessage message) {
         try {
             sessionRequestMeter.mark();
-            processSessionRequest(context, message);
+            processSessionRequest(context, message, new SyncTrace(getTransportName(message)));
         } catch (Exception e) {
             processErrors(message.getChannelContext(), message.getErrorBuilder(), e);
         }
@@ -136,7 +144,7 @@ public class EncDecActorMessageProcessor {
     void redirect(RedirectionRule redirection, SessionInitMessage message) {
         try {
             redirectMeter.mark();
-            ClientSync request = decodeRequest(message);
+            ClientSync request = decodeRequest(message, null);
             ServerSync response = buildRedirectionResponse(redirection, request);
             EndpointObjectHash key = getEndpointObjectHash(request);
             String sdkToken = getSdkToken(request);
@@ -152,11 +160,27 @@ public class EncDecActorMessageProcessor {
         }
     }
 
+    void redirectOverloaded(RedirectionRule redirection, SessionInitMessage message) {
+        overloadRedirectMeter.mark();
+        redirect(redirection, message);
+    }
+
+    /**
+     * Rejects a new session while the node is overloaded, without decoding it.
+     * Transports report it as a server unavailable error, so the client
+     * retries later.
+     */
+    void reject(SessionInitMessage message) {
+        sessionInitShedMeter.mark();
+        LOG.debug("Rejecting new session on channel {}: server overloaded", message.getChannelUuid());
+        writeErrors(message.getChannelContext(), message.getErrorBuilder(), new ServerOverloadedException());
+    }
+
     void redirect(RedirectionRule redirection, SessionAwareMessage message) {
         try {
             LOG.trace("Redirecting {} SessionAwareMessage", message);
             redirectMeter.mark();
-            ClientSync request = decodeRequest(message);
+            ClientSync request = decodeRequest(message, null);
             ServerSync response = buildRedirectionResponse(redirection, request);
             SessionInfo sessionInfo = message.getSessionInfo();
             SessionResponse responseMessage = new NettySessionResponseMessage(sessionInfo, response, message.getMessageBuilder(),
@@ -177,9 +201,9 @@ public class EncDecActorMessageProcessor {
         return response;
     }
 
-    private void processSignedRequest(ActorContext context, SessionInitMessage message) throws GeneralSecurityException,
+    private void processSignedRequest(ActorContext context, SessionInitMessage message, SyncTrace trace) throws GeneralSecurityException,
             PlatformEncDecException, InvalidSDKTokenException {
-        ClientSync request = decodeRequest(message);
+        ClientSync request = decodeRequest(message, trace);
         EndpointObjectHash key = getEndpointObjectHash(request);
         String sdkToken = getSdkToken(request);
         if (isSDKTokenValid(sdkToken)) {
@@ -188,38 +212,43 @@ public class EncDecActorMessageProcessor {
                     message.getChannelType(), crypt.getSessionCipherPair(), key, appToken, sdkToken,
                     message.getKeepAlive(), message.isEncrypted());
             message.onSessionCreated(session);
-            forwardToOpsActor(context, session, request, message);
+            forwardToOpsActor(context, session, request, message, trace);
         } else {
             LOG.info("Invalid sdk token received: {}", sdkToken);
             throw new InvalidSDKTokenException();
         }
     }
 
-    private void processSessionRequest(ActorContext context, SessionAwareMessage message) throws GeneralSecurityException,
+    private void processSessionRequest(ActorContext context, SessionAwareMessage message, SyncTrace trace) throws GeneralSecurityException,
             PlatformEncDecException, InvalidSDKTokenException {
-        ClientSync request = decodeRequest(message);
+        ClientSync request = decodeRequest(message, trace);
         if (isSDKTokenValid(message.getSessionInfo().getSdkToken())) {
-            forwardToOpsActor(context, message.getSessionInfo(), request, message);
+            forwardToOpsActor(context, message.getSessionInfo(), request, message, trace);
         } else {
             LOG.info("Invalid sdk token received: {}", message.getSessionInfo().getSdkToken());
             throw new InvalidSDKTokenException();
         }
     }
 
-    private void forwardToOpsActor(ActorContext context, SessionInfo session, ClientSync request, Message requestMessage) {
-        SyncRequestMessage message = new SyncRequestMessage(session, request, requestMessage, context.self());
+    private void forwardToOpsActor(ActorContext context, SessionInfo session, ClientSync request, Message requestMessage, SyncTrace trace) {
+        trace.setApplicationToken(session.getApplicationToken());
+        SyncRequestMessage message = new SyncRequestMessage(session, request, requestMessage, context.self(), trace);
         this.opsActor.tell(message, context.self());
     }
 
     private void processSessionResponse(SessionResponse message) throws GeneralSecurityException, PlatformEncDecException {
         SessionInfo session = message.getSessionInfo();
+        SyncTrace trace = message.getTrace() != null && !message.getTrace().isFinished() ? message.getTrace() : null;
+        SyncTrace.mark(trace, SyncStage.REPLY);
 
         byte[] responseData = encodePlatformLevelData(message.getPlatformId(), message);
         LOG.trace("Response data serialized");
+        SyncTrace.mark(trace, SyncStage.ENCODE);
         if (session.isEncrypted()) {
             crypt.setSessionCipherPair(session.getCipherPair());
             responseData = crypt.encodeData(responseData);
             LOG.trace("Response data crypted");
+            SyncTrace.mark(trace, SyncStage.ENCRYPT);
         }
         ChannelContext context = message.getSessionInfo().getCtx();
         MessageBuilder converter = message.getMessageBuilder();
@@ -230,14 +259,20 @@ public class EncDecActorMessageProcessor {
             }
             context.flush();
         }
+        if (trace != null) {
+            trace.mark(SyncStage.WRITE);
+            if (trace.finish()) {
+                metricsService.recordSyncTrace(trace);
+            }
+        }
     }
 
-    private ClientSync decodeRequest(SessionInitMessage message) throws GeneralSecurityException, PlatformEncDecException {
+    private ClientSync decodeRequest(SessionInitMessage message, SyncTrace trace) throws GeneralSecurityException, PlatformEncDecException {
         ClientSync syncRequest = null;
         if (message.isEncrypted()) {
-            syncRequest = decodeEncryptedRequest(message);
+            syncRequest = decodeEncryptedRequest(message, trace);
         } else if (supportUnencryptedConnection) {
-            syncRequest = decodeUnencryptedRequest(message);
+            syncRequest = decodeUnencryptedRequest(message, trace);
         } else {
             LOG.warn("Received unencrypted init message, but unencrypted connection forbidden by configuration.");
             throw new GeneralSecurityException("Unencrypted connection forbidden by configuration.");
@@ -245,11 +280,14 @@ public class EncDecActorMessageProcessor {
         return syncRequest;
     }
 
-    private ClientSync decodeEncryptedRequest(SessionInitMessage message) throws GeneralSecurityException, PlatformEncDecException {
+    private ClientSync decodeEncryptedRequest(SessionInitMessage message, SyncTrace trace) throws GeneralSecurityException,
+            PlatformEncDecException {
         byte[] requestRaw = crypt.decodeData(message.getEncodedMessageData(), message.getEncodedSessionKey());
         LOG.trace("Request data decrypted");
+        SyncTrace.mark(trace, SyncStage.DECRYPT);
         ClientSync request = decodePlatformLevelData(message.getPlatformId(), requestRaw);
         LOG.trace("Request data deserialized");
+        SyncTrace.mark(trace, SyncStage.DECODE);
         PublicKey endpointKey = getPublicKey(request);
         if (endpointKey == null) {
             LOG.warn("Endpoint Key is null");
@@ -260,6 +298,7 @@ public class EncDecActorMessageProcessor {
         crypt.setRemotePublicKey(endpointKey);
         if (crypt.verify(message.getEncodedSessionKey(), message.getSessionKeySignature())) {
             LOG.trace("Request data verified");
+            SyncTrace.mark(trace, SyncStage.DECRYPT);
         } else {
             LOG.warn("Request data verification failed");
             throw new GeneralSecurityException("Request data verification failed");
@@ -267,11 +306,13 @@ public class EncDecActorMessageProcessor {
         return request;
     }
 
-    private ClientSync decodeUnencryptedRequest(SessionInitMessage message) throws GeneralSecurityException, PlatformEncDecException {
+    private ClientSync decodeUnencryptedRequest(SessionInitMessage message, SyncTrace trace) throws GeneralSecurityException,
+            PlatformEncDecException {
         byte[] requestRaw = message.getEncodedMessageData();
         LOG.trace("Try to convert raw data to SynRequest object");
         ClientSync request = decodePlatformLevelData(message.getPlatformId(), requestRaw);
         LOG.trace("Request data deserialized");
+        SyncTrace.mark(trace, SyncStage.DECODE);
         PublicKey endpointKey = getPublicKey(request);
         if (endpointKey == null) {
             LOG.warn("Endpoint Key is null");
@@ -282,20 +323,24 @@ public class EncDecActorMessageProcessor {
         return request;
     }
 
-    private ClientSync decodeEncryptedRequest(SessionAwareMessage message) throws GeneralSecurityException, PlatformEncDecException {
+    private ClientSync decodeEncryptedRequest(SessionAwareMessage message, SyncTrace trace) throws GeneralSecurityException,
+            PlatformEncDecException {
         SessionInfo session = message.getSessionInfo();
         crypt.setSessionCipherPair(session.getCipherPair());
         byte[] requestRaw = crypt.decodeData(message.getEncodedMessageData());
         LOG.trace("Request data decrypted");
+        SyncTrace.mark(trace, SyncStage.DECRYPT);
         ClientSync request = decodePlatformLevelData(message.getPlatformId(), requestRaw);
         LOG.trace("Request data deserialized");
+        SyncTrace.mark(trace, SyncStage.DECODE);
         return request;
     }
 
-    private ClientSync decodeUnencryptedRequest(SessionAwareMessage message) throws PlatformEncDecException {
+    private ClientSync decodeUnencryptedRequest(SessionAwareMessage message, SyncTrace trace) throws PlatformEncDecException {
         byte[] requestRaw = message.getEncodedMessageData();
         ClientSync request = decodePlatformLevelData(message.getPlatformId(), requestRaw);
         LOG.trace("Request data deserialized");
+        SyncTrace.mark(trace, SyncStage.DECODE);
         return request;
     }
 
@@ -319,12 +364,12 @@ public class EncDecActorMessageProcessor {
         }
     }
 
-    private ClientSync decodeRequest(SessionAwareMessage message) throws GeneralSecurityException, PlatformEncDecException {
+    private ClientSync decodeRequest(SessionAwareMessage message, SyncTrace trace) throws GeneralSecurityException, PlatformEncDecException {
         ClientSync syncRequest = null;
         if (message.isEncrypted()) {
-            syncRequest = decodeEncryptedRequest(message);
+            syncRequest = decodeEncryptedRequest(message, trace);
         } else if (supportUnencryptedConnection) {
-            syncRequest = decodeUnencryptedRequest(message);
+            syncRequest = decodeUnencryptedRequest(message, trace);
         } else {
             LOG.warn("Received unencrypted aware message, but unencrypted connection forbidden by configuration.");
             throw new GeneralSecurityException("Unencrypted connection forbidden by configuration.");
@@ -348,6 +393,10 @@ public class EncDecActorMessageProcessor {
     private void processErrors(ChannelContext ctx, ErrorBuilder converter, Exception e) {
         LOG.trace("Request processing failed", e);
         errorMeter.mark();
+        writeErrors(ctx, converter, e);
+    }
+
+    static void writeErrors(ChannelContext ctx, ErrorBuilder converter, Exception e) {
         Object[] responses = converter.build(e);
         if (responses != null && responses.length > 0) {
             for (Object response : responses) {
@@ -374,6 +423,10 @@ public class EncDecActorMessageProcessor {
         return sdkToken != null && getAppToken(sdkToken) != null;
     }
 
+    private static String getTransportName(Message message) {
+        return message.getChannelType().name().toLowerCase();
+    }
+
     protected EndpointObjectHash getEndpointObjectHash(ClientSync request) {
         return EndpointObjectHash.fromBytes(request.getClientSyncMetaData().getEndpointPublicKeyHash().array());
     }
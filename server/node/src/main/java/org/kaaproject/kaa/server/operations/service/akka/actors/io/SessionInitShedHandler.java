@@ -0,0 +1,41 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.akka.actors.io;
+
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.ShedHandler;
+import org.kaaproject.kaa.server.transport.message.SessionInitMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rejects a new session dropped by a full mailbox of the IO dispatcher the
+ * same way {@link EncDecActor} rejects new sessions while the node is
+ * overloaded, so the client retries later instead of waiting for a response.
+ */
+public class SessionInitShedHandler implements ShedHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionInitShedHandler.class);
+
+    @Override
+    public void onShed(Object message) {
+        if (message instanceof SessionInitMessage) {
+            SessionInitMessage sessionInit = (SessionInitMessage) message;
+            LOG.debug("Rejecting new session on channel {}: mailbox is full", sessionInit.getChannelUuid());
+            EncDecActorMessageProcessor.writeErrors(sessionInit.getChannelContext(), sessionInit.getErrorBuilder(),
+                    new ServerOverloadedException());
+        }
+    }
+}
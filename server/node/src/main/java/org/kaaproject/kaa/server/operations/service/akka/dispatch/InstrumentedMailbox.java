@@ -0,0 +1,237 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kaaproject.kaa.server.transport.channel.ChannelAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import scala.Option;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+
+import com.typesafe.config.Config;
+
+/**
+ * Mailbox that counts queued messages and the time they wait to be processed
+ * in the {@link MailboxStatistics} of its dispatcher. Enabled with the
+ * <code>mailbox-type</code> setting of a dispatcher in akka.conf.
+ * <p>
+ * The dispatcher config may also set:
+ * <ul>
+ * <li><code>mailbox-priority-types</code> - the message classes processed
+ * before other queued messages, e.g. pings and disconnects. A
+ * {@link ChannelAware} priority message is queued in order if a message of
+ * the same channel is already waiting, so that e.g. a disconnect does not
+ * overtake a sync request of its channel;</li>
+ * <li><code>mailbox-capacity</code> - the number of queued messages per actor
+ * above which messages of the <code>mailbox-shed-types</code> classes are
+ * dropped and counted as shed, 0 for unbounded. Other messages are always
+ * queued, so internal control messages are never lost;</li>
+ * <li><code>mailbox-shed-handler</code> - the {@link ShedHandler} class that
+ * answers the senders of dropped messages.</li>
+ * </ul>
+ */
+public class InstrumentedMailbox implements MailboxType, ProducesMessageQueue<InstrumentedMailbox.InstrumentedMessageQueue> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InstrumentedMailbox.class);
+
+    private static final String ID_PATH = "id";
+    private static final String CAPACITY_PATH = "mailbox-capacity";
+    private static final String SHED_TYPES_PATH = "mailbox-shed-types";
+    private static final String PRIORITY_TYPES_PATH = "mailbox-priority-types";
+    private static final String SHED_HANDLER_PATH = "mailbox-shed-handler";
+    private static final String UNKNOWN_DISPATCHER = "unknown";
+
+    private final MailboxStatistics statistics;
+    private final int capacity;
+    private final List<Class<?>> shedTypes;
+    private final List<Class<?>> priorityTypes;
+    private final ShedHandler shedHandler;
+
+    /**
+     * Instantiates a new mailbox type, called by Akka.
+     *
+     * @param settings the actor system settings
+     * @param config the dispatcher or mailbox config
+     */
+    public InstrumentedMailbox(ActorSystem.Settings settings, Config config) {
+        this.statistics = MailboxStatistics.forDispatcher(config.hasPath(ID_PATH) ? config.getString(ID_PATH) : UNKNOWN_DISPATCHER);
+        this.capacity = config.hasPath(CAPACITY_PATH) ? config.getInt(CAPACITY_PATH) : 0;
+        this.shedTypes = loadTypes(config, SHED_TYPES_PATH);
+        this.priorityTypes = loadTypes(config, PRIORITY_TYPES_PATH);
+        this.shedHandler = config.hasPath(SHED_HANDLER_PATH) ? loadShedHandler(config.getString(SHED_HANDLER_PATH)) : null;
+    }
+
+    @Override
+    public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+        return new InstrumentedMessageQueue(statistics, capacity, shedTypes, priorityTypes, shedHandler);
+    }
+
+    private static List<Class<?>> loadTypes(Config config, String path) {
+        if (!config.hasPath(path)) {
+            return Collections.emptyList();
+        }
+        List<Class<?>> types = new ArrayList<>();
+        for (String name : config.getStringList(path)) {
+            try {
+                types.add(Class.forName(name));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown message type in " + path + ": " + name, e);
+            }
+        }
+        return types;
+    }
+
+    private static ShedHandler loadShedHandler(String name) {
+        try {
+            return (ShedHandler) Class.forName(name).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Invalid " + SHED_HANDLER_PATH + ": " + name, e);
+        }
+    }
+
+    private static boolean isInstance(List<Class<?>> types, Object message) {
+        for (Class<?> type : types) {
+            if (type.isInstance(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The message queue of a single actor.
+     */
+    public static class InstrumentedMessageQueue implements MessageQueue, UnboundedMessageQueueSemantics {
+
+        private final Queue<Entry> priorityQueue = new ConcurrentLinkedQueue<>();
+        private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+        // number of messages of each channel in the ordered queue
+        private final ConcurrentHashMap<UUID, Integer> queuedChannels = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final MailboxStatistics statistics;
+        private final int capacity;
+        private final List<Class<?>> shedTypes;
+        private final List<Class<?>> priorityTypes;
+        private final ShedHandler shedHandler;
+
+        InstrumentedMessageQueue(MailboxStatistics statistics, int capacity, List<Class<?>> shedTypes, List<Class<?>> priorityTypes,
+                ShedHandler shedHandler) {
+            this.statistics = statistics;
+            this.capacity = capacity;
+            this.shedTypes = shedTypes;
+            this.priorityTypes = priorityTypes;
+            this.shedHandler = shedHandler;
+        }
+
+        @Override
+        public void enqueue(ActorRef receiver, Envelope handle) {
+            Object message = handle.message();
+            UUID channel = message instanceof ChannelAware ? ((ChannelAware) message).getChannelUuid() : null;
+            if (isInstance(priorityTypes, message) && (channel == null || !queuedChannels.containsKey(channel))) {
+                priorityQueue.offer(new Entry(handle, null, System.nanoTime()));
+            } else if (capacity > 0 && size.get() >= capacity && isInstance(shedTypes, message)) {
+                statistics.onShed();
+                onShed(message);
+                return;
+            } else {
+                if (channel != null) {
+                    queuedChannels.merge(channel, 1, Integer::sum);
+                }
+                queue.offer(new Entry(handle, channel, System.nanoTime()));
+            }
+            size.incrementAndGet();
+            statistics.onEnqueue();
+        }
+
+        private void onShed(Object message) {
+            if (shedHandler == null) {
+                return;
+            }
+            try {
+                shedHandler.onShed(message);
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to answer shed message {}", message, e);
+            }
+        }
+
+        @Override
+        public Envelope dequeue() {
+            Entry entry = priorityQueue.poll();
+            if (entry == null) {
+                entry = queue.poll();
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (entry.channel != null) {
+                queuedChannels.computeIfPresent(entry.channel, (channel, count) -> count > 1 ? count - 1 : null);
+            }
+            size.decrementAndGet();
+            statistics.onDequeue(System.nanoTime() - entry.enqueued);
+            return entry.envelope;
+        }
+
+        @Override
+        public int numberOfMessages() {
+            return size.get();
+        }
+
+        @Override
+        public boolean hasMessages() {
+            return !priorityQueue.isEmpty() || !queue.isEmpty();
+        }
+
+        @Override
+        public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+            Envelope envelope = dequeue();
+            while (envelope != null) {
+                deadLetters.enqueue(owner, envelope);
+                envelope = dequeue();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Envelope envelope;
+        private final UUID channel;
+        private final long enqueued;
+
+        Entry(Envelope envelope, UUID channel, long enqueued) {
+            this.envelope = envelope;
+            this.channel = channel;
+            this.enqueued = enqueued;
+        }
+    }
+}
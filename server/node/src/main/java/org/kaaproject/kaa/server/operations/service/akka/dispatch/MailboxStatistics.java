@@ -0,0 +1,138 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka.dispatch;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorRefWithCell;
+
+/**
+ * Message counts of the {@link InstrumentedMailbox instrumented mailboxes} of
+ * a dispatcher. Mailboxes are created by Akka, so the statistics are kept in
+ * a static registry keyed by dispatcher id.
+ */
+public final class MailboxStatistics {
+
+    private static final ConcurrentMap<String, MailboxStatistics> DISPATCHERS = new ConcurrentHashMap<>();
+
+    private final String dispatcher;
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    private MailboxStatistics(String dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Gets the statistics of the dispatcher, creating empty ones if needed.
+     *
+     * @param dispatcher the dispatcher id
+     * @return the statistics
+     */
+    public static MailboxStatistics forDispatcher(String dispatcher) {
+        return DISPATCHERS.computeIfAbsent(dispatcher, MailboxStatistics::new);
+    }
+
+    /**
+     * Gets the statistics of all dispatchers with instrumented mailboxes.
+     *
+     * @return the statistics by dispatcher id
+     */
+    public static Map<String, MailboxStatistics> getAll() {
+        return Collections.unmodifiableMap(DISPATCHERS);
+    }
+
+    /**
+     * Gets the number of messages waiting in the mailbox of a local actor.
+     *
+     * @param actor the actor
+     * @return the number of messages, 0 for remote actors
+     */
+    public static int getQueueSize(ActorRef actor) {
+        if (actor instanceof ActorRefWithCell) {
+            return ((ActorRefWithCell) actor).underlying().numberOfMessages();
+        }
+        return 0;
+    }
+
+    void onEnqueue() {
+        enqueued.increment();
+    }
+
+    void onDequeue(long waitNanos) {
+        dequeued.increment();
+        waitTime.add(waitNanos);
+    }
+
+    void onShed() {
+        shed.increment();
+    }
+
+    public String getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Gets the number of messages waiting in all mailboxes of the dispatcher.
+     *
+     * @return the queue depth
+     */
+    public long getQueueDepth() {
+        return Math.max(enqueued.sum() - dequeued.sum(), 0L);
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    public long getDequeuedCount() {
+        return dequeued.sum();
+    }
+
+    /**
+     * Gets the number of messages dropped because a mailbox was full.
+     *
+     * @return the shed messages count
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * Gets the total time dequeued messages spent in the mailboxes.
+     *
+     * @param unit the time unit
+     * @return the total wait time
+     */
+    public long getTotalWaitTime(TimeUnit unit) {
+        return unit.convert(waitTime.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "MailboxStatistics [dispatcher=" + dispatcher + ", queueDepth=" + getQueueDepth() + ", enqueued="
+                + getEnqueuedCount() + ", shed=" + getShedCount() + ", totalWaitTimeMs=" + getTotalWaitTime(TimeUnit.MILLISECONDS) + "]";
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.akka.dispatch;
+
+/**
+ * Answers the sender of a message that {@link InstrumentedMailbox} dropped
+ * because the mailbox is over its capacity, so that the sender does not wait
+ * for a response that never comes. Enabled with the
+ * <code>mailbox-shed-handler</code> setting of a dispatcher in akka.conf.
+ * <p>
+ * Implementations are called in the thread that sends the message and must
+ * not block.
+ */
+public interface ShedHandler {
+
+    /**
+     * Called for a message that was dropped instead of being queued.
+     *
+     * @param message the dropped message
+     */
+    void onShed(Object message);
+}
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.UUID;
 
 import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.server.operations.service.metrics.SyncTrace;
 import org.kaaproject.kaa.server.sync.ClientSync;
 import org.kaaproject.kaa.server.sync.ConfigurationClientSync;
 import org.kaaproject.kaa.server.sync.EventClientSync;
@@ -52,6 +53,9 @@ public class SyncRequestMessage extends EndpointAwareMessage implements ChannelA
     /** The session. */
     private final SessionInfo session;
 
+    /** The trace of the request processing stages. */
+    private final SyncTrace trace;
+
     /**
      * Instantiates a new sync request message.
      * 
@@ -65,10 +69,29 @@ public class SyncRequestMessage extends EndpointAwareMessage implements ChannelA
      *            the originator
      */
     public SyncRequestMessage(SessionInfo session, ClientSync request, Message requestMessage, ActorRef originator) {
+        this(session, request, requestMessage, originator, null);
+    }
+
+    /**
+     * Instantiates a new traced sync request message.
+     *
+     * @param session
+     *            the session
+     * @param request
+     *            the request
+     * @param requestMessage
+     *            the request message
+     * @param originator
+     *            the originator
+     * @param trace
+     *            the trace of the request processing stages
+     */
+    public SyncRequestMessage(SessionInfo session, ClientSync request, Message requestMessage, ActorRef originator, SyncTrace trace) {
         super(session.getApplicationToken(), session.getKey(), originator);
         this.command = requestMessage;
         this.request = request;
         this.session = session;
+        this.trace = trace;
     }
 
     /**
@@ -103,6 +126,10 @@ public class SyncRequestMessage extends EndpointAwareMessage implements ChannelA
         return command;
     }
 
+    public SyncTrace getTrace() {
+        return trace;
+    }
+
     public void updateRequest(ServerSync response) {
         UUID channelUuid = getChannelUuid();
         LOG.debug("[{}] Cleanup profile request", channelUuid);
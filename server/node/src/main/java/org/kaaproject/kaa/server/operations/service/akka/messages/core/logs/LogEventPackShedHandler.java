@@ -0,0 +1,40 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.akka.messages.core.logs;
+
+import org.kaaproject.kaa.server.common.log.shared.appender.LogDeliveryErrorCode;
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.ShedHandler;
+
+import akka.actor.ActorRef;
+
+/**
+ * Answers a log pack dropped by a full mailbox of the log dispatcher with a
+ * failed delivery, so the endpoint uploads the logs again.
+ */
+public class LogEventPackShedHandler implements ShedHandler {
+
+    @Override
+    public void onShed(Object message) {
+        if (message instanceof LogEventPackMessage) {
+            LogEventPackMessage logPack = (LogEventPackMessage) message;
+            if (logPack.getOriginator() != null) {
+                logPack.getOriginator().tell(
+                        new LogDeliveryMessage(logPack.getRequestId(), false, LogDeliveryErrorCode.REMOTE_INTERNAL_ERROR),
+                        ActorRef.noSender());
+            }
+        }
+    }
+}
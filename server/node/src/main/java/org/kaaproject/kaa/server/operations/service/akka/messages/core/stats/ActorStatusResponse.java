@@ -16,17 +16,32 @@
 
 package org.kaaproject.kaa.server.operations.service.akka.messages.core.stats;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
+import org.kaaproject.kaa.server.operations.service.akka.AkkaApplicationStatus;
+
 public class ActorStatusResponse {
 
     private final UUID requestId;
     private final int endpointCount;
+    private final List<AkkaApplicationStatus> applicationStatuses;
+    private final int userActorCount;
+    private final long userActorBacklog;
 
     public ActorStatusResponse(UUID requestId, int endpointCount) {
+        this(requestId, endpointCount, Collections.<AkkaApplicationStatus>emptyList(), 0, 0L);
+    }
+
+    public ActorStatusResponse(UUID requestId, int endpointCount, List<AkkaApplicationStatus> applicationStatuses,
+            int userActorCount, long userActorBacklog) {
         super();
         this.requestId = requestId;
         this.endpointCount = endpointCount;
+        this.applicationStatuses = applicationStatuses;
+        this.userActorCount = userActorCount;
+        this.userActorBacklog = userActorBacklog;
     }
     
     public UUID getRequestId() {
@@ -36,4 +51,16 @@ public class ActorStatusResponse {
     public int getEndpointCount() {
         return endpointCount;
     }    
+
+    public List<AkkaApplicationStatus> getApplicationStatuses() {
+        return applicationStatuses;
+    }
+
+    public int getUserActorCount() {
+        return userActorCount;
+    }
+
+    public long getUserActorBacklog() {
+        return userActorBacklog;
+    }
 }
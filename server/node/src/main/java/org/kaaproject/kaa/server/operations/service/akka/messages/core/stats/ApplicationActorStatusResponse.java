@@ -16,12 +16,19 @@
 
 package org.kaaproject.kaa.server.operations.service.akka.messages.core.stats;
 
+import java.util.Collections;
 import java.util.UUID;
 
+import org.kaaproject.kaa.server.operations.service.akka.AkkaApplicationStatus;
+
 public class ApplicationActorStatusResponse extends ActorStatusResponse {
     
     public ApplicationActorStatusResponse(UUID requestId, int endpointCount) {
         super(requestId, endpointCount);
     }
 
+    public ApplicationActorStatusResponse(UUID requestId, int endpointCount, AkkaApplicationStatus applicationStatus) {
+        super(requestId, endpointCount, Collections.singletonList(applicationStatus), 0, 0L);
+    }
+
 }
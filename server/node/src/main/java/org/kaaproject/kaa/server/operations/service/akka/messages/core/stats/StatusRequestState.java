@@ -16,11 +16,19 @@
 
 package org.kaaproject.kaa.server.operations.service.akka.messages.core.stats;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kaaproject.kaa.server.operations.service.akka.AkkaApplicationStatus;
+
 public class StatusRequestState {
 
     private final StatusRequestMessage originator;
     private int pendingResponses;
     private int endpontCount;
+    private final List<AkkaApplicationStatus> applicationStatuses = new ArrayList<>();
+    private int userActorCount;
+    private long userActorBacklog;
     
     public StatusRequestState(StatusRequestMessage originator, int pendingResponses) {
         super();
@@ -30,14 +38,40 @@ public class StatusRequestState {
     
     public boolean processResponse(ActorStatusResponse response){
         endpontCount += response.getEndpointCount();
+        applicationStatuses.addAll(response.getApplicationStatuses());
+        userActorCount += response.getUserActorCount();
+        userActorBacklog += response.getUserActorBacklog();
         pendingResponses--;
         return pendingResponses == 0;
     }
 
+    /**
+     * Adds the user actors of the responding actor itself.
+     *
+     * @param count the user actor count
+     * @param backlog the number of messages waiting in the user actor mailboxes
+     */
+    public void addUserActors(int count, long backlog) {
+        userActorCount += count;
+        userActorBacklog += backlog;
+    }
+
     public int getEndpontCount() {
         return endpontCount;
     }
 
+    public List<AkkaApplicationStatus> getApplicationStatuses() {
+        return applicationStatuses;
+    }
+
+    public int getUserActorCount() {
+        return userActorCount;
+    }
+
+    public long getUserActorBacklog() {
+        return userActorBacklog;
+    }
+
     public StatusRequestMessage getOriginator() {
         return originator;
     }
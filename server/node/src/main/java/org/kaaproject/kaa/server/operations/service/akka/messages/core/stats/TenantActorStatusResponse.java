@@ -16,12 +16,20 @@
 
 package org.kaaproject.kaa.server.operations.service.akka.messages.core.stats;
 
+import java.util.List;
 import java.util.UUID;
 
+import org.kaaproject.kaa.server.operations.service.akka.AkkaApplicationStatus;
+
 public class TenantActorStatusResponse extends ActorStatusResponse {
 
     public TenantActorStatusResponse(UUID requestId, int endpointCount) {
         super(requestId, endpointCount);
     }
 
+    public TenantActorStatusResponse(UUID requestId, int endpointCount, List<AkkaApplicationStatus> applicationStatuses,
+            int userActorCount, long userActorBacklog) {
+        super(requestId, endpointCount, applicationStatuses, userActorCount, userActorBacklog);
+    }
+
 }
@@ -18,6 +18,7 @@ package org.kaaproject.kaa.server.operations.service.akka.messages.io.response;
 
 import java.util.UUID;
 
+import org.kaaproject.kaa.server.operations.service.metrics.SyncTrace;
 import org.kaaproject.kaa.server.sync.ServerSync;
 import org.kaaproject.kaa.server.transport.channel.ChannelContext;
 import org.kaaproject.kaa.server.transport.channel.ChannelType;
@@ -35,6 +36,7 @@ public class NettySessionResponseMessage implements SessionResponse {
     private final MessageBuilder messageBuilder;
     private final ErrorBuilder errorBuilder;
     private final Exception error;
+    private final SyncTrace trace;
     
     public NettySessionResponseMessage(SessionInfo sessionInfo, ServerSync syncResponse, MessageBuilder messageBuilder,
             ErrorBuilder errorBuilder) {
@@ -43,11 +45,17 @@ public class NettySessionResponseMessage implements SessionResponse {
 
     public NettySessionResponseMessage(SessionInfo sessionInfo, ServerSync syncResponse, Exception error, MessageBuilder messageBuilder,
             ErrorBuilder errorBuilder) {
+        this(sessionInfo, syncResponse, error, messageBuilder, errorBuilder, null);
+    }
+
+    public NettySessionResponseMessage(SessionInfo sessionInfo, ServerSync syncResponse, Exception error, MessageBuilder messageBuilder,
+            ErrorBuilder errorBuilder, SyncTrace trace) {
         this.sessionInfo = sessionInfo;
         this.syncResponse = syncResponse;
         this.error = error;
         this.messageBuilder = messageBuilder;
         this.errorBuilder = errorBuilder;
+        this.trace = trace;
     }
 
     @Override
@@ -90,6 +98,11 @@ public class NettySessionResponseMessage implements SessionResponse {
         return sessionInfo;
     }
 
+    @Override
+    public SyncTrace getTrace() {
+        return trace;
+    }
+
     @Override
     public int getPlatformId() {
         return sessionInfo.getPlatformId();
@@ -16,6 +16,7 @@
 
 package org.kaaproject.kaa.server.operations.service.akka.messages.io.response;
 
+import org.kaaproject.kaa.server.operations.service.metrics.SyncTrace;
 import org.kaaproject.kaa.server.sync.ServerSync;
 import org.kaaproject.kaa.server.transport.channel.ChannelAware;
 import org.kaaproject.kaa.server.transport.message.ErrorBuilder;
@@ -31,5 +32,6 @@ public interface SessionResponse extends ChannelAware, PlatformAware{
     SessionInfo getSessionInfo();
     MessageBuilder getMessageBuilder();
     ErrorBuilder getErrorBuilder();
+    SyncTrace getTrace();
 
 }
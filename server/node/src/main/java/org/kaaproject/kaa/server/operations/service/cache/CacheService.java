@@ -27,6 +27,7 @@ import org.kaaproject.kaa.common.dto.EndpointGroupStateDto;
 import org.kaaproject.kaa.common.dto.HistoryDto;
 import org.kaaproject.kaa.common.dto.ProfileFilterDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileSchemaDto;
+import org.kaaproject.kaa.common.dto.EndpointUserConfigurationDto;
 import org.kaaproject.kaa.common.dto.ServerProfileSchemaDto;
 import org.kaaproject.kaa.common.dto.TopicDto;
 import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
@@ -42,6 +43,7 @@ import org.kaaproject.kaa.server.common.dao.EventClassService;
 import org.kaaproject.kaa.server.common.dao.HistoryService;
 import org.kaaproject.kaa.server.common.dao.ProfileService;
 import org.kaaproject.kaa.server.common.dao.SdkProfileService;
+import org.kaaproject.kaa.server.common.dao.UserConfigurationService;
 import org.kaaproject.kaa.server.operations.pojo.exceptions.GetDeltaException;
 import org.kaaproject.kaa.server.operations.service.event.EventClassFqnVersion;
 import org.kaaproject.kaa.server.operations.service.event.RouteTableKey;
@@ -289,6 +291,8 @@ public interface CacheService {
      */
     void setSdkProfileService(SdkProfileService sdkProfileService);
 
+    void setUserConfigurationService(UserConfigurationService userConfigurationService);
+
     /**
      * Cache invalidate method.
      *
@@ -400,4 +404,8 @@ public interface CacheService {
     TopicListCacheEntry putTopicList(EndpointObjectHash key, TopicListCacheEntry entry);
 
     TopicListCacheEntry getTopicListByHash(EndpointObjectHash hash);
+
+    EndpointUserConfigurationDto getUserConfiguration(UserConfigurationKey key);
+
+    void resetUserConfiguration(UserConfigurationKey key);
 }
@@ -0,0 +1,140 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.cache;
+
+import java.io.Serializable;
+
+/**
+ * The Class UserConfigurationKey is used to model the triple of endpoint user id,
+ * application token and configuration schema version that identifies a user configuration.
+ */
+public final class UserConfigurationKey implements Serializable {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The user id. */
+    private final String userId;
+
+    /** The application token. */
+    private final String applicationToken;
+
+    /** The configuration schema version. */
+    private final int schemaVersion;
+
+    /**
+     * Instantiates a new user configuration key.
+     *
+     * @param userId the user id
+     * @param applicationToken the application token
+     * @param schemaVersion the configuration schema version
+     */
+    public UserConfigurationKey(String userId, String applicationToken, int schemaVersion) {
+        super();
+        this.userId = userId;
+        this.applicationToken = applicationToken;
+        this.schemaVersion = schemaVersion;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((userId == null) ? 0 : userId.hashCode());
+        result = prime * result + ((applicationToken == null) ? 0 : applicationToken.hashCode());
+        result = prime * result + schemaVersion;
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        UserConfigurationKey other = (UserConfigurationKey) obj;
+        if (userId == null) {
+            if (other.userId != null) {
+                return false;
+            }
+        } else if (!userId.equals(other.userId)) {
+            return false;
+        }
+        if (applicationToken == null) {
+            if (other.applicationToken != null) {
+                return false;
+            }
+        } else if (!applicationToken.equals(other.applicationToken)) {
+            return false;
+        }
+        if (schemaVersion != other.schemaVersion) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the user id.
+     *
+     * @return the user id
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the application token.
+     *
+     * @return the application token
+     */
+    public String getApplicationToken() {
+        return applicationToken;
+    }
+
+    /**
+     * Gets the configuration schema version.
+     *
+     * @return the schema version
+     */
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("UserConfigurationKey [userId=");
+        builder.append(userId);
+        builder.append(", applicationToken=");
+        builder.append(applicationToken);
+        builder.append(", schemaVersion=");
+        builder.append(schemaVersion);
+        builder.append("]");
+        return builder.toString();
+    }
+}
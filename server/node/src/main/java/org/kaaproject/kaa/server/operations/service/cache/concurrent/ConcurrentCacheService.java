@@ -40,6 +40,7 @@ import org.kaaproject.kaa.common.dto.EndpointProfileDto;
 import org.kaaproject.kaa.common.dto.HistoryDto;
 import org.kaaproject.kaa.common.dto.ProfileFilterDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileSchemaDto;
+import org.kaaproject.kaa.common.dto.EndpointUserConfigurationDto;
 import org.kaaproject.kaa.common.dto.ServerProfileSchemaDto;
 import org.kaaproject.kaa.common.dto.TopicDto;
 import org.kaaproject.kaa.common.dto.TopicListEntryDto;
@@ -63,6 +64,7 @@ import org.kaaproject.kaa.server.common.dao.ProfileService;
 import org.kaaproject.kaa.server.common.dao.SdkProfileService;
 import org.kaaproject.kaa.server.common.dao.ServerProfileService;
 import org.kaaproject.kaa.server.common.dao.TopicService;
+import org.kaaproject.kaa.server.common.dao.UserConfigurationService;
 import org.kaaproject.kaa.server.operations.pojo.exceptions.GetDeltaException;
 import org.kaaproject.kaa.server.operations.service.cache.AppProfileVersionsKey;
 import org.kaaproject.kaa.server.operations.service.cache.AppSeqNumber;
@@ -76,6 +78,7 @@ import org.kaaproject.kaa.server.operations.service.cache.EventClassFamilyIdKey;
 import org.kaaproject.kaa.server.operations.service.cache.EventClassFqnKey;
 import org.kaaproject.kaa.server.operations.service.cache.HistoryKey;
 import org.kaaproject.kaa.server.operations.service.cache.TopicListCacheEntry;
+import org.kaaproject.kaa.server.operations.service.cache.UserConfigurationKey;
 import org.kaaproject.kaa.server.operations.service.event.EventClassFamilyVersion;
 import org.kaaproject.kaa.server.operations.service.event.EventClassFqnVersion;
 import org.kaaproject.kaa.server.operations.service.event.RouteTableKey;
@@ -138,6 +141,10 @@ public class ConcurrentCacheService implements CacheService {
     @Autowired
     private SdkProfileService sdkProfileService;
 
+    /** The user configuration service. */
+    @Autowired
+    private UserConfigurationService userConfigurationService;
+
     /** The app seq number memorizer. */
     private final CacheTemporaryMemorizer<String, AppSeqNumber> appSeqNumberMemorizer = new CacheTemporaryMemorizer<>();
 
@@ -177,6 +184,9 @@ public class ConcurrentCacheService implements CacheService {
     /** The sdk properties memorized. */
     private final CacheTemporaryMemorizer<String, SdkProfileDto> sdkProfileMemorizer = new CacheTemporaryMemorizer<>();
 
+    /** The user configuration memorizer. */
+    private final CacheTemporaryMemorizer<UserConfigurationKey, EndpointUserConfigurationDto> userConfigurationMemorizer = new CacheTemporaryMemorizer<>();
+
     /** The endpoint key memorizer. */
     private final CacheTemporaryMemorizer<EndpointObjectHash, PublicKey> endpointKeyMemorizer = new CacheTemporaryMemorizer<>();
 
@@ -922,6 +932,24 @@ public class ConcurrentCacheService implements CacheService {
         return entry;
     }
 
+    @Override
+    @Cacheable("userConfigurations")
+    public EndpointUserConfigurationDto getUserConfiguration(UserConfigurationKey key) {
+        return userConfigurationMemorizer.compute(key, new Computable<UserConfigurationKey, EndpointUserConfigurationDto>() {
+            @Override
+            public EndpointUserConfigurationDto compute(UserConfigurationKey key) {
+                LOG.debug("Fetching result for getUserConfiguration {}", key);
+                return userConfigurationService.findUserConfigurationByUserIdAndAppTokenAndSchemaVersion(key.getUserId(),
+                        key.getApplicationToken(), key.getSchemaVersion());
+            }
+        });
+    }
+
+    @Override
+    @CacheEvict(value = "userConfigurations", key = "#key")
+    public void resetUserConfiguration(UserConfigurationKey key) {
+    }
+
     @Override
     @Cacheable("topicListEntries")
     public TopicListCacheEntry getTopicListByHash(EndpointObjectHash hash) {
@@ -1011,6 +1039,11 @@ public class ConcurrentCacheService implements CacheService {
         this.sdkProfileService = sdkProfileService;
     }
 
+    @Override
+    public void setUserConfigurationService(UserConfigurationService userConfigurationService) {
+        this.userConfigurationService = userConfigurationService;
+    }
+
     /**
      * Checks if is supported.
      *
@@ -23,6 +23,8 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.commons.lang.StringUtils;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.common.dto.ConfigurationDto;
@@ -36,6 +38,7 @@ import org.kaaproject.kaa.common.endpoint.security.MessageEncoderDecoder;
 import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.kaaproject.kaa.server.common.Base64Util;
 import org.kaaproject.kaa.server.common.core.algorithms.delta.BaseBinaryDelta;
+import org.kaaproject.kaa.server.common.core.algorithms.override.ConfigurationMergeEngine;
 import org.kaaproject.kaa.server.common.core.algorithms.override.OverrideAlgorithm;
 import org.kaaproject.kaa.server.common.core.algorithms.override.OverrideAlgorithmFactory;
 import org.kaaproject.kaa.server.common.core.algorithms.override.OverrideException;
@@ -45,7 +48,6 @@ import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
 import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
 import org.kaaproject.kaa.server.common.dao.ConfigurationService;
 import org.kaaproject.kaa.server.common.dao.EndpointService;
-import org.kaaproject.kaa.server.common.dao.UserConfigurationService;
 import org.kaaproject.kaa.server.operations.pojo.GetDeltaRequest;
 import org.kaaproject.kaa.server.operations.pojo.GetDeltaResponse;
 import org.kaaproject.kaa.server.operations.pojo.GetDeltaResponse.GetDeltaResponseType;
@@ -55,9 +57,11 @@ import org.kaaproject.kaa.server.operations.service.cache.CacheService;
 import org.kaaproject.kaa.server.operations.service.cache.Computable;
 import org.kaaproject.kaa.server.operations.service.cache.ConfigurationCacheEntry;
 import org.kaaproject.kaa.server.operations.service.cache.DeltaCacheKey;
+import org.kaaproject.kaa.server.operations.service.cache.UserConfigurationKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -80,9 +84,6 @@ public class DefaultDeltaService implements DeltaService {
     /** The configuration service. */
     @Autowired
     private ConfigurationService configurationService;
-    /** The user configuration service. */
-    @Autowired
-    private UserConfigurationService userConfigurationService;
     /** The profile service. */
     @Autowired
     private EndpointService endpointService;
@@ -91,6 +92,13 @@ public class DefaultDeltaService implements DeltaService {
     @Autowired
     private OverrideAlgorithmFactory configurationOverrideFactory;
 
+    /** The maximum total length of the group configurations kept decoded between merges. */
+    @Value("#{properties[configuration_merge_cache_max_weight]}")
+    private long mergeCacheMaxWeight = ConfigurationMergeEngine.DEFAULT_MAX_CACHED_WEIGHT;
+
+    /** The engine merging group configurations, keeps them decoded between merges. */
+    private ConfigurationMergeEngine mergeEngine;
+
     /** The Constant ENDPOINT_GROUP_COMPARATOR. */
     private static final Comparator<EndpointGroupDto> ENDPOINT_GROUP_COMPARATOR = new Comparator<EndpointGroupDto>() {
 
@@ -113,6 +121,14 @@ public class DefaultDeltaService implements DeltaService {
         super();
     }
 
+    /**
+     * Creates the merge engine from the configured override algorithm factory.
+     */
+    @PostConstruct
+    public void initMergeEngine() {
+        mergeEngine = new ConfigurationMergeEngine(configurationOverrideFactory, mergeCacheMaxWeight);
+    }
+
     @Override
     public ConfigurationCacheEntry getConfiguration(String appToken, String endpointId, EndpointProfileDto profile) throws GetDeltaException {
         LOG.debug("[{}][{}] Calculating new configuration", appToken, endpointId);
@@ -182,7 +198,7 @@ public class DefaultDeltaService implements DeltaService {
      *             the get delta exception
      */
     private ConfigurationCacheEntry getDelta(final String endpointId, final String userId, DeltaCacheKey deltaKey) throws GetDeltaException {
-        EndpointUserConfigurationDto userConfiguration = findLatestUserConfiguration(userId, deltaKey);
+        final EndpointUserConfigurationDto userConfiguration = findLatestUserConfiguration(userId, deltaKey);
 
         final DeltaCacheKey newKey;
         if (userConfiguration != null) {
@@ -201,8 +217,6 @@ public class DefaultDeltaService implements DeltaService {
                             ConfigurationSchemaDto latestConfigurationSchema = cacheService.getConfSchemaByAppAndVersion(deltaKey
                                     .getAppConfigVersionKey());
 
-                            EndpointUserConfigurationDto userConfiguration = findLatestUserConfiguration(userId, deltaKey);
-
                             EndpointObjectHash userConfigurationHash = null;
                             if (userConfiguration != null) {
                                 userConfigurationHash = EndpointObjectHash.fromString(userConfiguration.getBody());
@@ -237,8 +251,8 @@ public class DefaultDeltaService implements DeltaService {
     private EndpointUserConfigurationDto findLatestUserConfiguration(final String userId, DeltaCacheKey deltaKey) {
         EndpointUserConfigurationDto userConfiguration = null;
         if (userId != null) {
-            userConfiguration = userConfigurationService.findUserConfigurationByUserIdAndAppTokenAndSchemaVersion(userId, deltaKey
-                    .getAppConfigVersionKey().getApplicationToken(), deltaKey.getAppConfigVersionKey().getVersion());
+            userConfiguration = cacheService.getUserConfiguration(new UserConfigurationKey(userId, deltaKey.getAppConfigVersionKey()
+                    .getApplicationToken(), deltaKey.getAppConfigVersionKey().getVersion()));
             if (userConfiguration != null) {
                 LOG.debug("[{}] User specific configuration found", userId);
             } else {
@@ -254,8 +268,8 @@ public class DefaultDeltaService implements DeltaService {
         // weight
         // put all endpoint groups as keys into the map
         Collections.sort(endpointGroups, ENDPOINT_GROUP_COMPARATOR);
-        List<OverrideData> overrideConfigs = new LinkedList<>();
-        BaseData baseConfig = null;
+        List<ConfigurationMergeEngine.Source> overrideConfigs = new LinkedList<>();
+        ConfigurationMergeEngine.Source baseConfig = null;
         OverrideSchema overrideSchema = new OverrideSchema(configurationSchema.getOverrideSchema());
         BaseSchema baseSchema = new BaseSchema(configurationSchema.getBaseSchema());
         // put configurations into the map under corresponding endpoint group
@@ -263,10 +277,12 @@ public class DefaultDeltaService implements DeltaService {
             boolean endpointGroupFound = false;
             for (ConfigurationDto configuration : configurations) {
                 if (configuration.getEndpointGroupId().equals(endpointGroup.getId())) {
+                    ConfigurationMergeEngine.Source source = new ConfigurationMergeEngine.Source(configuration.getId(),
+                            configuration.getSequenceNumber(), configuration.getBody());
                     if (endpointGroup.getWeight() != 0) {
-                        overrideConfigs.add(new OverrideData(overrideSchema, configuration.getBody()));
+                        overrideConfigs.add(source);
                     } else {
-                        baseConfig = new BaseData(baseSchema, configuration.getBody());
+                        baseConfig = source;
                     }
                     endpointGroupFound = true;
                     break;
@@ -277,8 +293,7 @@ public class DefaultDeltaService implements DeltaService {
             }
         }
 
-        OverrideAlgorithm configurationMerger = configurationOverrideFactory.createConfigurationOverrideAlgorithm();
-        return configurationMerger.override(baseConfig, overrideConfigs);
+        return mergeEngine.override(configurationSchema.getId(), baseSchema, overrideSchema, baseConfig, overrideConfigs);
     }
 
     /**
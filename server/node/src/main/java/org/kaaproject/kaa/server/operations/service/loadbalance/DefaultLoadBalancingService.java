@@ -17,11 +17,13 @@
 package org.kaaproject.kaa.server.operations.service.loadbalance;
 
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.lang.management.OperatingSystemMXBean;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
 import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
 import org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo;
 import org.kaaproject.kaa.server.common.zk.operations.OperationsNode;
@@ -50,6 +52,12 @@ public class DefaultLoadBalancingService implements LoadBalancingService {
     @Autowired
     private AkkaService akkaService;
 
+    /**
+     * The work counters of the endpoint actors.
+     */
+    @Autowired
+    private LoadStatistics loadStatistics;
+
     @Value("#{properties[load_stats_update_frequency]}")
     private long loadStatsUpdateFrequency = DEFAULT_STATS_UPDATE_FREQUENCY;
 
@@ -93,11 +101,22 @@ public class DefaultLoadBalancingService implements LoadBalancingService {
         try {
             OperationsNodeInfo nodeInfo = operationsNode.getNodeInfo();
             OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+            LoadStatistics.Rates rates = loadStatistics.calculateRates();
             nodeInfo.setLoadInfo(new LoadInfo(status.getEndpointCount(), operatingSystemMXBean.getSystemLoadAverage()));
+            nodeInfo.setLoadDetails(new LoadDetails(rates.getSyncRate(), rates.getEventRate(), rates.getLogRate(), getHeapUsage(),
+                    status.getMailboxBacklog()));
             operationsNode.updateNodeData(nodeInfo);
-            LOG.info("Updated load info: {}", nodeInfo.getLoadInfo());
+            LOG.info("Updated load info: {}, details: {}", nodeInfo.getLoadInfo(), nodeInfo.getLoadDetails());
+            LOG.debug("Application actors: {}, user actors: {}, user actors backlog: {}", status.getApplicationStatuses(),
+                    status.getUserActorCount(), status.getUserActorBacklog());
         } catch (Exception e) {
             LOG.error("Failed to report status update to control server", e);
         }
     }
+
+    private static double getHeapUsage() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return max > 0 ? (double) heap.getUsed() / max : 0.0;
+    }
 }
@@ -0,0 +1,119 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.kaaproject.kaa.server.operations.service.loadbalance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the work done by the endpoint actors of this node: processed sync
+ * requests, sent events and uploaded log records. The load balancing service
+ * turns the counts into per second rates each time it reports the node load.
+ */
+@Component
+public class LoadStatistics {
+
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder logRecords = new LongAdder();
+
+    private long lastSyncs;
+    private long lastEvents;
+    private long lastLogRecords;
+    private long lastTime = System.nanoTime();
+
+    /**
+     * Records a processed sync request.
+     */
+    public void recordSync() {
+        syncs.increment();
+    }
+
+    /**
+     * Records events sent by an endpoint.
+     *
+     * @param count the events count
+     */
+    public void recordEvents(int count) {
+        events.add(count);
+    }
+
+    /**
+     * Records log records uploaded by an endpoint.
+     *
+     * @param count the log records count
+     */
+    public void recordLogRecords(int count) {
+        logRecords.add(count);
+    }
+
+    /**
+     * Calculates the rates since the previous call, or since the creation for the first call.
+     *
+     * @return the rates
+     */
+    public synchronized Rates calculateRates() {
+        long now = System.nanoTime();
+        double seconds = Math.max(now - lastTime, 1L) / (double) TimeUnit.SECONDS.toNanos(1);
+        long curSyncs = syncs.sum();
+        long curEvents = events.sum();
+        long curLogRecords = logRecords.sum();
+        Rates rates = new Rates((curSyncs - lastSyncs) / seconds, (curEvents - lastEvents) / seconds,
+                (curLogRecords - lastLogRecords) / seconds);
+        lastSyncs = curSyncs;
+        lastEvents = curEvents;
+        lastLogRecords = curLogRecords;
+        lastTime = now;
+        return rates;
+    }
+
+    /**
+     * Per second rates of the node work.
+     */
+    public static final class Rates {
+
+        private final double syncRate;
+        private final double eventRate;
+        private final double logRate;
+
+        public Rates(double syncRate, double eventRate, double logRate) {
+            this.syncRate = syncRate;
+            this.eventRate = eventRate;
+            this.logRate = logRate;
+        }
+
+        public double getSyncRate() {
+            return syncRate;
+        }
+
+        public double getEventRate() {
+            return eventRate;
+        }
+
+        public double getLogRate() {
+            return logRate;
+        }
+
+        @Override
+        public String toString() {
+            return "Rates [syncRate=" + syncRate + ", eventRate=" + eventRate + ", logRate=" + logRate + "]";
+        }
+    }
+}
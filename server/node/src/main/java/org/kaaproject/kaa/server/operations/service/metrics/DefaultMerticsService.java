@@ -16,6 +16,9 @@
 
 package org.kaaproject.kaa.server.operations.service.metrics;
 
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -24,9 +27,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Slf4jReporter;
+import com.codahale.metrics.Timer;
 
 @Service
 public class DefaultMerticsService implements MetricsService {
@@ -34,10 +39,20 @@ public class DefaultMerticsService implements MetricsService {
 
     private static final String METRICS_COLLECTION_IS_DISABLED = "Metrics collection is disabled!";
     private static final String KAA_METRICS_LOGGER_NAME = "org.kaaproject.kaa.metrics";
+    private static final String UNKNOWN_APPLICATION = "unknown";
+    private static final String TOTAL_STAGE = "total";
+
+    /** The registry name prefix of the sync stage timers. */
+    static final String SYNC_TIMER_PREFIX = "sync.";
 
     private final MetricRegistry metrics = new MetricRegistry();
+    private final ConcurrentMap<String, SyncTimer> syncTimers = new ConcurrentHashMap<>();
     private volatile boolean enabled;
+    private boolean jmxEnabled = true;
+    private int prometheusPort;
     private Slf4jReporter reporter;
+    private JmxReporter jmxReporter;
+    private PrometheusExporter prometheusExporter;
 
     @Autowired
     private SystemMonitoringInfo monitor;
@@ -57,6 +72,57 @@ public class DefaultMerticsService implements MetricsService {
         };
     }
 
+    @Override
+    public synchronized TimerClient createTimer(String name, String... names) {
+        final Timer timer = metrics.timer(MetricRegistry.name(name, names));
+        return new TimerClient() {
+            @Override
+            public void update(long duration, TimeUnit unit) {
+                if (enabled) {
+                    timer.update(duration, unit);
+                } else {
+                    LOG.trace(METRICS_COLLECTION_IS_DISABLED);
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized void registerGauge(final GaugeClient<?> gauge, String name, String... names) {
+        String gaugeName = MetricRegistry.name(name, names);
+        if (!metrics.getGauges().containsKey(gaugeName)) {
+            metrics.register(gaugeName, new Gauge<Object>() {
+                @Override
+                public Object getValue() {
+                    return gauge.getValue();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void recordSyncTrace(SyncTrace trace) {
+        if (!enabled) {
+            LOG.trace(METRICS_COLLECTION_IS_DISABLED);
+            return;
+        }
+        String applicationToken = trace.getApplicationToken() != null ? trace.getApplicationToken() : UNKNOWN_APPLICATION;
+        for (SyncStage stage : SyncStage.values()) {
+            getSyncTimer(stage.getMetricName(), trace.getTransport(), applicationToken).update(
+                    trace.getDuration(stage, TimeUnit.NANOSECONDS));
+        }
+        getSyncTimer(TOTAL_STAGE, trace.getTransport(), applicationToken).update(trace.getTotalDuration(TimeUnit.NANOSECONDS));
+    }
+
+    private SyncTimer getSyncTimer(String stage, String transport, String applicationToken) {
+        String name = SYNC_TIMER_PREFIX + MetricRegistry.name(stage, transport, applicationToken);
+        SyncTimer syncTimer = syncTimers.get(name);
+        if (syncTimer == null) {
+            syncTimer = syncTimers.computeIfAbsent(name, key -> new SyncTimer(stage, transport, applicationToken, metrics.timer(key)));
+        }
+        return syncTimer;
+    }
+
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
@@ -66,6 +132,19 @@ public class DefaultMerticsService implements MetricsService {
         return enabled;
     }
 
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    /**
+     * Sets the port of the Prometheus metrics HTTP endpoint.
+     *
+     * @param prometheusPort the port, 0 disables the endpoint
+     */
+    public void setPrometheusPort(int prometheusPort) {
+        this.prometheusPort = prometheusPort;
+    }
+
     @Override
     public void startReport() {
         LOG.info("Starting metrics report!");
@@ -75,12 +154,33 @@ public class DefaultMerticsService implements MetricsService {
                 .convertDurationsTo(TimeUnit.MILLISECONDS).build();
         registerSystemMonitor();
         reporter.start(30, TimeUnit.SECONDS);
+        if (jmxEnabled) {
+            jmxReporter = JmxReporter.forRegistry(metrics).inDomain(KAA_METRICS_LOGGER_NAME)
+                    .convertRatesTo(TimeUnit.SECONDS)
+                    .convertDurationsTo(TimeUnit.MILLISECONDS).build();
+            jmxReporter.start();
+        }
+        if (prometheusPort > 0) {
+            prometheusExporter = new PrometheusExporter(metrics, syncTimers.values(), prometheusPort);
+            try {
+                prometheusExporter.start();
+            } catch (IOException e) {
+                LOG.error("Failed to start Prometheus metrics endpoint on port {}", prometheusPort, e);
+                prometheusExporter = null;
+            }
+        }
     }
 
     @Override
     public void stopReport() {
         LOG.info("Stoping metrics report!");
         reporter.stop();
+        if (jmxReporter != null) {
+            jmxReporter.stop();
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
     }
 
     private void registerSystemMonitor() {
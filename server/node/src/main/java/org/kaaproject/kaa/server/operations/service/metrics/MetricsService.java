@@ -21,6 +21,24 @@ public interface MetricsService {
 
     MeterClient createMeter(String name, String... names);
 
+    TimerClient createTimer(String name, String... names);
+
+    /**
+     * Registers a gauge, does nothing if a gauge with the same name is already registered.
+     *
+     * @param gauge the gauge
+     * @param name the first element of the gauge name
+     * @param names the remaining elements of the gauge name
+     */
+    void registerGauge(GaugeClient<?> gauge, String name, String... names);
+
+    /**
+     * Records the stage durations of a finished sync request.
+     *
+     * @param trace the finished trace
+     */
+    void recordSyncTrace(SyncTrace trace);
+
     void setEnabled(boolean enabled);
     
     boolean isEnabled();
@@ -0,0 +1,176 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the node metrics in the Prometheus text format on
+ * <code>http://host:port/metrics</code>. Sync stage timers are exported as
+ * the <code>kaa_sync_duration_seconds</code> summary labeled by stage,
+ * transport and application token, other metrics of the registry are
+ * exported under their sanitized names.
+ */
+class PrometheusExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrometheusExporter.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String SYNC_METRIC_NAME = "kaa_sync_duration_seconds";
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final MetricRegistry registry;
+    private final Collection<SyncTimer> syncTimers;
+    private final int port;
+    private HttpServer server;
+
+    /**
+     * Instantiates a new exporter.
+     *
+     * @param registry the metric registry
+     * @param syncTimers the live view of the sync stage timers
+     * @param port the HTTP port
+     */
+    PrometheusExporter(MetricRegistry registry, Collection<SyncTimer> syncTimers, int port) {
+        this.registry = registry;
+        this.syncTimers = syncTimers;
+        this.port = port;
+    }
+
+    /**
+     * Starts the HTTP server.
+     *
+     * @throws IOException if the port can't be bound
+     */
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        LOG.info("Prometheus metrics are served on port {}", port);
+    }
+
+    /**
+     * Stops the HTTP server.
+     */
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text format.
+     *
+     * @return the metrics
+     */
+    String scrape() {
+        StringBuilder out = new StringBuilder();
+        if (!syncTimers.isEmpty()) {
+            out.append("# HELP ").append(SYNC_METRIC_NAME).append(" Endpoint sync request processing time by stage.\n");
+            out.append("# TYPE ").append(SYNC_METRIC_NAME).append(" summary\n");
+            for (SyncTimer syncTimer : syncTimers) {
+                String labels = "stage=\"" + escape(syncTimer.getStage()) + "\",transport=\"" + escape(syncTimer.getTransport())
+                        + "\",application=\"" + escape(syncTimer.getApplicationToken()) + "\"";
+                Snapshot snapshot = syncTimer.getTimer().getSnapshot();
+                for (double quantile : QUANTILES) {
+                    sample(out, SYNC_METRIC_NAME, labels + ",quantile=\"" + quantile + "\"", snapshot.getValue(quantile) / NANOS_PER_SECOND);
+                }
+                sample(out, SYNC_METRIC_NAME + "_sum", labels, syncTimer.getSumNanos() / NANOS_PER_SECOND);
+                sample(out, SYNC_METRIC_NAME + "_count", labels, syncTimer.getTimer().getCount());
+            }
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            String name = sanitize(entry.getKey()) + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            sample(out, name, null, entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            String name = sanitize(entry.getKey());
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            sample(out, name, null, entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            Object value = entry.getValue().getValue();
+            if (value instanceof Number) {
+                String name = sanitize(entry.getKey());
+                out.append("# TYPE ").append(name).append(" gauge\n");
+                sample(out, name, null, ((Number) value).doubleValue());
+            }
+        }
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            if (entry.getKey().startsWith(DefaultMerticsService.SYNC_TIMER_PREFIX)) {
+                continue;
+            }
+            String name = sanitize(entry.getKey()) + "_seconds";
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                sample(out, name, "quantile=\"" + quantile + "\"", snapshot.getValue(quantile) / NANOS_PER_SECOND);
+            }
+            sample(out, name + "_count", null, entry.getValue().getCount());
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    static String sanitize(String name) {
+        String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.metrics;
+
+/**
+ * The stages of an endpoint sync request, in processing order.
+ */
+public enum SyncStage {
+
+    /** Decryption and signature verification of the request. */
+    DECRYPT,
+    /** Decoding of the platform level request data. */
+    DECODE,
+    /** Routing of the request to the endpoint actor. */
+    QUEUE,
+    /** Endpoint profile sync. */
+    PROFILE,
+    /** User attach, event and log requests processing. */
+    PROCESS,
+    /** Configuration delta calculation. */
+    CONFIGURATION,
+    /** Notification lookup. */
+    NOTIFICATION,
+    /** Routing of the response back, including long poll waiting. */
+    REPLY,
+    /** Encoding of the platform level response data. */
+    ENCODE,
+    /** Encryption of the response. */
+    ENCRYPT,
+    /** Writing of the response to the channel. */
+    WRITE;
+
+    public String getMetricName() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * The timer of a sync stage for a transport and an application. Keeps the
+ * exact sum of the durations next to the sampled histogram of the timer.
+ */
+final class SyncTimer {
+
+    private final String stage;
+    private final String transport;
+    private final String applicationToken;
+    private final Timer timer;
+    private final LongAdder sum = new LongAdder();
+
+    SyncTimer(String stage, String transport, String applicationToken, Timer timer) {
+        this.stage = stage;
+        this.transport = transport;
+        this.applicationToken = applicationToken;
+        this.timer = timer;
+    }
+
+    void update(long durationNanos) {
+        timer.update(durationNanos, TimeUnit.NANOSECONDS);
+        sum.add(durationNanos);
+    }
+
+    String getStage() {
+        return stage;
+    }
+
+    String getTransport() {
+        return transport;
+    }
+
+    String getApplicationToken() {
+        return applicationToken;
+    }
+
+    Timer getTimer() {
+        return timer;
+    }
+
+    long getSumNanos() {
+        return sum.sum();
+    }
+}
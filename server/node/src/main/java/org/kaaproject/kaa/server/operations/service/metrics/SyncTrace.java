@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.kaaproject.kaa.server.operations.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing of a single endpoint sync request across its {@link SyncStage stages}.
+ * Each {@link #mark(SyncStage)} attributes the time passed since the previous
+ * mark to the stage. The trace travels with the request and response messages
+ * between actors, so it is accessed by one actor at a time and is not thread
+ * safe.
+ */
+public class SyncTrace {
+
+    private final String transport;
+    private final long start;
+    private final long[] durations = new long[SyncStage.values().length];
+    private String applicationToken;
+    private long last;
+    private boolean finished;
+
+    /**
+     * Starts a new trace.
+     *
+     * @param transport the name of the transport the request came from
+     */
+    public SyncTrace(String transport) {
+        this.transport = transport;
+        this.start = System.nanoTime();
+        this.last = start;
+    }
+
+    /**
+     * Attributes the time passed since the previous mark to the stage.
+     *
+     * @param stage the stage
+     */
+    public void mark(SyncStage stage) {
+        long now = System.nanoTime();
+        durations[stage.ordinal()] += now - last;
+        last = now;
+    }
+
+    /**
+     * Marks the trace as finished. A response to a request may be sent
+     * several times, only the first one is traced.
+     *
+     * @return true if the trace was not finished before
+     */
+    public boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        return true;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets the time attributed to the stage.
+     *
+     * @param stage the stage
+     * @param unit the time unit
+     * @return the duration
+     */
+    public long getDuration(SyncStage stage, TimeUnit unit) {
+        return unit.convert(durations[stage.ordinal()], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the time from the start of the trace to the last mark.
+     *
+     * @param unit the time unit
+     * @return the duration
+     */
+    public long getTotalDuration(TimeUnit unit) {
+        return unit.convert(last - start, TimeUnit.NANOSECONDS);
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public String getApplicationToken() {
+        return applicationToken;
+    }
+
+    public void setApplicationToken(String applicationToken) {
+        this.applicationToken = applicationToken;
+    }
+
+    /**
+     * Marks the stage of the trace, if there is one.
+     *
+     * @param trace the trace, may be null
+     * @param stage the stage
+     */
+    public static void mark(SyncTrace trace, SyncStage stage) {
+        if (trace != null) {
+            trace.mark(stage);
+        }
+    }
+}
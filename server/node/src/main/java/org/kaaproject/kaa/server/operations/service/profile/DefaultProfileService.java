@@ -24,6 +24,7 @@ import java.util.function.Function;
 
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileSchemaDto;
 import org.kaaproject.kaa.common.dto.EventClassFamilyVersionStateDto;
 import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
@@ -82,24 +83,25 @@ public class DefaultProfileService implements ProfileService {
     }
 
     @Override
-    public EndpointProfileDto updateProfile(EndpointProfileDto profile,
+    public EndpointProfileDto updateProfile(EndpointProfileDto profile, EndpointProfileSnapshotDto storedProfile,
             BiFunction<EndpointProfileDto, EndpointProfileDto, EndpointProfileDto> mergeFunction) {
-        return updateProfile(profile, mergeFunction, 3);
+        return updateProfile(profile, storedProfile, mergeFunction, 3);
     }
 
-    private EndpointProfileDto updateProfile(EndpointProfileDto update,
+    private EndpointProfileDto updateProfile(EndpointProfileDto update, EndpointProfileSnapshotDto storedProfile,
             BiFunction<EndpointProfileDto, EndpointProfileDto, EndpointProfileDto> mergeFunction, int retryCount) {
         LOG.debug("Updating profile {} ", update);
         try {
-            return endpointService.saveEndpointProfile(update);
+            return endpointService.saveEndpointProfile(update, storedProfile);
         } catch (KaaOptimisticLockingFailureException ex) {
             LOG.warn("Failed to update profile {} ", update, ex);
             if (retryCount > 0) {
                 EndpointProfileDto stored = endpointService.findEndpointProfileByKeyHash(update.getEndpointKeyHash());
                 LOG.warn("Going to merge it with stored profile {}", stored);
+                EndpointProfileSnapshotDto snapshot = stored != null ? new EndpointProfileSnapshotDto(stored) : null;
                 EndpointProfileDto merged = mergeFunction.apply(stored, update);
                 LOG.warn("Merge result: {}", merged);
-                return updateProfile(merged, mergeFunction, retryCount - 1);
+                return updateProfile(merged, snapshot, mergeFunction, retryCount - 1);
             } else {
                 throw ex;
             }
@@ -190,7 +192,8 @@ public class DefaultProfileService implements ProfileService {
             profile.setSequenceNumber(0);
             return profile;
         }; 
-        return updateProfile(updateFunction.apply(dto), (storedProfile, newProfile) -> {
+        EndpointProfileSnapshotDto snapshot = new EndpointProfileSnapshotDto(dto);
+        return updateProfile(updateFunction.apply(dto), snapshot, (storedProfile, newProfile) -> {
             return updateFunction.apply(storedProfile);
         });
     }
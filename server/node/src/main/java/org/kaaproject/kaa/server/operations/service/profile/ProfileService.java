@@ -20,6 +20,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import org.kaaproject.kaa.common.dto.EndpointProfileDto;
+import org.kaaproject.kaa.common.dto.EndpointProfileSnapshotDto;
 import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.kaaproject.kaa.server.operations.pojo.RegisterProfileRequest;
 import org.kaaproject.kaa.server.operations.pojo.UpdateProfileRequest;
@@ -45,9 +46,12 @@ public interface ProfileService {
      * Update profile.
      *
      * @param profile the profile
+     * @param storedProfile the snapshot of the profile taken before it was modified
+     * @param mergeFunction the function merging the stored profile with the update on concurrent modification
      * @return the updated endpoint profile dto
      */
-    EndpointProfileDto updateProfile(EndpointProfileDto profile, BiFunction<EndpointProfileDto, EndpointProfileDto, EndpointProfileDto> mergeFunction);
+    EndpointProfileDto updateProfile(EndpointProfileDto profile, EndpointProfileSnapshotDto storedProfile,
+            BiFunction<EndpointProfileDto, EndpointProfileDto, EndpointProfileDto> mergeFunction);
 
     /**
      * Register profile.
@@ -38,6 +38,7 @@ import org.kaaproject.kaa.server.operations.service.akka.AkkaService;
 import org.kaaproject.kaa.server.operations.service.cache.AppProfileVersionsKey;
 import org.kaaproject.kaa.server.operations.service.cache.AppSeqNumber;
 import org.kaaproject.kaa.server.operations.service.cache.CacheService;
+import org.kaaproject.kaa.server.operations.service.cache.UserConfigurationKey;
 import org.kaaproject.kaa.server.operations.service.cluster.ClusterService;
 import org.kaaproject.kaa.server.operations.service.event.EventService;
 import org.kaaproject.kaa.server.operations.service.initialization.OperationsInitializationService;
@@ -128,6 +129,8 @@ public class OperationsThriftServiceImpl implements OperationsThriftService.Ifac
     @Override
     public void sendUserConfigurationUpdates(List<UserConfigurationUpdate> updates) throws TException {
         for (UserConfigurationUpdate update : updates) {
+            cacheService.resetUserConfiguration(new UserConfigurationKey(update.getUserId(), update.getApplicationToken(), update
+                    .getCfSchemaVersion()));
             akkaService
                     .onUserConfigurationUpdate(org.kaaproject.kaa.server.operations.service.akka.messages.core.user.UserConfigurationUpdate
                             .fromThrift(update));
@@ -21,14 +21,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.kaaproject.kaa.server.common.zk.bootstrap.BootstrapNode;
+import org.kaaproject.kaa.server.common.zk.ServerNameUtil;
 import org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo;
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
+import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
 import org.kaaproject.kaa.server.common.zk.gen.OperationsNodeInfo;
 import org.kaaproject.kaa.server.common.zk.gen.TransportMetaData;
 import org.kaaproject.kaa.server.common.zk.gen.VersionConnectionInfoPair;
@@ -136,4 +141,81 @@ public class DefaultOperationsServerListServiceTest {
         Mockito.verify(opsMap, Mockito.only()).remove(Mockito.anyString());
         Mockito.verify(memorizer, Mockito.only()).clear();
     }
+
+    @Test
+    public void testLeastLoadedServersAreReturned() {
+        service.onNodeUpdated(buildNode(8001, new LoadInfo(30000, 1.0), new LoadDetails(3000.0, 500.0, 1000.0, 0.9, 100L), 1));
+        service.onNodeAdded(buildNode(8002, new LoadInfo(1000, 1.0), new LoadDetails(10.0, 0.0, 0.0, 0.2, 0L), 1));
+        service.onNodeAdded(buildNode(8003, null, null, 1));
+        service.setSubsetSize(2);
+
+        int loadedId = ServerNameUtil.crc32(new ConnectionInfo("localhost", 8001, ByteBuffer.wrap(new byte[0])));
+        for (int i = 0; i < 100; i++) {
+            Set<ProtocolConnectionData> result = service.filter(Collections.singletonList(new ProtocolVersionId(1, 42)));
+            Assert.assertEquals(2, result.size());
+            for (ProtocolConnectionData connection : result) {
+                Assert.assertNotEquals(loadedId, connection.getAccessPointId());
+            }
+        }
+    }
+
+    @Test
+    public void testServersAreOrderedByLoad() {
+        service.onNodeUpdated(buildNode(8000, new LoadInfo(20000, 1.0), new LoadDetails(2000.0, 0.0, 0.0, 0.5, 0L), 1));
+        service.onNodeAdded(buildNode(8001, new LoadInfo(10000, 1.0), new LoadDetails(1000.0, 0.0, 0.0, 0.5, 0L), 1));
+        service.onNodeAdded(buildNode(8002, new LoadInfo(100, 1.0), new LoadDetails(10.0, 0.0, 0.0, 0.5, 0L), 1));
+
+        Set<ProtocolConnectionData> connections = service.filterProtocolInstances(Collections.singletonList(new ProtocolVersionId(1, 42)));
+        int mostLoadedLast = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            Set<ProtocolConnectionData> result = service.orderByLoad(connections, random);
+            Assert.assertEquals(3, result.size());
+            Iterator<ProtocolConnectionData> iterator = result.iterator();
+            Assert.assertNotEquals(8000, getPort(iterator.next()));
+            iterator.next();
+            if (getPort(iterator.next()) == 8000) {
+                mostLoadedLast++;
+            }
+        }
+        Assert.assertEquals(100, mostLoadedLast);
+    }
+
+    @Test
+    public void testSubsetCoversAllProtocols() {
+        service.onNodeUpdated(buildNode(8000, new LoadInfo(20000, 1.0), new LoadDetails(2000.0, 0.0, 0.0, 0.5, 0L), 1));
+        OperationsNodeInfo loaded = buildNode(8001, new LoadInfo(30000, 1.0), new LoadDetails(3000.0, 0.0, 0.0, 0.5, 0L), 1);
+        loaded.getTransports().add(new TransportMetaData(4, 1, 1, Collections.singletonList(new VersionConnectionInfoPair(1, ByteBuffer
+                .wrap("test4".getBytes())))));
+        service.onNodeAdded(loaded);
+        service.onNodeAdded(buildNode(8002, new LoadInfo(100, 1.0), new LoadDetails(10.0, 0.0, 0.0, 0.5, 0L), 1));
+        service.setSubsetSize(1);
+
+        Set<ProtocolConnectionData> result = service.filter(Arrays.asList(new ProtocolVersionId(1, 42), new ProtocolVersionId(4, 1)));
+        Assert.assertEquals(3, result.size());
+        Iterator<ProtocolConnectionData> iterator = result.iterator();
+        Assert.assertNotEquals(8001, getPort(iterator.next()));
+        Assert.assertEquals(8001, getPort(iterator.next()));
+    }
+
+    private static OperationsNodeInfo buildNode(int port, LoadInfo loadInfo, LoadDetails loadDetails, int protocolId) {
+        OperationsNodeInfo nodeInfo = new OperationsNodeInfo();
+        nodeInfo.setConnectionInfo(new ConnectionInfo("localhost", port, ByteBuffer.wrap(new byte[0])));
+        nodeInfo.setLoadInfo(loadInfo);
+        nodeInfo.setLoadDetails(loadDetails);
+        List<TransportMetaData> mdList = new ArrayList<TransportMetaData>();
+        mdList.add(new TransportMetaData(protocolId, 42, 42, Collections.singletonList(new VersionConnectionInfoPair(42, ByteBuffer
+                .wrap(Integer.toString(port).getBytes())))));
+        nodeInfo.setTransports(mdList);
+        return nodeInfo;
+    }
+
+    private static int getPort(ProtocolConnectionData connection) {
+        for (int port = 8000; port < 8010; port++) {
+            if (connection.getAccessPointId() == ServerNameUtil.crc32(new ConnectionInfo("localhost", port, ByteBuffer.wrap(new byte[0])))) {
+                return port;
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,129 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.control.sdk;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaaproject.kaa.common.dto.admin.SdkPlatform;
+import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
+import org.kaaproject.kaa.common.dto.file.FileData;
+import org.kaaproject.kaa.server.common.zk.gen.BootstrapNodeInfo;
+import org.kaaproject.kaa.server.common.zk.gen.ConnectionInfo;
+import org.kaaproject.kaa.server.common.zk.gen.TransportMetaData;
+import org.kaaproject.kaa.server.common.zk.gen.VersionConnectionInfoPair;
+import org.kaaproject.kaa.server.control.service.sdk.SdkArtifactStore;
+
+public class SdkArtifactStoreTest {
+
+    private static final String SCHEMA = "{\"type\":\"record\",\"name\":\"Test\",\"fields\":[]}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        SdkArtifactStore store = new SdkArtifactStore(folder.getRoot().getAbsolutePath());
+        String key = computeKey(SdkPlatform.JAVA, "token", new byte[] {1});
+        Assert.assertNull(store.get(key));
+
+        FileData sdk = new FileData();
+        sdk.setFileName("kaa-java-ep-sdk-token.jar");
+        sdk.setFileData(new byte[] {1, 2, 3});
+        store.put(key, sdk);
+        store.put(key, sdk);
+
+        FileData storedSdk = new SdkArtifactStore(folder.getRoot().getAbsolutePath()).get(key);
+        Assert.assertNotNull(storedSdk);
+        Assert.assertEquals(sdk.getFileName(), storedSdk.getFileName());
+        Assert.assertArrayEquals(sdk.getFileData(), storedSdk.getFileData());
+        Assert.assertNull(store.get(computeKey(SdkPlatform.JAVA, "token", new byte[] {2})));
+    }
+
+    @Test
+    public void testComputeKey() {
+        String key = computeKey(SdkPlatform.JAVA, "token", new byte[] {1});
+        Assert.assertEquals(64, key.length());
+        Assert.assertEquals(key, computeKey(SdkPlatform.JAVA, "token", new byte[] {1}));
+        Assert.assertNotEquals(key, computeKey(SdkPlatform.ANDROID, "token", new byte[] {1}));
+        Assert.assertNotEquals(key, computeKey(SdkPlatform.JAVA, "token2", new byte[] {1}));
+        Assert.assertNotEquals(key, computeKey(SdkPlatform.JAVA, "token", new byte[] {1, 0}));
+        Assert.assertNotEquals(key, computeKey(SdkPlatform.JAVA, "token", null));
+    }
+
+    @Test
+    public void testComputeKeyBootstrapNodes() {
+        List<BootstrapNodeInfo> nodes = Arrays.asList(
+                buildNode("host1", 9888, 1L, transport(1, "http1"), transport(2, "tcp1")),
+                buildNode("host2", 9888, 2L, transport(1, "http2"), transport(2, "tcp2")));
+        String key = computeKey(nodes);
+        Assert.assertNotEquals(key, computeKey(Collections.<BootstrapNodeInfo>emptyList()));
+
+        // restarted nodes in another order with the transports in another order
+        Assert.assertEquals(key, computeKey(Arrays.asList(
+                buildNode("host2", 9888, 20L, transport(2, "tcp2"), transport(1, "http2")),
+                buildNode("host1", 9888, 10L, transport(2, "tcp1"), transport(1, "http1")))));
+
+        Assert.assertNotEquals(key, computeKey(Arrays.asList(
+                buildNode("host1", 9888, 1L, transport(1, "http1"), transport(2, "tcp1")),
+                buildNode("host3", 9888, 2L, transport(1, "http2"), transport(2, "tcp2")))));
+        Assert.assertNotEquals(key, computeKey(Arrays.asList(
+                buildNode("host1", 9888, 1L, transport(1, "http1"), transport(2, "tcp1")),
+                buildNode("host2", 9889, 2L, transport(1, "http2"), transport(2, "tcp2")))));
+        Assert.assertNotEquals(key, computeKey(Arrays.asList(
+                buildNode("host1", 9888, 1L, transport(1, "http1"), transport(2, "tcp1")),
+                buildNode("host2", 9888, 2L, transport(1, "http2"), transport(2, "tcp3")))));
+        Assert.assertNotEquals(key, computeKey(Arrays.asList(
+                buildNode("host1", 9888, 1L, transport(1, "http1"), transport(2, "tcp1")),
+                buildNode("host2", 9888, 2L, transport(1, "http2")))));
+    }
+
+    private static String computeKey(SdkPlatform platform, String token, byte[] defaultConfigurationData) {
+        return computeKey(platform, token, defaultConfigurationData, Collections.<BootstrapNodeInfo>emptyList());
+    }
+
+    private static String computeKey(List<BootstrapNodeInfo> bootstrapNodes) {
+        return computeKey(SdkPlatform.JAVA, "token", new byte[] {1}, bootstrapNodes);
+    }
+
+    private static String computeKey(SdkPlatform platform, String token, byte[] defaultConfigurationData,
+                                     List<BootstrapNodeInfo> bootstrapNodes) {
+        SdkProfileDto sdkProfile = new SdkProfileDto("1", 1, 1, 1, 1, null, null, "appToken", "user", 1L, "name");
+        sdkProfile.setToken(token);
+        return SdkArtifactStore.computeKey(platform, "1.0.0", bootstrapNodes, sdkProfile, SCHEMA, SCHEMA, SCHEMA, SCHEMA,
+                defaultConfigurationData, Collections.emptyList(), SCHEMA);
+    }
+
+    private static BootstrapNodeInfo buildNode(String host, int port, long timeStarted, TransportMetaData... transports) {
+        BootstrapNodeInfo node = new BootstrapNodeInfo();
+        node.setConnectionInfo(new ConnectionInfo(host, port, ByteBuffer.wrap(host.getBytes())));
+        node.setTimeStarted(timeStarted);
+        node.setTransports(Arrays.asList(transports));
+        return node;
+    }
+
+    private static TransportMetaData transport(int id, String connectionInfo) {
+        return new TransportMetaData(id, 1, 1, Collections.singletonList(
+                new VersionConnectionInfoPair(1, ByteBuffer.wrap(connectionInfo.getBytes()))));
+    }
+}
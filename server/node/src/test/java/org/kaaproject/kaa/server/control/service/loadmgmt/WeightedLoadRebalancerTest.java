@@ -0,0 +1,234 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.kaaproject.kaa.server.control.service.loadmgmt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.thrift.gen.operations.RedirectionRule;
+import org.kaaproject.kaa.server.common.zk.gen.LoadDetails;
+import org.kaaproject.kaa.server.common.zk.gen.LoadInfo;
+import org.kaaproject.kaa.server.control.service.loadmgmt.dynamicmgmt.OperationsServerLoadHistory;
+import org.kaaproject.kaa.server.control.service.loadmgmt.dynamicmgmt.WeightedLoadRebalancer;
+
+/**
+ * Tests {@link WeightedLoadRebalancer} on single load reports and on a
+ * simulated cluster where endpoints reconnect and follow the redirection rules.
+ */
+public class WeightedLoadRebalancerTest {
+
+    private static final long MAX_HISTORY_TIME_LIVE = 300000;
+
+    /** The part of the endpoints of a server that reconnect between two recalculations. */
+    private static final double RECONNECT_RATIO = 0.2;
+
+    private static final int ROUNDS = 40;
+
+    @Test
+    public void testRecalculateEmptyHistory() {
+        WeightedLoadRebalancer rebalancer = new WeightedLoadRebalancer();
+        Map<Integer, OperationsServerLoadHistory> serversHistory = new LinkedHashMap<>();
+        serversHistory.put(1, new OperationsServerLoadHistory(MAX_HISTORY_TIME_LIVE));
+        serversHistory.put(2, new OperationsServerLoadHistory(MAX_HISTORY_TIME_LIVE));
+        assertEquals(0, rebalancer.recalculate(serversHistory).size());
+    }
+
+    @Test
+    public void testBalancedServersGetNoRules() {
+        WeightedLoadRebalancer rebalancer = new WeightedLoadRebalancer();
+        Map<Integer, OperationsServerLoadHistory> serversHistory = new LinkedHashMap<>();
+        serversHistory.put(1, history(new LoadInfo(10000, 1.0), new LoadDetails(500.0, 100.0, 200.0, 0.5, 10L)));
+        serversHistory.put(2, history(new LoadInfo(11000, 1.0), new LoadDetails(450.0, 120.0, 180.0, 0.4, 12L)));
+        assertEquals(0, rebalancer.recalculate(serversHistory).size());
+    }
+
+    /**
+     * The first server has less endpoints, but they are much more active, so
+     * it is the one to redirect endpoints from, while the endpoint count
+     * rebalancer would redirect from the second one.
+     */
+    @Test
+    public void testChattyServerGetsRules() {
+        WeightedLoadRebalancer rebalancer = new WeightedLoadRebalancer();
+        Map<Integer, OperationsServerLoadHistory> serversHistory = new LinkedHashMap<>();
+        serversHistory.put(1, history(new LoadInfo(10000, 1.0), new LoadDetails(5000.0, 2000.0, 4000.0, 0.8, 500L)));
+        serversHistory.put(2, history(new LoadInfo(20000, 1.0), new LoadDetails(200.0, 0.0, 100.0, 0.3, 0L)));
+        serversHistory.put(3, history(new LoadInfo(20000, 1.0), new LoadDetails(200.0, 0.0, 100.0, 0.3, 0L)));
+
+        Map<Integer, List<RedirectionRule>> rules = rebalancer.recalculate(serversHistory);
+        assertEquals(1, rules.size());
+        assertNotNull(rules.get(1));
+        assertEquals(2, rules.get(1).size());
+        assertEquals(2, rules.get(1).get(0).getAccessPointId());
+        assertEquals(3, rules.get(1).get(1).getAccessPointId());
+        assertEquals(0.375, rules.get(1).get(0).getInitRedirectProbability(), 0.0001);
+        assertEquals(0.375, rules.get(1).get(1).getInitRedirectProbability(), 0.0001);
+        assertNull(rules.get(2));
+    }
+
+    @Test
+    public void testSmoothingDampensSpikes() {
+        WeightedLoadRebalancer rebalancer = new WeightedLoadRebalancer();
+        rebalancer.setSmoothingFactor(0.9);
+        Map<Integer, OperationsServerLoadHistory> serversHistory = new LinkedHashMap<>();
+        OperationsServerLoadHistory spiking = history(new LoadInfo(10000, 1.0), new LoadDetails(500.0, 0.0, 0.0, 0.5, 0L));
+        spiking.addOpsServerLoad(new LoadInfo(10000, 1.0), new LoadDetails(2000.0, 0.0, 0.0, 0.5, 0L));
+        serversHistory.put(1, spiking);
+        serversHistory.put(2, history(new LoadInfo(10000, 1.0), new LoadDetails(500.0, 0.0, 0.0, 0.5, 0L)));
+        assertEquals(0, rebalancer.recalculate(serversHistory).size());
+
+        rebalancer.setSmoothingFactor(0.0);
+        assertEquals(1, rebalancer.recalculate(serversHistory).size());
+    }
+
+    /**
+     * Simulates a cluster where one server got most of the chatty endpoints.
+     * Each round the servers report their load, the rules are recalculated and
+     * a part of the endpoints of each server reconnect, following the rules.
+     */
+    @Test
+    public void testSimulatedClusterConverges() {
+        WeightedLoadRebalancer rebalancer = new WeightedLoadRebalancer();
+        List<SimulatedServer> servers = new ArrayList<>();
+        servers.add(new SimulatedServer(1, 5000, 15000));
+        servers.add(new SimulatedServer(2, 500, 20000));
+        servers.add(new SimulatedServer(3, 500, 20000));
+        servers.add(new SimulatedServer(4, 0, 25000));
+
+        Map<Integer, OperationsServerLoadHistory> serversHistory = new LinkedHashMap<>();
+        for (SimulatedServer server : servers) {
+            serversHistory.put(server.id, new OperationsServerLoadHistory(MAX_HISTORY_TIME_LIVE));
+        }
+
+        double initialSpread = 0;
+        double spread = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (SimulatedServer server : servers) {
+                serversHistory.get(server.id).addOpsServerLoad(server.getLoadInfo(), server.getLoadDetails());
+            }
+            spread = getSpread(rebalancer.calculateScores(serversHistory));
+            Map<Integer, List<RedirectionRule>> rules = rebalancer.recalculate(serversHistory);
+            if (round == 0) {
+                initialSpread = spread;
+                assertEquals(1, rules.size());
+                assertNotNull(rules.get(1));
+            }
+            for (Entry<Integer, List<RedirectionRule>> serverRules : rules.entrySet()) {
+                assertTrue(serverRules.getKey() != 4);
+                getServer(servers, serverRules.getKey()).reconnect(servers, serverRules.getValue());
+            }
+        }
+        assertTrue("Load score spread " + spread + " is not less than " + initialSpread, spread < initialSpread / 2);
+        assertTrue("Load score spread " + spread + " is too big", spread < 0.15);
+        assertTrue(getServer(servers, 1).chattyEndpoints < 3000);
+        assertEquals(86000.0, getTotalEndpoints(servers), 0.001);
+    }
+
+    private static OperationsServerLoadHistory history(LoadInfo loadInfo, LoadDetails loadDetails) {
+        OperationsServerLoadHistory history = new OperationsServerLoadHistory(MAX_HISTORY_TIME_LIVE);
+        history.addOpsServerLoad(loadInfo, loadDetails);
+        return history;
+    }
+
+    private static double getSpread(Map<Integer, Double> scores) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (double score : scores.values()) {
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        return max - min;
+    }
+
+    private static SimulatedServer getServer(List<SimulatedServer> servers, int id) {
+        for (SimulatedServer server : servers) {
+            if (server.id == id) {
+                return server;
+            }
+        }
+        throw new IllegalArgumentException("Unknown server " + id);
+    }
+
+    private static double getTotalEndpoints(List<SimulatedServer> servers) {
+        double total = 0;
+        for (SimulatedServer server : servers) {
+            total += server.chattyEndpoints + server.quietEndpoints;
+        }
+        return total;
+    }
+
+    /**
+     * A server with chatty endpoints, which sync every second and send events
+     * and logs, and quiet endpoints, which sync once in 100 seconds. Endpoint
+     * counts are fractional to keep the simulation deterministic.
+     */
+    private static final class SimulatedServer {
+
+        private static final double CHATTY_SYNC_RATE = 1.0;
+        private static final double CHATTY_EVENT_RATE = 0.5;
+        private static final double CHATTY_LOG_RATE = 2.0;
+        private static final double QUIET_SYNC_RATE = 0.01;
+
+        private final int id;
+        private double chattyEndpoints;
+        private double quietEndpoints;
+
+        SimulatedServer(int id, double chattyEndpoints, double quietEndpoints) {
+            this.id = id;
+            this.chattyEndpoints = chattyEndpoints;
+            this.quietEndpoints = quietEndpoints;
+        }
+
+        LoadInfo getLoadInfo() {
+            return new LoadInfo((int) Math.round(chattyEndpoints + quietEndpoints), 1.0);
+        }
+
+        LoadDetails getLoadDetails() {
+            double syncRate = chattyEndpoints * CHATTY_SYNC_RATE + quietEndpoints * QUIET_SYNC_RATE;
+            double heapUsage = Math.min(1.0, 0.1 + (chattyEndpoints * 20 + quietEndpoints) / 500000);
+            return new LoadDetails(syncRate, chattyEndpoints * CHATTY_EVENT_RATE, chattyEndpoints * CHATTY_LOG_RATE, heapUsage,
+                    (long) (syncRate / 100));
+        }
+
+        /**
+         * Moves the reconnecting endpoints that are redirected by the rules.
+         */
+        void reconnect(List<SimulatedServer> servers, List<RedirectionRule> rules) {
+            double reconnectingChatty = chattyEndpoints * RECONNECT_RATIO;
+            double reconnectingQuiet = quietEndpoints * RECONNECT_RATIO;
+            for (RedirectionRule rule : rules) {
+                SimulatedServer target = getServer(servers, rule.getAccessPointId());
+                double movedChatty = reconnectingChatty * rule.getInitRedirectProbability();
+                double movedQuiet = reconnectingQuiet * rule.getInitRedirectProbability();
+                chattyEndpoints -= movedChatty;
+                quietEndpoints -= movedQuiet;
+                target.chattyEndpoints += movedChatty;
+                target.quietEndpoints += movedQuiet;
+            }
+        }
+    }
+}
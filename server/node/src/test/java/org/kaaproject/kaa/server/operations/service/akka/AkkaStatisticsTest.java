@@ -0,0 +1,84 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.server.operations.service.metrics.GaugeClient;
+import org.kaaproject.kaa.server.operations.service.metrics.MeterClient;
+import org.kaaproject.kaa.server.operations.service.metrics.MetricsService;
+import org.kaaproject.kaa.server.operations.service.metrics.TimerClient;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AkkaStatisticsTest {
+
+    private MetricsService metricsService;
+    private MeterClient meter;
+    private TimerClient timer;
+    private AkkaStatistics statistics;
+
+    @Before
+    public void before() {
+        metricsService = Mockito.mock(MetricsService.class);
+        meter = Mockito.mock(MeterClient.class);
+        timer = Mockito.mock(TimerClient.class);
+        Mockito.when(metricsService.createMeter(Mockito.anyString(), Mockito.<String>anyVararg())).thenReturn(meter);
+        Mockito.when(metricsService.createTimer(Mockito.anyString(), Mockito.<String>anyVararg())).thenReturn(timer);
+        statistics = new AkkaStatistics();
+        ReflectionTestUtils.setField(statistics, "metricsService", metricsService);
+    }
+
+    @Test
+    public void testActorCount() {
+        statistics.actorStarted("TopicActor");
+        statistics.actorStarted("TopicActor");
+        statistics.actorStarted("LocalEndpointActor");
+        statistics.actorStopped("TopicActor");
+
+        Assert.assertEquals(1, statistics.getActorCount("TopicActor"));
+        Assert.assertEquals(1, statistics.getActorCount("LocalEndpointActor"));
+        Assert.assertEquals(0, statistics.getActorCount("GlobalUserActor"));
+        Mockito.verify(meter, Mockito.times(4)).mark();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testActorCountGaugeIsRegisteredOnce() {
+        statistics.actorStarted("TopicActor");
+        statistics.actorStarted("TopicActor");
+
+        ArgumentCaptor<GaugeClient> gauge = ArgumentCaptor.forClass(GaugeClient.class);
+        Mockito.verify(metricsService).registerGauge(gauge.capture(), Mockito.eq("akka"), Mockito.eq("TopicActor"), Mockito.eq("count"));
+        Assert.assertEquals(2L, gauge.getValue().getValue());
+    }
+
+    @Test
+    public void testMessageProcessed() {
+        statistics.messageProcessed("TopicActor", "message", System.nanoTime());
+        statistics.messageProcessed("TopicActor", "message", System.nanoTime());
+        statistics.messageProcessed("TopicActor", 1, System.nanoTime());
+
+        Mockito.verify(metricsService).createTimer("akka", "TopicActor", "processingTime", "String");
+        Mockito.verify(metricsService).createTimer("akka", "TopicActor", "processingTime", "Integer");
+        Mockito.verify(timer, Mockito.times(3)).update(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+}
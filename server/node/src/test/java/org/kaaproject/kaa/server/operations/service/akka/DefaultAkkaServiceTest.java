@@ -106,6 +106,7 @@ import org.kaaproject.kaa.server.operations.service.event.UserRouteInfo;
 import org.kaaproject.kaa.server.operations.service.logs.LogAppenderService;
 import org.kaaproject.kaa.server.operations.service.metrics.MeterClient;
 import org.kaaproject.kaa.server.operations.service.metrics.MetricsService;
+import org.kaaproject.kaa.server.operations.service.metrics.TimerClient;
 import org.kaaproject.kaa.server.operations.service.notification.NotificationDeltaService;
 import org.kaaproject.kaa.server.operations.service.security.KeyStoreService;
 import org.kaaproject.kaa.server.operations.service.user.EndpointUserService;
@@ -221,6 +222,10 @@ public class DefaultAkkaServiceTest {
         ReflectionTestUtils.setField(context, "endpointUserService", endpointUserService);
         ReflectionTestUtils.setField(context, "ctlService", ctlService);
 
+        AkkaStatistics akkaStatistics = new AkkaStatistics();
+        ReflectionTestUtils.setField(akkaStatistics, "metricsService", metricsService);
+        ReflectionTestUtils.setField(context, "akkaStatistics", akkaStatistics);
+
         clientPair = KeyUtil.generateKeyPair();
         targetPair = KeyUtil.generateKeyPair();
         serverPair = KeyUtil.generateKeyPair();
@@ -228,6 +233,8 @@ public class DefaultAkkaServiceTest {
         Mockito.when(operationsKeyStoreService.getPublicKey()).thenReturn(serverPair.getPublic());
         Mockito.when(operationsKeyStoreService.getPrivateKey()).thenReturn(serverPair.getPrivate());
         Mockito.when(metricsService.createMeter(Mockito.anyString(), Mockito.anyString())).thenReturn(Mockito.mock(MeterClient.class));
+        Mockito.when(metricsService.createMeter(Mockito.anyString(), Mockito.<String>anyVararg())).thenReturn(Mockito.mock(MeterClient.class));
+        Mockito.when(metricsService.createTimer(Mockito.anyString(), Mockito.<String>anyVararg())).thenReturn(Mockito.mock(TimerClient.class));
 
         ReflectionTestUtils.setField(akkaService, "context", context);
 
@@ -0,0 +1,215 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka.actors.io;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.thrift.gen.operations.RedirectionRule;
+import org.kaaproject.kaa.server.operations.service.akka.AkkaContext;
+import org.kaaproject.kaa.server.operations.service.akka.DefaultAkkaService;
+import org.kaaproject.kaa.server.operations.service.akka.dispatch.InstrumentedMailbox;
+import org.kaaproject.kaa.server.transport.message.SessionInitMessage;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import scala.Option;
+import akka.actor.ActorContext;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.dispatch.Envelope;
+import akka.dispatch.MessageQueue;
+import akka.japi.Creator;
+
+import com.typesafe.config.ConfigFactory;
+
+public class EncDecActorTest {
+
+    private static final int TIMEOUT = 5000;
+
+    private ActorSystem system;
+    private EncDecActorMessageProcessor messageProcessor;
+    private AkkaContext context;
+    private MessageQueue endpointQueue;
+
+    @Before
+    public void before() {
+        system = ActorSystem.create("EncDecActorTest");
+        messageProcessor = Mockito.mock(EncDecActorMessageProcessor.class);
+        context = Mockito.mock(AkkaContext.class);
+    }
+
+    @After
+    public void after() {
+        system.terminate();
+        if (endpointQueue != null) {
+            while (endpointQueue.dequeue() != null) {
+                // restore the endpoint dispatcher statistics
+            }
+        }
+    }
+
+    @Test
+    public void testSessionInitIsForwarded() {
+        Mockito.when(context.getSessionInitShedIoBacklog()).thenReturn(10);
+        Mockito.when(context.getSessionInitShedEndpointBacklog()).thenReturn(0);
+        ActorRef actor = createActor();
+        SessionInitMessage message = Mockito.mock(SessionInitMessage.class);
+        actor.tell(message, ActorRef.noSender());
+
+        Mockito.verify(messageProcessor, Mockito.timeout(TIMEOUT)).decodeAndForward(Mockito.any(ActorContext.class), Mockito.eq(message));
+        Mockito.verify(messageProcessor, Mockito.never()).reject(message);
+    }
+
+    @Test
+    public void testSessionInitIsRejectedAboveEndpointBacklog() {
+        Mockito.when(context.getSessionInitShedEndpointBacklog()).thenReturn(2);
+        fillEndpointBacklog(3);
+        ActorRef actor = createActor();
+        SessionInitMessage message = Mockito.mock(SessionInitMessage.class);
+        actor.tell(message, ActorRef.noSender());
+
+        Mockito.verify(messageProcessor, Mockito.timeout(TIMEOUT)).reject(message);
+        Mockito.verify(messageProcessor, Mockito.never()).decodeAndForward(Mockito.any(ActorContext.class), Mockito.eq(message));
+    }
+
+    @Test
+    public void testSessionInitIsRejectedAboveIoBacklog() throws Exception {
+        Mockito.when(context.getSessionInitShedIoBacklog()).thenReturn(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        SessionInitMessage first = Mockito.mock(SessionInitMessage.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                started.countDown();
+                release.await();
+                return null;
+            }
+        }).when(messageProcessor).decodeAndForward(Mockito.any(ActorContext.class), Mockito.eq(first));
+        ActorRef actor = createActor();
+        actor.tell(first, ActorRef.noSender());
+        Assert.assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        SessionInitMessage second = Mockito.mock(SessionInitMessage.class);
+        SessionInitMessage third = Mockito.mock(SessionInitMessage.class);
+        SessionInitMessage fourth = Mockito.mock(SessionInitMessage.class);
+        actor.tell(second, ActorRef.noSender());
+        actor.tell(third, ActorRef.noSender());
+        actor.tell(fourth, ActorRef.noSender());
+        release.countDown();
+
+        Mockito.verify(messageProcessor, Mockito.timeout(TIMEOUT).times(3)).decodeAndForward(Mockito.any(ActorContext.class),
+                Mockito.any(SessionInitMessage.class));
+        Mockito.verify(messageProcessor, Mockito.timeout(TIMEOUT)).reject(Mockito.any(SessionInitMessage.class));
+        // two messages wait behind the second one, one behind the third one
+        Mockito.verify(messageProcessor).reject(second);
+        Mockito.verify(messageProcessor).decodeAndForward(Mockito.any(ActorContext.class), Mockito.eq(third));
+        Mockito.verify(messageProcessor).decodeAndForward(Mockito.any(ActorContext.class), Mockito.eq(fourth));
+    }
+
+    @Test
+    public void testOverloadRedirectFollowsInitRedirectProbabilities() {
+        Mockito.when(context.getSessionInitShedEndpointBacklog()).thenReturn(2);
+        fillEndpointBacklog(3);
+        ActorRef actor = createActor();
+        // the first rule only redirects established sessions
+        RedirectionRule sessionRule = new RedirectionRule(1, 1L, 0.0, 1.0, 60000L);
+        RedirectionRule initRule = new RedirectionRule(2, 2L, 0.000000001, 0.0, 60000L);
+        actor.tell(sessionRule, ActorRef.noSender());
+        actor.tell(initRule, ActorRef.noSender());
+
+        for (int i = 0; i < 10; i++) {
+            actor.tell(Mockito.mock(SessionInitMessage.class), ActorRef.noSender());
+        }
+        Mockito.verify(messageProcessor, Mockito.timeout(TIMEOUT).times(10)).redirectOverloaded(Mockito.eq(initRule),
+                Mockito.any(SessionInitMessage.class));
+        Mockito.verify(messageProcessor, Mockito.never()).redirectOverloaded(Mockito.eq(sessionRule), Mockito.any(SessionInitMessage.class));
+        Mockito.verify(messageProcessor, Mockito.never()).reject(Mockito.any(SessionInitMessage.class));
+    }
+
+    @Test
+    public void testOverloadRejectWithoutInitRedirectRules() {
+        Mockito.when(context.getSessionInitShedEndpointBacklog()).thenReturn(2);
+        fillEndpointBacklog(3);
+        ActorRef actor = createActor();
+        RedirectionRule sessionRule = new RedirectionRule(1, 1L, 0.0, 1.0, 60000L);
+        actor.tell(sessionRule, ActorRef.noSender());
+        SessionInitMessage message = Mockito.mock(SessionInitMessage.class);
+        actor.tell(message, ActorRef.noSender());
+
+        Mockito.verify(messageProcessor, Mockito.timeout(TIMEOUT)).reject(message);
+        Mockito.verify(messageProcessor, Mockito.never()).redirectOverloaded(Mockito.any(RedirectionRule.class), Mockito.eq(message));
+    }
+
+    @Test
+    public void testCheckOverloadRedirection() {
+        HashMap<Long, RedirectionRule> rules = new HashMap<>();
+        Assert.assertNull(EncDecActor.checkOverloadRedirection(rules, 0.5));
+        RedirectionRule first = new RedirectionRule(1, 1L, 0.1, 0.0, 60000L);
+        RedirectionRule second = new RedirectionRule(2, 2L, 0.3, 0.0, 60000L);
+        rules.put(first.getRuleId(), first);
+        rules.put(second.getRuleId(), second);
+        Assert.assertEquals(first, EncDecActor.checkOverloadRedirection(rules, 0.0));
+        Assert.assertEquals(first, EncDecActor.checkOverloadRedirection(rules, 0.2));
+        Assert.assertEquals(second, EncDecActor.checkOverloadRedirection(rules, 0.3));
+        Assert.assertEquals(second, EncDecActor.checkOverloadRedirection(rules, 0.99));
+    }
+
+    private ActorRef createActor() {
+        return system.actorOf(Props.create(new TestActorCreator(messageProcessor, context)));
+    }
+
+    /**
+     * Counts messages in the endpoint dispatcher statistics, as if endpoint
+     * actors were not keeping up
+     */
+    private void fillEndpointBacklog(int size) {
+        endpointQueue = new InstrumentedMailbox(null, ConfigFactory.parseString("id = \""
+                + DefaultAkkaService.ENDPOINT_DISPATCHER_NAME + "\"")).create(Option.<ActorRef>empty(), Option.<ActorSystem>empty());
+        ActorRef sender = Mockito.mock(ActorRef.class);
+        for (int i = 0; i < size; i++) {
+            endpointQueue.enqueue(sender, Envelope.apply(UUID.randomUUID(), sender, system));
+        }
+    }
+
+    private static class TestActorCreator implements Creator<EncDecActor> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final EncDecActorMessageProcessor messageProcessor;
+        private final AkkaContext context;
+
+        TestActorCreator(EncDecActorMessageProcessor messageProcessor, AkkaContext context) {
+            this.messageProcessor = messageProcessor;
+            this.context = context;
+        }
+
+        @Override
+        public EncDecActor create() throws Exception {
+            return new EncDecActor(messageProcessor, context);
+        }
+    }
+}
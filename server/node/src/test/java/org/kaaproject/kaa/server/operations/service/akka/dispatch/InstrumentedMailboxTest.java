@@ -0,0 +1,249 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.akka.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.log.shared.appender.LogDeliveryErrorCode;
+import org.kaaproject.kaa.server.operations.service.akka.actors.io.ServerOverloadedException;
+import org.kaaproject.kaa.server.operations.service.akka.actors.io.SessionInitShedHandler;
+import org.kaaproject.kaa.server.operations.service.akka.messages.core.logs.LogDeliveryMessage;
+import org.kaaproject.kaa.server.operations.service.akka.messages.core.logs.LogEventPackMessage;
+import org.kaaproject.kaa.server.operations.service.akka.messages.core.logs.LogEventPackShedHandler;
+import org.kaaproject.kaa.server.transport.channel.ChannelAware;
+import org.kaaproject.kaa.server.transport.channel.ChannelContext;
+import org.kaaproject.kaa.server.transport.message.ErrorBuilder;
+import org.kaaproject.kaa.server.transport.message.SessionAwareMessage;
+import org.kaaproject.kaa.server.transport.message.SessionDisconnectMessage;
+import org.kaaproject.kaa.server.transport.message.SessionInitMessage;
+import org.kaaproject.kaa.server.transport.message.SessionPingMessage;
+import org.mockito.Mockito;
+
+import scala.Option;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+import akka.dispatch.Envelope;
+import akka.dispatch.MessageQueue;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+public class InstrumentedMailboxTest {
+
+    private static final String PRIORITY_TYPES = "mailbox-priority-types = [\""
+            + SessionPingMessage.class.getName() + "\", \"" + SessionDisconnectMessage.class.getName() + "\"]\n";
+
+    private static final ActorRef SENDER = Mockito.mock(ActorRef.class);
+
+    private static final long RESPONSE_TIMEOUT = 5;
+
+    @Test
+    public void testPriorityMessageOvertakesOtherChannels() {
+        MessageQueue queue = createQueue("priority-other-channels", PRIORITY_TYPES);
+        Object sync = channelMessage(SessionAwareMessage.class, UUID.randomUUID());
+        Object disconnect = channelMessage(SessionDisconnectMessage.class, UUID.randomUUID());
+        Object ping = channelMessage(SessionPingMessage.class, UUID.randomUUID());
+        enqueue(queue, sync, disconnect, ping);
+
+        Assert.assertEquals(3, queue.numberOfMessages());
+        assertDequeued(queue, disconnect, ping, sync);
+    }
+
+    @Test
+    public void testPriorityMessageKeepsChannelOrder() {
+        MessageQueue queue = createQueue("priority-same-channel", PRIORITY_TYPES);
+        UUID channel = UUID.randomUUID();
+        Object sync = channelMessage(SessionAwareMessage.class, channel);
+        Object otherSync = channelMessage(SessionAwareMessage.class, UUID.randomUUID());
+        Object ping = channelMessage(SessionPingMessage.class, channel);
+        Object disconnect = channelMessage(SessionDisconnectMessage.class, channel);
+        Object otherPing = channelMessage(SessionPingMessage.class, UUID.randomUUID());
+        enqueue(queue, sync, otherSync, ping, disconnect, otherPing);
+
+        // the ping and the disconnect wait for the sync of their channel
+        assertDequeued(queue, otherPing, sync, otherSync, ping, disconnect);
+    }
+
+    @Test
+    public void testPriorityMessageAfterChannelIsDrained() {
+        MessageQueue queue = createQueue("priority-drained-channel", PRIORITY_TYPES);
+        UUID channel = UUID.randomUUID();
+        Object sync = channelMessage(SessionAwareMessage.class, channel);
+        Object otherSync = channelMessage(SessionAwareMessage.class, UUID.randomUUID());
+        enqueue(queue, sync, otherSync);
+        assertDequeued(queue, sync);
+
+        Object disconnect = channelMessage(SessionDisconnectMessage.class, channel);
+        enqueue(queue, disconnect);
+        assertDequeued(queue, disconnect, otherSync);
+    }
+
+    @Test
+    public void testNoPriorityTypes() {
+        MessageQueue queue = createQueue("no-priority", "");
+        Object sync = channelMessage(SessionAwareMessage.class, UUID.randomUUID());
+        Object ping = channelMessage(SessionPingMessage.class, UUID.randomUUID());
+        enqueue(queue, sync, ping, "control");
+        assertDequeued(queue, sync, ping, "control");
+    }
+
+    @Test
+    public void testShedAboveCapacity() {
+        String dispatcher = "shed-above-capacity";
+        MessageQueue queue = createQueue(dispatcher, "mailbox-capacity = 2\n"
+                + "mailbox-shed-types = [\"" + SessionInitMessage.class.getName() + "\"]\n");
+        Object firstInit = channelMessage(SessionInitMessage.class, UUID.randomUUID());
+        Object secondInit = channelMessage(SessionInitMessage.class, UUID.randomUUID());
+        Object shedInit = channelMessage(SessionInitMessage.class, UUID.randomUUID());
+        Object sync = channelMessage(SessionAwareMessage.class, UUID.randomUUID());
+        enqueue(queue, firstInit, secondInit, shedInit, sync, "control");
+
+        MailboxStatistics statistics = MailboxStatistics.forDispatcher(dispatcher);
+        Assert.assertEquals(1, statistics.getShedCount());
+        Assert.assertEquals(4, statistics.getEnqueuedCount());
+        Assert.assertEquals(4, statistics.getQueueDepth());
+        Assert.assertEquals(4, queue.numberOfMessages());
+        // other messages are queued above the capacity
+        assertDequeued(queue, firstInit, secondInit, sync, "control");
+        Assert.assertEquals(0, statistics.getQueueDepth());
+        Assert.assertEquals(4, statistics.getDequeuedCount());
+
+        // the capacity is free again
+        Object init = channelMessage(SessionInitMessage.class, UUID.randomUUID());
+        enqueue(queue, init);
+        assertDequeued(queue, init);
+        Assert.assertEquals(1, statistics.getShedCount());
+    }
+
+    @Test
+    public void testShedSessionInitIsRejected() {
+        MessageQueue queue = createQueue("shed-session-init", "mailbox-capacity = 1\n"
+                + "mailbox-shed-types = [\"" + SessionInitMessage.class.getName() + "\"]\n"
+                + "mailbox-shed-handler = \"" + SessionInitShedHandler.class.getName() + "\"\n");
+        SessionInitMessage queuedInit = channelMessage(SessionInitMessage.class, UUID.randomUUID());
+        SessionInitMessage shedInit = channelMessage(SessionInitMessage.class, UUID.randomUUID());
+        ChannelContext ctx = Mockito.mock(ChannelContext.class);
+        ErrorBuilder errorBuilder = Mockito.mock(ErrorBuilder.class);
+        Object response = new Object();
+        Mockito.when(shedInit.getChannelContext()).thenReturn(ctx);
+        Mockito.when(shedInit.getErrorBuilder()).thenReturn(errorBuilder);
+        Mockito.when(errorBuilder.build(Mockito.any(Exception.class))).thenReturn(new Object[] { response });
+        enqueue(queue, queuedInit, shedInit);
+
+        Mockito.verify(errorBuilder).build(Mockito.any(ServerOverloadedException.class));
+        Mockito.verify(ctx).writeAndFlush(response);
+        Mockito.verify(queuedInit, Mockito.never()).getChannelContext();
+        assertDequeued(queue, queuedInit);
+        Assert.assertFalse(queue.hasMessages());
+    }
+
+    @Test
+    public void testShedLogPackIsNotDelivered() throws InterruptedException {
+        MessageQueue queue = createQueue("shed-log-pack", "mailbox-capacity = 1\n"
+                + "mailbox-shed-types = [\"" + LogEventPackMessage.class.getName() + "\"]\n"
+                + "mailbox-shed-handler = \"" + LogEventPackShedHandler.class.getName() + "\"\n");
+        LogEventPackMessage queuedPack = Mockito.mock(LogEventPackMessage.class);
+        LogEventPackMessage shedPack = Mockito.mock(LogEventPackMessage.class);
+        BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+        ActorSystem system = ActorSystem.create("InstrumentedMailboxTest");
+        try {
+            ActorRef originator = system.actorOf(Props.create(ResponseCollector.class, responses));
+            Mockito.when(shedPack.getOriginator()).thenReturn(originator);
+            Mockito.when(shedPack.getRequestId()).thenReturn(42);
+            enqueue(queue, queuedPack, shedPack);
+
+            LogDeliveryMessage delivery = (LogDeliveryMessage) responses.poll(RESPONSE_TIMEOUT, TimeUnit.SECONDS);
+            Assert.assertNotNull(delivery);
+            Assert.assertEquals(Integer.valueOf(42), delivery.getRequestId());
+            Assert.assertFalse(delivery.isSuccess());
+            Assert.assertEquals(LogDeliveryErrorCode.REMOTE_INTERNAL_ERROR, delivery.getErrorCode());
+            Mockito.verify(queuedPack, Mockito.never()).getOriginator();
+            assertDequeued(queue, queuedPack);
+        } finally {
+            system.terminate();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidShedHandler() {
+        createQueue("invalid-shed-handler", "mailbox-shed-handler = \"" + String.class.getName() + "\"\n");
+    }
+
+    @Test
+    public void testCleanUp() {
+        MessageQueue queue = createQueue("clean-up", PRIORITY_TYPES);
+        Object sync = channelMessage(SessionAwareMessage.class, UUID.randomUUID());
+        Object ping = channelMessage(SessionPingMessage.class, UUID.randomUUID());
+        enqueue(queue, sync, ping);
+
+        MessageQueue deadLetters = Mockito.mock(MessageQueue.class);
+        queue.cleanUp(SENDER, deadLetters);
+        Mockito.verify(deadLetters, Mockito.times(2)).enqueue(Mockito.any(ActorRef.class), Mockito.any(Envelope.class));
+        Assert.assertFalse(queue.hasMessages());
+        Assert.assertEquals(0, queue.numberOfMessages());
+    }
+
+    private static MessageQueue createQueue(String dispatcher, String settings) {
+        Config config = ConfigFactory.parseString("id = \"" + dispatcher + "\"\n" + settings);
+        return new InstrumentedMailbox(null, config).create(Option.<ActorRef>empty(), Option.empty());
+    }
+
+    private static <T> T channelMessage(Class<T> type, UUID channel) {
+        T message = Mockito.mock(type);
+        Mockito.when(((ChannelAware) message).getChannelUuid()).thenReturn(channel);
+        return message;
+    }
+
+    private static void enqueue(MessageQueue queue, Object... messages) {
+        for (Object message : messages) {
+            queue.enqueue(SENDER, Envelope.apply(message, SENDER, null));
+        }
+    }
+
+    private static void assertDequeued(MessageQueue queue, Object... messages) {
+        List<Object> dequeued = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            dequeued.add(queue.dequeue().message());
+        }
+        for (int i = 0; i < messages.length; i++) {
+            Assert.assertSame("Message #" + i, messages[i], dequeued.get(i));
+        }
+    }
+
+    private static class ResponseCollector extends UntypedActor {
+
+        private final BlockingQueue<Object> responses;
+
+        ResponseCollector(BlockingQueue<Object> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public void onReceive(Object message) throws Exception {
+            responses.offer(message);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.kaaproject.kaa.common.dto.EndpointProfileDto;
 import org.kaaproject.kaa.common.dto.HistoryDto;
 import org.kaaproject.kaa.common.dto.ProfileFilterDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileSchemaDto;
+import org.kaaproject.kaa.common.dto.EndpointUserConfigurationDto;
 import org.kaaproject.kaa.common.dto.TopicListEntryDto;
 import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
 import org.kaaproject.kaa.common.dto.event.ApplicationEventAction;
@@ -47,6 +48,7 @@ import org.kaaproject.kaa.server.common.dao.EventClassService;
 import org.kaaproject.kaa.server.common.dao.HistoryService;
 import org.kaaproject.kaa.server.common.dao.ProfileService;
 import org.kaaproject.kaa.server.common.dao.SdkProfileService;
+import org.kaaproject.kaa.server.common.dao.UserConfigurationService;
 import org.kaaproject.kaa.server.operations.pojo.exceptions.GetDeltaException;
 import org.kaaproject.kaa.server.operations.service.cache.concurrent.ConcurrentCacheService;
 import org.kaaproject.kaa.server.operations.service.event.EventClassFamilyVersion;
@@ -94,6 +96,7 @@ public class ConcurrentCacheServiceTest extends AbstractTest {
     private static final String ECF_NAME = "ECF_NAME";
     private static final String EC_FQN = "EC_FQN";
     private static final String TENANT_ID = "TENANT_ID";
+    private static final String USER_ID = "USER_ID";
     private static final int CONF1_SCHEMA_VERSION = 1;
     private static final int PROFILE1_SCHEMA_VERSION = 1;
     private static final int PROFILE1_SERVER_SCHEMA_VERSION = 1;
@@ -167,6 +170,7 @@ public class ConcurrentCacheServiceTest extends AbstractTest {
     private EventClassService eventClassService;
     private ApplicationEventMapService applicationEventMapService;
     private SdkProfileService sdkProfileService;
+    private UserConfigurationService userConfigurationService;
 
     @Before
     public void prepare() throws GeneralSecurityException {
@@ -762,6 +766,24 @@ public class ConcurrentCacheServiceTest extends AbstractTest {
         reset(endpointService);
     }
 
+    @Test
+    public void testGetUserConfiguration() throws GetDeltaException {
+        EndpointUserConfigurationDto userConfiguration = new EndpointUserConfigurationDto();
+        when(userConfigurationService.findUserConfigurationByUserIdAndAppTokenAndSchemaVersion(USER_ID, TEST_APP_TOKEN,
+                CONF1_SCHEMA_VERSION)).thenReturn(userConfiguration);
+        UserConfigurationKey key = new UserConfigurationKey(USER_ID, TEST_APP_TOKEN, CONF1_SCHEMA_VERSION);
+
+        assertEquals(userConfiguration, cacheService.getUserConfiguration(key));
+        assertEquals(userConfiguration, cacheService.getUserConfiguration(key));
+        verify(userConfigurationService, times(1)).findUserConfigurationByUserIdAndAppTokenAndSchemaVersion(USER_ID, TEST_APP_TOKEN,
+                CONF1_SCHEMA_VERSION);
+
+        cacheService.resetUserConfiguration(key);
+        assertEquals(userConfiguration, cacheService.getUserConfiguration(key));
+        verify(userConfigurationService, times(2)).findUserConfigurationByUserIdAndAppTokenAndSchemaVersion(USER_ID, TEST_APP_TOKEN,
+                CONF1_SCHEMA_VERSION);
+    }
+
     private void registerMocks() {
         appService = mock(ApplicationService.class);
         configurationService = mock(ConfigurationService.class);
@@ -771,6 +793,7 @@ public class ConcurrentCacheServiceTest extends AbstractTest {
         eventClassService = mock(EventClassService.class);
         applicationEventMapService = mock(ApplicationEventMapService.class);
         sdkProfileService = mock(SdkProfileService.class);
+        userConfigurationService = mock(UserConfigurationService.class);
 
         ReflectionTestUtils.invokeMethod(cacheService, "setApplicationService", appService);
         ReflectionTestUtils.invokeMethod(cacheService, "setConfigurationService", configurationService);
@@ -780,6 +803,7 @@ public class ConcurrentCacheServiceTest extends AbstractTest {
         ReflectionTestUtils.invokeMethod(cacheService, "setEventClassService", eventClassService);
         ReflectionTestUtils.invokeMethod(cacheService, "setApplicationEventMapService", applicationEventMapService);
         ReflectionTestUtils.invokeMethod(cacheService, "setSdkProfileService", sdkProfileService);
+        ReflectionTestUtils.invokeMethod(cacheService, "setUserConfigurationService", userConfigurationService);
     }
 
     private HistoryDto buildNotMatchingHistoryDto(ChangeType changeType) {
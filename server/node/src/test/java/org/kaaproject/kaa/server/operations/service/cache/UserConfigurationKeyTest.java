@@ -0,0 +1,45 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.cache;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UserConfigurationKeyTest {
+
+    @Test
+    public void testHashCodeAndEquals() {
+        EqualsVerifier.forClass(UserConfigurationKey.class).verify();
+    }
+
+    @Test
+    public void sameKeyTest() {
+        UserConfigurationKey key1 = new UserConfigurationKey("user1", "appToken1", 1);
+        UserConfigurationKey key2 = new UserConfigurationKey("user1", "appToken1", 1);
+        Assert.assertEquals(key1, key2);
+    }
+
+    @Test
+    public void differentKeyTest() {
+        UserConfigurationKey key = new UserConfigurationKey("user1", "appToken1", 1);
+        Assert.assertNotEquals(key, new UserConfigurationKey("user2", "appToken1", 1));
+        Assert.assertNotEquals(key, new UserConfigurationKey("user1", "appToken2", 1));
+        Assert.assertNotEquals(key, new UserConfigurationKey("user1", "appToken1", 2));
+    }
+}
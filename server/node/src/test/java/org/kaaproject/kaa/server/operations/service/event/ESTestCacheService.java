@@ -27,6 +27,7 @@ import org.kaaproject.kaa.common.dto.EndpointGroupStateDto;
 import org.kaaproject.kaa.common.dto.HistoryDto;
 import org.kaaproject.kaa.common.dto.ProfileFilterDto;
 import org.kaaproject.kaa.common.dto.EndpointProfileSchemaDto;
+import org.kaaproject.kaa.common.dto.EndpointUserConfigurationDto;
 import org.kaaproject.kaa.common.dto.ServerProfileSchemaDto;
 import org.kaaproject.kaa.common.dto.TopicDto;
 import org.kaaproject.kaa.common.dto.admin.SdkProfileDto;
@@ -42,6 +43,7 @@ import org.kaaproject.kaa.server.common.dao.EventClassService;
 import org.kaaproject.kaa.server.common.dao.HistoryService;
 import org.kaaproject.kaa.server.common.dao.ProfileService;
 import org.kaaproject.kaa.server.common.dao.SdkProfileService;
+import org.kaaproject.kaa.server.common.dao.UserConfigurationService;
 import org.kaaproject.kaa.server.operations.pojo.exceptions.GetDeltaException;
 import org.kaaproject.kaa.server.operations.service.cache.AppProfileVersionsKey;
 import org.kaaproject.kaa.server.operations.service.cache.AppSeqNumber;
@@ -55,6 +57,7 @@ import org.kaaproject.kaa.server.operations.service.cache.EventClassFamilyIdKey;
 import org.kaaproject.kaa.server.operations.service.cache.EventClassFqnKey;
 import org.kaaproject.kaa.server.operations.service.cache.HistoryKey;
 import org.kaaproject.kaa.server.operations.service.cache.TopicListCacheEntry;
+import org.kaaproject.kaa.server.operations.service.cache.UserConfigurationKey;
 
 /**
  * @author Andrey Panasenko
@@ -339,6 +342,10 @@ public class ESTestCacheService implements CacheService {
         // TODO Auto-generated method stub
     }
 
+    @Override
+    public void setUserConfigurationService(UserConfigurationService userConfigurationService) {
+    }
+
     @Override
     public BaseData getMergedConfiguration(List<EndpointGroupStateDto> egsList, Computable<List<EndpointGroupStateDto>, BaseData> worker) {
         // TODO Auto-generated method stub
@@ -448,4 +455,13 @@ public class ESTestCacheService implements CacheService {
     public TopicListCacheEntry getTopicListByHash(EndpointObjectHash hash) {
         return null;
     }
+
+    @Override
+    public EndpointUserConfigurationDto getUserConfiguration(UserConfigurationKey key) {
+        return null;
+    }
+
+    @Override
+    public void resetUserConfiguration(UserConfigurationKey key) {
+    }
 }
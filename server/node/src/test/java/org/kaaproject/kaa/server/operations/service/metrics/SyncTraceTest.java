@@ -0,0 +1,59 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.operations.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SyncTraceTest {
+
+    @Test
+    public void testStagesSumUpToTotal() throws InterruptedException {
+        SyncTrace trace = new SyncTrace("sync");
+        Thread.sleep(2);
+        trace.mark(SyncStage.DECODE);
+        Thread.sleep(2);
+        trace.mark(SyncStage.PROCESS);
+        Thread.sleep(2);
+        trace.mark(SyncStage.DECODE);
+
+        long stages = 0;
+        for (SyncStage stage : SyncStage.values()) {
+            stages += trace.getDuration(stage, TimeUnit.NANOSECONDS);
+        }
+        Assert.assertEquals(trace.getTotalDuration(TimeUnit.NANOSECONDS), stages);
+        Assert.assertTrue(trace.getDuration(SyncStage.DECODE, TimeUnit.MILLISECONDS) >= 4);
+        Assert.assertTrue(trace.getDuration(SyncStage.PROCESS, TimeUnit.MILLISECONDS) >= 2);
+        Assert.assertEquals(0, trace.getDuration(SyncStage.WRITE, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testFinishOnce() {
+        SyncTrace trace = new SyncTrace("sync");
+        Assert.assertFalse(trace.isFinished());
+        Assert.assertTrue(trace.finish());
+        Assert.assertTrue(trace.isFinished());
+        Assert.assertFalse(trace.finish());
+    }
+
+    @Test
+    public void testMarkWithoutTrace() {
+        SyncTrace.mark(null, SyncStage.DECODE);
+    }
+}
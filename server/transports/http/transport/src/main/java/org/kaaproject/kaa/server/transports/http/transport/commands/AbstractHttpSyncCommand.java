@@ -25,8 +25,10 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.multipart.Attribute;
 import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
@@ -36,10 +38,11 @@ import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
 import org.kaaproject.kaa.common.Constants;
@@ -59,6 +62,15 @@ import org.kaaproject.kaa.server.transports.http.transport.netty.AbstractCommand
  */
 public abstract class AbstractHttpSyncCommand extends AbstractCommand {
 
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Decodes the Base64 request headers. Like the commons-codec decoder it
+     * skips characters outside of the alphabet, but it does not allocate an
+     * 8 KB buffer per call.
+     */
+    private static final java.util.Base64.Decoder HEADER_DECODER = java.util.Base64.getMimeDecoder();
+
     /** The signature. */
     private byte[] requestSignature;
 
@@ -99,6 +111,32 @@ public abstract class AbstractHttpSyncCommand extends AbstractCommand {
     @Override
     public void parse() throws Exception {
         LOG.trace("CommandName: " + COMMAND_NAME + ": Parse..");
+        HttpRequest request = getRequest();
+        if (request instanceof FullHttpRequest) {
+            ByteBuf content = ((FullHttpRequest) request).content();
+            String contentType = request.headers().get(CONTENT_TYPE);
+            if (isBinaryRequest(contentType)) {
+                LOG.trace(": Binary..");
+                parseBinary(request, content);
+                return;
+            }
+            String boundary = MultipartRequestParser.getBoundary(contentType);
+            if (boundary != null) {
+                Map<String, byte[]> parts = MultipartRequestParser.parse(content, boundary);
+                if (parts != null) {
+                    LOG.trace(": Multipart..");
+                    for (Map.Entry<String, byte[]> part : parts.entrySet()) {
+                        setRequestAttribute(part.getKey(), part.getValue());
+                    }
+                    return;
+                }
+                LOG.debug("[{}] Unexpected multipart layout, falling back to multipart decoder", getSessionUuid());
+            }
+        }
+        parseWithDecoder();
+    }
+
+    private void parseWithDecoder() throws Exception {
         HttpDataFactory factory = new DefaultHttpDataFactory(DefaultHttpDataFactory.MINSIZE);
         HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(factory, getRequest());
         if (decoder.isMultipart()) {
@@ -109,33 +147,7 @@ public abstract class AbstractHttpSyncCommand extends AbstractCommand {
                 for (InterfaceHttpData data : datas) {
                     LOG.trace("Multipart1 name " + data.getName() + " type " + data.getHttpDataType().name());
                     if (data.getHttpDataType() == HttpDataType.Attribute) {
-                        Attribute attribute = (Attribute) data;
-                        if (CommonEPConstans.REQUEST_SIGNATURE_ATTR_NAME.equals(data.getName())) {
-                            requestSignature = attribute.get();
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("Multipart name " + data.getName() + " type " + data.getHttpDataType().name() + " Signature set. size: "
-                                        + requestSignature.length);
-                                LOG.trace(MessageEncoderDecoder.bytesToHex(requestSignature));
-                            }
-
-                        } else if (CommonEPConstans.REQUEST_KEY_ATTR_NAME.equals(data.getName())) {
-                            requestKey = attribute.get();
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("Multipart name " + data.getName() + " type " + data.getHttpDataType().name() + " requestKey set. size: "
-                                        + requestKey.length);
-                                LOG.trace(MessageEncoderDecoder.bytesToHex(requestKey));
-                            }
-                        } else if (CommonEPConstans.REQUEST_DATA_ATTR_NAME.equals(data.getName())) {
-                            requestData = attribute.get();
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("Multipart name " + data.getName() + " type " + data.getHttpDataType().name() + " requestData set. size: "
-                                        + requestData.length);
-                                LOG.trace(MessageEncoderDecoder.bytesToHex(requestData));
-                            }
-                        } else if (CommonEPConstans.NEXT_PROTOCOL_ATTR_NAME.equals(data.getName())) {
-                            nextProtocol = Integer.valueOf(attribute.getString());
-                            LOG.trace("[{}] next protocol is {}", getSessionUuid(), nextProtocol);
-                        }
+                        setRequestAttribute(data.getName(), ((Attribute) data).get());
                     }
                 }
             } else {
@@ -145,6 +157,74 @@ public abstract class AbstractHttpSyncCommand extends AbstractCommand {
         }
     }
 
+    /**
+     * Parses a request that carries the encoded data as a raw body, with the
+     * session key, its signature and the next protocol in headers.
+     */
+    private void parseBinary(HttpRequest request, ByteBuf content) throws BadRequestException {
+        String signature = request.headers().get(CommonEPConstans.SIGNATURE_HEADER_NAME);
+        if (signature != null) {
+            setRequestAttribute(CommonEPConstans.REQUEST_SIGNATURE_ATTR_NAME, decodeHeader(signature));
+        }
+        String key = request.headers().get(CommonEPConstans.REQUEST_KEY_HEADER_NAME);
+        if (key != null) {
+            setRequestAttribute(CommonEPConstans.REQUEST_KEY_ATTR_NAME, decodeHeader(key));
+        }
+        String protocol = request.headers().get(CommonEPConstans.NEXT_PROTOCOL_HEADER_NAME);
+        if (protocol != null) {
+            setNextProtocol(protocol);
+        }
+        byte[] data = new byte[content.readableBytes()];
+        content.getBytes(content.readerIndex(), data);
+        setRequestAttribute(CommonEPConstans.REQUEST_DATA_ATTR_NAME, data);
+    }
+
+    private static byte[] decodeHeader(String value) throws BadRequestException {
+        try {
+            return HEADER_DECODER.decode(value);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e);
+        }
+    }
+
+    private void setRequestAttribute(String name, byte[] value) {
+        if (CommonEPConstans.REQUEST_SIGNATURE_ATTR_NAME.equals(name)) {
+            requestSignature = value;
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Multipart name " + name + " Signature set. size: " + requestSignature.length);
+                LOG.trace(MessageEncoderDecoder.bytesToHex(requestSignature));
+            }
+        } else if (CommonEPConstans.REQUEST_KEY_ATTR_NAME.equals(name)) {
+            requestKey = value;
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Multipart name " + name + " requestKey set. size: " + requestKey.length);
+                LOG.trace(MessageEncoderDecoder.bytesToHex(requestKey));
+            }
+        } else if (CommonEPConstans.REQUEST_DATA_ATTR_NAME.equals(name)) {
+            requestData = value;
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Multipart name " + name + " requestData set. size: " + requestData.length);
+                LOG.trace(MessageEncoderDecoder.bytesToHex(requestData));
+            }
+        } else if (CommonEPConstans.NEXT_PROTOCOL_ATTR_NAME.equals(name)) {
+            setNextProtocol(new String(value, UTF8));
+        }
+    }
+
+    private void setNextProtocol(String protocol) {
+        nextProtocol = Integer.valueOf(protocol.trim());
+        LOG.trace("[{}] next protocol is {}", getSessionUuid(), nextProtocol);
+    }
+
+    private static boolean isBinaryRequest(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int paramsStart = contentType.indexOf(';');
+        String mimeType = paramsStart < 0 ? contentType : contentType.substring(0, paramsStart);
+        return CommonEPConstans.REQUEST_BINARY_CONTENT_TYPE.equalsIgnoreCase(mimeType.trim());
+    }
+
     /*
      * (non-Javadoc)
      *
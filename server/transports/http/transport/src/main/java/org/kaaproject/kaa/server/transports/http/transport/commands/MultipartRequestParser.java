@@ -0,0 +1,236 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.transports.http.transport.commands;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses the <code>multipart/form-data</code> body of a Kaa sync request
+ * directly from the aggregated request content. Each part is copied once into
+ * a byte array of its exact size, headers other than
+ * <code>Content-Disposition</code> and <code>Content-Transfer-Encoding</code>
+ * are skipped. Bodies that do not follow the layout sent by Kaa clients, e.g.
+ * with file uploads or encoded parts, are left to the Netty multipart decoder.
+ */
+final class MultipartRequestParser {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+    private static final String BOUNDARY_PARAM = "boundary=";
+    private static final String CONTENT_DISPOSITION = "content-disposition";
+    private static final String CONTENT_TRANSFER_ENCODING = "content-transfer-encoding";
+    private static final String FORM_DATA = "form-data";
+    private static final String NAME_PARAM = "name";
+    private static final String FILENAME_PARAM = "filename";
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte DASH = '-';
+
+    private MultipartRequestParser() {
+    }
+
+    /**
+     * Gets the multipart boundary from the request content type.
+     *
+     * @param contentType the content type header value
+     * @return the boundary, or null if the content type is not <code>multipart/form-data</code>
+     */
+    static String getBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ENGLISH).startsWith(MULTIPART_FORM_DATA)) {
+            return null;
+        }
+        for (String param : contentType.split(";")) {
+            String value = param.trim();
+            if (value.regionMatches(true, 0, BOUNDARY_PARAM, 0, BOUNDARY_PARAM.length())) {
+                String boundary = unquote(value.substring(BOUNDARY_PARAM.length()).trim());
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the multipart body.
+     *
+     * @param content the request content, its reader index is not changed
+     * @param boundary the multipart boundary
+     * @return the part values by part name, or null if the body does not follow the expected layout
+     */
+    static Map<String, byte[]> parse(ByteBuf content, String boundary) {
+        byte[] delimiter = ("\r\n--" + boundary).getBytes(US_ASCII);
+        int end = content.writerIndex();
+        int pos = content.readerIndex();
+        if (matches(content, pos, end, delimiter, 2)) {
+            pos += delimiter.length - 2;
+        } else {
+            int index = indexOf(content, pos, end, delimiter);
+            if (index < 0) {
+                return null;
+            }
+            pos = index + delimiter.length;
+        }
+        Map<String, byte[]> parts = new HashMap<>();
+        while (true) {
+            if (pos + 1 < end && content.getByte(pos) == DASH && content.getByte(pos + 1) == DASH) {
+                return parts.isEmpty() ? null : parts;
+            }
+            pos = skipBoundaryLine(content, pos, end);
+            if (pos < 0) {
+                return null;
+            }
+            String name = null;
+            while (true) {
+                int lineEnd = indexOfCrlf(content, pos, end);
+                if (lineEnd < 0) {
+                    return null;
+                }
+                if (lineEnd == pos) {
+                    pos += 2;
+                    break;
+                }
+                String line = content.toString(pos, lineEnd - pos, US_ASCII);
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    return null;
+                }
+                String header = line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+                String value = line.substring(colon + 1).trim();
+                if (CONTENT_DISPOSITION.equals(header)) {
+                    name = getFormDataName(value);
+                    if (name == null) {
+                        return null;
+                    }
+                } else if (CONTENT_TRANSFER_ENCODING.equals(header) && !isIdentityEncoding(value)) {
+                    return null;
+                }
+                pos = lineEnd + 2;
+            }
+            if (name == null) {
+                return null;
+            }
+            int partEnd = indexOf(content, pos, end, delimiter);
+            if (partEnd < 0) {
+                return null;
+            }
+            byte[] data = new byte[partEnd - pos];
+            content.getBytes(pos, data);
+            parts.put(name, data);
+            pos = partEnd + delimiter.length;
+        }
+    }
+
+    private static String getFormDataName(String disposition) {
+        String[] params = disposition.split(";");
+        if (!FORM_DATA.equalsIgnoreCase(params[0].trim())) {
+            return null;
+        }
+        String name = null;
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i];
+            int eq = param.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String key = param.substring(0, eq).trim();
+            if (FILENAME_PARAM.equalsIgnoreCase(key)) {
+                return null;
+            } else if (NAME_PARAM.equalsIgnoreCase(key)) {
+                name = unquote(param.substring(eq + 1).trim());
+            }
+        }
+        return name;
+    }
+
+    private static boolean isIdentityEncoding(String encoding) {
+        return "binary".equalsIgnoreCase(encoding) || "8bit".equalsIgnoreCase(encoding) || "7bit".equalsIgnoreCase(encoding);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * Skips the rest of a boundary line, which may only contain linear white
+     * space before the line break.
+     */
+    private static int skipBoundaryLine(ByteBuf content, int pos, int end) {
+        int lineEnd = indexOfCrlf(content, pos, end);
+        if (lineEnd < 0) {
+            return -1;
+        }
+        for (int i = pos; i < lineEnd; i++) {
+            byte b = content.getByte(i);
+            if (b != ' ' && b != '\t') {
+                return -1;
+            }
+        }
+        return lineEnd + 2;
+    }
+
+    private static int indexOfCrlf(ByteBuf content, int from, int end) {
+        int index = from;
+        while (index < end - 1) {
+            index = content.indexOf(index, end - 1, CR);
+            if (index < 0) {
+                return -1;
+            }
+            if (content.getByte(index + 1) == LF) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuf content, int from, int end, byte[] pattern) {
+        int last = end - pattern.length;
+        int index = from;
+        while (index <= last) {
+            index = content.indexOf(index, last + 1, pattern[0]);
+            if (index < 0) {
+                return -1;
+            }
+            if (matches(content, index, end, pattern, 0)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private static boolean matches(ByteBuf content, int pos, int end, byte[] pattern, int offset) {
+        if (pos + pattern.length - offset > end) {
+            return false;
+        }
+        for (int i = offset; i < pattern.length; i++) {
+            if (content.getByte(pos + i - offset) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
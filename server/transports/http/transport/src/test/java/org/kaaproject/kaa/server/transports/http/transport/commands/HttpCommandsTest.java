@@ -16,19 +16,37 @@
 
 package org.kaaproject.kaa.server.transports.http.transport.commands;
 
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import org.apache.commons.codec.binary.Base64;
 import org.junit.Assert;
 import org.junit.Test;
+import org.kaaproject.kaa.common.Constants;
 import org.kaaproject.kaa.common.endpoint.CommonEPConstans;
+import org.kaaproject.kaa.server.common.server.BadRequestException;
 import org.kaaproject.kaa.server.transports.http.transport.messages.NettyHttpSyncMessage;
 import org.kaaproject.kaa.server.transports.http.transport.netty.AbstractCommand;
 import org.mockito.Mockito;
 
+import java.nio.charset.Charset;
 import java.util.UUID;
 
 import static org.mockito.Mockito.mock;
 
 public class HttpCommandsTest {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final String BOUNDARY = "qQ8a-_boundary";
+
+    private static final byte[] SIGNATURE = new byte[] {1, 2, 3};
+    private static final byte[] KEY = new byte[] {4, 5, '\r', '\n', 6};
+    private static final byte[] DATA = new byte[] {7, 8, 9, 10};
+
     @Test
     public void abstractHttpSyncCommandGetSetTest() {
         AbstractHttpSyncCommand abstractHttpSyncCommand = mock(AbstractHttpSyncCommand.class, Mockito.CALLS_REAL_METHODS);
@@ -69,4 +87,88 @@ public class HttpCommandsTest {
     public void longSyncCommandTest() {
         Assert.assertEquals(CommonEPConstans.LONG_SYNC_COMMAND, LongSyncCommand.getCommandName());
     }
+
+    @Test
+    public void parseMultipartRequestTest() throws Exception {
+        String body = part(CommonEPConstans.REQUEST_SIGNATURE_ATTR_NAME, SIGNATURE, false)
+                + part(CommonEPConstans.REQUEST_KEY_ATTR_NAME, KEY, false)
+                + part(CommonEPConstans.REQUEST_DATA_ATTR_NAME, DATA, false)
+                + part(CommonEPConstans.NEXT_PROTOCOL_ATTR_NAME, "42".getBytes(US_ASCII), false)
+                + "--" + BOUNDARY + "--\r\n";
+        SyncCommand command = parse(multipartRequest(body));
+        Assert.assertArrayEquals(SIGNATURE, command.getRequestSignature());
+        Assert.assertArrayEquals(KEY, command.getRequestkey());
+        Assert.assertArrayEquals(DATA, command.getRequestData());
+        Assert.assertEquals(42, command.getNextProtocol());
+    }
+
+    @Test
+    public void parseBinaryRequestWithWhitespaceInHeaderTest() throws Exception {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, CommonEPConstans.SYNC_URI,
+                Unpooled.wrappedBuffer(DATA));
+        request.headers().set(HttpHeaders.Names.CONTENT_TYPE, CommonEPConstans.REQUEST_BINARY_CONTENT_TYPE);
+        String signature = Base64.encodeBase64String(SIGNATURE);
+        request.headers().set(CommonEPConstans.SIGNATURE_HEADER_NAME, signature.substring(0, 4) + " " + signature.substring(4));
+        SyncCommand command = parse(request);
+        Assert.assertArrayEquals(SIGNATURE, command.getRequestSignature());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void parseBinaryRequestWithInvalidHeaderTest() throws Exception {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, CommonEPConstans.SYNC_URI,
+                Unpooled.wrappedBuffer(DATA));
+        request.headers().set(HttpHeaders.Names.CONTENT_TYPE, CommonEPConstans.REQUEST_BINARY_CONTENT_TYPE);
+        request.headers().set(CommonEPConstans.REQUEST_KEY_HEADER_NAME, "QUJD=RA");
+        parse(request);
+    }
+
+    @Test
+    public void parseUnexpectedMultipartRequestTest() throws Exception {
+        String body = part(CommonEPConstans.REQUEST_KEY_ATTR_NAME, KEY, false)
+                + part(CommonEPConstans.REQUEST_DATA_ATTR_NAME, DATA, true)
+                + "--" + BOUNDARY + "--\r\n";
+        SyncCommand command = parse(multipartRequest(body));
+        Assert.assertArrayEquals(KEY, command.getRequestkey());
+        Assert.assertNull(command.getRequestData());
+        Assert.assertEquals(Constants.KAA_PLATFORM_PROTOCOL_AVRO_ID, command.getNextProtocol());
+    }
+
+    @Test
+    public void parseBinaryRequestTest() throws Exception {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, CommonEPConstans.SYNC_URI,
+                Unpooled.wrappedBuffer(DATA));
+        request.headers().set(HttpHeaders.Names.CONTENT_TYPE, CommonEPConstans.REQUEST_BINARY_CONTENT_TYPE);
+        request.headers().set(CommonEPConstans.SIGNATURE_HEADER_NAME, Base64.encodeBase64String(SIGNATURE));
+        request.headers().set(CommonEPConstans.REQUEST_KEY_HEADER_NAME, Base64.encodeBase64String(KEY));
+        request.headers().set(CommonEPConstans.NEXT_PROTOCOL_HEADER_NAME, "42");
+        SyncCommand command = parse(request);
+        Assert.assertArrayEquals(SIGNATURE, command.getRequestSignature());
+        Assert.assertArrayEquals(KEY, command.getRequestkey());
+        Assert.assertArrayEquals(DATA, command.getRequestData());
+        Assert.assertEquals(42, command.getNextProtocol());
+    }
+
+    private static SyncCommand parse(HttpRequest request) throws Exception {
+        SyncCommand command = (SyncCommand) new SyncCommandFactory().createCommandProcessor();
+        command.setRequest(request);
+        command.parse();
+        return command;
+    }
+
+    private static FullHttpRequest multipartRequest(String body) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, CommonEPConstans.SYNC_URI,
+                Unpooled.copiedBuffer(body, US_ASCII));
+        request.headers().set(HttpHeaders.Names.CONTENT_TYPE, "multipart/form-data; boundary=" + BOUNDARY);
+        request.headers().set(HttpHeaders.Names.CONTENT_LENGTH, request.content().readableBytes());
+        return request;
+    }
+
+    private static String part(String name, byte[] value, boolean file) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"" + (file ? "; filename=\"" + name + "\"" : "") + "\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Transfer-Encoding: binary\r\n"
+                + "\r\n"
+                + new String(value, US_ASCII) + "\r\n";
+    }
 }
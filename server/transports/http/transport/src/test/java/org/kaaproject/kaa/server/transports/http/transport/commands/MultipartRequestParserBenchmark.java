@@ -0,0 +1,158 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.transports.http.transport.commands;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+import io.netty.handler.codec.http.multipart.InterfaceHttpData;
+import io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64;
+import org.kaaproject.kaa.common.endpoint.CommonEPConstans;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the Netty multipart decoder with {@link MultipartRequestParser}
+ * and the raw binary body on a sync request with a 256 byte signature, a 256
+ * byte session key and request data of {@link #dataSize} bytes. Run it with
+ * {@link #main(String[])} from the test classpath, with <code>-prof gc</code>
+ * to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultipartRequestParserBenchmark {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final String BOUNDARY = "Xq1tZ-9_kaa_benchmark_boundary";
+
+    @Param({"1024", "65536"})
+    private int dataSize;
+
+    private FullHttpRequest multipartRequest;
+    private FullHttpRequest binaryRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        byte[] signature = new byte[256];
+        byte[] key = new byte[256];
+        byte[] data = new byte[dataSize];
+        random.nextBytes(signature);
+        random.nextBytes(key);
+        random.nextBytes(data);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writePart(body, CommonEPConstans.REQUEST_SIGNATURE_ATTR_NAME, signature);
+        writePart(body, CommonEPConstans.REQUEST_KEY_ATTR_NAME, key);
+        writePart(body, CommonEPConstans.REQUEST_DATA_ATTR_NAME, data);
+        body.write(("--" + BOUNDARY + "--\r\n").getBytes(US_ASCII));
+        multipartRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, CommonEPConstans.SYNC_URI,
+                Unpooled.wrappedBuffer(body.toByteArray()));
+        multipartRequest.headers().set(HttpHeaders.Names.CONTENT_TYPE, "multipart/form-data; boundary=" + BOUNDARY);
+        multipartRequest.headers().set(HttpHeaders.Names.CONTENT_LENGTH, body.size());
+
+        binaryRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, CommonEPConstans.SYNC_URI,
+                Unpooled.wrappedBuffer(data));
+        binaryRequest.headers().set(HttpHeaders.Names.CONTENT_TYPE, CommonEPConstans.REQUEST_BINARY_CONTENT_TYPE);
+        binaryRequest.headers().set(HttpHeaders.Names.CONTENT_LENGTH, data.length);
+        binaryRequest.headers().set(CommonEPConstans.SIGNATURE_HEADER_NAME, Base64.encodeBase64String(signature));
+        binaryRequest.headers().set(CommonEPConstans.REQUEST_KEY_HEADER_NAME, Base64.encodeBase64String(key));
+    }
+
+    @TearDown
+    public void tearDown() {
+        multipartRequest.release();
+        binaryRequest.release();
+    }
+
+    @Benchmark
+    public void parseWithDecoder(Blackhole blackhole) throws Exception {
+        HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(new DefaultHttpDataFactory(DefaultHttpDataFactory.MINSIZE),
+                multipartRequest);
+        try {
+            for (InterfaceHttpData data : decoder.getBodyHttpDatas()) {
+                if (data.getHttpDataType() == HttpDataType.Attribute) {
+                    blackhole.consume(((Attribute) data).get());
+                }
+            }
+        } finally {
+            decoder.destroy();
+        }
+    }
+
+    @Benchmark
+    public SyncCommand parseMultipart() throws Exception {
+        return parse(multipartRequest);
+    }
+
+    @Benchmark
+    public SyncCommand parseBinary() throws Exception {
+        return parse(binaryRequest);
+    }
+
+    private static SyncCommand parse(FullHttpRequest request) throws Exception {
+        SyncCommand command = new SyncCommand();
+        command.setRequest(request);
+        command.parse();
+        return command;
+    }
+
+    private static void writePart(ByteArrayOutputStream out, String name, byte[] value) throws Exception {
+        out.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Transfer-Encoding: binary\r\n"
+                + "\r\n").getBytes(US_ASCII));
+        out.write(value);
+        out.write("\r\n".getBytes(US_ASCII));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MultipartRequestParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ *  Copyright 2014-2016 CyberVision, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.transports.http.transport.commands;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultipartRequestParserTest {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final String BOUNDARY = "9ZxQ-_boundary";
+
+    @Test
+    public void testGetBoundary() {
+        Assert.assertEquals(BOUNDARY, MultipartRequestParser.getBoundary("multipart/form-data; boundary=" + BOUNDARY));
+        Assert.assertEquals(BOUNDARY, MultipartRequestParser.getBoundary("Multipart/Form-Data; charset=UTF-8; Boundary=\"" + BOUNDARY + "\""));
+        Assert.assertNull(MultipartRequestParser.getBoundary("application/octet-stream"));
+        Assert.assertNull(MultipartRequestParser.getBoundary("multipart/form-data"));
+        Assert.assertNull(MultipartRequestParser.getBoundary(null));
+    }
+
+    @Test
+    public void testParse() {
+        byte[] key = new byte[] {1, 2, '\r', '\n', '-', '-', 3};
+        byte[] data = new byte[] {'\r', '\n', '-', '-', 'x'};
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"requestKey\"\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Transfer-Encoding: binary\r\n"
+                + "\r\n" + ascii(key) + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "content-disposition: form-data; name=requestData\r\n"
+                + "\r\n" + ascii(data) + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"nextProtocol\"\r\n"
+                + "\r\n"
+                + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        Map<String, byte[]> parts = MultipartRequestParser.parse(buffer("preamble\r\n" + body), BOUNDARY);
+        Assert.assertNotNull(parts);
+        Assert.assertEquals(3, parts.size());
+        Assert.assertArrayEquals(key, parts.get("requestKey"));
+        Assert.assertArrayEquals(data, parts.get("requestData"));
+        Assert.assertArrayEquals(new byte[0], parts.get("nextProtocol"));
+
+        Assert.assertEquals(3, MultipartRequestParser.parse(buffer(body), BOUNDARY).size());
+    }
+
+    @Test
+    public void testParseSlice() {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"requestData\"\r\n"
+                + "\r\n"
+                + "data\r\n"
+                + "--" + BOUNDARY + "--";
+        ByteBuf content = buffer("xx" + body + "yy").slice(2, body.length());
+        Map<String, byte[]> parts = MultipartRequestParser.parse(content, BOUNDARY);
+        Assert.assertArrayEquals("data".getBytes(US_ASCII), parts.get("requestData"));
+        Assert.assertEquals(0, content.readerIndex());
+    }
+
+    @Test
+    public void testParseUnexpectedLayout() {
+        String part = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"requestData\"\r\n"
+                + "\r\n"
+                + "data\r\n";
+        String end = "--" + BOUNDARY + "--\r\n";
+        Assert.assertNull(MultipartRequestParser.parse(buffer(part), BOUNDARY));
+        Assert.assertNull(MultipartRequestParser.parse(buffer(end), BOUNDARY));
+        Assert.assertNull(MultipartRequestParser.parse(buffer("data"), BOUNDARY));
+        Assert.assertNull(MultipartRequestParser.parse(buffer(part.replace("name=", "filename=\"a.bin\"; name=") + end), BOUNDARY));
+        Assert.assertNull(MultipartRequestParser.parse(buffer(part.replace("\r\n\r\n", "\r\nContent-Transfer-Encoding: base64\r\n\r\n") + end),
+                BOUNDARY));
+        Assert.assertNull(MultipartRequestParser.parse(buffer(part.replace("form-data", "attachment") + end), BOUNDARY));
+        Assert.assertNull(MultipartRequestParser.parse(buffer(part.replace("Content-Disposition", "Content-Type") + end), BOUNDARY));
+    }
+
+    private static ByteBuf buffer(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(US_ASCII));
+    }
+
+    private static String ascii(byte[] value) {
+        return new String(value, US_ASCII);
+    }
+}